@@ -0,0 +1,36 @@
+package br.com.gestao.config;
+
+import java.util.concurrent.Executors;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+// Modo de threads virtuais (gestao.threads-virtuais=true), so no build com o profile java21 (JDK 21).
+// Cada requisicao do Tomcat roda numa thread virtual propria, e com ela o servico e o JDBC: a requisicao parada
+// esperando o banco libera a thread de plataforma (carrier) e server.tomcat.threads.max deixa de ser o limite.
+// O limite real de concorrencia passa a ser o pool de conexoes (spring.datasource.hikari.maximum-pool-size):
+// alem dele as requisicoes esperam uma conexao por ate connection-timeout. O applicationTaskExecutor (@Async e
+// requisicoes assincronas do Spring MVC) tambem passa a usar uma thread virtual por tarefa.
+@Configuration
+@ConditionalOnProperty(name = "gestao.threads-virtuais", havingValue = "true")
+public class ThreadsVirtuais {
+
+	@Bean
+	TomcatProtocolHandlerCustomizer<?> threadsVirtuaisTomcat() {
+		return protocolHandler -> protocolHandler.setExecutor(
+				Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-virtual-", 0).factory()));
+	}
+
+	@Bean(name = { TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+			AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME })
+	AsyncTaskExecutor applicationTaskExecutor() {
+		return new TaskExecutorAdapter(
+				Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("tarefa-virtual-", 0).factory()));
+	}
+}
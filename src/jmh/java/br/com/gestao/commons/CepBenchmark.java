@@ -0,0 +1,43 @@
+package br.com.gestao.commons;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Normalizacao do CEP gravado/consultado: "replaceAll" e a versao anterior (regex compilada a cada chamada).
+// Com -prof gc o gc.alloc.rate.norm de "normalizar" e zero para o CEP ja limpo.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CepBenchmark {
+
+	@Param({ "59248970", "59248-970" })
+	public String cep;
+
+	@Benchmark
+	public String replaceAll() {
+		return cep.replaceAll("[^a-zA-Z0-9 ]", "");
+	}
+
+	@Benchmark
+	public String normalizar() {
+		return Cep.normalizar(cep);
+	}
+
+	@Benchmark
+	public int comoInt() {
+		return Cep.comoInt(cep);
+	}
+}
@@ -0,0 +1,61 @@
+package br.com.gestao.commons;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.gestao.dto.EnderecoDTO;
+
+// Serializacao Jackson da resposta das listagens paginadas de endereco (listar-todos, listar-por-*).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseWrapperBenchmark {
+
+	@Param({ "1", "50", "500" })
+	private int tamanhoPagina;
+
+	private ObjectMapper objectMapper;
+	private ResponseWrapper<Page<EnderecoDTO>> resposta;
+
+	@Setup
+	public void setUp() {
+		// mesma configuracao do ObjectMapper criado pelo Spring Boot
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+		List<EnderecoDTO> enderecos = new ArrayList<>();
+		for (int i = 0; i < tamanhoPagina; i++) {
+			enderecos.add(EnderecoDTO.builder().id((long) i).cep("59248970").logradouro("Estrada do Cajueiro, s/n")
+					.numero(String.valueOf(i % 1000)).estado("RN").cidade("Lagoa Salgada").principal(i == 0).build());
+		}
+		resposta = new ResponseWrapper<>(new PageImpl<>(enderecos, PageRequest.of(0, tamanhoPagina), 10_000), null);
+	}
+
+	@Benchmark
+	public void serializar() throws IOException {
+		objectMapper.writeValue(OutputStream.nullOutputStream(), resposta);
+	}
+}
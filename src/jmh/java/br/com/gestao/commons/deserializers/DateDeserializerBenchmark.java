@@ -0,0 +1,78 @@
+package br.com.gestao.commons.deserializers;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+
+import br.com.gestao.commons.Const;
+
+// Custo do DateDeserializer por data de nascimento recebida no JSON.
+// O benchmark "parser" mede so a criacao do JsonParser, que tambem entra no "deserialize".
+// "simpleDateFormat" e "dateTimeFormatter" leem o mesmo texto como a versao anterior (um SimpleDateFormat,
+// aqui um por thread) e como o java.time faria; com -prof gc o gc.alloc.rate.norm mostra o lixo por data.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DateDeserializerBenchmark {
+
+	private static final String DATA = "17/10/1990";
+	private static final String DATA_JSON = "\"" + DATA + "\"";
+
+	private JsonFactory jsonFactory;
+	private DateDeserializer dateDeserializer;
+	private SimpleDateFormat simpleDateFormat;
+	private DateTimeFormatter dateTimeFormatter;
+
+	@Setup
+	public void setUp() {
+		jsonFactory = new JsonFactory();
+		dateDeserializer = new DateDeserializer();
+		simpleDateFormat = new SimpleDateFormat(Const.FORMATO_DATA_BR);
+		dateTimeFormatter = DateTimeFormatter.ofPattern(Const.FORMATO_DATA_BR);
+	}
+
+	@Benchmark
+	public JsonParser parser() throws IOException {
+		JsonParser jsonParser = jsonFactory.createParser(DATA_JSON);
+		jsonParser.nextToken();
+		return jsonParser;
+	}
+
+	@Benchmark
+	public LocalDate deserialize() throws IOException {
+		JsonParser jsonParser = jsonFactory.createParser(DATA_JSON);
+		jsonParser.nextToken();
+		return dateDeserializer.deserialize(jsonParser, null);
+	}
+
+	@Benchmark
+	public Date simpleDateFormat() throws ParseException {
+		return simpleDateFormat.parse(DATA);
+	}
+
+	@Benchmark
+	public LocalDate dateTimeFormatter() {
+		return LocalDate.parse(DATA, dateTimeFormatter);
+	}
+}
@@ -0,0 +1,257 @@
+package br.com.gestao.controllers;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.h2.tools.Server;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import br.com.gestao.Application;
+import br.com.gestao.dto.EnderecoDTO;
+import br.com.gestao.dto.ItemLoteDTO;
+import br.com.gestao.dto.UsuarioDTO;
+import br.com.gestao.services.LoteUsuarioService;
+
+// Teste de carga de GET /usuarios/{id} e GET /usuarios/{id}/enderecos com a aplicacao inteira (Tomcat, servicos, JPA)
+// contra um H2 servido por TCP: o JDBC bloqueia no socket como no MySQL. Sem os caches (spring.cache.type=none e sem
+// cache de segundo nivel) toda requisicao vai ao banco. Cada cliente e fechado (manda a proxima requisicao quando a
+// anterior responde), com ids sorteados; depois do aquecimento mede vazao e latencia (p50/p99/p99.9, com o tempo
+// das requisicoes com erro) por modo e numero de clientes:
+// - plataforma: o pool padrao do Tomcat (200 threads de plataforma);
+// - virtual: gestao.threads-virtuais=true, so com o build do profile java21 rodando no JDK 21.
+// Nos dois o pool do Hikari (--conexoes) e o limite de requisicoes no banco ao mesmo tempo.
+// mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=br.com.gestao.controllers.CargaRequisicoes -Djmh.args="1000 5000 --segundos=20"
+// (com -Pbenchmark,java21 no JDK 21 para medir tambem o modo virtual). Opcoes: --segundos, --aquecimento, --conexoes,
+// --usuarios, --modos=plataforma,virtual. Cada cliente abre uma conexao HTTP: o limite de arquivos abertos (ulimit -n)
+// precisa passar do dobro do maior numero de clientes.
+public class CargaRequisicoes {
+
+	private static final String PLATAFORMA = "plataforma";
+	private static final String VIRTUAL = "virtual";
+
+	private static final int ENDERECOS_POR_USUARIO = 3;
+
+	private final int segundos;
+	private final int aquecimento;
+	private final int conexoes;
+	private final int usuarios;
+	private final String url;
+
+	private List<Long> ids;
+
+	private CargaRequisicoes(Map<String, String> opcoes, String url) {
+		this.segundos = Integer.parseInt(opcoes.getOrDefault("segundos", "20"));
+		this.aquecimento = Integer.parseInt(opcoes.getOrDefault("aquecimento", "5"));
+		this.conexoes = Integer.parseInt(opcoes.getOrDefault("conexoes", "20"));
+		this.usuarios = Integer.parseInt(opcoes.getOrDefault("usuarios", "2000"));
+		this.url = url;
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> opcoes = new HashMap<>();
+		List<Integer> clientes = new ArrayList<>();
+		for (String arg : args) {
+			if (arg.startsWith("--")) {
+				int igual = arg.indexOf('=');
+				opcoes.put(arg.substring(2, igual), arg.substring(igual + 1));
+			} else {
+				clientes.add(Integer.valueOf(arg));
+			}
+		}
+		if (clientes.isEmpty()) {
+			clientes = Arrays.asList(1000, 5000);
+		}
+		List<String> modos = new ArrayList<>(Arrays.asList(opcoes.getOrDefault("modos", PLATAFORMA + "," + VIRTUAL).split(",")));
+		if (modos.contains(VIRTUAL) && !threadsVirtuaisDisponiveis()) {
+			System.out.println("Modo virtual ignorado: precisa do JDK 21 e do build com o profile java21");
+			modos.remove(VIRTUAL);
+		}
+
+		// o restart do devtools subiria a aplicacao de novo sem as propriedades da carga
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		Server h2 = Server.createTcpServer("-tcpPort", String.valueOf(portaLivre()), "-ifNotExists").start();
+		try {
+			CargaRequisicoes carga = new CargaRequisicoes(opcoes,
+					"jdbc:h2:tcp://localhost:" + h2.getPort() + "/mem:carga;DB_CLOSE_DELAY=-1");
+			System.out.printf("%-10s %8s %10s %10s %10s %10s %10s %8s%n", "modo", "clientes", "requisicoes", "req/s",
+					"p50 ms", "p99 ms", "p99.9 ms", "erros");
+			for (String modo : modos) {
+				carga.executar(modo, clientes);
+			}
+		} finally {
+			h2.stop();
+		}
+	}
+
+	private void executar(String modo, List<Integer> clientes) throws InterruptedException {
+		// como argumentos da linha de comando: passam na frente do application.properties
+		ConfigurableApplicationContext contexto = new SpringApplicationBuilder(Application.class).run(propriedades(modo));
+		try {
+			if (this.ids == null) {
+				this.ids = cadastrar(contexto.getBean(LoteUsuarioService.class), this.usuarios);
+			}
+			int porta = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+			for (int quantidade : clientes) {
+				medir(modo, quantidade, "http://localhost:" + porta);
+			}
+		} finally {
+			contexto.close();
+		}
+	}
+
+	private String[] propriedades(String modo) {
+		return new String[] {
+				"--server.port=0",
+				"--spring.datasource.url=" + this.url,
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.datasource.driver-class-name=org.h2.Driver",
+				"--spring.datasource.hikari.maximum-pool-size=" + this.conexoes,
+				"--spring.jpa.show-sql=false",
+				"--spring.jpa.properties.hibernate.format_sql=false",
+				"--spring.jpa.properties.hibernate.generate_statistics=false",
+				"--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+				"--spring.jpa.properties.hibernate.cache.use_query_cache=false",
+				"--spring.cache.type=none",
+				"--gestao.jobs.retomar=false",
+				"--gestao.threads-virtuais=" + VIRTUAL.equals(modo),
+				"--logging.level.root=WARN" };
+	}
+
+	private static List<Long> cadastrar(LoteUsuarioService loteUsuarioService, int quantidade) {
+		List<UsuarioDTO> usuarios = new ArrayList<>(quantidade);
+		for (int i = 0; i < quantidade; i++) {
+			UsuarioDTO usuario = UsuarioDTO.builder().nome("Usuario " + i).build();
+			for (int e = 0; e < ENDERECOS_POR_USUARIO; e++) {
+				usuario.getEnderecos().add(EnderecoDTO.builder()
+						.cep(String.format("%08d", 10000000 + i * ENDERECOS_POR_USUARIO + e))
+						.logradouro("Rua " + e)
+						.numero(String.valueOf(i))
+						.cidade("Sao Paulo")
+						.estado("SP")
+						.principal(e == 0)
+						.build());
+			}
+			usuarios.add(usuario);
+		}
+		List<Long> ids = new ArrayList<>(quantidade);
+		for (ItemLoteDTO item : loteUsuarioService.gravar(usuarios)) {
+			if (item.getStatus() != ItemLoteDTO.Status.ERRO) {
+				ids.add(item.getId());
+			}
+		}
+		return ids;
+	}
+
+	private void medir(String modo, int quantidade, String base) throws InterruptedException {
+		HttpClient cliente = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(30))
+				.build();
+		Rodada aquecimento = new Rodada(cliente, base, quantidade);
+		aquecimento.rodar(this.aquecimento);
+		Rodada medicao = new Rodada(cliente, base, quantidade);
+		medicao.rodar(this.segundos);
+
+		Histogram histograma = medicao.latencias.getIntervalHistogram();
+		long requisicoes = histograma.getTotalCount();
+		System.out.printf("%-10s %8d %10d %10.0f %10.1f %10.1f %10.1f %8d%n", modo, quantidade, requisicoes,
+				requisicoes / (double) this.segundos, ms(histograma.getValueAtPercentile(50)),
+				ms(histograma.getValueAtPercentile(99)), ms(histograma.getValueAtPercentile(99.9)), medicao.erros.sum());
+	}
+
+	private static double ms(long nanos) {
+		return nanos / 1_000_000.0;
+	}
+
+	// Uma janela de medicao: cada cliente manda uma requisicao, espera a resposta e manda a proxima ate o fim da janela.
+	// So entram as requisicoes respondidas dentro dela
+	private final class Rodada {
+
+		private final HttpClient cliente;
+		private final String base;
+		private final CountDownLatch encerrados;
+		private final Recorder latencias = new Recorder(3);
+		private final LongAdder erros = new LongAdder();
+		private volatile boolean encerrando;
+
+		private Rodada(HttpClient cliente, String base, int quantidade) {
+			this.cliente = cliente;
+			this.base = base;
+			this.encerrados = new CountDownLatch(quantidade);
+		}
+
+		private void rodar(int segundos) throws InterruptedException {
+			for (long i = this.encerrados.getCount(); i > 0; i--) {
+				this.enviar();
+			}
+			TimeUnit.SECONDS.sleep(segundos);
+			this.encerrando = true;
+			if (!this.encerrados.await(2, TimeUnit.MINUTES)) {
+				System.out.println("Clientes sem resposta no fim da rodada: " + this.encerrados.getCount());
+			}
+		}
+
+		private void enviar() {
+			if (this.encerrando) {
+				this.encerrados.countDown();
+				return;
+			}
+			long inicio = System.nanoTime();
+			this.cliente.sendAsync(this.requisicao(), HttpResponse.BodyHandlers.discarding()).whenComplete((resposta, erro) -> {
+				if (this.encerrando) {
+					this.encerrados.countDown();
+					return;
+				}
+				this.latencias.recordValue(System.nanoTime() - inicio);
+				if (erro != null || resposta.statusCode() != 200) {
+					this.erros.increment();
+				}
+				this.enviar();
+			});
+		}
+
+		private HttpRequest requisicao() {
+			ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+			Long id = CargaRequisicoes.this.ids.get(aleatorio.nextInt(CargaRequisicoes.this.ids.size()));
+			String caminho = aleatorio.nextBoolean() ? "/usuarios/" + id : "/usuarios/" + id + "/enderecos";
+			return HttpRequest.newBuilder(URI.create(this.base + caminho)).timeout(Duration.ofSeconds(60)).GET().build();
+		}
+	}
+
+	private static boolean threadsVirtuaisDisponiveis() {
+		if (Runtime.version().feature() < 21) {
+			return false;
+		}
+		try {
+			Class.forName("br.com.gestao.config.ThreadsVirtuais");
+			return true;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	private static int portaLivre() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}
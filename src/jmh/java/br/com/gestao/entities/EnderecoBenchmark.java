@@ -0,0 +1,50 @@
+package br.com.gestao.entities;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Normalizacao do CEP executada nos callbacks @PrePersist/@PreUpdate a cada insert/update de endereco.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnderecoBenchmark {
+
+	@Param({ "59248-970", "59.248-970", "59248970" })
+	private String cep;
+
+	private Endereco endereco;
+
+	@Setup
+	public void setUp() {
+		endereco = Endereco.builder().logradouro("Estrada do Cajueiro, s/n").numero("168").estado("RN")
+				.cidade("Lagoa Salgada").build();
+	}
+
+	@Benchmark
+	public String prePersist() {
+		endereco.setCep(cep);
+		endereco.prePersist();
+		return endereco.getCep();
+	}
+
+	@Benchmark
+	public String preUpdate() {
+		endereco.setCep(cep);
+		endereco.preUpdate();
+		return endereco.getCep();
+	}
+}
@@ -0,0 +1,186 @@
+package br.com.gestao.entities;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.MappedSuperclass;
+import javax.persistence.Table;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+// Inserts concorrentes (um usuario + um endereco por transacao, como no POST /usuarios/salvar) com 1, 8 e 32
+// escritores, comparando a geracao de ids antiga (hibernate_sequence compartilhada, um select/update da
+// sequence por linha) com a atual (uma sequence por entidade, blocos de 50 ids com pooled-lo).
+// As sequences sao tabelas (force_table_use), como no MySQL. Por padrao roda num H2 em memoria; para medir
+// no MySQL informe um banco descartavel (as tabelas BM_* sao criadas e apagadas):
+// -Djmh.args="GeracaoIdBenchmark -jvmArgs -Dbenchmark.jdbc.url=jdbc:mysql://localhost:3306/db_bench -jvmArgs -Dbenchmark.jdbc.password=root"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class GeracaoIdBenchmark {
+
+	@Param({ "compartilhada", "pooled" })
+	private String geracao;
+
+	private HikariDataSource dataSource;
+	private SessionFactory sessionFactory;
+	private Supplier<Linha> novoUsuario;
+	private Supplier<Linha> novoEndereco;
+
+	@Setup
+	public void setUp() {
+		dataSource = new HikariDataSource();
+		dataSource.setJdbcUrl(System.getProperty("benchmark.jdbc.url", "jdbc:h2:mem:geracao_id;DB_CLOSE_DELAY=-1"));
+		dataSource.setUsername(System.getProperty("benchmark.jdbc.username", "root"));
+		dataSource.setPassword(System.getProperty("benchmark.jdbc.password", ""));
+		// cada escritor usa uma conexao para o insert e outra para atualizar a sequence
+		dataSource.setMaximumPoolSize(80);
+
+		StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+				.applySetting(AvailableSettings.DATASOURCE, dataSource)
+				.applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+				.build();
+		MetadataSources metadata = new MetadataSources(registry);
+		if ("pooled".equals(geracao)) {
+			metadata.addAnnotatedClass(UsuarioPooled.class).addAnnotatedClass(EnderecoPooled.class);
+			novoUsuario = UsuarioPooled::new;
+			novoEndereco = EnderecoPooled::new;
+		} else {
+			metadata.addAnnotatedClass(UsuarioCompartilhada.class).addAnnotatedClass(EnderecoCompartilhada.class);
+			novoUsuario = UsuarioCompartilhada::new;
+			novoEndereco = EnderecoCompartilhada::new;
+		}
+		sessionFactory = metadata.buildMetadata().buildSessionFactory();
+	}
+
+	@TearDown
+	public void tearDown() {
+		sessionFactory.close();
+		dataSource.close();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public Object escritores01() {
+		return inserir();
+	}
+
+	@Benchmark
+	@Threads(8)
+	public Object escritores08() {
+		return inserir();
+	}
+
+	@Benchmark
+	@Threads(32)
+	public Object escritores32() {
+		return inserir();
+	}
+
+	private Object inserir() {
+		try (Session session = sessionFactory.openSession()) {
+			Transaction transaction = session.beginTransaction();
+			Linha usuario = novoUsuario.get();
+			usuario.setValor("Manoel Rafael Osvaldo Assis");
+			session.persist(usuario);
+			Linha endereco = novoEndereco.get();
+			endereco.setValor("59248970");
+			session.persist(endereco);
+			transaction.commit();
+			return usuario;
+		}
+	}
+
+	@MappedSuperclass
+	public abstract static class Linha {
+
+		@Column(name = "valor", length = 200)
+		private String valor;
+
+		public void setValor(String valor) {
+			this.valor = valor;
+		}
+	}
+
+	// ANTES: AS DUAS ENTIDADES NA MESMA SEQUENCE, UMA IDA AO BANCO POR ID
+	@Entity(name = "UsuarioCompartilhada")
+	@Table(name = "BM_USUARIO_COMPARTILHADA")
+	public static class UsuarioCompartilhada extends Linha {
+		@Id
+		@GeneratedValue(generator = "BM_USUARIO_COMPARTILHADA")
+		@GenericGenerator(name = "BM_USUARIO_COMPARTILHADA", strategy = "enhanced-sequence", parameters = {
+				@Parameter(name = "sequence_name", value = "BM_HIBERNATE_SEQUENCE"),
+				@Parameter(name = "increment_size", value = "1"),
+				@Parameter(name = "force_table_use", value = "true") })
+		private Long id;
+	}
+
+	@Entity(name = "EnderecoCompartilhada")
+	@Table(name = "BM_ENDERECO_COMPARTILHADA")
+	public static class EnderecoCompartilhada extends Linha {
+		@Id
+		@GeneratedValue(generator = "BM_ENDERECO_COMPARTILHADA")
+		@GenericGenerator(name = "BM_ENDERECO_COMPARTILHADA", strategy = "enhanced-sequence", parameters = {
+				@Parameter(name = "sequence_name", value = "BM_HIBERNATE_SEQUENCE"),
+				@Parameter(name = "increment_size", value = "1"),
+				@Parameter(name = "force_table_use", value = "true") })
+		private Long id;
+	}
+
+	// DEPOIS: UMA SEQUENCE POR ENTIDADE, BLOCOS DE 50 IDS (Const.SQ_ID_BLOCO) RESERVADOS POR IDA AO BANCO
+	@Entity(name = "UsuarioPooled")
+	@Table(name = "BM_USUARIO_POOLED")
+	public static class UsuarioPooled extends Linha {
+		@Id
+		@GeneratedValue(generator = "BM_SQ_USUARIO")
+		@GenericGenerator(name = "BM_SQ_USUARIO", strategy = "enhanced-sequence", parameters = {
+				@Parameter(name = "sequence_name", value = "BM_SQ_USUARIO"),
+				@Parameter(name = "increment_size", value = "50"),
+				@Parameter(name = "optimizer", value = "pooled-lo"),
+				@Parameter(name = "force_table_use", value = "true") })
+		private Long id;
+	}
+
+	@Entity(name = "EnderecoPooled")
+	@Table(name = "BM_ENDERECO_POOLED")
+	public static class EnderecoPooled extends Linha {
+		@Id
+		@GeneratedValue(generator = "BM_SQ_ENDERECO")
+		@GenericGenerator(name = "BM_SQ_ENDERECO", strategy = "enhanced-sequence", parameters = {
+				@Parameter(name = "sequence_name", value = "BM_SQ_ENDERECO"),
+				@Parameter(name = "increment_size", value = "50"),
+				@Parameter(name = "optimizer", value = "pooled-lo"),
+				@Parameter(name = "force_table_use", value = "true") })
+		private Long id;
+	}
+}
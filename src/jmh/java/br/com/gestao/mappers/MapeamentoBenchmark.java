@@ -0,0 +1,86 @@
+package br.com.gestao.mappers;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.mapstruct.factory.Mappers;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.com.gestao.dto.EnderecoDTO;
+import br.com.gestao.dto.UsuarioDTO;
+import br.com.gestao.entities.Endereco;
+import br.com.gestao.entities.Usuario;
+
+// Compara o mapeamento gerado (MapStruct) com o ModelMapper usado anteriormente nos servicos.
+// mvn -Pbenchmark test-compile exec:exec -Djmh.args="MapeamentoBenchmark -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapeamentoBenchmark {
+
+	@Param({ "0", "1", "10", "100" })
+	private int quantidadeEnderecos;
+
+	private ModelMapper modelMapper;
+	private UsuarioMapper usuarioMapper;
+	private EnderecoMapper enderecoMapper;
+
+	private Usuario usuario;
+	private Endereco endereco;
+
+	@Setup
+	public void setUp() {
+		// mesma configuracao do bean ModelMapper que existia no AppConfiguration
+		modelMapper = new ModelMapper();
+		modelMapper.emptyTypeMap(Endereco.class, EnderecoDTO.class)
+				.addMappings(mapper -> mapper.skip(EnderecoDTO::setUsuario))
+				.implicitMappings();
+		usuarioMapper = Mappers.getMapper(UsuarioMapper.class);
+		enderecoMapper = Mappers.getMapper(EnderecoMapper.class);
+
+		List<Endereco> enderecos = new ArrayList<>();
+		usuario = Usuario.builder().id(1L).nome("Manoel Rafael Osvaldo Assis").dataNascimento(LocalDate.of(1990, 10, 17)).enderecos(enderecos).build();
+		for (int i = 0; i < quantidadeEnderecos; i++) {
+			enderecos.add(Endereco.builder().id((long) i).cep("59248970").logradouro("Estrada do Cajueiro, s/n")
+					.numero(String.valueOf(i % 1000)).estado("RN").cidade("Lagoa Salgada").usuario(usuario).build());
+		}
+		endereco = Endereco.builder().id(1L).cep("59248970").logradouro("Estrada do Cajueiro, s/n").numero("168")
+				.estado("RN").cidade("Lagoa Salgada").usuario(usuario).build();
+	}
+
+	@Benchmark
+	public UsuarioDTO usuarioModelMapper() {
+		return modelMapper.map(usuario, UsuarioDTO.class);
+	}
+
+	@Benchmark
+	public UsuarioDTO usuarioMapStruct() {
+		return usuarioMapper.toDto(usuario);
+	}
+
+	@Benchmark
+	public EnderecoDTO enderecoModelMapper() {
+		return modelMapper.map(endereco, EnderecoDTO.class);
+	}
+
+	@Benchmark
+	public EnderecoDTO enderecoMapStruct() {
+		return enderecoMapper.toDto(endereco);
+	}
+}
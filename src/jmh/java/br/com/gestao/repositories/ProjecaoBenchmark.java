@@ -0,0 +1,137 @@
+package br.com.gestao.repositories;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import br.com.gestao.dto.EnderecoDTO;
+import br.com.gestao.entities.Endereco;
+import br.com.gestao.entities.Usuario;
+import br.com.gestao.mappers.EnderecoMapper;
+
+// Uma pagina de GET /enderecos/listar-por-estado: entidades gerenciadas + EnderecoMapper (como era) contra
+// a projecao "select new EnderecoDTO" do EnderecoRepository (como e). O score e em paginas por segundo
+// (linhas por segundo = score x tamanhoPagina) e o -prof gc padrao do profile (gc.alloc.rate.norm) da os
+// bytes alocados por pagina.
+// Por padrao roda num H2 em memoria; para medir no MySQL informe um banco descartavel (as tabelas sao criadas e apagadas):
+// -Djmh.args="ProjecaoBenchmark -jvmArgs -Dbenchmark.jdbc.url=jdbc:mysql://localhost:3306/db_bench -jvmArgs -Dbenchmark.jdbc.password=root"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ProjecaoBenchmark {
+
+	private static final int QUANTIDADE_ENDERECOS = 5000;
+
+	private static final String ENTIDADES = "select e from Endereco e where e.estado = :estado order by e.id";
+
+	private static final String PROJECAO = EnderecoRepository.SELECT_ENDERECO_DTO + " where e.estado = :estado order by e.id";
+
+	@Param({ "20", "50", "500" })
+	private int tamanhoPagina;
+
+	private HikariDataSource dataSource;
+	private SessionFactory sessionFactory;
+	private EnderecoMapper enderecoMapper;
+
+	@Setup
+	public void setUp() {
+		dataSource = new HikariDataSource();
+		dataSource.setJdbcUrl(System.getProperty("benchmark.jdbc.url", "jdbc:h2:mem:projecao;DB_CLOSE_DELAY=-1"));
+		dataSource.setUsername(System.getProperty("benchmark.jdbc.username", "root"));
+		dataSource.setPassword(System.getProperty("benchmark.jdbc.password", ""));
+
+		// sem cache de segundo nivel: as duas variantes vao ao banco em toda pagina
+		StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+				.applySetting(AvailableSettings.DATASOURCE, dataSource)
+				.applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+				.applySetting(AvailableSettings.USE_SECOND_LEVEL_CACHE, false)
+				.applySetting(AvailableSettings.USE_QUERY_CACHE, false)
+				.applySetting(AvailableSettings.STATEMENT_BATCH_SIZE, 50)
+				.build();
+		sessionFactory = new MetadataSources(registry)
+				.addAnnotatedClass(Usuario.class)
+				.addAnnotatedClass(Endereco.class)
+				.buildMetadata().buildSessionFactory();
+		enderecoMapper = Mappers.getMapper(EnderecoMapper.class);
+
+		try (Session session = sessionFactory.openSession()) {
+			Transaction transaction = session.beginTransaction();
+			Usuario usuario = Usuario.builder().nome("Manoel Rafael Osvaldo Assis").build();
+			session.persist(usuario);
+			for (int i = 0; i < QUANTIDADE_ENDERECOS; i++) {
+				session.persist(Endereco.builder().cep("59248970").logradouro("Estrada do Cajueiro, s/n").numero("168")
+						.cidade("Lagoa Salgada").estado("RN").usuario(usuario).build());
+				if (i % 50 == 0) {
+					session.flush();
+					session.clear();
+					usuario = session.getReference(Usuario.class, usuario.getId());
+				}
+			}
+			transaction.commit();
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		sessionFactory.close();
+		dataSource.close();
+	}
+
+	@Benchmark
+	public void entidades(Blackhole blackhole) {
+		try (Session session = sessionFactory.openSession()) {
+			Transaction transaction = session.beginTransaction();
+			List<Endereco> enderecos = session.createQuery(ENTIDADES, Endereco.class)
+					.setParameter("estado", "RN")
+					.setMaxResults(tamanhoPagina)
+					.getResultList();
+			List<EnderecoDTO> pagina = new ArrayList<>(enderecos.size());
+			for (Endereco endereco : enderecos) {
+				pagina.add(enderecoMapper.toDto(endereco));
+			}
+			// fim da transacao: o flush confere o snapshot de cada entidade gerenciada
+			transaction.commit();
+			blackhole.consume(pagina);
+		}
+	}
+
+	@Benchmark
+	public void projecao(Blackhole blackhole) {
+		try (Session session = sessionFactory.openSession()) {
+			Transaction transaction = session.beginTransaction();
+			List<EnderecoDTO> pagina = session.createQuery(PROJECAO, EnderecoDTO.class)
+					.setParameter("estado", "RN")
+					.setMaxResults(tamanhoPagina)
+					.getResultList();
+			transaction.commit();
+			blackhole.consume(pagina);
+		}
+	}
+}
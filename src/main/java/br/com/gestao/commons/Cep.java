@@ -0,0 +1,94 @@
+package br.com.gestao.commons;
+
+/**
+ * CEP gravado e consultado sempre do mesmo jeito: so letras e digitos ("59248-970" e "59248 970" viram "59248970").
+ * A normalizacao e uma passada pelos caracteres e devolve a propria String quando nao ha o que tirar
+ * (o caso comum nas gravacoes), sem regex nem copia. Um CEP valido tem exatamente 8 digitos e nenhuma letra,
+ * e pode ser guardado como int (comoInt), ex.: "01001-000" -> 1001000.
+ */
+public final class Cep {
+
+	public static final int DIGITOS = 8;
+
+	public static final int INVALIDO = -1;
+
+	private Cep() {
+	}
+
+	// SO LETRAS E DIGITOS; NULL CONTINUA NULL
+	public static String normalizar(String cep) {
+		if (cep == null) {
+			return null;
+		}
+		int tamanho = cep.length();
+		int i = 0;
+		while (i < tamanho && letraOuDigito(cep.charAt(i))) {
+			i++;
+		}
+		if (i == tamanho) {
+			return cep;
+		}
+		StringBuilder normalizado = new StringBuilder(tamanho - 1).append(cep, 0, i);
+		for (i++; i < tamanho; i++) {
+			char c = cep.charAt(i);
+			if (letraOuDigito(c)) {
+				normalizado.append(c);
+			}
+		}
+		return normalizado.toString();
+	}
+
+	// CEP COMO INT (8 DIGITOS, IGNORANDO PONTUACAO E ESPACOS); INVALIDO (-1) SE TIVER LETRA OU OUTRA QUANTIDADE DE DIGITOS
+	public static int comoInt(String cep) {
+		if (cep == null) {
+			return INVALIDO;
+		}
+		int valor = 0;
+		int digitos = 0;
+		for (int i = 0; i < cep.length(); i++) {
+			char c = cep.charAt(i);
+			if (c >= '0' && c <= '9') {
+				if (++digitos > DIGITOS) {
+					return INVALIDO;
+				}
+				valor = valor * 10 + (c - '0');
+			} else if (letraOuDigito(c)) {
+				return INVALIDO;
+			}
+		}
+		return digitos == DIGITOS ? valor : INVALIDO;
+	}
+
+	// SO ASCII, COMO O [^a-zA-Z0-9] QUE ERA USADO ANTES
+	private static boolean letraOuDigito(char c) {
+		return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+	}
+
+	public static boolean valido(String cep) {
+		return comoInt(cep) != INVALIDO;
+	}
+
+	// PREFIXO DE BUSCA POR FAIXA: DE 1 A 8 DIGITOS, SEM PONTUACAO NEM LETRAS
+	public static boolean prefixoValido(String prefixo) {
+		if (prefixo == null || prefixo.isEmpty() || prefixo.length() > DIGITOS) {
+			return false;
+		}
+		for (int i = 0; i < prefixo.length(); i++) {
+			char c = prefixo.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// INT DE comoInt DE VOLTA PARA OS 8 DIGITOS (ZEROS A ESQUERDA)
+	public static String formatar(int cep) {
+		char[] digitos = new char[DIGITOS];
+		for (int i = DIGITOS - 1; i >= 0; i--) {
+			digitos[i] = (char) ('0' + cep % 10);
+			cep /= 10;
+		}
+		return new String(digitos);
+	}
+}
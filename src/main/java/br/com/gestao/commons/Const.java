@@ -12,7 +12,49 @@ public class Const {
 	
 	public static final String FORMATO_DATA_BR = "dd/MM/yyyy";
 	
+	//LINHAS BUSCADAS POR IDA AO BANCO NAS CONSULTAS EM STREAM (EXPORTACAO)
+	public static final String FETCH_SIZE_EXPORTACAO = "1000";
+	
+	//NOMES DE SEQUENCES (UMA POR ENTIDADE; NO MYSQL SAO TABELAS DE UMA LINHA)
+	//CADA IDA AO BANCO RESERVA UM BLOCO DE IDS (POOLED-LO), O QUE PERMITE AGRUPAR OS INSERTS EM LOTES JDBC
+	public static final String SQ_USUARIO = "SQ_USUARIO";
+	public static final String SQ_ENDERECO = "SQ_ENDERECO";
+	public static final String SQ_JOB = "SQ_JOB";
+	public static final String SQ_JOB_RECUSA = "SQ_JOB_RECUSA";
+	public static final int SQ_ID_BLOCO = 50;
+	
+	//NOMES DOS CACHES (CAFFEINE)
+	public static final String CACHE_USUARIOS = "usuarios";
+	public static final String CACHE_ENDERECOS = "enderecos";
+	public static final String CACHE_PAGINAS_ENDERECOS = "paginas-enderecos";
+	
+	//REGIOES DO CACHE DE SEGUNDO NIVEL DO HIBERNATE (JCACHE); TAMANHOS EM application.conf
+	public static final String REGIAO_USUARIO = "jpa-usuario";
+	public static final String REGIAO_USUARIO_ENDERECOS = "jpa-usuario-enderecos";
+	public static final String REGIAO_ENDERECO = "jpa-endereco";
+	public static final String REGIAO_CONSULTA_ENDERECOS = "jpa-consulta-enderecos";
+	
+	//AUTOCOMPLETAR DE CIDADE/ESTADO: MAXIMO DE SUGESTOES POR CHAMADA
+	public static final int MAXIMO_SUGESTOES = 50;
+	
+	//PAGINACAO POR CURSOR: MAXIMO DE ITENS POR PAGINA (QUANTIDADES MAIORES SAO LIMITADAS A ELE)
+	public static final int MAXIMO_ITENS_CURSOR = 1000;
+	
+	//BUSCA DE VARIOS CADASTROS POR ID (buscar-lote): MAXIMO DE IDS POR REQUISICAO
+	public static final int MAXIMO_IDS_BUSCA_LOTE = 1000;
+	
 	//NOMES DE TABELAS
 	public static final String TB_USUARIO = "TB_USUARIO";
 	public static final String TB_ENDERECO = "TB_ENDERECO";
+	public static final String TB_JOB = "TB_JOB";
+	public static final String TB_JOB_PARTICAO = "TB_JOB_PARTICAO";
+	public static final String TB_JOB_RECUSA = "TB_JOB_RECUSA";
+	
+	//INDICES DE TB_ENDERECO (A BUSCA COMBINADA INFORMA QUAL DELES ATENDE O FILTRO)
+	public static final String IDX_ENDERECO_CEP = "IDX_ENDERECO_CEP";
+	public static final String IDX_ENDERECO_CIDADE_PRINCIPAL = "IDX_ENDERECO_CIDADE_PRINCIPAL";
+	public static final String IDX_ENDERECO_ESTADO_CIDADE_PRINCIPAL = "IDX_ENDERECO_ESTADO_CIDADE_PRINCIPAL";
+	public static final String IDX_ENDERECO_USUARIO_PRINCIPAL = "IDX_ENDERECO_USUARIO_PRINCIPAL";
+	//NO MAXIMO UM ENDERECO PRINCIPAL POR USUARIO (CONFERIDO NA SUBIDA POR VerificacaoPrincipal)
+	public static final String UK_ENDERECO_PRINCIPAL = "UK_ENDERECO_PRINCIPAL";
 }
@@ -0,0 +1,41 @@
+package br.com.gestao.commons;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Como as consultas paginadas informam o total de elementos (parametro "count"):
+ * EXATA faz o COUNT(*) a cada pagina; NENHUMA devolve so o conteudo e o "hasNext" (Slice, sem COUNT);
+ * APROXIMADA devolve o total guardado por filtro e atualizado periodicamente (ContagemAproximada).
+ */
+public enum Contagem {
+
+	EXATA(List.of("true", "exact")),
+	NENHUMA(List.of("false", "none")),
+	APROXIMADA(List.of("approx", "approximate"));
+
+	private final List<String> valores;
+
+	Contagem(List<String> valores) {
+		this.valores = valores;
+	}
+
+	// Retorna null quando o modo nao e suportado
+	public static Contagem of(String valor) {
+		for (Contagem item : values()) {
+			if (valor != null && item.valores.contains(valor.toLowerCase(Locale.ROOT))) {
+				return item;
+			}
+		}
+		return null;
+	}
+
+	// Resposta 400 para o parametro count com um modo nao suportado
+	public static <T> ResponseEntity<ResponseWrapper<T>> naoSuportado(String valor) {
+		ResponseWrapper<T> responseWrapper = new ResponseWrapper<>();
+		responseWrapper.setMessage("Modo de contagem não suportado: " + valor);
+		return ResponseEntity.badRequest().body(responseWrapper);
+	}
+}
@@ -0,0 +1,65 @@
+package br.com.gestao.commons;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Posicao da ultima linha retornada em uma paginacao por cursor (keyset).
+ * Guarda o valor da chave de ordenacao e o id, e e enviado ao cliente como
+ * um token opaco (base64 url-safe) no parametro "after".
+ */
+public class Cursor {
+
+	private static final char SEPARADOR = ':';
+
+	private final Long id;
+	private final String chave;
+
+	private Cursor(Long id, String chave) {
+		this.id = id;
+		this.chave = chave;
+	}
+
+	// Primeira pagina: nenhuma linha retornada ainda
+	public static Cursor inicio() {
+		return new Cursor(0L, "");
+	}
+
+	public static Cursor of(Long id) {
+		return new Cursor(id, "");
+	}
+
+	public static Cursor of(Long id, String chave) {
+		return new Cursor(id, chave == null ? "" : chave);
+	}
+
+	// Retorna null quando o token nao foi gerado por esta api
+	public static Cursor decode(String token) {
+		if (token == null || token.isEmpty()) {
+			return inicio();
+		}
+		try {
+			String valor = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			int separador = valor.indexOf(SEPARADOR);
+			if (separador < 1) {
+				return null;
+			}
+			return new Cursor(Long.valueOf(valor.substring(0, separador)), valor.substring(separador + 1));
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	public String encode() {
+		String valor = id + String.valueOf(SEPARADOR) + chave;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getChave() {
+		return chave;
+	}
+}
@@ -0,0 +1,82 @@
+package br.com.gestao.commons;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Pagina de uma consulta por cursor: nao tem total de elementos nem numero de pagina,
+ * apenas o indicador de proxima pagina e o cursor ("next") para busca-la.
+ */
+public class CursorPage<T> {
+
+	private List<T> content;
+	private int size;
+	private boolean hasNext;
+	private String next;
+
+	// Construtores
+	public CursorPage() {}
+
+	public CursorPage(List<T> content, int size, boolean hasNext, String next) {
+		this.content = content;
+		this.size = size;
+		this.hasNext = hasNext;
+		this.next = next;
+	}
+
+	/**
+	 * Quantidade de itens por pagina limitada a Const.MAXIMO_ITENS_CURSOR; null quando nao e positiva
+	 * (o servico responde 400).
+	 */
+	public static Integer quantidade(Integer quantidade) {
+		if (quantidade == null || quantidade < 1) {
+			return null;
+		}
+		return Math.min(quantidade, Const.MAXIMO_ITENS_CURSOR);
+	}
+
+	/**
+	 * Monta a pagina a partir do resultado da consulta, que deve buscar "quantidade + 1" linhas:
+	 * a linha excedente so indica que existe uma proxima pagina e nao e retornada.
+	 */
+	public static <E, T> CursorPage<T> of(List<E> resultado, int quantidade, Function<E, T> mapper, Function<E, Cursor> cursor) {
+		boolean hasNext = resultado.size() > quantidade;
+		List<E> itens = hasNext ? resultado.subList(0, quantidade) : resultado;
+		String next = hasNext ? cursor.apply(itens.get(itens.size() - 1)).encode() : null;
+		return new CursorPage<>(itens.stream().map(mapper).collect(Collectors.toList()), quantidade, hasNext, next);
+	}
+
+	// Getters e Setters
+	public List<T> getContent() {
+		return content;
+	}
+
+	public void setContent(List<T> content) {
+		this.content = content;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public void setSize(int size) {
+		this.size = size;
+	}
+
+	public boolean isHasNext() {
+		return hasNext;
+	}
+
+	public void setHasNext(boolean hasNext) {
+		this.hasNext = hasNext;
+	}
+
+	public String getNext() {
+		return next;
+	}
+
+	public void setNext(String next) {
+		this.next = next;
+	}
+}
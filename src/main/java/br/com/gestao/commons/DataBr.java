@@ -0,0 +1,84 @@
+package br.com.gestao.commons;
+
+import java.nio.CharBuffer;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+// Leitura e escrita de datas no formato dd/MM/yyyy (Const.FORMATO_DATA_BR) sem estado compartilhado: pode ser usada
+// por qualquer thread. A leitura percorre os caracteres uma vez, direto do texto recebido (String ou buffer do Jackson),
+// sem copiar os caracteres; dia e mes aceitam 1 ou 2 digitos ("1/2/1990"), o ano tem 4.
+// Datas inexistentes (31/02/1990) sao recusadas, em vez de viradas para o mes seguinte.
+public final class DataBr {
+
+	private DataBr() {
+	}
+
+	public static LocalDate ler(CharSequence texto) {
+		if (texto == null) {
+			throw new DateTimeException("Data vazia");
+		}
+		int fim = texto.length();
+		int i = 0;
+		int dia = 0;
+		int digitos = 0;
+		for (; i < fim && digitos < 2 && digito(texto.charAt(i)); i++, digitos++) {
+			dia = dia * 10 + (texto.charAt(i) - '0');
+		}
+		if (digitos == 0 || i >= fim || texto.charAt(i++) != '/') {
+			throw invalida(texto);
+		}
+		int mes = 0;
+		digitos = 0;
+		for (; i < fim && digitos < 2 && digito(texto.charAt(i)); i++, digitos++) {
+			mes = mes * 10 + (texto.charAt(i) - '0');
+		}
+		if (digitos == 0 || i >= fim || texto.charAt(i++) != '/' || fim - i != 4) {
+			throw invalida(texto);
+		}
+		int ano = 0;
+		for (; i < fim; i++) {
+			if (!digito(texto.charAt(i))) {
+				throw invalida(texto);
+			}
+			ano = ano * 10 + (texto.charAt(i) - '0');
+		}
+		// dia/mes fora do calendario: DateTimeException do proprio LocalDate
+		return LocalDate.of(ano, mes, dia);
+	}
+
+	// trecho do buffer do parser: lido pela mesma rotina, sem copiar os caracteres
+	public static LocalDate ler(char[] texto, int inicio, int tamanho) {
+		return ler(CharBuffer.wrap(texto, inicio, tamanho));
+	}
+
+	// dd/MM/yyyy em um char[] de 10 posicoes (anos de 0 a 9999)
+	public static char[] escrever(LocalDate data) {
+		char[] texto = new char[10];
+		int dia = data.getDayOfMonth();
+		int mes = data.getMonthValue();
+		int ano = data.getYear();
+		texto[0] = (char) ('0' + dia / 10);
+		texto[1] = (char) ('0' + dia % 10);
+		texto[2] = '/';
+		texto[3] = (char) ('0' + mes / 10);
+		texto[4] = (char) ('0' + mes % 10);
+		texto[5] = '/';
+		texto[6] = (char) ('0' + ano / 1000 % 10);
+		texto[7] = (char) ('0' + ano / 100 % 10);
+		texto[8] = (char) ('0' + ano / 10 % 10);
+		texto[9] = (char) ('0' + ano % 10);
+		return texto;
+	}
+
+	public static String formatar(LocalDate data) {
+		return data == null ? null : new String(escrever(data));
+	}
+
+	private static boolean digito(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static DateTimeException invalida(CharSequence texto) {
+		return new DateTimeException("Data fora do formato " + Const.FORMATO_DATA_BR + ": " + texto);
+	}
+}
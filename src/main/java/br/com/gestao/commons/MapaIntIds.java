@@ -0,0 +1,199 @@
+package br.com.gestao.commons;
+
+import java.util.Arrays;
+
+/**
+ * Mapa de chave int para um conjunto de ids (long), sem objetos por chave ou por id:
+ * enderecamento aberto com sondagem linear sobre int[] e, para cada chave, um long[]
+ * ordenado com os ids. Usado pelo indice de CEP (CEP de 8 digitos como int).
+ * As chaves tambem ficam em ordem num int[] mantido a cada chave nova/removida (chave maior que todas entra
+ * no fim, sem deslocar nada), para consultas por faixa. As consultas nao alteram nada: varias podem rodar
+ * ao mesmo tempo enquanto ninguem grava. Nao e thread-safe: quem usa controla o acesso.
+ */
+public class MapaIntIds {
+
+	private static final int VAZIO = -1;
+	private static final float CARGA_MAXIMA = 0.7f;
+	private static final long[] NENHUM = new long[0];
+
+	private int[] chaves;
+	private long[][] ids;
+	private int[] quantidades;
+	private int quantidadeChaves;
+	private long quantidadeIds;
+
+	// CHAVES EM ORDEM NAS quantidadeChaves PRIMEIRAS POSICOES
+	private int[] ordenadas = new int[16];
+
+	public MapaIntIds() {
+		this(16);
+	}
+
+	public MapaIntIds(int capacidadeInicial) {
+		this.alocar(Integer.highestOneBit(Math.max(16, capacidadeInicial) * 2 - 1));
+	}
+
+	// AS CHAVES DEVEM SER >= 0
+	public boolean incluir(int chave, long id) {
+		int posicao = this.posicao(chave);
+		if (this.chaves[posicao] == VAZIO) {
+			if (this.quantidadeChaves + 1 > this.chaves.length * CARGA_MAXIMA) {
+				this.alocar(this.chaves.length * 2);
+				posicao = this.posicao(chave);
+			}
+			this.chaves[posicao] = chave;
+			this.ids[posicao] = new long[2];
+			this.incluirOrdenada(chave);
+			this.quantidadeChaves++;
+		}
+		long[] lista = this.ids[posicao];
+		int quantidade = this.quantidades[posicao];
+		int indice = Arrays.binarySearch(lista, 0, quantidade, id);
+		if (indice >= 0) {
+			return false;
+		}
+		indice = -indice - 1;
+		if (quantidade == lista.length) {
+			lista = Arrays.copyOf(lista, quantidade + (quantidade >> 1) + 1);
+			this.ids[posicao] = lista;
+		}
+		System.arraycopy(lista, indice, lista, indice + 1, quantidade - indice);
+		lista[indice] = id;
+		this.quantidades[posicao]++;
+		this.quantidadeIds++;
+		return true;
+	}
+
+	public boolean remover(int chave, long id) {
+		int posicao = this.posicao(chave);
+		if (this.chaves[posicao] == VAZIO) {
+			return false;
+		}
+		long[] lista = this.ids[posicao];
+		int quantidade = this.quantidades[posicao];
+		int indice = Arrays.binarySearch(lista, 0, quantidade, id);
+		if (indice < 0) {
+			return false;
+		}
+		System.arraycopy(lista, indice + 1, lista, indice, quantidade - indice - 1);
+		this.quantidades[posicao]--;
+		this.quantidadeIds--;
+		if (this.quantidades[posicao] == 0) {
+			this.removerPosicao(posicao);
+		}
+		return true;
+	}
+
+	// IDS DA CHAVE EM ORDEM CRESCENTE (COPIA)
+	public long[] ids(int chave) {
+		int posicao = this.posicao(chave);
+		return this.chaves[posicao] == VAZIO ? NENHUM : Arrays.copyOf(this.ids[posicao], this.quantidades[posicao]);
+	}
+
+	public int quantidade(int chave) {
+		int posicao = this.posicao(chave);
+		return this.chaves[posicao] == VAZIO ? 0 : this.quantidades[posicao];
+	}
+
+	// CHAVES EXISTENTES ENTRE inicio E fim (INCLUSIVE), EM ORDEM CRESCENTE
+	public int[] chaves(int inicio, int fim) {
+		int de = Arrays.binarySearch(this.ordenadas, 0, this.quantidadeChaves, inicio);
+		int ate = Arrays.binarySearch(this.ordenadas, 0, this.quantidadeChaves, fim);
+		de = de >= 0 ? de : -de - 1;
+		ate = ate >= 0 ? ate + 1 : -ate - 1;
+		return de >= ate ? new int[0] : Arrays.copyOfRange(this.ordenadas, de, ate);
+	}
+
+	public int quantidadeChaves() {
+		return this.quantidadeChaves;
+	}
+
+	public long quantidadeIds() {
+		return this.quantidadeIds;
+	}
+
+	// ESTIMATIVA DA MEMORIA OCUPADA (HEAP COM REFERENCIAS COMPRIMIDAS: 16 BYTES DE CABECALHO POR ARRAY, 4 POR REFERENCIA)
+	public long bytesEstimados() {
+		long bytes = 3 * 16L + this.chaves.length * (4L + 4L + 4L) + 16L + 4L * this.ordenadas.length;
+		for (int i = 0; i < this.chaves.length; i++) {
+			if (this.chaves[i] != VAZIO) {
+				bytes += 16L + 8L * this.ids[i].length;
+			}
+		}
+		return bytes;
+	}
+
+	private int posicao(int chave) {
+		int mascara = this.chaves.length - 1;
+		int posicao = hash(chave) & mascara;
+		while (this.chaves[posicao] != VAZIO && this.chaves[posicao] != chave) {
+			posicao = (posicao + 1) & mascara;
+		}
+		return posicao;
+	}
+
+	// NOVA CHAVE NA POSICAO DELA NAS ORDENADAS (ANTES DE CONTAR A CHAVE): NO FIM QUANDO E A MAIOR
+	private void incluirOrdenada(int chave) {
+		int quantidade = this.quantidadeChaves;
+		if (quantidade == this.ordenadas.length) {
+			this.ordenadas = Arrays.copyOf(this.ordenadas, quantidade + (quantidade >> 1) + 1);
+		}
+		if (quantidade == 0 || this.ordenadas[quantidade - 1] < chave) {
+			this.ordenadas[quantidade] = chave;
+			return;
+		}
+		int indice = -Arrays.binarySearch(this.ordenadas, 0, quantidade, chave) - 1;
+		System.arraycopy(this.ordenadas, indice, this.ordenadas, indice + 1, quantidade - indice);
+		this.ordenadas[indice] = chave;
+	}
+
+	// REMOCAO SEM MARCADOR: PUXA PARA TRAS AS CHAVES SEGUINTES QUE FORAM DESLOCADAS POR COLISAO
+	private void removerPosicao(int posicao) {
+		int indice = Arrays.binarySearch(this.ordenadas, 0, this.quantidadeChaves, this.chaves[posicao]);
+		System.arraycopy(this.ordenadas, indice + 1, this.ordenadas, indice, this.quantidadeChaves - indice - 1);
+		int mascara = this.chaves.length - 1;
+		int vaga = posicao;
+		int atual = (posicao + 1) & mascara;
+		while (this.chaves[atual] != VAZIO) {
+			int ideal = hash(this.chaves[atual]) & mascara;
+			// a chave pode ocupar a vaga se a vaga fica entre a posicao ideal dela e a atual (circular)
+			if (((atual - ideal) & mascara) >= ((atual - vaga) & mascara)) {
+				this.chaves[vaga] = this.chaves[atual];
+				this.ids[vaga] = this.ids[atual];
+				this.quantidades[vaga] = this.quantidades[atual];
+				vaga = atual;
+			}
+			atual = (atual + 1) & mascara;
+		}
+		this.chaves[vaga] = VAZIO;
+		this.ids[vaga] = null;
+		this.quantidades[vaga] = 0;
+		this.quantidadeChaves--;
+	}
+
+	private void alocar(int capacidade) {
+		int[] chavesAntigas = this.chaves;
+		long[][] idsAntigos = this.ids;
+		int[] quantidadesAntigas = this.quantidades;
+		this.chaves = new int[capacidade];
+		Arrays.fill(this.chaves, VAZIO);
+		this.ids = new long[capacidade][];
+		this.quantidades = new int[capacidade];
+		if (chavesAntigas == null) {
+			return;
+		}
+		for (int i = 0; i < chavesAntigas.length; i++) {
+			if (chavesAntigas[i] != VAZIO) {
+				int posicao = this.posicao(chavesAntigas[i]);
+				this.chaves[posicao] = chavesAntigas[i];
+				this.ids[posicao] = idsAntigos[i];
+				this.quantidades[posicao] = quantidadesAntigas[i];
+			}
+		}
+	}
+
+	private static int hash(int chave) {
+		int h = chave * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -0,0 +1,66 @@
+package br.com.gestao.commons;
+
+// Tempo gasto por etapa (repositorio, mapeamento, serializacao) e comandos SQL da requisicao em andamento na thread.
+// Aberta e fechada pelo MetricasRequisicao; fora de uma requisicao nada e medido (atual() devolve null).
+// Chamadas aninhadas da mesma etapa (um mapper chamando outro) contam so o tempo da chamada de fora.
+public final class MedicaoRequisicao {
+
+	public enum Etapa {
+		REPOSITORIO("repositorio"), MAPEAMENTO("mapeamento"), SERIALIZACAO("serializacao");
+
+		private final String tag;
+
+		Etapa(String tag) {
+			this.tag = tag;
+		}
+
+		public String getTag() {
+			return tag;
+		}
+	}
+
+	private static final ThreadLocal<MedicaoRequisicao> ATUAL = new ThreadLocal<>();
+
+	private final long[] nanos = new long[Etapa.values().length];
+	private final int[] profundidade = new int[Etapa.values().length];
+	private int comandosSql;
+
+	private MedicaoRequisicao() {
+	}
+
+	public static void iniciar() {
+		ATUAL.set(new MedicaoRequisicao());
+	}
+
+	public static MedicaoRequisicao atual() {
+		return ATUAL.get();
+	}
+
+	public static MedicaoRequisicao encerrar() {
+		MedicaoRequisicao medicao = ATUAL.get();
+		ATUAL.remove();
+		return medicao;
+	}
+
+	// true se e a chamada de fora da etapa: so ela deve medir o tempo
+	public boolean entrar(Etapa etapa) {
+		return this.profundidade[etapa.ordinal()]++ == 0;
+	}
+
+	public void sair(Etapa etapa, long nanos) {
+		this.profundidade[etapa.ordinal()]--;
+		this.nanos[etapa.ordinal()] += nanos;
+	}
+
+	public void contarSql() {
+		this.comandosSql++;
+	}
+
+	public long nanos(Etapa etapa) {
+		return this.nanos[etapa.ordinal()];
+	}
+
+	public int comandosSql() {
+		return this.comandosSql;
+	}
+}
@@ -0,0 +1,27 @@
+package br.com.gestao.commons;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizacao de texto para as buscas em memoria: sem acentos, em minusculas
+ * e com qualquer sequencia de pontuacao/espacos reduzida a um unico espaco.
+ * "Conceição  do Araguaia" e "CONCEICAO DO ARAGUAIA" viram "conceicao do araguaia".
+ */
+public final class Texto {
+
+	private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+	private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+	private Texto() {
+	}
+
+	public static String normalizar(String valor) {
+		if (valor == null || valor.isEmpty()) {
+			return "";
+		}
+		String semAcento = ACENTOS.matcher(Normalizer.normalize(valor, Normalizer.Form.NFD)).replaceAll("");
+		return SEPARADORES.matcher(semAcento.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+	}
+}
@@ -0,0 +1,123 @@
+package br.com.gestao.commons;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Trie de valores com contagem, para autocompletar pelo prefixo.
+ * A chave de cada valor e o texto normalizado (Texto.normalizar), entao o prefixo
+ * ignora acentos e maiusculas; cada no guarda os filhos em arrays ordenados
+ * (busca binaria) em vez de um mapa por no. Nao e thread-safe: quem usa controla o acesso.
+ */
+public class TrieContagem<T> {
+
+	private final No<T> raiz = new No<>();
+	private final Comparator<Map.Entry<T, Integer>> ordem;
+	private int tamanho;
+
+	// ordemValores: desempate entre valores com a mesma contagem
+	public TrieContagem(Comparator<T> ordemValores) {
+		this.ordem = Map.Entry.<T, Integer>comparingByValue().reversed()
+				.thenComparing(Map.Entry.comparingByKey(ordemValores));
+	}
+
+	// SOMA delta A CONTAGEM DO VALOR; COM CONTAGEM ZERO O VALOR SAI DAS SUGESTOES
+	public void somar(String chave, T valor, int delta) {
+		if (valor == null || delta == 0) {
+			return;
+		}
+		No<T> no = this.raiz;
+		String normalizada = Texto.normalizar(chave);
+		for (int i = 0; i < normalizada.length(); i++) {
+			no = no.filho(normalizada.charAt(i), true);
+		}
+		if (no.valores == null) {
+			no.valores = new HashMap<>(2);
+		}
+		int total = no.valores.getOrDefault(valor, 0) + delta;
+		if (total > 0) {
+			if (no.valores.put(valor, total) == null) {
+				this.tamanho++;
+			}
+		} else if (no.valores.remove(valor) != null) {
+			this.tamanho--;
+		}
+	}
+
+	// OS limite VALORES MAIS FREQUENTES COM A CHAVE COMECANDO PELO PREFIXO
+	public List<Map.Entry<T, Integer>> sugerir(String prefixo, int limite) {
+		No<T> no = this.raiz;
+		String normalizado = Texto.normalizar(prefixo);
+		for (int i = 0; i < normalizado.length() && no != null; i++) {
+			no = no.filho(normalizado.charAt(i), false);
+		}
+		if (no == null || limite <= 0) {
+			return new ArrayList<>();
+		}
+
+		// mantem so os limite melhores enquanto percorre a subarvore (o pior fica no topo da fila)
+		PriorityQueue<Map.Entry<T, Integer>> melhores = new PriorityQueue<>(this.ordem.reversed());
+		Deque<No<T>> pendentes = new ArrayDeque<>();
+		pendentes.push(no);
+		while (!pendentes.isEmpty()) {
+			No<T> atual = pendentes.pop();
+			if (atual.valores != null) {
+				for (Map.Entry<T, Integer> valor : atual.valores.entrySet()) {
+					melhores.offer(Map.entry(valor.getKey(), valor.getValue()));
+					if (melhores.size() > limite) {
+						melhores.poll();
+					}
+				}
+			}
+			for (int i = 0; i < atual.quantidade; i++) {
+				pendentes.push(atual.filhos[i]);
+			}
+		}
+		List<Map.Entry<T, Integer>> sugestoes = new ArrayList<>(melhores);
+		sugestoes.sort(this.ordem);
+		return sugestoes;
+	}
+
+	// QUANTIDADE DE VALORES DISTINTOS COM CONTAGEM MAIOR QUE ZERO
+	public int tamanho() {
+		return this.tamanho;
+	}
+
+	private static final class No<T> {
+		char[] letras = new char[0];
+		@SuppressWarnings("unchecked")
+		No<T>[] filhos = new No[0];
+		int quantidade;
+		Map<T, Integer> valores;
+
+		No<T> filho(char letra, boolean criar) {
+			int posicao = Arrays.binarySearch(this.letras, 0, this.quantidade, letra);
+			if (posicao >= 0) {
+				return this.filhos[posicao];
+			}
+			if (!criar) {
+				return null;
+			}
+			posicao = -posicao - 1;
+			if (this.quantidade == this.letras.length) {
+				int capacidade = Math.max(2, this.quantidade * 2);
+				this.letras = Arrays.copyOf(this.letras, capacidade);
+				this.filhos = Arrays.copyOf(this.filhos, capacidade);
+			}
+			System.arraycopy(this.letras, posicao, this.letras, posicao + 1, this.quantidade - posicao);
+			System.arraycopy(this.filhos, posicao, this.filhos, posicao + 1, this.quantidade - posicao);
+			No<T> filho = new No<>();
+			this.letras[posicao] = letra;
+			this.filhos[posicao] = filho;
+			this.quantidade++;
+			return filho;
+		}
+	}
+}
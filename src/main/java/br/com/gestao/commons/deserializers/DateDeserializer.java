@@ -1,30 +1,30 @@
 package br.com.gestao.commons.deserializers;
 
 import java.io.IOException;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.DateTimeException;
+import java.time.LocalDate;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 
-import br.com.gestao.commons.Const;
+import br.com.gestao.commons.DataBr;
 import br.com.gestao.exceptions.OtherErrorException;
 
-
-public class DateDeserializer extends JsonDeserializer<Date> {
-	// yyyy-MM-dd'T'HH:mm:ss.SSSX
-	private SimpleDateFormat formatter = new SimpleDateFormat(Const.FORMATO_DATA_BR);
+// dd/MM/yyyy -> LocalDate. Sem estado: a mesma instancia atende todas as threads do Jackson.
+// A data e lida direto do buffer do parser, sem criar a String do texto.
+public class DateDeserializer extends JsonDeserializer<LocalDate> {
 
 	@Override
-	public Date deserialize(JsonParser jsonParser, DeserializationContext arg1) throws IOException, JsonProcessingException {
-		String date = jsonParser.getText();
+	public LocalDate deserialize(JsonParser jsonParser, DeserializationContext arg1) throws IOException, JsonProcessingException {
+		char[] texto = jsonParser.getTextCharacters();
+		int inicio = jsonParser.getTextOffset();
+		int tamanho = jsonParser.getTextLength();
 		try {
-			return formatter.parse(date);
-		} catch (ParseException e) {
-			throw new OtherErrorException(e.getMessage(), "Convertendo texto " + date + " para data");
+			return DataBr.ler(texto, inicio, tamanho);
+		} catch (DateTimeException e) {
+			throw new OtherErrorException(e.getMessage(), "Convertendo texto " + new String(texto, inicio, tamanho) + " para data");
 		}
 	}
 }
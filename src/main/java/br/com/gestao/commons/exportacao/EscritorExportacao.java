@@ -0,0 +1,106 @@
+package br.com.gestao.commons.exportacao;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Escreve as linhas da exportacao direto no OutputStream da resposta, uma por vez,
+ * sem montar o corpo inteiro em memoria.
+ */
+public abstract class EscritorExportacao implements Closeable {
+
+	private static final int TAMANHO_BUFFER = 16 * 1024;
+
+	protected final Writer writer;
+	protected final String[] colunas;
+
+	protected EscritorExportacao(OutputStream saida, String[] colunas) {
+		this.writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), TAMANHO_BUFFER);
+		this.colunas = colunas;
+	}
+
+	public static EscritorExportacao of(FormatoExportacao formato, OutputStream saida, String... colunas) throws IOException {
+		return formato == FormatoExportacao.CSV ? new Csv(saida, colunas) : new NdJson(saida, colunas);
+	}
+
+	// Os valores devem vir na mesma ordem das colunas
+	public abstract void escrever(Object... valores) throws IOException;
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+
+	// Um objeto JSON por linha
+	static class NdJson extends EscritorExportacao {
+
+		private final JsonGenerator generator;
+
+		NdJson(OutputStream saida, String[] colunas) throws IOException {
+			super(saida, colunas);
+			this.generator = new JsonFactory().createGenerator(writer);
+			this.generator.setRootValueSeparator(null);
+		}
+
+		@Override
+		public void escrever(Object... valores) throws IOException {
+			generator.writeStartObject();
+			for (int i = 0; i < colunas.length; i++) {
+				generator.writeObjectField(colunas[i], valores[i]);
+			}
+			generator.writeEndObject();
+			generator.writeRaw('\n');
+		}
+
+		@Override
+		public void close() throws IOException {
+			generator.close();
+			super.close();
+		}
+	}
+
+	// RFC 4180: cabecalho na primeira linha e aspas nos valores com separador, aspas ou quebra de linha
+	static class Csv extends EscritorExportacao {
+
+		Csv(OutputStream saida, String[] colunas) throws IOException {
+			super(saida, colunas);
+			escreverLinha((Object[]) colunas);
+		}
+
+		@Override
+		public void escrever(Object... valores) throws IOException {
+			escreverLinha(valores);
+		}
+
+		private void escreverLinha(Object... valores) throws IOException {
+			for (int i = 0; i < valores.length; i++) {
+				if (i > 0) {
+					writer.write(',');
+				}
+				if (valores[i] != null) {
+					escreverValor(valores[i].toString());
+				}
+			}
+			writer.write("\r\n");
+		}
+
+		private void escreverValor(String valor) throws IOException {
+			boolean aspas = valor.indexOf(',') >= 0 || valor.indexOf('"') >= 0 || valor.indexOf('\n') >= 0 || valor.indexOf('\r') >= 0;
+			if (!aspas) {
+				writer.write(valor);
+				return;
+			}
+			writer.write('"');
+			writer.write(valor.replace("\"", "\"\""));
+			writer.write('"');
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package br.com.gestao.commons.exportacao;
+
+public enum FormatoExportacao {
+
+	NDJSON("application/x-ndjson", "ndjson"),
+	CSV("text/csv", "csv");
+
+	private final String contentType;
+	private final String extensao;
+
+	FormatoExportacao(String contentType, String extensao) {
+		this.contentType = contentType;
+		this.extensao = extensao;
+	}
+
+	// Retorna null quando o formato nao e suportado
+	public static FormatoExportacao of(String formato) {
+		for (FormatoExportacao item : values()) {
+			if (item.extensao.equalsIgnoreCase(formato)) {
+				return item;
+			}
+		}
+		return null;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	public String getExtensao() {
+		return extensao;
+	}
+}
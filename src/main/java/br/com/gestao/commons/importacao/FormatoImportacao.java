@@ -0,0 +1,31 @@
+package br.com.gestao.commons.importacao;
+
+public enum FormatoImportacao {
+
+	CSV("csv"),
+	XLSX("xlsx");
+
+	private final String extensao;
+
+	FormatoImportacao(String extensao) {
+		this.extensao = extensao;
+	}
+
+	// Pela extensao do nome do arquivo; retorna null quando o formato nao e suportado
+	public static FormatoImportacao of(String nomeArquivo) {
+		if (nomeArquivo == null) {
+			return null;
+		}
+		String extensao = nomeArquivo.substring(nomeArquivo.lastIndexOf('.') + 1);
+		for (FormatoImportacao item : values()) {
+			if (item.extensao.equalsIgnoreCase(extensao)) {
+				return item;
+			}
+		}
+		return null;
+	}
+
+	public String getExtensao() {
+		return extensao;
+	}
+}
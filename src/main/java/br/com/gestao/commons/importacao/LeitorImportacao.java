@@ -0,0 +1,217 @@
+package br.com.gestao.commons.importacao;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.poiji.bind.Poiji;
+import com.poiji.exception.HeaderMissingException;
+import com.poiji.exception.PoijiException;
+import com.poiji.option.PoijiOptions;
+import com.poiji.option.PoijiOptions.PoijiOptionsBuilder;
+
+/**
+ * Le a planilha de importacao linha a linha, entregando cada linha ao consumidor assim que e lida,
+ * sem carregar a planilha inteira em memoria. A primeira linha e o cabecalho com os nomes das colunas
+ * (LinhaImportacao.COLUNAS, em qualquer ordem; so "nome" e obrigatoria).
+ */
+public abstract class LeitorImportacao {
+
+	private static final int TAMANHO_BUFFER = 16 * 1024;
+
+	protected final Path arquivo;
+
+	protected LeitorImportacao(Path arquivo) {
+		this.arquivo = arquivo;
+	}
+
+	public static LeitorImportacao of(FormatoImportacao formato, Path arquivo) {
+		return formato == FormatoImportacao.XLSX ? new Xlsx(arquivo) : new Csv(arquivo);
+	}
+
+	// Um erro do consumidor interrompe a leitura e e repassado ao chamador
+	public abstract void ler(Consumer<LinhaImportacao> consumidor) throws IOException;
+
+	protected static IOException semColunaNome() {
+		return new IOException("Coluna <nome> não encontrada no cabeçalho da planilha");
+	}
+
+	// RFC 4180 em UTF-8, separado por virgula ou por ponto e virgula (o CSV do Excel em portugues),
+	// decidido pelo cabecalho. Os registros sao lidos direto do Reader, sem ler o arquivo por linhas.
+	static class Csv extends LeitorImportacao {
+
+		Csv(Path arquivo) {
+			super(arquivo);
+		}
+
+		@Override
+		public void ler(Consumer<LinhaImportacao> consumidor) throws IOException {
+			try (Reader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(arquivo), StandardCharsets.UTF_8), TAMANHO_BUFFER)) {
+				Registros registros = new Registros(reader);
+				List<String> cabecalho = registros.cabecalho();
+				if (cabecalho == null) {
+					return;
+				}
+				int[] posicoes = new int[LinhaImportacao.COLUNAS.length];
+				for (int i = 0; i < posicoes.length; i++) {
+					posicoes[i] = posicao(cabecalho, LinhaImportacao.COLUNAS[i]);
+				}
+				if (posicoes[1] < 0) {
+					throw semColunaNome();
+				}
+
+				int linha = 1;
+				List<String> registro;
+				while ((registro = registros.proximo()) != null) {
+					linha++;
+					consumidor.accept(LinhaImportacao.builder()
+							.linha(linha)
+							.id(valor(registro, posicoes[0]))
+							.nome(valor(registro, posicoes[1]))
+							.dataNascimento(valor(registro, posicoes[2]))
+							.cep(valor(registro, posicoes[3]))
+							.logradouro(valor(registro, posicoes[4]))
+							.numero(valor(registro, posicoes[5]))
+							.cidade(valor(registro, posicoes[6]))
+							.estado(valor(registro, posicoes[7]))
+							.principal(valor(registro, posicoes[8]))
+							.build());
+				}
+			}
+		}
+
+		private static int posicao(List<String> cabecalho, String coluna) {
+			for (int i = 0; i < cabecalho.size(); i++) {
+				if (coluna.equalsIgnoreCase(cabecalho.get(i).trim())) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		private static String valor(List<String> registro, int posicao) {
+			if (posicao < 0 || posicao >= registro.size()) {
+				return null;
+			}
+			String valor = registro.get(posicao).trim();
+			return valor.isEmpty() ? null : valor;
+		}
+	}
+
+	// Leitura dos registros do CSV: a lista e o buffer do campo sao reaproveitados de um registro para o outro
+	static final class Registros {
+
+		private final Reader reader;
+		private final List<String> campos = new ArrayList<>();
+		private final StringBuilder campo = new StringBuilder();
+		private char separador = ',';
+
+		Registros(Reader reader) {
+			this.reader = reader;
+		}
+
+		// Primeiro registro; o separador e o que aparecer primeiro fora de aspas (virgula se nao houver nenhum)
+		List<String> cabecalho() throws IOException {
+			// BOM do UTF-8 (CSV salvo pelo Excel)
+			reader.mark(1);
+			if (reader.read() != '\uFEFF') {
+				reader.reset();
+			}
+			reader.mark(TAMANHO_BUFFER);
+			int c;
+			boolean aspas = false;
+			for (int i = 0; i < TAMANHO_BUFFER && (c = reader.read()) != -1 && (aspas || c != '\n'); i++) {
+				if (c == '"') {
+					aspas = !aspas;
+				} else if (!aspas && (c == ',' || c == ';')) {
+					separador = (char) c;
+					break;
+				}
+			}
+			reader.reset();
+			return proximo();
+		}
+
+		// Proximo registro ou null no fim do arquivo. Aspas so abrem um campo no inicio dele;
+		// "" dentro das aspas e uma aspa; \r fora das aspas e ignorado (\r\n)
+		List<String> proximo() throws IOException {
+			campos.clear();
+			campo.setLength(0);
+			int c = reader.read();
+			if (c == -1) {
+				return null;
+			}
+			boolean aspas = false;
+			while (true) {
+				if (aspas) {
+					if (c == '"') {
+						c = reader.read();
+						if (c != '"') {
+							aspas = false;
+							continue;
+						}
+						campo.append('"');
+					} else if (c == -1) {
+						aspas = false;
+						continue;
+					} else {
+						campo.append((char) c);
+					}
+				} else if (c == '"' && campo.length() == 0) {
+					aspas = true;
+				} else if (c == separador) {
+					campos.add(campo.toString());
+					campo.setLength(0);
+				} else if (c == '\n' || c == -1) {
+					campos.add(campo.toString());
+					return campos;
+				} else if (c != '\r') {
+					campo.append((char) c);
+				}
+				c = reader.read();
+			}
+		}
+	}
+
+	// XLSX pelo poiji: a aba e lida por eventos SAX (sem montar as linhas em memoria), a partir do arquivo
+	// em disco (sem descompactar o pacote inteiro). Os valores vem como aparecem na planilha (formatados);
+	// so a tabela de textos compartilhados do arquivo fica em memoria
+	static class Xlsx extends LeitorImportacao {
+
+		private static final PoijiOptions OPCOES = PoijiOptionsBuilder.settings()
+				.caseInsensitive(true)
+				.ignoreWhitespaces(true)
+				.trimCellValue(true)
+				.preferNullOverDefault(true)
+				.build();
+
+		Xlsx(Path arquivo) {
+			super(arquivo);
+		}
+
+		@Override
+		public void ler(Consumer<LinhaImportacao> consumidor) throws IOException {
+			try {
+				Poiji.fromExcel(arquivo.toFile(), LinhaImportacao.class, OPCOES, linha -> {
+					// o poiji numera as linhas a partir de zero
+					linha.setLinha(linha.getLinha() + 1);
+					consumidor.accept(linha);
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			} catch (HeaderMissingException e) {
+				throw semColunaNome();
+			} catch (PoijiException e) {
+				throw new IOException("Planilha XLSX inválida: " + e.getMessage(), e);
+			}
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package br.com.gestao.commons.importacao;
+
+import com.poiji.annotation.ExcelCellName;
+import com.poiji.annotation.ExcelRow;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Uma linha da planilha de importacao, com as colunas pelo nome do cabecalho (os mesmos nomes da exportacao).
+ * Os valores chegam como texto, do jeito que aparecem na planilha; a conversao e feita na importacao,
+ * para que um valor invalido recuse so a linha.
+ */
+@Setter
+@Getter
+@Builder
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class LinhaImportacao {
+
+	public static final String[] COLUNAS = { "id", "nome", "dataNascimento", "cep", "logradouro", "numero", "cidade", "estado",
+			"principal" };
+
+	// NUMERO DA LINHA NO ARQUIVO (O CABECALHO E A LINHA 1)
+	@ExcelRow
+	private int linha;
+
+	// PREENCHIDO: ALTERA O USUARIO CADASTRADO (A MESMA COLUNA DA EXPORTACAO)
+	@ExcelCellName("id")
+	private String id;
+
+	@ExcelCellName(value = "nome", mandatoryHeader = true)
+	private String nome;
+
+	@ExcelCellName("dataNascimento")
+	private String dataNascimento;
+
+	@ExcelCellName("cep")
+	private String cep;
+
+	@ExcelCellName("logradouro")
+	private String logradouro;
+
+	@ExcelCellName("numero")
+	private String numero;
+
+	@ExcelCellName("cidade")
+	private String cidade;
+
+	@ExcelCellName("estado")
+	private String estado;
+
+	@ExcelCellName("principal")
+	private String principal;
+
+	// Na ordem de COLUNAS
+	public Object[] valores() {
+		return new Object[] { id, nome, dataNascimento, cep, logradouro, numero, cidade, estado, principal };
+	}
+
+	public boolean temEndereco() {
+		return preenchido(cep) || preenchido(logradouro) || preenchido(numero) || preenchido(cidade) || preenchido(estado);
+	}
+
+	public boolean vazia() {
+		return !preenchido(id) && !preenchido(nome) && !preenchido(dataNascimento) && !preenchido(principal) && !temEndereco();
+	}
+
+	public static boolean preenchido(String valor) {
+		return valor != null && !valor.isBlank();
+	}
+}
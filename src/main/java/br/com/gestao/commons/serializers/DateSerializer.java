@@ -0,0 +1,19 @@
+package br.com.gestao.commons.serializers;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import br.com.gestao.commons.DataBr;
+
+// LocalDate -> dd/MM/yyyy, o mesmo formato aceito pelo DateDeserializer
+public class DateSerializer extends JsonSerializer<LocalDate> {
+
+	@Override
+	public void serialize(LocalDate data, JsonGenerator jsonGenerator, SerializerProvider serializerProvider) throws IOException {
+		jsonGenerator.writeString(DataBr.escrever(data), 0, 10);
+	}
+}
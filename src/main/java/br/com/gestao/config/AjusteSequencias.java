@@ -0,0 +1,69 @@
+package br.com.gestao.config;
+
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import br.com.gestao.commons.Const;
+
+// As sequences de cada entidade substituiram a hibernate_sequence compartilhada e sao criadas (ddl-auto)
+// comecando em 1. Na subida (gestao.sequencias.ajustar-na-subida), cada uma e posicionada depois do maior id ja
+// gravado na sua tabela. Onde ha sequence o ajuste e um "restart" e nao e atomico: entre a leitura do maior id e o
+// ALTER outro no pode ter ajustado a mesma sequence e gravado, e o restart a faria voltar. O valor atual e relido logo
+// antes do ALTER, o que estreita mas nao fecha essa janela: com varios nos o ajuste deve ficar ligado em um so.
+@Component
+public class AjusteSequencias {
+
+	private static final Map<String, String> TABELAS = Map.of(
+			Const.SQ_USUARIO, Const.TB_USUARIO,
+			Const.SQ_ENDERECO, Const.TB_ENDERECO,
+			Const.SQ_JOB, Const.TB_JOB,
+			Const.SQ_JOB_RECUSA, Const.TB_JOB_RECUSA);
+
+	private final JdbcTemplate jdbcTemplate;
+	private final Dialect dialect;
+	private final boolean ajustarNaSubida;
+
+	public AjusteSequencias(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory,
+			@Value("${gestao.sequencias.ajustar-na-subida:true}") boolean ajustarNaSubida) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+		this.ajustarNaSubida = ajustarNaSubida;
+	}
+
+	@PostConstruct
+	public void ajustarNaSubida() {
+		if (this.ajustarNaSubida) {
+			this.ajustar();
+		}
+	}
+
+	void ajustar() {
+		TABELAS.forEach((sequence, tabela) -> {
+			Long proximo = this.jdbcTemplate.queryForObject("select coalesce(max(id), 0) + 1 from " + tabela, Long.class);
+			if (this.dialect.supportsSequences()) {
+				if (this.proximoDaSequence(sequence) < proximo) {
+					// relida logo antes do ALTER: se outro no ja ajustou (e gravou) depois da primeira leitura, nao volta
+					if (this.proximoDaSequence(sequence) < proximo) {
+						this.jdbcTemplate.execute("alter sequence " + sequence + " restart with " + proximo);
+					}
+				}
+			} else {
+				// MySQL: a sequence e uma tabela com a coluna next_val (update atomico, nunca volta)
+				this.jdbcTemplate.update("update " + sequence + " set next_val = ? where next_val < ?", proximo, proximo);
+			}
+		});
+	}
+
+	private long proximoDaSequence(String sequence) {
+		Long atual = this.jdbcTemplate.queryForObject(this.dialect.getSequenceNextValString(sequence), Long.class);
+		return atual == null ? 0 : atual;
+	}
+}
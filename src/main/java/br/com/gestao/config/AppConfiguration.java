@@ -1,15 +1,23 @@
 package br.com.gestao.config;
 
-import org.modelmapper.ModelMapper;
+import org.mapstruct.factory.Mappers;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import br.com.gestao.mappers.EnderecoMapper;
+import br.com.gestao.mappers.UsuarioMapper;
+
 @Configuration
 public class AppConfiguration {
 
 	@Bean
-	ModelMapper modelMapper() {
-		return new ModelMapper();
+	EnderecoMapper enderecoMapper() {
+		return Mappers.getMapper(EnderecoMapper.class);
+	}
+
+	@Bean
+	UsuarioMapper usuarioMapper() {
+		return Mappers.getMapper(UsuarioMapper.class);
 	}
 	
 }
@@ -0,0 +1,61 @@
+package br.com.gestao.config;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+// /actuator/cachejpa: acertos, falhas e insercoes de cada regiao do cache de segundo nivel do Hibernate
+// (entidades, colecao Usuario.enderecos e consultas). /actuator/cachejpa/{regiao} traz uma regiao so.
+// Os mesmos numeros tambem saem nas metricas hibernate.second.level.cache.* (tag region).
+@Component
+@Endpoint(id = "cachejpa")
+public class CacheJpaEndpoint {
+
+	private final Statistics statistics;
+
+	public CacheJpaEndpoint(EntityManagerFactory entityManagerFactory) {
+		this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@ReadOperation
+	public Map<String, Object> regioes() {
+		Map<String, Object> regioes = new TreeMap<>();
+		Arrays.stream(this.statistics.getSecondLevelCacheRegionNames()).forEach(nome -> regioes.put(nome, this.regiao(nome)));
+
+		Map<String, Object> retorno = new LinkedHashMap<>();
+		retorno.put("estatisticasAtivas", this.statistics.isStatisticsEnabled());
+		retorno.put("consultas", Map.of(
+				"acertos", this.statistics.getQueryCacheHitCount(),
+				"falhas", this.statistics.getQueryCacheMissCount(),
+				"insercoes", this.statistics.getQueryCachePutCount()));
+		retorno.put("regioes", regioes);
+		return retorno;
+	}
+
+	@ReadOperation
+	public Map<String, Object> regiao(@Selector String nome) {
+		CacheRegionStatistics regiao = this.statistics.getCacheRegionStatistics(nome);
+		if (regiao == null) {
+			return null;
+		}
+		long consultas = regiao.getHitCount() + regiao.getMissCount();
+		Map<String, Object> retorno = new LinkedHashMap<>();
+		retorno.put("acertos", regiao.getHitCount());
+		retorno.put("falhas", regiao.getMissCount());
+		retorno.put("insercoes", regiao.getPutCount());
+		retorno.put("taxaAcerto", consultas == 0 ? 0d : (double) regiao.getHitCount() / consultas);
+		retorno.put("itensEmMemoria", regiao.getElementCountInMemory());
+		return retorno;
+	}
+}
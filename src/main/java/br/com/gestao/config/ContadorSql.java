@@ -0,0 +1,31 @@
+package br.com.gestao.config;
+
+import java.util.Map;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import br.com.gestao.commons.MedicaoRequisicao;
+
+// Conta os comandos SQL preparados pelo Hibernate na requisicao corrente (um lote JDBC conta uma vez)
+@Component
+public class ContadorSql implements StatementInspector, HibernatePropertiesCustomizer {
+
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	public void customize(Map<String, Object> hibernateProperties) {
+		hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+	}
+
+	@Override
+	public String inspect(String sql) {
+		MedicaoRequisicao medicao = MedicaoRequisicao.atual();
+		if (medicao != null) {
+			medicao.contarSql();
+		}
+		return sql;
+	}
+}
@@ -0,0 +1,58 @@
+package br.com.gestao.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+// Pool do primario (spring.datasource.*) e, com gestao.replica.url informada, pool da replica de leitura
+// (gestao.replica.*, gestao.replica.hikari.*). O DataSource usado pelo JPA e pelo JdbcTemplate roteia as
+// transacoes somente leitura para a replica (RoteamentoLeitura); sem replica tudo vai para o primario.
+// O LazyConnectionDataSourceProxy so pega a conexao no primeiro comando SQL: a rota ja ve a transacao
+// como somente leitura e as leituras resolvidas nos caches nao ocupam conexao.
+@Configuration
+public class DataSourceConfig {
+
+	@Bean
+	@Primary
+	@ConfigurationProperties("spring.datasource")
+	DataSourceProperties dataSourceProperties() {
+		return new DataSourceProperties();
+	}
+
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	HikariDataSource primario(DataSourceProperties dataSourceProperties) {
+		return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+	}
+
+	@Bean
+	@ConfigurationProperties("gestao.replica")
+	DataSourceProperties replicaDataSourceProperties() {
+		return new DataSourceProperties();
+	}
+
+	@Bean
+	@ConditionalOnProperty("gestao.replica.url")
+	@ConfigurationProperties("gestao.replica.hikari")
+	HikariDataSource replica(@Qualifier("replicaDataSourceProperties") DataSourceProperties replicaDataSourceProperties) {
+		return replicaDataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+	}
+
+	@Bean
+	@Primary
+	DataSource dataSource(@Qualifier("primario") DataSource primario, @Qualifier("replica") ObjectProvider<DataSource> replica,
+			@Value("${gestao.replica.espera-falha-segundos:30}") long esperaFalhaSegundos) {
+		return new LazyConnectionDataSourceProxy(new RoteamentoLeitura(primario, replica.getIfAvailable(), esperaFalhaSegundos));
+	}
+}
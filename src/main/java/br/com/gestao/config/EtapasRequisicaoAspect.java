@@ -0,0 +1,40 @@
+package br.com.gestao.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import br.com.gestao.commons.MedicaoRequisicao;
+import br.com.gestao.commons.MedicaoRequisicao.Etapa;
+
+// Soma na requisicao corrente o tempo das chamadas aos repositorios (Spring Data) e aos mappers (MapStruct).
+// Carga lazy disparada durante o mapeamento conta como mapeamento.
+@Aspect
+@Component
+public class EtapasRequisicaoAspect {
+
+	@Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+	public Object repositorio(ProceedingJoinPoint joinPoint) throws Throwable {
+		return medir(Etapa.REPOSITORIO, joinPoint);
+	}
+
+	@Around("execution(* br.com.gestao.mappers..*(..))")
+	public Object mapeamento(ProceedingJoinPoint joinPoint) throws Throwable {
+		return medir(Etapa.MAPEAMENTO, joinPoint);
+	}
+
+	private static Object medir(Etapa etapa, ProceedingJoinPoint joinPoint) throws Throwable {
+		MedicaoRequisicao medicao = MedicaoRequisicao.atual();
+		if (medicao == null) {
+			return joinPoint.proceed();
+		}
+		boolean externa = medicao.entrar(etapa);
+		long inicio = System.nanoTime();
+		try {
+			return joinPoint.proceed();
+		} finally {
+			medicao.sair(etapa, externa ? System.nanoTime() - inicio : 0);
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package br.com.gestao.config;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.gestao.commons.MedicaoRequisicao;
+import br.com.gestao.commons.MedicaoRequisicao.Etapa;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+// Quebra de cada requisicao dos controllers por etapa, com as mesmas tags uri/method do http.server.requests:
+// - requisicao.etapa{etapa=repositorio|mapeamento|serializacao}: tempo nos repositorios, nos mappers e no Jackson
+// - requisicao.sql: comandos SQL preparados na requisicao
+// Percentis (p50/p99/p999, HdrHistogram do Micrometer) configurados em management.metrics.distribution.percentiles.*
+@Component
+public class MetricasRequisicao implements WebMvcConfigurer, HandlerInterceptor {
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(this);
+	}
+
+	// O conversor JSON configurado pelo Spring Boot e trocado por um que mede a serializacao, com o mesmo ObjectMapper
+	@Override
+	public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+		for (int i = 0; i < converters.size(); i++) {
+			HttpMessageConverter<?> converter = converters.get(i);
+			if (converter.getClass() == MappingJackson2HttpMessageConverter.class) {
+				MappingJackson2HttpMessageConverter jackson = (MappingJackson2HttpMessageConverter) converter;
+				SerializacaoMedida medida = new SerializacaoMedida(jackson.getObjectMapper());
+				medida.setSupportedMediaTypes(jackson.getSupportedMediaTypes());
+				converters.set(i, medida);
+			}
+		}
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (handler instanceof HandlerMethod) {
+			MedicaoRequisicao.iniciar();
+		}
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		MedicaoRequisicao medicao = MedicaoRequisicao.encerrar();
+		if (medicao == null) {
+			return;
+		}
+		Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		Tags tags = Tags.of("uri", padrao == null ? "UNKNOWN" : padrao.toString(), "method", request.getMethod());
+		for (Etapa etapa : Etapa.values()) {
+			Timer.builder("requisicao.etapa")
+					.tags(tags).tag("etapa", etapa.getTag())
+					.register(Metrics.globalRegistry)
+					.record(medicao.nanos(etapa), TimeUnit.NANOSECONDS);
+		}
+		DistributionSummary.builder("requisicao.sql")
+				.tags(tags)
+				.register(Metrics.globalRegistry)
+				.record(medicao.comandosSql());
+	}
+
+	private static final class SerializacaoMedida extends MappingJackson2HttpMessageConverter {
+
+		private SerializacaoMedida(ObjectMapper objectMapper) {
+			super(objectMapper);
+		}
+
+		@Override
+		protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+				throws IOException, HttpMessageNotWritableException {
+			MedicaoRequisicao medicao = MedicaoRequisicao.atual();
+			if (medicao == null) {
+				super.writeInternal(object, type, outputMessage);
+				return;
+			}
+			boolean externa = medicao.entrar(Etapa.SERIALIZACAO);
+			long inicio = System.nanoTime();
+			try {
+				super.writeInternal(object, type, outputMessage);
+			} finally {
+				medicao.sair(Etapa.SERIALIZACAO, externa ? System.nanoTime() - inicio : 0);
+			}
+		}
+	}
+}
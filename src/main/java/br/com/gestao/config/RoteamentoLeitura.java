@@ -0,0 +1,93 @@
+package br.com.gestao.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+
+// Conexoes das transacoes somente leitura (@Transactional(readOnly = true)) vem da replica; o resto do primario.
+// A decisao usa a transacao corrente, entao precisa do LazyConnectionDataSourceProxy por fora (DataSourceConfig):
+// sem ele o JpaTransactionManager pega a conexao antes de marcar a transacao como somente leitura.
+// Se a replica nao entrega conexao, a leitura vai para o primario e a replica so e tentada de novo depois da espera.
+// A transacao que recebeu conexao da replica fica marcada (leituraNaReplica): o que ela nao encontrou pode so nao ter
+// sido replicado ainda, entao nao serve para concluir que o registro foi apagado.
+// Leituras por destino: /actuator/metrics/datasource.leituras
+@Slf4j
+public class RoteamentoLeitura extends AbstractDataSource {
+
+	// MARCA DA TRANSACAO QUE LEU DA REPLICA, DESFEITA NO FIM DELA
+	private static final Object REPLICA = new Object();
+
+	private final DataSource primario;
+	private final DataSource replica;
+	private final long esperaFalhaNanos;
+	private final LongSupplier relogio;
+
+	private volatile long replicaIndisponivelAte;
+
+	public RoteamentoLeitura(DataSource primario, DataSource replica, long esperaFalhaSegundos) {
+		this(primario, replica, esperaFalhaSegundos, System::nanoTime);
+	}
+
+	RoteamentoLeitura(DataSource primario, DataSource replica, long esperaFalhaSegundos, LongSupplier relogio) {
+		this.primario = primario;
+		this.replica = replica;
+		this.esperaFalhaNanos = TimeUnit.SECONDS.toNanos(esperaFalhaSegundos);
+		this.relogio = relogio;
+		this.replicaIndisponivelAte = relogio.getAsLong();
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			return this.primario.getConnection();
+		}
+		if (this.replica != null && this.relogio.getAsLong() - this.replicaIndisponivelAte >= 0) {
+			try {
+				Connection conexao = this.replica.getConnection();
+				Metrics.counter("datasource.leituras", "destino", "replica").increment();
+				marcarLeituraNaReplica();
+				return conexao;
+			} catch (SQLException | RuntimeException e) {
+				// o Hikari sem banco na subida do pool lanca PoolInitializationException (RuntimeException)
+				log.warn("Replica de leitura indisponivel, leituras no primario pelos proximos {} s", TimeUnit.NANOSECONDS.toSeconds(this.esperaFalhaNanos), e);
+				this.replicaIndisponivelAte = this.relogio.getAsLong() + this.esperaFalhaNanos;
+			}
+		}
+		Metrics.counter("datasource.leituras", "destino", "primario").increment();
+		return this.primario.getConnection();
+	}
+
+	// A TRANSACAO CORRENTE JA LEU DA REPLICA
+	public static boolean leituraNaReplica() {
+		return TransactionSynchronizationManager.hasResource(REPLICA);
+	}
+
+	private static void marcarLeituraNaReplica() {
+		if (!TransactionSynchronizationManager.isSynchronizationActive() || TransactionSynchronizationManager.hasResource(REPLICA)) {
+			return;
+		}
+		TransactionSynchronizationManager.bindResource(REPLICA, Boolean.TRUE);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				TransactionSynchronizationManager.unbindResourceIfPossible(REPLICA);
+			}
+		});
+	}
+
+	// Os pools (Hikari) ja tem usuario e senha; conexoes com outras credenciais nao sao suportadas
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		throw new SQLException("RoteamentoLeitura nao abre conexoes com usuario e senha informados");
+	}
+}
@@ -0,0 +1,80 @@
+package br.com.gestao.config;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.Locale;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import br.com.gestao.commons.Const;
+import lombok.extern.slf4j.Slf4j;
+
+// O UK_ENDERECO_PRINCIPAL (no maximo um endereco principal por usuario) e criado pelo ddl-auto, mas num banco que ja
+// tem usuarios com mais de um principal a criacao falha e o Hibernate so registra no log. Na subida o indice e conferido:
+// sem ele e sem duplicados o indice e criado aqui; com duplicados a aplicacao nao sobe, a menos que
+// gestao.principal.corrigir-duplicados=true, que deixa como principal so o endereco mais recente (maior id) de cada usuario.
+// Depende do entityManagerFactory para a conferencia rodar depois do ddl-auto ter criado (ou tentado criar) o indice.
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class VerificacaoPrincipal {
+
+	private static final String COLUNA = "principal_usuario";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final boolean corrigirDuplicados;
+
+	public VerificacaoPrincipal(JdbcTemplate jdbcTemplate,
+			@Value("${gestao.principal.corrigir-duplicados:false}") boolean corrigirDuplicados) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.corrigirDuplicados = corrigirDuplicados;
+	}
+
+	@PostConstruct
+	public void verificar() {
+		if (this.indiceCriado()) {
+			return;
+		}
+		Integer duplicados = this.jdbcTemplate.queryForObject("select count(*) from (select id_usuario from " + Const.TB_ENDERECO
+				+ " where principal = true group by id_usuario having count(*) > 1) duplicados", Integer.class);
+		if (duplicados != null && duplicados > 0) {
+			if (!this.corrigirDuplicados) {
+				throw new IllegalStateException(duplicados + " usuários com mais de um endereço principal em " + Const.TB_ENDERECO
+						+ ": o índice " + Const.UK_ENDERECO_PRINCIPAL + " não pode ser criado. Corrija os dados ou suba com"
+						+ " gestao.principal.corrigir-duplicados=true (mantém como principal o endereço de maior id)");
+			}
+			// a tabela derivada evita a restricao do MySQL de ler na subconsulta a tabela do update
+			int desmarcados = this.jdbcTemplate.update("update " + Const.TB_ENDERECO + " set principal = false where principal = true"
+					+ " and id not in (select id from (select max(id) as id from " + Const.TB_ENDERECO
+					+ " where principal = true group by id_usuario) mantidos)");
+			log.warn("{} endereços principais duplicados desmarcados em {} usuários", desmarcados, duplicados);
+		}
+		this.jdbcTemplate.execute("alter table " + Const.TB_ENDERECO + " add constraint " + Const.UK_ENDERECO_PRINCIPAL
+				+ " unique (" + COLUNA + ")");
+		log.info("Índice {} criado em {}", Const.UK_ENDERECO_PRINCIPAL, Const.TB_ENDERECO);
+	}
+
+	// qualquer indice unico sobre a coluna serve (o nome muda com o banco: no H2 o indice da constraint tem sufixo)
+	private boolean indiceCriado() {
+		return this.jdbcTemplate.execute((ConnectionCallback<Boolean>) conexao -> {
+			DatabaseMetaData metaData = conexao.getMetaData();
+			// o nome da tabela no catalogo pode estar em maiusculas ou minusculas (lower_case_table_names do MySQL)
+			for (String tabela : new String[] { Const.TB_ENDERECO, Const.TB_ENDERECO.toLowerCase(Locale.ROOT) }) {
+				try (ResultSet indices = metaData.getIndexInfo(conexao.getCatalog(), null, tabela, true, true)) {
+					while (indices.next()) {
+						if (COLUNA.equalsIgnoreCase(indices.getString("COLUMN_NAME"))) {
+							return true;
+						}
+					}
+				}
+			}
+			return false;
+		});
+	}
+}
@@ -1,20 +1,34 @@
 package br.com.gestao.controllers;
 
+import java.io.IOException;
 import java.util.List;
 
+import javax.servlet.http.HttpServletResponse;
+
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import br.com.gestao.commons.Const;
+import br.com.gestao.commons.Contagem;
+import br.com.gestao.commons.CursorPage;
 import br.com.gestao.commons.ResponseWrapper;
+import br.com.gestao.commons.exportacao.FormatoExportacao;
+import br.com.gestao.dto.BuscaLoteDTO;
 import br.com.gestao.dto.EnderecoDTO;
+import br.com.gestao.dto.FiltroEnderecoDTO;
+import br.com.gestao.dto.SugestaoDTO;
 import br.com.gestao.services.EnderecoService;
+import br.com.gestao.services.ExportacaoService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
@@ -25,9 +39,11 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 public class EnderecoController {
 
 	private final EnderecoService enderecoService;
+	private final ExportacaoService exportacaoService;
 
-	public EnderecoController(EnderecoService enderecoService) {
+	public EnderecoController(EnderecoService enderecoService, ExportacaoService exportacaoService) {
 		this.enderecoService = enderecoService;
+		this.exportacaoService = exportacaoService;
 	}
 
 	@GetMapping("/{id}")
@@ -42,38 +58,171 @@ public class EnderecoController {
 		return enderecoService.findAll();
 	}
 	
-	@Operation(summary = "Listar todos os endereços por cep")
+	@PostMapping(value = "/buscar-lote", headers = { Const.HEADER_ACCEPT_JSON }, produces = Const.JSON_TYPE, consumes = Const.JSON_TYPE)
+	@Operation(summary = "Pesquisar vários cadastros de Endereco pelos ids (até 1000), na ordem enviada, informando os ids não encontrados")
+	public ResponseEntity<ResponseWrapper<BuscaLoteDTO<EnderecoDTO>>> buscarLote(@RequestBody List<Long> ids) {
+		return enderecoService.buscarLote(ids);
+	}
+	
+	@GetMapping("/exportar")
+	@Operation(summary = "Exportar todos os cadastros de Endereco em NDJSON ou CSV, escritos linha a linha na resposta")
+	public ResponseEntity<ResponseWrapper<Void>> exportar(@RequestParam(value = "format", required = false, defaultValue = "ndjson") String formato,
+			HttpServletResponse response) throws IOException {
+		FormatoExportacao formatoExportacao = FormatoExportacao.of(formato);
+		if (formatoExportacao == null) {
+			// validado antes de escrever na resposta: ainda da para responder com o ResponseWrapper
+			ResponseWrapper<Void> responseWrapper = new ResponseWrapper<>();
+			responseWrapper.setMessage("Formato de exportação não suportado: " + formato);
+			return ResponseEntity.badRequest().body(responseWrapper);
+		}
+		response.setContentType(formatoExportacao.getContentType());
+		response.setCharacterEncoding("UTF-8");
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=enderecos." + formatoExportacao.getExtensao());
+		this.exportacaoService.exportarEnderecos(formatoExportacao, response.getOutputStream());
+		// o conteudo ja foi escrito na resposta
+		return null;
+	}
+	
+	@Operation(summary = "Listar todos os endereços por cep. count=false: sem o total (só hasNext); count=approx: total aproximado")
 	@GetMapping(value = "/listar-por-cep", produces = Const.JSON_TYPE)
-	public ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> findByCep(
+	public ResponseEntity<? extends ResponseWrapper<? extends Slice<EnderecoDTO>>> findByCep(
 			@RequestParam(value = "page", required = false, defaultValue = "1") Integer pagina,
 			@RequestParam(value = "quantity", required = false, defaultValue = "50") Integer quantidade,
-			@RequestParam(value = "cep", required = false, defaultValue = "") String cep) {
-		return this.enderecoService.findByCep(pagina, quantidade, cep);
+			@RequestParam(value = "cep", required = false, defaultValue = "") String cep,
+			@RequestParam(value = "count", required = false, defaultValue = "true") String count) {
+		Contagem contagem = Contagem.of(count);
+		if (contagem == null) {
+			return Contagem.naoSuportado(count);
+		}
+		if (contagem == Contagem.EXATA) {
+			return this.enderecoService.findByCep(pagina, quantidade, cep);
+		}
+		return this.enderecoService.findByCep(pagina, quantidade, cep, contagem);
 	}
-	
-	@Operation(summary = "Listar todos os endereços por cidade")
+
+	@Operation(summary = "Buscar endereços combinando filtros (cep, cidade, estado, principal, usuário), em ordem de id. "
+			+ "É preciso ao menos um filtro indexado: cep, cidade, estado ou usuário")
+	@GetMapping(value = "/buscar", produces = Const.JSON_TYPE)
+	public ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> buscar(
+			@RequestParam(value = "page", required = false, defaultValue = "1") Integer pagina,
+			@RequestParam(value = "quantity", required = false, defaultValue = "50") Integer quantidade,
+			@RequestParam(value = "cep", required = false) String cep,
+			@RequestParam(value = "city", required = false) String cidade,
+			@RequestParam(value = "state", required = false) String estado,
+			@RequestParam(value = "main", required = false) Boolean principal,
+			@RequestParam(value = "user", required = false) Long idUsuario) {
+		FiltroEnderecoDTO filtro = FiltroEnderecoDTO.builder().cep(cep).cidade(cidade).estado(estado).principal(principal)
+				.idUsuario(idUsuario).build();
+		return this.enderecoService.buscar(pagina, quantidade, filtro);
+	}
+
+	@Operation(summary = "Listar os endereços com cep começando pelo prefixo (ex.: 01 = 01000-000 a 01999-999), em ordem de cep")
+	@GetMapping(value = "/listar-por-faixa-cep", produces = Const.JSON_TYPE)
+	public ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> findByFaixaCep(
+			@RequestParam(value = "page", required = false, defaultValue = "1") Integer pagina,
+			@RequestParam(value = "quantity", required = false, defaultValue = "50") Integer quantidade,
+			@RequestParam(value = "prefix", required = false, defaultValue = "") String prefixo) {
+		return this.enderecoService.findByFaixaCep(pagina, quantidade, prefixo);
+	}
+
+	@Operation(summary = "Listar todos os endereços por cidade. count=false: sem o total (só hasNext); count=approx: total aproximado")
 	@GetMapping(value = "/listar-por-cidade", produces = Const.JSON_TYPE)
-	public ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> findByCidade(
+	public ResponseEntity<? extends ResponseWrapper<? extends Slice<EnderecoDTO>>> findByCidade(
 			@RequestParam(value = "page", required = false, defaultValue = "1") Integer pagina,
 			@RequestParam(value = "quantity", required = false, defaultValue = "50") Integer quantidade,
-			@RequestParam(value = "city", required = false, defaultValue = "") String cidade) {
-		return this.enderecoService.findByCidade(pagina, quantidade, cidade);
+			@RequestParam(value = "city", required = false, defaultValue = "") String cidade,
+			@RequestParam(value = "count", required = false, defaultValue = "true") String count) {
+		Contagem contagem = Contagem.of(count);
+		if (contagem == null) {
+			return Contagem.naoSuportado(count);
+		}
+		if (contagem == Contagem.EXATA) {
+			return this.enderecoService.findByCidade(pagina, quantidade, cidade);
+		}
+		return this.enderecoService.findByCidade(pagina, quantidade, cidade, contagem);
+	}
+	
+	@Operation(summary = "Sugerir cidades cadastradas que começam com o prefixo (sem acento e sem maiúsculas), das mais usadas para as menos")
+	@GetMapping(value = "/sugerir-cidade", produces = Const.JSON_TYPE)
+	public ResponseEntity<ResponseWrapper<List<SugestaoDTO>>> sugerirCidades(
+			@RequestParam(value = "prefix", required = false, defaultValue = "") String prefixo,
+			@RequestParam(value = "quantity", required = false, defaultValue = "10") Integer quantidade) {
+		return this.enderecoService.sugerirCidades(prefixo, quantidade);
 	}
 	
-	@Operation(summary = "Listar todos os endereços por estado")
+	@Operation(summary = "Sugerir estados cadastrados que começam com o prefixo, dos mais usados para os menos")
+	@GetMapping(value = "/sugerir-estado", produces = Const.JSON_TYPE)
+	public ResponseEntity<ResponseWrapper<List<SugestaoDTO>>> sugerirEstados(
+			@RequestParam(value = "prefix", required = false, defaultValue = "") String prefixo,
+			@RequestParam(value = "quantity", required = false, defaultValue = "10") Integer quantidade) {
+		return this.enderecoService.sugerirEstados(prefixo, quantidade);
+	}
+	
+	@Operation(summary = "Listar todos os endereços por estado. count=false: sem o total (só hasNext); count=approx: total aproximado")
 	@GetMapping(value = "/listar-por-estado", produces = Const.JSON_TYPE)
-	public ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> findByestado(
+	public ResponseEntity<? extends ResponseWrapper<? extends Slice<EnderecoDTO>>> findByestado(
 			@RequestParam(value = "page", required = false, defaultValue = "1") Integer pagina,
 			@RequestParam(value = "quantity", required = false, defaultValue = "50") Integer quantidade,
-			@RequestParam(value = "state", required = false, defaultValue = "") String estado) {
-		return this.enderecoService.findByEstado(pagina, quantidade, estado);
+			@RequestParam(value = "state", required = false, defaultValue = "") String estado,
+			@RequestParam(value = "count", required = false, defaultValue = "true") String count) {
+		Contagem contagem = Contagem.of(count);
+		if (contagem == null) {
+			return Contagem.naoSuportado(count);
+		}
+		if (contagem == Contagem.EXATA) {
+			return this.enderecoService.findByEstado(pagina, quantidade, estado);
+		}
+		return this.enderecoService.findByEstado(pagina, quantidade, estado, contagem);
 	}
 	
-	@Operation(summary = "Listar todos os endereços e mostrar o resultado utilizando paginação")
+	@Operation(summary = "Listar todos os endereços e mostrar o resultado utilizando paginação. count=false: sem o total (só hasNext); count=approx: total aproximado")
 	@GetMapping(value = "/listar-todos", produces = Const.JSON_TYPE)
-	public ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> findAll(
+	public ResponseEntity<? extends ResponseWrapper<? extends Slice<EnderecoDTO>>> findAll(
 			@RequestParam(value = "page", required = false, defaultValue = "1") Integer pagina,
+			@RequestParam(value = "quantity", required = false, defaultValue = "50") Integer quantidade,
+			@RequestParam(value = "count", required = false, defaultValue = "true") String count) {
+		Contagem contagem = Contagem.of(count);
+		if (contagem == null) {
+			return Contagem.naoSuportado(count);
+		}
+		if (contagem == Contagem.EXATA) {
+			return this.enderecoService.findAll(pagina, quantidade);
+		}
+		return this.enderecoService.findAll(pagina, quantidade, contagem);
+	}
+	
+	@Operation(summary = "Listar todos os endereços utilizando cursor (keyset): informe em 'after' o valor de 'next' da página anterior")
+	@GetMapping(value = "/listar-todos/cursor", produces = Const.JSON_TYPE)
+	public ResponseEntity<ResponseWrapper<CursorPage<EnderecoDTO>>> findAllCursor(
+			@RequestParam(value = "after", required = false) String after,
 			@RequestParam(value = "quantity", required = false, defaultValue = "50") Integer quantidade) {
-		return this.enderecoService.findAll(pagina, quantidade);
+		return this.enderecoService.findAllCursor(after, quantidade);
+	}
+	
+	@Operation(summary = "Listar todos os endereços por cep utilizando cursor (keyset)")
+	@GetMapping(value = "/listar-por-cep/cursor", produces = Const.JSON_TYPE)
+	public ResponseEntity<ResponseWrapper<CursorPage<EnderecoDTO>>> findByCepCursor(
+			@RequestParam(value = "after", required = false) String after,
+			@RequestParam(value = "quantity", required = false, defaultValue = "50") Integer quantidade,
+			@RequestParam(value = "cep", required = false, defaultValue = "") String cep) {
+		return this.enderecoService.findByCepCursor(after, quantidade, cep);
+	}
+	
+	@Operation(summary = "Listar todos os endereços por cidade utilizando cursor (keyset)")
+	@GetMapping(value = "/listar-por-cidade/cursor", produces = Const.JSON_TYPE)
+	public ResponseEntity<ResponseWrapper<CursorPage<EnderecoDTO>>> findByCidadeCursor(
+			@RequestParam(value = "after", required = false) String after,
+			@RequestParam(value = "quantity", required = false, defaultValue = "50") Integer quantidade,
+			@RequestParam(value = "city", required = false, defaultValue = "") String cidade) {
+		return this.enderecoService.findByCidadeCursor(after, quantidade, cidade);
+	}
+	
+	@Operation(summary = "Listar todos os endereços por estado utilizando cursor (keyset)")
+	@GetMapping(value = "/listar-por-estado/cursor", produces = Const.JSON_TYPE)
+	public ResponseEntity<ResponseWrapper<CursorPage<EnderecoDTO>>> findByEstadoCursor(
+			@RequestParam(value = "after", required = false) String after,
+			@RequestParam(value = "quantity", required = false, defaultValue = "50") Integer quantidade,
+			@RequestParam(value = "state", required = false, defaultValue = "") String estado) {
+		return this.enderecoService.findByEstadoCursor(after, quantidade, estado);
 	}
 }
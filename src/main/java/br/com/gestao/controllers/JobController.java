@@ -0,0 +1,56 @@
+package br.com.gestao.controllers;
+
+import java.io.IOException;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import br.com.gestao.commons.Const;
+import br.com.gestao.commons.ResponseWrapper;
+import br.com.gestao.commons.exportacao.FormatoExportacao;
+import br.com.gestao.dto.JobDTO;
+import br.com.gestao.services.JobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@CrossOrigin
+@RequestMapping("/jobs")
+@Tag(name = "JobController", description = "Andamento das operações em massa executadas em segundo plano (importações)")
+public class JobController {
+
+	private final JobService jobService;
+
+	public JobController(JobService jobService) {
+		this.jobService = jobService;
+	}
+
+	@GetMapping(value = "/{id}", produces = Const.JSON_TYPE)
+	@Operation(summary = "Andamento de um job: situação, linhas processadas, gravadas e recusadas, usuários gravados e linhas por segundo")
+	public ResponseEntity<ResponseWrapper<JobDTO>> findById(@PathVariable Long id) {
+		return jobService.consultar(id);
+	}
+
+	@GetMapping("/{id}/recusadas")
+	@Operation(summary = "Baixar em CSV as linhas recusadas de um job encerrado, com a linha da entrada e o motivo")
+	public ResponseEntity<ResponseWrapper<Void>> recusadas(@PathVariable Long id, HttpServletResponse response) throws IOException {
+		ResponseEntity<ResponseWrapper<Void>> erro = jobService.verificarEncerrado(id);
+		if (erro != null) {
+			// validado antes de escrever na resposta: ainda da para responder com o ResponseWrapper
+			return erro;
+		}
+		response.setContentType(FormatoExportacao.CSV.getContentType());
+		response.setCharacterEncoding("UTF-8");
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=recusadas-" + id + ".csv");
+		jobService.exportarRecusadas(id, response.getOutputStream());
+		// o conteudo ja foi escrito na resposta
+		return null;
+	}
+}
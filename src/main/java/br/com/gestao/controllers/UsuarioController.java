@@ -1,8 +1,13 @@
 package br.com.gestao.controllers;
 
+import java.io.IOException;
 import java.util.List;
 
-import org.springframework.data.domain.Page;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -14,12 +19,22 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 
 import br.com.gestao.commons.Const;
+import br.com.gestao.commons.Contagem;
+import br.com.gestao.commons.CursorPage;
 import br.com.gestao.commons.ResponseWrapper;
+import br.com.gestao.commons.exportacao.FormatoExportacao;
+import br.com.gestao.dto.BuscaLoteDTO;
 import br.com.gestao.dto.EnderecoDTO;
+import br.com.gestao.dto.JobDTO;
+import br.com.gestao.dto.ResultadoLoteDTO;
 import br.com.gestao.dto.UsuarioDTO;
 import br.com.gestao.services.UsuarioService;
+import br.com.gestao.services.ExportacaoService;
+import br.com.gestao.services.ImportacaoService;
+import br.com.gestao.services.LoteUsuarioService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
@@ -30,9 +45,16 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 public class UsuarioController {
 
 	private final UsuarioService usuarioService;
+	private final ExportacaoService exportacaoService;
+	private final LoteUsuarioService loteUsuarioService;
+	private final ImportacaoService importacaoService;
 
-	public UsuarioController(UsuarioService usuarioService) {
+	public UsuarioController(UsuarioService usuarioService, ExportacaoService exportacaoService, LoteUsuarioService loteUsuarioService,
+			ImportacaoService importacaoService) {
 		this.usuarioService = usuarioService;
+		this.exportacaoService = exportacaoService;
+		this.loteUsuarioService = loteUsuarioService;
+		this.importacaoService = importacaoService;
 	}
 	//implementar o teste unitario desse controller
 	@GetMapping("/{id}")
@@ -47,29 +69,103 @@ public class UsuarioController {
 		return usuarioService.findAll();
 	}
 	
+	@GetMapping("/exportar")
+	@Operation(summary = "Exportar todos os cadastros de Usuario em NDJSON ou CSV, escritos linha a linha na resposta")
+	public ResponseEntity<ResponseWrapper<Void>> exportar(@RequestParam(value = "format", required = false, defaultValue = "ndjson") String formato,
+			HttpServletResponse response) throws IOException {
+		FormatoExportacao formatoExportacao = FormatoExportacao.of(formato);
+		if (formatoExportacao == null) {
+			// validado antes de escrever na resposta: ainda da para responder com o ResponseWrapper
+			ResponseWrapper<Void> responseWrapper = new ResponseWrapper<>();
+			responseWrapper.setMessage("Formato de exportação não suportado: " + formato);
+			return ResponseEntity.badRequest().body(responseWrapper);
+		}
+		response.setContentType(formatoExportacao.getContentType());
+		response.setCharacterEncoding("UTF-8");
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=usuarios." + formatoExportacao.getExtensao());
+		this.exportacaoService.exportarUsuarios(formatoExportacao, response.getOutputStream());
+		// o conteudo ja foi escrito na resposta
+		return null;
+	}
+	
 	@GetMapping("/{id}/enderecos")
-	@Operation(summary = "Listar todos os endereços de um usuário")
-	public ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> findById(@PathVariable Long id,
+	@Operation(summary = "Listar todos os endereços de um usuário. count=false: sem o total (só hasNext); count=approx: total aproximado")
+	public ResponseEntity<? extends ResponseWrapper<? extends Slice<EnderecoDTO>>> findById(@PathVariable Long id,
 			@RequestParam(value = "page", required = false, defaultValue = "1") Integer pagina,
+			@RequestParam(value = "quantity", required = false, defaultValue = "50") Integer quantidade,
+			@RequestParam(value = "count", required = false, defaultValue = "true") String count) {
+		Contagem contagem = Contagem.of(count);
+		if (contagem == null) {
+			return Contagem.naoSuportado(count);
+		}
+		if (contagem == Contagem.EXATA) {
+			return usuarioService.findEnderecoByIdUsuario(id, pagina, quantidade);
+		}
+		return usuarioService.findEnderecoByIdUsuario(id, pagina, quantidade, contagem);
+	}
+	
+	@GetMapping("/{id}/enderecos/cursor")
+	@Operation(summary = "Listar todos os endereços de um usuário utilizando cursor (keyset)")
+	public ResponseEntity<ResponseWrapper<CursorPage<EnderecoDTO>>> findEnderecoByIdUsuarioCursor(@PathVariable Long id,
+			@RequestParam(value = "after", required = false) String after,
 			@RequestParam(value = "quantity", required = false, defaultValue = "50") Integer quantidade) {
-		return usuarioService.findEnderecoByIdUsuario(id, pagina, quantidade);
+		return usuarioService.findEnderecoByIdUsuarioCursor(id, after, quantidade);
 	}
 	
-	@Operation(summary = "Listar todos os Usuarios e mostrar o resultado utilizando paginação")
+	@Operation(summary = "Listar todos os Usuarios e mostrar o resultado utilizando paginação. count=false: sem o total (só hasNext); count=approx: total aproximado")
 	@GetMapping(value = "/listar-todos", produces = Const.JSON_TYPE)
-	public ResponseEntity<ResponseWrapper<Page<UsuarioDTO>>> findAll(
+	public ResponseEntity<? extends ResponseWrapper<? extends Slice<UsuarioDTO>>> findAll(
 			@RequestParam(value = "page", required = false, defaultValue = "1") Integer pagina,
-			@RequestParam(value = "quantity", required = false, defaultValue = "50") Integer quantidade) {
-		return this.usuarioService.findAll(pagina, quantidade);
+			@RequestParam(value = "quantity", required = false, defaultValue = "50") Integer quantidade,
+			@RequestParam(value = "count", required = false, defaultValue = "true") String count) {
+		Contagem contagem = Contagem.of(count);
+		if (contagem == null) {
+			return Contagem.naoSuportado(count);
+		}
+		if (contagem == Contagem.EXATA) {
+			return this.usuarioService.findAll(pagina, quantidade);
+		}
+		return this.usuarioService.findAll(pagina, quantidade, contagem);
 	}
 	
-	@Operation(summary = "Listar todos os Usuarios que tem um nome parecido com o Nome consultado")
+	@Operation(summary = "Listar todos os Usuarios que tem um nome parecido com o Nome consultado. count=false: sem o total (só hasNext); count=approx: total aproximado")
 	@GetMapping(value = "/listar-por-nome", produces = Const.JSON_TYPE)
-	public ResponseEntity<ResponseWrapper<Page<UsuarioDTO>>> findByNomeLike(
+	public ResponseEntity<? extends ResponseWrapper<? extends Slice<UsuarioDTO>>> findByNomeLike(
 			@RequestParam(value = "page", required = false, defaultValue = "1") Integer pagina,
 			@RequestParam(value = "quantity", required = false, defaultValue = "50") Integer quantidade,
+			@RequestParam(value = "name", required = false, defaultValue = "") String nome,
+			@RequestParam(value = "count", required = false, defaultValue = "true") String count) {
+		Contagem contagem = Contagem.of(count);
+		if (contagem == null) {
+			return Contagem.naoSuportado(count);
+		}
+		if (contagem == Contagem.EXATA) {
+			return this.usuarioService.findByNomeLike(pagina, quantidade, nome);
+		}
+		return this.usuarioService.findByNomeLike(pagina, quantidade, nome, contagem);
+	}
+
+	@Operation(summary = "Listar todos os Usuarios utilizando cursor (keyset): informe em 'after' o valor de 'next' da página anterior")
+	@GetMapping(value = "/listar-todos/cursor", produces = Const.JSON_TYPE)
+	public ResponseEntity<ResponseWrapper<CursorPage<UsuarioDTO>>> findAllCursor(
+			@RequestParam(value = "after", required = false) String after,
+			@RequestParam(value = "quantity", required = false, defaultValue = "50") Integer quantidade) {
+		return this.usuarioService.findAllCursor(after, quantidade);
+	}
+	
+	@Operation(summary = "Listar os Usuarios com nome parecido com o Nome consultado utilizando cursor (keyset)")
+	@GetMapping(value = "/listar-por-nome/cursor", produces = Const.JSON_TYPE)
+	public ResponseEntity<ResponseWrapper<CursorPage<UsuarioDTO>>> findByNomeLikeCursor(
+			@RequestParam(value = "after", required = false) String after,
+			@RequestParam(value = "quantity", required = false, defaultValue = "50") Integer quantidade,
 			@RequestParam(value = "name", required = false, defaultValue = "") String nome) {
-		return this.usuarioService.findByNomeLike(pagina, quantidade, nome);
+		return this.usuarioService.findByNomeLikeCursor(after, quantidade, nome);
+	}
+
+	@Operation(summary = "Pesquisar vários cadastros de Usuario pelos ids (até 1000), na ordem enviada, informando os ids não encontrados")
+	@PostMapping(value = "/buscar-lote", headers = { Const.HEADER_ACCEPT_JSON }, produces = Const.JSON_TYPE, consumes = Const.JSON_TYPE)
+	public ResponseEntity<ResponseWrapper<BuscaLoteDTO<UsuarioDTO>>> buscarLote(@RequestBody List<Long> ids) {
+		return usuarioService.buscarLote(ids);
 	}
 
 	@Operation(summary = "Salvar um cadastro completo do Usuario, incluindo os seus endereços")
@@ -78,6 +174,18 @@ public class UsuarioController {
 		return usuarioService.salvarUsuario(body);
 	}
 	
+	@Operation(summary = "Salvar (inserir ou alterar) um lote de Usuarios com os seus endereços, informando o resultado de cada item")
+	@PostMapping(value = "/lote", headers = { Const.HEADER_ACCEPT_JSON }, produces = Const.JSON_TYPE, consumes = Const.JSON_TYPE)
+	public ResponseEntity<ResponseWrapper<ResultadoLoteDTO>> salvarLote(@RequestBody List<UsuarioDTO> body) {
+		return loteUsuarioService.salvarLote(body);
+	}
+	
+	@Operation(summary = "Importar Usuarios e endereços de uma planilha CSV ou XLSX (uma linha sem nome é mais um endereço do usuário anterior; com id altera o usuário), como job em segundo plano")
+	@PostMapping(value = "/importar", produces = Const.JSON_TYPE, consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+	public ResponseEntity<ResponseWrapper<JobDTO>> importar(@RequestParam("arquivo") MultipartFile arquivo) {
+		return importacaoService.importar(arquivo);
+	}
+	
 	@Operation(summary = "Alterar o endereço para um usuario especifico")
 	@PostMapping(value = "/{id}/enderecos/salvar", headers = { Const.HEADER_ACCEPT_JSON }, produces = Const.JSON_TYPE, consumes = Const.JSON_TYPE)
 	public ResponseEntity<ResponseWrapper<EnderecoDTO>>  salvarEndereco(@PathVariable Long id, @RequestBody EnderecoDTO endereco) {
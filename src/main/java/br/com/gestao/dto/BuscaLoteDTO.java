@@ -0,0 +1,46 @@
+package br.com.gestao.dto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Setter
+@Getter
+@Builder
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(name = "BuscaLote")
+public class BuscaLoteDTO<T> {
+
+	// ENCONTRADOS NA ORDEM DOS IDS ENVIADOS (ID REPETIDO APARECE UMA VEZ)
+	@ToString.Exclude
+	@Builder.Default
+	private List<T> encontrados = new ArrayList<>();
+
+	// IDS ENVIADOS QUE NAO EXISTEM NA BASE, TAMBEM NA ORDEM DO PEDIDO
+	@Builder.Default
+	private List<Long> naoEncontrados = new ArrayList<>();
+
+	public static <T> BuscaLoteDTO<T> of(List<Long> ids, Map<Long, T> carregados) {
+		BuscaLoteDTO<T> resultado = new BuscaLoteDTO<>();
+		for (Long id : new LinkedHashSet<>(ids)) {
+			T item = carregados.get(id);
+			if (item != null) {
+				resultado.encontrados.add(item);
+			} else {
+				resultado.naoEncontrados.add(id);
+			}
+		}
+		return resultado;
+	}
+}
@@ -35,4 +35,9 @@ public class EnderecoDTO {
 	
 	@JsonBackReference
 	private UsuarioDTO usuario;
+
+	// Projecao das listagens (select new nas consultas do EnderecoRepository): so as colunas de TB_ENDERECO
+	public EnderecoDTO(Long id, String cep, String logradouro, String cidade, String estado, String numero, Boolean principal) {
+		this(id, cep, logradouro, cidade, estado, numero, principal, null);
+	}
 }
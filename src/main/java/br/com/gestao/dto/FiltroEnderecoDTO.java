@@ -0,0 +1,30 @@
+package br.com.gestao.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+// FILTROS DA BUSCA COMBINADA DE ENDERECOS: OS INFORMADOS SAO COMBINADOS COM "E"; OS VAZIOS SAO IGNORADOS
+@Setter
+@Getter
+@Builder
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(name = "FiltroEndereco")
+public class FiltroEnderecoDTO {
+
+	private String cep;
+
+	private String cidade;
+
+	private String estado;
+
+	private Boolean principal;
+
+	private Long idUsuario;
+}
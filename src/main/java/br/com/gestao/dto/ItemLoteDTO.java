@@ -0,0 +1,36 @@
+package br.com.gestao.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Setter
+@Getter
+@Builder
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(name = "ItemLote")
+public class ItemLoteDTO {
+
+	public enum Status {
+		CRIADO, ALTERADO, ERRO
+	}
+
+	// POSICAO DO USUARIO NA LISTA ENVIADA
+	private int indice;
+
+	private Long id;
+
+	private Status status;
+
+	private String mensagem;
+
+	public static ItemLoteDTO erro(int indice, Long id, String mensagem) {
+		return new ItemLoteDTO(indice, id, Status.ERRO, mensagem);
+	}
+}
@@ -0,0 +1,48 @@
+package br.com.gestao.dto;
+
+import br.com.gestao.entities.Job;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Setter
+@Getter
+@Builder
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(name = "Job")
+public class JobDTO {
+
+	private Long id;
+
+	private Job.Tipo tipo;
+
+	private String arquivo;
+
+	private Job.Status status;
+
+	private int particoes;
+
+	// LINHAS DA ENTRADA JA GRAVADAS OU RECUSADAS (SEM O CABECALHO E AS LINHAS EM BRANCO)
+	private long linhasProcessadas;
+
+	private long linhasGravadas;
+
+	private long linhasRecusadas;
+
+	private long usuariosGravados;
+
+	private long enderecosGravados;
+
+	// DA EXECUCAO ATUAL (OU DA ULTIMA): DEPOIS DE UMA RETOMADA, CONTA SO O QUE FOI PROCESSADO DESDE ELA
+	private long duracaoMs;
+
+	private double linhasPorSegundo;
+
+	private String mensagem;
+}
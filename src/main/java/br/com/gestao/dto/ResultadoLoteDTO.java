@@ -0,0 +1,39 @@
+package br.com.gestao.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Setter
+@Getter
+@Builder
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(name = "ResultadoLote")
+public class ResultadoLoteDTO {
+
+	private int total;
+
+	private int gravados;
+
+	private int erros;
+
+	// USUARIOS + ENDERECOS GRAVADOS
+	private long linhas;
+
+	private long duracaoMs;
+
+	private double linhasPorSegundo;
+
+	@ToString.Exclude
+	@Builder.Default
+	private List<ItemLoteDTO> itens = new ArrayList<>();
+}
@@ -0,0 +1,27 @@
+package br.com.gestao.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Setter
+@Getter
+@Builder
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(name = "Sugestao")
+public class SugestaoDTO {
+
+	private String nome;
+
+	// UF DA CIDADE (VAZIO NAS SUGESTOES DE ESTADO)
+	private String estado;
+
+	// QUANTIDADE DE ENDERECOS CADASTRADOS COM ESSE VALOR
+	private int quantidade;
+}
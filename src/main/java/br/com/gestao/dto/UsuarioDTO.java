@@ -1,15 +1,15 @@
 package br.com.gestao.dto;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
-import com.fasterxml.jackson.databind.ser.std.DateSerializer;
 
 import br.com.gestao.commons.deserializers.DateDeserializer;
+import br.com.gestao.commons.serializers.DateSerializer;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -33,7 +33,8 @@ public class UsuarioDTO {
 	
 	@JsonDeserialize(using = DateDeserializer.class)
 	@JsonSerialize(using = DateSerializer.class)
-	private Date dataNascimento;
+	@Schema(type = "string", pattern = "dd/MM/yyyy", example = "17/10/1990")
+	private LocalDate dataNascimento;
 	
 	@JsonManagedReference
 	@Builder.Default
@@ -1,25 +1,49 @@
 package br.com.gestao.entities;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.PostLoad;
 import javax.persistence.PrePersist;
 import javax.persistence.PreUpdate;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import br.com.gestao.commons.Cep;
 import br.com.gestao.commons.Const;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 @Entity
-@Table(name = Const.TB_ENDERECO)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Const.REGIAO_ENDERECO)
+//INDICES USADOS PELAS CONSULTAS POR CEP/CIDADE/ESTADO E PELA BUSCA COMBINADA (EnderecoSpecifications).
+//NO INNODB O ID JA FAZ PARTE DE TODO INDICE SECUNDARIO: COM IGUALDADE EM TODAS AS COLUNAS O RESULTADO JA SAI EM ORDEM DE ID.
+//OS COMPOSTOS ATENDEM TAMBEM A PRIMEIRA COLUNA SOZINHA (ESTADO, CIDADE, USUARIO), POR ISSO NAO HA INDICE SIMPLES DELAS
+@Table(name = Const.TB_ENDERECO, indexes = {
+		@Index(name = Const.IDX_ENDERECO_CEP, columnList = "cep"),
+		@Index(name = Const.IDX_ENDERECO_CIDADE_PRINCIPAL, columnList = "cidade, principal"),
+		@Index(name = Const.IDX_ENDERECO_ESTADO_CIDADE_PRINCIPAL, columnList = "estado, cidade, principal"),
+		@Index(name = Const.IDX_ENDERECO_USUARIO_PRINCIPAL, columnList = "id_usuario, principal") },
+		uniqueConstraints = @UniqueConstraint(name = Const.UK_ENDERECO_PRINCIPAL, columnNames = "principal_usuario"))
 @Data
 @Builder
 @NoArgsConstructor
@@ -27,7 +51,8 @@ import lombok.NoArgsConstructor;
 public class Endereco {
 
 	@Id
-	@GeneratedValue
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "SQ_ENDERECO")
+	@SequenceGenerator(name = "SQ_ENDERECO", sequenceName = Const.SQ_ENDERECO, allocationSize = Const.SQ_ID_BLOCO)
 	@Column(name = "id", nullable = false, unique = true)
 	private Long id;
 	
@@ -52,24 +77,35 @@ public class Endereco {
 	@Builder.Default
 	private Boolean principal = Boolean.FALSE;
 	
-	@ManyToOne(fetch = FetchType.EAGER)
+	//COLUNA CALCULADA PELO BANCO: ID DO USUARIO QUANDO O ENDERECO E PRINCIPAL, NULL NOS DEMAIS.
+	//COM O UK_ENDERECO_PRINCIPAL, UM USUARIO TEM NO MAXIMO UM ENDERECO PRINCIPAL (O MYSQL NAO TEM INDICE PARCIAL)
+	@Column(name = "principal_usuario", insertable = false, updatable = false,
+			columnDefinition = "BIGINT GENERATED ALWAYS AS (CASE WHEN principal THEN id_usuario END)")
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	@ToString.Exclude
+	@EqualsAndHashCode.Exclude
+	private Long principalUsuario;
+	
+	//CARREGADO SOB DEMANDA: AS CONSULTAS QUE PRECISAM DO USUARIO DECLARAM O FETCH NO REPOSITORY
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "id_usuario")
+	@ToString.Exclude
+	@EqualsAndHashCode.Exclude
 	private Usuario usuario;
 	
 	@PrePersist
 	void prePersist() {
 		if(this.principal == null)
 			this.principal = Boolean.FALSE;
-		if(this.cep != null)
-			this.cep = cep.replaceAll("[^a-zA-Z0-9 ]", "");
+		this.cep = Cep.normalizar(this.cep);
 	}
 
 	@PreUpdate
 	void preUpdate() {
 		if(this.principal == null)
 			this.principal = Boolean.FALSE;
-		if(this.cep != null)
-			this.cep = cep.replaceAll("[^a-zA-Z0-9 ]", "");
+		this.cep = Cep.normalizar(this.cep);
 	}
 	
 	@PostLoad
@@ -0,0 +1,84 @@
+package br.com.gestao.entities;
+
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+import br.com.gestao.commons.Const;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//OPERACAO EM MASSA EXECUTADA EM SEGUNDO PLANO (JobService). OS CONTADORES DA GRAVACAO FICAM NAS PARTICOES (JobParticao);
+//AQUI SO AS LINHAS RECUSADAS NA LEITURA. FORA DO CACHE DE SEGUNDO NIVEL: E ALTERADO POR UPDATES JPQL DURANTE A EXECUCAO
+@Entity
+@Table(name = Const.TB_JOB, indexes = @Index(name = "IDX_JOB_STATUS", columnList = "status"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Job {
+
+	public enum Tipo {
+		IMPORTACAO
+	}
+
+	public enum Status {
+		AGUARDANDO, PROCESSANDO, CONCLUIDO, FALHOU
+	}
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "SQ_JOB")
+	@SequenceGenerator(name = "SQ_JOB", sequenceName = Const.SQ_JOB, allocationSize = 1)
+	@Column(name = "id", nullable = false, unique = true)
+	private Long id;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "tipo", length = 20, nullable = false)
+	private Tipo tipo;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "status", length = 20, nullable = false)
+	private Status status;
+
+	//NOME DO ARQUIVO ENVIADO
+	@Column(name = "arquivo", length = 255)
+	private String arquivo;
+
+	//CAMINHO DA COPIA DA ENTRADA NO DIRETORIO DOS JOBS, APAGADA QUANDO O JOB TERMINA
+	@Column(name = "entrada", length = 1000, nullable = false)
+	private String entrada;
+
+	//FIXADO NA CRIACAO: UMA RETOMADA DISTRIBUI OS USUARIOS DO MESMO JEITO, MESMO QUE A CONFIGURACAO MUDE
+	@Column(name = "particoes", nullable = false)
+	private int particoes;
+
+	@Column(name = "linhas_recusadas", nullable = false)
+	private long linhasRecusadas;
+
+	//LINHAS JA PROCESSADAS QUANDO A EXECUCAO ATUAL COMECOU (LINHAS POR SEGUNDO DEPOIS DE UMA RETOMADA)
+	@Column(name = "linhas_ao_iniciar", nullable = false)
+	private long linhasAoIniciar;
+
+	@Column(name = "criado_em", nullable = false)
+	private Instant criadoEm;
+
+	@Column(name = "iniciado_em")
+	private Instant iniciadoEm;
+
+	@Column(name = "encerrado_em")
+	private Instant encerradoEm;
+
+	@Column(name = "mensagem", length = 1000)
+	private String mensagem;
+}
@@ -0,0 +1,62 @@
+package br.com.gestao.entities;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+
+import br.com.gestao.commons.Const;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//ANDAMENTO DE UMA PARTICAO DO JOB, ATUALIZADO NA MESMA TRANSACAO DE CADA BLOCO GRAVADO: A ULTIMA LINHA CONFIRMADA
+//(PONTO DE RETOMADA) E OS CONTADORES. UMA LINHA POR PARTICAO, PARA AS PARTICOES NAO DISPUTAREM O MESMO REGISTRO
+@Entity
+@IdClass(JobParticao.Chave.class)
+@Table(name = Const.TB_JOB_PARTICAO)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobParticao {
+
+	@Id
+	@Column(name = "id_job", nullable = false)
+	private Long jobId;
+
+	@Id
+	@Column(name = "particao", nullable = false)
+	private int particao;
+
+	@Column(name = "linha", nullable = false)
+	private int linha;
+
+	@Column(name = "linhas_gravadas", nullable = false)
+	private long linhasGravadas;
+
+	@Column(name = "linhas_recusadas", nullable = false)
+	private long linhasRecusadas;
+
+	@Column(name = "usuarios_gravados", nullable = false)
+	private long usuariosGravados;
+
+	@Column(name = "enderecos_gravados", nullable = false)
+	private long enderecosGravados;
+
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class Chave implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private Long jobId;
+
+		private int particao;
+	}
+}
@@ -0,0 +1,52 @@
+package br.com.gestao.entities;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+import br.com.gestao.commons.Const;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//LINHA DA ENTRADA RECUSADA PELO JOB, COM O MOTIVO E OS VALORES LIDOS. SEM PARTICAO: RECUSADA NA LEITURA
+//(REFEITA NA RETOMADA); COM PARTICAO: RECUSADA NA GRAVACAO, JUNTO COM O BLOCO
+@Entity
+@Table(name = Const.TB_JOB_RECUSA, indexes = @Index(name = "IDX_JOB_RECUSA_JOB_LINHA", columnList = "id_job, linha"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobRecusa {
+
+	public static final int TAMANHO_MOTIVO = 1000;
+	public static final int TAMANHO_VALORES = 4000;
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "SQ_JOB_RECUSA")
+	@SequenceGenerator(name = "SQ_JOB_RECUSA", sequenceName = Const.SQ_JOB_RECUSA, allocationSize = Const.SQ_ID_BLOCO)
+	@Column(name = "id", nullable = false, unique = true)
+	private Long id;
+
+	@Column(name = "id_job", nullable = false)
+	private Long jobId;
+
+	@Column(name = "particao")
+	private Integer particao;
+
+	@Column(name = "linha", nullable = false)
+	private int linha;
+
+	@Column(name = "motivo", length = TAMANHO_MOTIVO)
+	private String motivo;
+
+	//VALORES DA LINHA NA ORDEM DAS COLUNAS DA ENTRADA, SEPARADOS PELO CARACTERE 0x1F (UNIT SEPARATOR)
+	@Column(name = "valores", length = TAMANHO_VALORES)
+	private String valores;
+}
@@ -1,34 +1,42 @@
 package br.com.gestao.entities;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.OneToMany;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
-import org.hibernate.annotations.LazyCollection;
-import org.hibernate.annotations.LazyCollectionOption;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
-import com.fasterxml.jackson.databind.ser.std.DateSerializer;
 
 import br.com.gestao.commons.Const;
 import br.com.gestao.commons.deserializers.DateDeserializer;
+import br.com.gestao.commons.serializers.DateSerializer;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Entity
-@Table(name = Const.TB_USUARIO)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Const.REGIAO_USUARIO)
+@Table(name = Const.TB_USUARIO, indexes = @Index(name = "IDX_USUARIO_NOME", columnList = "nome_completo"))
 @Data
 @Builder
 @NoArgsConstructor
@@ -36,7 +44,8 @@ import lombok.NoArgsConstructor;
 public class Usuario {
 
 	@Id
-	@GeneratedValue
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "SQ_USUARIO")
+	@SequenceGenerator(name = "SQ_USUARIO", sequenceName = Const.SQ_USUARIO, allocationSize = Const.SQ_ID_BLOCO)
 	@Column(name = "id", nullable = false, unique = true)
 	private Long id;
 
@@ -46,10 +55,13 @@ public class Usuario {
 	@Column(name = "data_nascimento")
 	@JsonDeserialize(using = DateDeserializer.class)
 	@JsonSerialize(using = DateSerializer.class)
-	private Date dataNascimento;
+	private LocalDate dataNascimento;
 
-	@OneToMany(fetch = FetchType.EAGER, mappedBy = "usuario", targetEntity = Endereco.class, cascade = CascadeType.REMOVE, orphanRemoval = true)
-	@LazyCollection(LazyCollectionOption.FALSE)
+	//CARREGADO SOB DEMANDA: AS CONSULTAS QUE PRECISAM DOS ENDERECOS DECLARAM O FETCH NO REPOSITORY
+	@OneToMany(fetch = FetchType.LAZY, mappedBy = "usuario", targetEntity = Endereco.class, cascade = CascadeType.REMOVE, orphanRemoval = true)
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Const.REGIAO_USUARIO_ENDERECOS)
 	@Builder.Default
+	@ToString.Exclude
+	@EqualsAndHashCode.Exclude
 	private List<Endereco> enderecos = new ArrayList<>();
 }
@@ -0,0 +1,26 @@
+package br.com.gestao.mappers;
+
+import org.mapstruct.Builder;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+
+import br.com.gestao.dto.EnderecoDTO;
+import br.com.gestao.entities.Endereco;
+
+// Implementacao gerada pelo MapStruct em tempo de compilacao (EnderecoMapperImpl), sem reflexao.
+// O usuario do endereco nao e mapeado: quem monta o grafo e o UsuarioMapper ou o servico.
+@Mapper(builder = @Builder(disableBuilder = true))
+public interface EnderecoMapper {
+
+	@Mapping(target = "usuario", ignore = true)
+	EnderecoDTO toDto(Endereco endereco);
+
+	@Mapping(target = "usuario", ignore = true)
+	Endereco toEntity(EnderecoDTO enderecoDTO);
+
+	// Copia os dados do DTO para um endereco ja gerenciado, mantendo id e usuario
+	@Mapping(target = "id", ignore = true)
+	@Mapping(target = "usuario", ignore = true)
+	void atualizar(EnderecoDTO enderecoDTO, @MappingTarget Endereco endereco);
+}
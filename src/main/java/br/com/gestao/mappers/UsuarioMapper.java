@@ -0,0 +1,39 @@
+package br.com.gestao.mappers;
+
+import java.util.ArrayList;
+
+import org.mapstruct.AfterMapping;
+import org.mapstruct.Builder;
+import org.mapstruct.Mapper;
+import org.mapstruct.MappingTarget;
+
+import br.com.gestao.dto.UsuarioDTO;
+import br.com.gestao.entities.Usuario;
+
+// Implementacao gerada pelo MapStruct em tempo de compilacao (UsuarioMapperImpl), sem reflexao.
+// Os enderecos sao mapeados pelo EnderecoMapper e a referencia de volta (endereco -> usuario)
+// e apenas atribuida ao objeto ja mapeado, sem percorrer o grafo novamente.
+// Lista de enderecos nula vira lista vazia, como no @Builder.Default das classes.
+@Mapper(uses = EnderecoMapper.class, builder = @Builder(disableBuilder = true))
+public interface UsuarioMapper {
+
+	UsuarioDTO toDto(Usuario usuario);
+
+	Usuario toEntity(UsuarioDTO usuarioDTO);
+
+	@AfterMapping
+	default void vincularEnderecos(@MappingTarget UsuarioDTO usuarioDTO) {
+		if (usuarioDTO.getEnderecos() == null) {
+			usuarioDTO.setEnderecos(new ArrayList<>());
+		}
+		usuarioDTO.getEnderecos().forEach(endereco -> endereco.setUsuario(usuarioDTO));
+	}
+
+	@AfterMapping
+	default void vincularEnderecos(@MappingTarget Usuario usuario) {
+		if (usuario.getEnderecos() == null) {
+			usuario.setEnderecos(new ArrayList<>());
+		}
+		usuario.getEnderecos().forEach(endereco -> endereco.setUsuario(usuario));
+	}
+}
@@ -1,27 +1,166 @@
 package br.com.gestao.repositories;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import br.com.gestao.commons.Const;
+import br.com.gestao.dto.EnderecoDTO;
 import br.com.gestao.entities.Endereco;
 
-public interface EnderecoRepository extends JpaRepository<Endereco, Long> {
+//AS CONSULTAS DE ENDERECO SO LEEM TB_ENDERECO: O USUARIO (LAZY) NAO E CARREGADO
+public interface EnderecoRepository extends JpaRepository<Endereco, Long>, JpaSpecificationExecutor<Endereco> {
 
-	Page<Endereco> findByCep(String cep, PageRequest pageRequest);
+	//PROJECOES DAS LISTAGENS: SO AS COLUNAS DE TB_ENDERECO DIRETO NO DTO (SELECT NEW), SEM ENTIDADES GERENCIADAS.
+	//NADA ENTRA NO PERSISTENCE CONTEXT (SEM SNAPSHOT PARA O DIRTY CHECKING) E NAO HA O MAPEAMENTO ENTIDADE -> DTO.
+	//AS VARIANTES "Slice" (count=false / count=approx) BUSCAM "QUANTIDADE + 1" LINHAS E NAO FAZEM O COUNT
+	String SELECT_ENDERECO_DTO = "select new br.com.gestao.dto.EnderecoDTO(e.id, e.cep, e.logradouro, e.cidade, e.estado, e.numero, e.principal) from Endereco e";
+	
+	@Query(value = SELECT_ENDERECO_DTO + " where e.cep = :cep", countQuery = "select count(e) from Endereco e where e.cep = :cep")
+	Page<EnderecoDTO> findDtoByCep(@Param("cep") String cep, Pageable pageable);
+	
+	@Query(SELECT_ENDERECO_DTO + " where e.cep = :cep")
+	Slice<EnderecoDTO> findDtoSliceByCep(@Param("cep") String cep, Pageable pageable);
+	
+	//FAIXA DE CEP PELO PADRAO "PREFIXO%" (USA O INDICE IDX_ENDERECO_CEP). SO QUANDO O INDICE DE CEP EM MEMORIA NAO ESTA DISPONIVEL
+	@Query(value = SELECT_ENDERECO_DTO + " where e.cep like :padrao", countQuery = "select count(e) from Endereco e where e.cep like :padrao")
+	Page<EnderecoDTO> findDtoByCepLike(@Param("padrao") String padrao, Pageable pageable);
+	
+	//CONSULTAS NO CACHE DE CONSULTAS DO HIBERNATE: AS LINHAS DA PROJECAO FICAM GUARDADAS ATE A PROXIMA ESCRITA EM TB_ENDERECO
+	@QueryHints({ @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"),
+			@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_REGION, value = Const.REGIAO_CONSULTA_ENDERECOS) })
+	@Query(value = SELECT_ENDERECO_DTO + " where e.cidade = :cidade", countQuery = "select count(e) from Endereco e where e.cidade = :cidade")
+	Page<EnderecoDTO> findDtoByCidade(@Param("cidade") String cidade, Pageable pageable);
+	
+	@QueryHints({ @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"),
+			@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_REGION, value = Const.REGIAO_CONSULTA_ENDERECOS) })
+	@Query(SELECT_ENDERECO_DTO + " where e.cidade = :cidade")
+	Slice<EnderecoDTO> findDtoSliceByCidade(@Param("cidade") String cidade, Pageable pageable);
+	
+	@QueryHints({ @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"),
+			@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_REGION, value = Const.REGIAO_CONSULTA_ENDERECOS) })
+	@Query(value = SELECT_ENDERECO_DTO + " where e.estado = :estado", countQuery = "select count(e) from Endereco e where e.estado = :estado")
+	Page<EnderecoDTO> findDtoByEstado(@Param("estado") String estado, Pageable pageable);
+	
+	@QueryHints({ @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"),
+			@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_REGION, value = Const.REGIAO_CONSULTA_ENDERECOS) })
+	@Query(SELECT_ENDERECO_DTO + " where e.estado = :estado")
+	Slice<EnderecoDTO> findDtoSliceByEstado(@Param("estado") String estado, Pageable pageable);
+	
+	@Query(value = SELECT_ENDERECO_DTO + " where e.usuario.id = :idUsuario", countQuery = "select count(e) from Endereco e where e.usuario.id = :idUsuario")
+	Page<EnderecoDTO> findDtoByUsuarioId(@Param("idUsuario") Long idUsuario, Pageable pageable);
+	
+	@Query(SELECT_ENDERECO_DTO + " where e.usuario.id = :idUsuario")
+	Slice<EnderecoDTO> findDtoSliceByUsuarioId(@Param("idUsuario") Long idUsuario, Pageable pageable);
+	
+	@Query(value = SELECT_ENDERECO_DTO, countQuery = "select count(e) from Endereco e")
+	Page<EnderecoDTO> listAllDtoByPages(Pageable pageable);
+	
+	@Query(SELECT_ENDERECO_DTO)
+	Slice<EnderecoDTO> listAllDtoBySlices(Pageable pageable);
+	
+	//ENDERECOS DOS IDS ENCONTRADOS NO INDICE DE CEP, EM UM UNICO SELECT (IN)
+	@Query(SELECT_ENDERECO_DTO + " where e.id in :ids")
+	List<EnderecoDTO> findDtoByIdIn(@Param("ids") Collection<Long> ids);
 	
-	Page<Endereco> findByCidade(String cep, PageRequest pageRequest);
+	//TOTAIS POR FILTRO PARA A CONTAGEM APROXIMADA (ContagemAproximada), REFEITOS PERIODICAMENTE E NAO A CADA PAGINA
+	long countByCep(String cep);
 	
-	Page<Endereco> findByEstado(String cep, PageRequest pageRequest);
+	long countByCidade(String cidade);
 	
-	Page<Endereco> findByUsuarioId(Long Id, PageRequest pageRequest);
+	long countByEstado(String estado);
+	
+	long countByUsuarioId(Long id);
 	
 	List<Endereco> findByUsuarioId(Long Id);
 	
-	@Query("select e from Endereco e")
-	Page<Endereco> listAllByPages(Pageable pageable);
+	//DONO ATUAL DO ENDERECO NO BANCO (SO A COLUNA ID_USUARIO), LIDO ANTES DE UMA ESCRITA PARA INVALIDAR O CACHE DO USUARIO CERTO
+	@Query("select e.usuario.id from Endereco e where e.id = :id")
+	Optional<Long> findIdUsuarioById(@Param("id") Long id);
+	
+	@Query("select distinct e.usuario.id from Endereco e where e.id in :ids")
+	List<Long> findIdsUsuarioByIdIn(@Param("ids") Collection<Long> ids);
+	
+	//DESMARCA O ENDERECO PRINCIPAL ATUAL DO USUARIO (MENOS O INFORMADO): UM SELECT PELO IDX_ENDERECO_USUARIO_PRINCIPAL E
+	//O UPDATE DA LINHA. PELA ENTIDADE (E NAO POR UM UPDATE HQL EM MASSA, QUE DESCARTA A REGIAO jpa-endereco INTEIRA)
+	//O CACHE DE SEGUNDO NIVEL SO ATUALIZA ESSE ENDERECO; OS DOS OUTROS USUARIOS CONTINUAM EM CACHE.
+	//O INDICE UNICO UK_ENDERECO_PRINCIPAL GARANTE NO BANCO NO MAXIMO UM PRINCIPAL POR USUARIO.
+	@Transactional
+	default int desmarcarPrincipal(Long idUsuario, Long id) {
+		return this.desmarcarPrincipais(List.of(idUsuario), id == null ? Set.of() : Set.of(id));
+	}
+	
+	@Query("select e from Endereco e where e.usuario.id in :idsUsuario and e.principal = true")
+	List<Endereco> findPrincipaisByUsuarioIdIn(@Param("idsUsuario") Collection<Long> idsUsuario);
+	
+	//DESMARCA DE UMA VEZ OS PRINCIPAIS ATUAIS DE VARIOS USUARIOS (MENOS OS INFORMADOS EM "manter"): UM SELECT PELO
+	//IDX_ENDERECO_USUARIO_PRINCIPAL E OS UPDATES NUM UNICO FLUSH (LOTE JDBC). O FLUSH VEM ANTES DOS INSERTS DOS NOVOS
+	//PRINCIPAIS, QUE O UK_ENDERECO_PRINCIPAL RECUSARIA COM O PRINCIPAL ANTIGO AINDA MARCADO
+	@Transactional
+	default int desmarcarPrincipais(Collection<Long> idsUsuario, Collection<Long> manter) {
+		if (idsUsuario.isEmpty()) {
+			return 0;
+		}
+		int desmarcados = 0;
+		for (Endereco principal : this.findPrincipaisByUsuarioIdIn(idsUsuario)) {
+			if (!manter.contains(principal.getId())) {
+				principal.setPrincipal(Boolean.FALSE);
+				desmarcados++;
+			}
+		}
+		if (desmarcados > 0) {
+			this.flush();
+		}
+		return desmarcados;
+	}
+	
+	//PAGINACAO POR CURSOR (KEYSET): "WHERE ID > :ID ORDER BY ID" COM LIMIT, SEM OFFSET E SEM COUNT.
+	//NOS FILTROS POR IGUALDADE A CHAVE DE ORDENACAO E CONSTANTE, ENTAO O DESEMPATE PELO ID E A PROPRIA ORDEM.
+	@Query("select e from Endereco e where e.id > :id order by e.id")
+	List<Endereco> listAllAfter(@Param("id") Long id, Pageable pageable);
+	
+	@Query("select e from Endereco e where e.cep = :cep and e.id > :id order by e.id")
+	List<Endereco> findByCepAfter(@Param("cep") String cep, @Param("id") Long id, Pageable pageable);
+	
+	@Query("select e from Endereco e where e.cidade = :cidade and e.id > :id order by e.id")
+	List<Endereco> findByCidadeAfter(@Param("cidade") String cidade, @Param("id") Long id, Pageable pageable);
+	
+	@Query("select e from Endereco e where e.estado = :estado and e.id > :id order by e.id")
+	List<Endereco> findByEstadoAfter(@Param("estado") String estado, @Param("id") Long id, Pageable pageable);
+	
+	@Query("select e from Endereco e where e.usuario.id = :idUsuario and e.id > :id order by e.id")
+	List<Endereco> findByUsuarioIdAfter(@Param("idUsuario") Long idUsuario, @Param("id") Long id, Pageable pageable);
+	
+	//LEITURA EM STREAM PARA A EXPORTACAO: O DRIVER BUSCA AS LINHAS EM BLOCOS (FETCH SIZE) E NADA E ACUMULADO EM LISTA.
+	//DEVE SER CONSUMIDO DENTRO DE UMA TRANSACAO E FECHADO AO FINAL (FECHAR O STREAM ENCERRA A CONSULTA NO BANCO).
+	//O CHAMADOR DESLIGA O CACHE DE SEGUNDO NIVEL NA SESSAO (CacheMode.IGNORE): A DICA HINT_CACHE_MODE NAO SERVE AQUI, O
+	//HIBERNATE A DESFAZ LOGO QUE ABRE O SCROLL, ANTES DE LER AS LINHAS
+	@QueryHints({ @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = Const.FETCH_SIZE_EXPORTACAO),
+			@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true") })
+	@Query("select e from Endereco e order by e.id")
+	Stream<Endereco> streamAll();
+	
+	//ID E CEP DE TODOS OS ENDERECOS PARA MONTAR O INDICE DE CEP, SEM CARREGAR AS ENTIDADES.
+	//EM ORDEM DE CEP (PELO INDICE): CADA CEP NOVO ENTRA NO FIM DAS CHAVES ORDENADAS DO MAPA
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = Const.FETCH_SIZE_EXPORTACAO))
+	@Query("select e.id, e.cep from Endereco e order by e.cep")
+	Stream<Object[]> streamCeps();
+	
+	//QUANTIDADE DE ENDERECOS POR CIDADE/ESTADO, PARA MONTAR O AUTOCOMPLETAR NA SUBIDA
+	@Query("select e.cidade, e.estado, count(e) from Endereco e group by e.cidade, e.estado")
+	List<Object[]> contarPorCidadeEstado();
 }
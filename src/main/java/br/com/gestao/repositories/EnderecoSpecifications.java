@@ -0,0 +1,63 @@
+package br.com.gestao.repositories;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.criteria.Predicate;
+
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+
+import br.com.gestao.commons.Cep;
+import br.com.gestao.commons.Const;
+import br.com.gestao.dto.FiltroEnderecoDTO;
+import br.com.gestao.entities.Endereco;
+
+//BUSCA COMBINADA DE ENDERECOS: UM PREDICADO DE IGUALDADE POR FILTRO INFORMADO, TODOS COM "AND".
+//indice() DIZ QUAL INDICE DE TB_ENDERECO ATENDE A COMBINACAO (NULL = VARREDURA DA TABELA INTEIRA)
+public final class EnderecoSpecifications {
+
+	private EnderecoSpecifications() {
+	}
+
+	public static Specification<Endereco> filtro(FiltroEnderecoDTO filtro) {
+		return (root, query, builder) -> {
+			List<Predicate> predicados = new ArrayList<>();
+			if (StringUtils.hasText(filtro.getCep())) {
+				// como o CEP e gravado (Endereco.prePersist)
+				predicados.add(builder.equal(root.get("cep"), Cep.normalizar(filtro.getCep())));
+			}
+			if (StringUtils.hasText(filtro.getEstado())) {
+				predicados.add(builder.equal(root.get("estado"), filtro.getEstado()));
+			}
+			if (StringUtils.hasText(filtro.getCidade())) {
+				predicados.add(builder.equal(root.get("cidade"), filtro.getCidade()));
+			}
+			if (filtro.getIdUsuario() != null) {
+				// compara a chave estrangeira, sem join com TB_USUARIO
+				predicados.add(builder.equal(root.get("usuario").get("id"), filtro.getIdUsuario()));
+			}
+			if (filtro.getPrincipal() != null) {
+				predicados.add(builder.equal(root.get("principal"), filtro.getPrincipal()));
+			}
+			return builder.and(predicados.toArray(new Predicate[0]));
+		};
+	}
+
+	// O INDICE MAIS SELETIVO ENTRE OS QUE COMECAM POR UMA COLUNA DO FILTRO (PRINCIPAL SOZINHO NAO SERVE: SO TEM DOIS VALORES)
+	public static String indice(FiltroEnderecoDTO filtro) {
+		if (StringUtils.hasText(filtro.getCep())) {
+			return Const.IDX_ENDERECO_CEP;
+		}
+		if (filtro.getIdUsuario() != null) {
+			return Const.IDX_ENDERECO_USUARIO_PRINCIPAL;
+		}
+		if (StringUtils.hasText(filtro.getEstado())) {
+			return Const.IDX_ENDERECO_ESTADO_CIDADE_PRINCIPAL;
+		}
+		if (StringUtils.hasText(filtro.getCidade())) {
+			return Const.IDX_ENDERECO_CIDADE_PRINCIPAL;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,32 @@
+package br.com.gestao.repositories;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.gestao.entities.JobParticao;
+
+public interface JobParticaoRepository extends JpaRepository<JobParticao, JobParticao.Chave> {
+
+	List<JobParticao> findByJobIdOrderByParticao(Long jobId);
+
+	//CHAMADO NA TRANSACAO DO BLOCO: A LINHA CONFIRMADA SO AVANCA SE OS USUARIOS DO BLOCO FOREM GRAVADOS
+	@Transactional
+	@Modifying
+	@Query("update JobParticao p set p.linha = :linha, p.linhasGravadas = p.linhasGravadas + :gravadas, "
+			+ "p.linhasRecusadas = p.linhasRecusadas + :recusadas, p.usuariosGravados = p.usuariosGravados + :usuarios, "
+			+ "p.enderecosGravados = p.enderecosGravados + :enderecos where p.jobId = :jobId and p.particao = :particao")
+	int confirmar(@Param("jobId") Long jobId, @Param("particao") int particao, @Param("linha") int linha,
+			@Param("gravadas") long gravadas, @Param("recusadas") long recusadas, @Param("usuarios") long usuarios,
+			@Param("enderecos") long enderecos);
+
+	@Transactional
+	@Modifying
+	@Query("delete from JobParticao p where p.jobId in :ids")
+	int removerDosJobs(@Param("ids") Collection<Long> ids);
+}
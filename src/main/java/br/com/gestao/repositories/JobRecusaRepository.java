@@ -0,0 +1,38 @@
+package br.com.gestao.repositories;
+
+import java.util.Collection;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.gestao.commons.Const;
+import br.com.gestao.entities.JobRecusa;
+
+public interface JobRecusaRepository extends JpaRepository<JobRecusa, Long> {
+
+	//RELATORIO DAS RECUSADAS NA ORDEM DA ENTRADA (USA O INDICE IDX_JOB_RECUSA_JOB_LINHA), EM STREAM COMO A EXPORTACAO
+	@QueryHints({ @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = Const.FETCH_SIZE_EXPORTACAO),
+			@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true") })
+	@Query("select r from JobRecusa r where r.jobId = :jobId order by r.linha, r.id")
+	Stream<JobRecusa> streamByJobId(@Param("jobId") Long jobId);
+
+	long countByJobIdAndParticaoIsNull(Long jobId);
+
+	//RETOMADA: AS RECUSADAS NA LEITURA DEPOIS DA MENOR LINHA CONFIRMADA SAO REFEITAS QUANDO A ENTRADA E LIDA DE NOVO
+	@Transactional
+	@Modifying
+	@Query("delete from JobRecusa r where r.jobId = :jobId and r.particao is null and r.linha > :linha")
+	int removerDaLeituraDepoisDe(@Param("jobId") Long jobId, @Param("linha") int linha);
+
+	@Transactional
+	@Modifying
+	@Query("delete from JobRecusa r where r.jobId in :ids")
+	int removerDosJobs(@Param("ids") Collection<Long> ids);
+}
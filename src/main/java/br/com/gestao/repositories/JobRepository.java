@@ -0,0 +1,42 @@
+package br.com.gestao.repositories;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.gestao.entities.Job;
+
+//O JOB E ALTERADO SO POR UPDATES DE COLUNAS ESPECIFICAS: UM SAVE DA ENTIDADE INTEIRA SOBRESCREVERIA O QUE A
+//EXECUCAO GRAVOU NESSE MEIO TEMPO
+public interface JobRepository extends JpaRepository<Job, Long> {
+
+	List<Job> findByStatusInOrderById(Collection<Job.Status> status);
+
+	@Query("select j.id from Job j where j.encerradoEm < :limite")
+	List<Long> findIdsEncerradosAntes(@Param("limite") Instant limite);
+
+	@Transactional
+	@Modifying
+	@Query("update Job j set j.status = :status, j.iniciadoEm = :agora, "
+			+ "j.linhasRecusadas = :recusadas, j.linhasAoIniciar = :processadas where j.id = :id")
+	int iniciar(@Param("id") Long id, @Param("status") Job.Status status, @Param("agora") Instant agora,
+			@Param("recusadas") long recusadas, @Param("processadas") long processadas);
+
+	//RECUSADAS NA LEITURA, GRAVADAS JUNTO COM AS LINHAS EM TB_JOB_RECUSA
+	@Transactional
+	@Modifying
+	@Query("update Job j set j.linhasRecusadas = j.linhasRecusadas + :linhas where j.id = :id")
+	int somarRecusadas(@Param("id") Long id, @Param("linhas") long linhas);
+
+	@Transactional
+	@Modifying
+	@Query("update Job j set j.status = :status, j.encerradoEm = :agora, j.mensagem = :mensagem where j.id = :id")
+	int encerrar(@Param("id") Long id, @Param("status") Job.Status status, @Param("agora") Instant agora,
+			@Param("mensagem") String mensagem);
+}
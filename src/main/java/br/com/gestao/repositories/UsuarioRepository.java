@@ -1,18 +1,105 @@
 package br.com.gestao.repositories;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import br.com.gestao.commons.Const;
 import br.com.gestao.entities.Usuario;
 
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
 	
-	//USUARIO.NOME LIKE '% NOME %'
-	Page<Usuario> findByNomeLike(String nome, PageRequest pageRequest);
+	//LISTAGENS PAGINADAS: A PAGINA TRAZ SO OS IDS (USUARIO.NOME LIKE '% NOME %' OU TODOS) E OS DADOS VEM DEPOIS
+	//EM UM UNICO SELECT DE PROJECAO (findLinhasByIdIn). AS VARIANTES "Slice" (count=false / count=approx) NAO FAZEM O COUNT
+	@Query(value = "select u.id from Usuario u where u.nome like :nome", countQuery = "select count(u) from Usuario u where u.nome like :nome")
+	Page<Long> findIdsByNomeLike(@Param("nome") String nome, Pageable pageable);
+	
+	@Query("select u.id from Usuario u where u.nome like :nome")
+	Slice<Long> findIdsSliceByNomeLike(@Param("nome") String nome, Pageable pageable);
+	
+	@Query(value = "select u.id from Usuario u", countQuery = "select count(u) from Usuario u")
+	Page<Long> listAllIdsByPages(Pageable pageable);
+	
+	@Query("select u.id from Usuario u")
+	Slice<Long> listAllIdsBySlices(Pageable pageable);
+	
+	//PROJECAO DAS LISTAGENS: USUARIO + ENDERECOS EM LINHAS (LEFT JOIN), SO AS COLUNAS USADAS NA RESPOSTA E SEM ENTIDADES
+	//GERENCIADAS (SEM PERSISTENCE CONTEXT, SEM DIRTY CHECKING E SEM O MAPEAMENTO ENTIDADE -> DTO)
+	@Query("select u.id as id, u.nome as nome, u.dataNascimento as dataNascimento, e.id as idEndereco, e.cep as cep, "
+			+ "e.logradouro as logradouro, e.cidade as cidade, e.estado as estado, e.numero as numero, e.principal as principal "
+			+ "from Usuario u left join u.enderecos e where u.id in :ids order by e.id")
+	List<LinhaUsuario> findLinhasByIdIn(@Param("ids") Collection<Long> ids);
+	
+	//TOTAL DO FILTRO POR NOME PARA A CONTAGEM APROXIMADA (ContagemAproximada)
+	long countByNomeLike(String nome);
+	
+	//PAGINACAO POR CURSOR (KEYSET): CONTINUA A PARTIR DA ULTIMA LINHA RETORNADA, SEM OFFSET E SEM COUNT
+	@Query("select u from Usuario u where u.id > :id order by u.id")
+	List<Usuario> listAllAfter(@Param("id") Long id, Pageable pageable);
+	
+	@Query("select u from Usuario u where u.nome like :nome and (u.nome > :ultimoNome or (u.nome = :ultimoNome and u.id > :id)) order by u.nome, u.id")
+	List<Usuario> findByNomeLikeAfter(@Param("nome") String nome, @Param("ultimoNome") String ultimoNome, @Param("id") Long id, Pageable pageable);
+	
+	//USUARIO + ENDERECOS EM UM UNICO SELECT
+	@EntityGraph(attributePaths = "enderecos")
+	Optional<Usuario> findComEnderecosById(Long id);
+	
+	//TODOS OS USUARIOS + ENDERECOS EM UM UNICO SELECT
+	@Query("select distinct u from Usuario u left join fetch u.enderecos")
+	List<Usuario> listAllComEnderecos();
+	
+	//CARREGA OS ENDERECOS DE UMA PAGINA DE USUARIOS JA CONSULTADA, EM UM UNICO SELECT
+	@Query("select distinct u from Usuario u left join fetch u.enderecos where u.id in :ids")
+	List<Usuario> findComEnderecosByIdIn(@Param("ids") Collection<Long> ids);
+	
+	//LEITURA EM STREAM PARA A EXPORTACAO: O DRIVER BUSCA AS LINHAS EM BLOCOS (FETCH SIZE) E NADA E ACUMULADO EM LISTA.
+	//DEVE SER CONSUMIDO DENTRO DE UMA TRANSACAO E FECHADO AO FINAL (FECHAR O STREAM ENCERRA A CONSULTA NO BANCO).
+	//O CHAMADOR DESLIGA O CACHE DE SEGUNDO NIVEL NA SESSAO (CacheMode.IGNORE): A DICA HINT_CACHE_MODE NAO SERVE AQUI, O
+	//HIBERNATE A DESFAZ LOGO QUE ABRE O SCROLL, ANTES DE LER AS LINHAS
+	@QueryHints({ @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = Const.FETCH_SIZE_EXPORTACAO),
+			@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true") })
+	@Query("select u from Usuario u order by u.id")
+	Stream<Usuario> streamAll();
+	
+	//ID E NOME DE TODOS OS USUARIOS PARA MONTAR O INDICE DE BUSCA POR NOME, SEM CARREGAR AS ENTIDADES
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = Const.FETCH_SIZE_EXPORTACAO))
+	@Query("select u.id, u.nome from Usuario u")
+	Stream<Object[]> streamNomes();
 	
-	@Query("select u from Usuario u")
-	Page<Usuario> listAllByPages(Pageable pageable);
+	//LINHA DA PROJECAO findLinhasByIdIn: UM USUARIO POR ENDERECO (CAMPOS DO ENDERECO NULOS QUANDO ELE NAO TEM NENHUM)
+	interface LinhaUsuario {
+		
+		Long getId();
+		
+		String getNome();
+		
+		LocalDate getDataNascimento();
+		
+		Long getIdEndereco();
+		
+		String getCep();
+		
+		String getLogradouro();
+		
+		String getCidade();
+		
+		String getEstado();
+		
+		String getNumero();
+		
+		Boolean getPrincipal();
+	}
 }
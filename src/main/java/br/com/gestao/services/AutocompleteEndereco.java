@@ -0,0 +1,238 @@
+package br.com.gestao.services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.gestao.commons.TrieContagem;
+import br.com.gestao.dto.SugestaoDTO;
+import br.com.gestao.entities.Endereco;
+import br.com.gestao.repositories.EnderecoRepository;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+// Autocompletar de cidade e estado pelo prefixo, em memoria (TrieContagem), sem ir ao banco a cada tecla.
+// As tries guardam os valores distintos de TB_ENDERECO com a quantidade de enderecos de cada um e
+// sao montadas na subida com um unico group by. Depois disso cada insert/update/delete de Endereco feito
+// pelo Hibernate (inclusive em cascata e no cadastro em lote) ajusta as contagens depois do commit.
+// Comandos fora do Hibernate (update/delete em massa, outro no) aparecem na recarga periodica
+// (gestao.indices.recarregar-minutos): tries novas montadas fora do lock e trocadas de uma vez, com as alteracoes
+// confirmadas durante a montagem somadas de novo. As contagens sao aproximadas entre uma recarga e outra:
+// um commit no instante em que o group by comeca pode ser contado duas vezes, ate a recarga seguinte.
+@Slf4j
+@Component
+public class AutocompleteEndereco implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+	private final EnderecoRepository enderecoRepository;
+	private final EntityManagerFactory entityManagerFactory;
+	private final TransactionTemplate transactionTemplate;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Lock recarga = new ReentrantLock();
+	private Tries tries = new Tries();
+	// alteracoes confirmadas durante uma recarga, somadas de novo nas tries montadas
+	private List<Alteracao> pendentes;
+
+	public AutocompleteEndereco(EnderecoRepository enderecoRepository, EntityManagerFactory entityManagerFactory,
+			PlatformTransactionManager transactionManager) {
+		this.enderecoRepository = enderecoRepository;
+		this.entityManagerFactory = entityManagerFactory;
+		// sem readOnly: a carga vai ao primario, a replica atrasada deixaria de fora o que acabou de ser gravado
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	@PostConstruct
+	public void registrar() {
+		EventListenerRegistry registry = this.entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+				.getServiceRegistry().getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+		registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+		registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+	}
+
+	// MONTA (OU REMONTA) AS TRIES COM AS CONTAGENS DO BANCO, FORA DO LOCK: AS SUGESTOES CONTINUAM NAS TRIES ATUAIS ATE A TROCA
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(initialDelayString = "${gestao.indices.recarregar-minutos:10}", fixedDelayString = "${gestao.indices.recarregar-minutos:10}",
+			timeUnit = TimeUnit.MINUTES)
+	public void recarregar() {
+		if (!this.recarga.tryLock()) {
+			return;
+		}
+		try {
+			this.alterarPendentes(new ArrayList<>());
+			Tries novas = new Tries();
+			List<Object[]> contagens = this.transactionTemplate.execute(status -> this.enderecoRepository.contarPorCidadeEstado());
+			for (Object[] linha : contagens) {
+				novas.somar((String) linha[0], (String) linha[1], ((Number) linha[2]).intValue());
+			}
+			this.lock.writeLock().lock();
+			try {
+				this.pendentes.forEach(alteracao -> novas.somar(alteracao.getCidade(), alteracao.getEstado(), alteracao.getQuantidade()));
+				this.pendentes = null;
+				this.tries = novas;
+			} finally {
+				this.lock.writeLock().unlock();
+			}
+			log.info("Autocompletar carregado: {} cidades, {} estados", novas.cidades.tamanho(), novas.estados.tamanho());
+		} catch (RuntimeException e) {
+			this.alterarPendentes(null);
+			log.error("Falha ao carregar o autocompletar de cidade/estado", e);
+		} finally {
+			this.recarga.unlock();
+		}
+	}
+
+	public List<SugestaoDTO> sugerirCidades(String prefixo, int quantidade) {
+		this.lock.readLock().lock();
+		try {
+			return this.tries.cidades.sugerir(prefixo, quantidade).stream()
+					.map(item -> new SugestaoDTO(item.getKey().getNome(), item.getKey().getEstado(), item.getValue()))
+					.collect(Collectors.toList());
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	public List<SugestaoDTO> sugerirEstados(String prefixo, int quantidade) {
+		this.lock.readLock().lock();
+		try {
+			return this.tries.estados.sugerir(prefixo, quantidade).stream()
+					.map(item -> new SugestaoDTO(item.getKey(), null, item.getValue()))
+					.collect(Collectors.toList());
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void onPostInsert(PostInsertEvent event) {
+		this.alterar(event.getPersister(), null, event.getState());
+	}
+
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		// sem o estado anterior (entidade reatada sem ser lida) nao ha como descontar o valor antigo
+		if (event.getOldState() != null) {
+			this.alterar(event.getPersister(), event.getOldState(), event.getState());
+		}
+	}
+
+	@Override
+	public void onPostDelete(PostDeleteEvent event) {
+		this.alterar(event.getPersister(), event.getDeletedState(), null);
+	}
+
+	// FALHA NO COMMIT: NADA FOI GRAVADO, AS CONTAGENS FICAM COMO ESTAO
+	@Override
+	public void onPostInsertCommitFailed(PostInsertEvent event) {
+	}
+
+	@Override
+	public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+	}
+
+	@Override
+	public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+	}
+
+	@Override
+	public boolean requiresPostCommitHanding(EntityPersister persister) {
+		return Endereco.class.equals(persister.getMappedClass());
+	}
+
+	private void alterar(EntityPersister persister, Object[] anterior, Object[] atual) {
+		if (!this.requiresPostCommitHanding(persister)) {
+			return;
+		}
+		int cidade = persister.getEntityMetamodel().getPropertyIndex("cidade");
+		int estado = persister.getEntityMetamodel().getPropertyIndex("estado");
+		if (anterior != null && atual != null && Objects.equals(anterior[cidade], atual[cidade])
+				&& Objects.equals(anterior[estado], atual[estado])) {
+			return;
+		}
+		this.lock.writeLock().lock();
+		try {
+			if (anterior != null) {
+				this.somar((String) anterior[cidade], (String) anterior[estado], -1);
+			}
+			if (atual != null) {
+				this.somar((String) atual[cidade], (String) atual[estado], 1);
+			}
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	// COM O WRITE LOCK
+	private void somar(String cidade, String estado, int quantidade) {
+		this.tries.somar(cidade, estado, quantidade);
+		if (this.pendentes != null) {
+			this.pendentes.add(new Alteracao(cidade, estado, quantidade));
+		}
+	}
+
+	private void alterarPendentes(List<Alteracao> pendentes) {
+		this.lock.writeLock().lock();
+		try {
+			this.pendentes = pendentes;
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	// AS DUAS TRIES, TROCADAS JUNTAS NA RECARGA
+	private static final class Tries {
+		final TrieContagem<Cidade> cidades = new TrieContagem<>(
+				Comparator.comparing(Cidade::getNome).thenComparing(Cidade::getEstado, Comparator.nullsFirst(Comparator.<String>naturalOrder())));
+		final TrieContagem<String> estados = new TrieContagem<>(Comparator.<String>naturalOrder());
+
+		void somar(String cidade, String estado, int quantidade) {
+			if (cidade != null && !cidade.isBlank()) {
+				this.cidades.somar(cidade, new Cidade(cidade, estado), quantidade);
+			}
+			if (estado != null && !estado.isBlank()) {
+				this.estados.somar(estado, estado, quantidade);
+			}
+		}
+	}
+
+	@Value
+	static class Alteracao {
+		String cidade;
+		String estado;
+		int quantidade;
+	}
+
+	@Value
+	static class Cidade {
+		String nome;
+		String estado;
+	}
+}
@@ -0,0 +1,253 @@
+package br.com.gestao.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import br.com.gestao.commons.Const;
+import br.com.gestao.dto.EnderecoDTO;
+import br.com.gestao.dto.UsuarioDTO;
+import br.com.gestao.entities.Endereco;
+import io.micrometer.core.instrument.Metrics;
+
+// Cache de leitura (read-through) dos DTOs de usuario e endereco.
+// O DTO do usuario e os enderecos buscados por id ficam num unico item do cache "usuarios", entao uma escrita
+// invalida o usuario inteiro com um unico evict. O cache "enderecos" guarda apenas de qual usuario e cada endereco,
+// para achar o item certo na busca por id do endereco. As paginas de enderecos ficam no cache "paginas-enderecos",
+// limitado como os outros, com a chave (usuario, versao do item, pagina, quantidade): cada item do usuario recebe
+// uma versao nova quando e criado, entao o evict do usuario tambem deixa inalcancaveis as paginas antigas, que saem
+// do cache pelo limite de tamanho/expiracao.
+// Dentro de uma transacao as invalidacoes so sao aplicadas depois do commit (TransactionAwareCacheDecorator).
+// Uma leitura que carregou o dado antes desse commit e termina depois do evict nao o recoloca no cache: o usuario
+// e gravado no item pego antes da consulta (descartado pelo evict, o item nao e mais encontrado) e o endereco so e
+// guardado se nenhuma invalidacao aconteceu durante a consulta (contador incrementado ao pedir e ao aplicar o evict).
+// Com replica de leitura (gestao.replica.url) a consulta de uma transacao somente leitura pode vir da replica ainda
+// sem o commit: durante gestao.replica.atraso-maximo-segundos depois de invalidado, o usuario (dados, enderecos e
+// paginas) lido nessas transacoes e devolvido mas nao e guardado.
+@Component
+public class CacheCadastro {
+
+	private static final AtomicLong VERSOES = new AtomicLong();
+
+	private static final long MAXIMO_GRAVADOS = 100_000;
+
+	// INVALIDACOES PEDIDAS E APLICADAS: UMA CARGA DE ENDERECO QUE VIU O CONTADOR MUDAR NAO E GUARDADA
+	private final AtomicLong invalidacoes = new AtomicLong();
+
+	private final Cache usuarios;
+	private final Cache enderecos;
+	private final Cache paginas;
+	// USUARIOS INVALIDADOS HA MENOS DO ATRASO MAXIMO DA REPLICA; NULL SEM REPLICA
+	private final com.github.benmanes.caffeine.cache.Cache<Long, Boolean> gravados;
+
+	@Autowired
+	public CacheCadastro(CacheManager cacheManager, @Value("${gestao.replica.url:}") String urlReplica,
+			@Value("${gestao.replica.atraso-maximo-segundos:10}") long atrasoMaximoSegundos) {
+		this(cacheManager, urlReplica.isEmpty() ? null : Duration.ofSeconds(atrasoMaximoSegundos), Ticker.systemTicker());
+	}
+
+	CacheCadastro(CacheManager cacheManager) {
+		this(cacheManager, null, Ticker.systemTicker());
+	}
+
+	CacheCadastro(CacheManager cacheManager, Duration atrasoReplica, Ticker ticker) {
+		this.usuarios = new TransactionAwareCacheDecorator(cacheManager.getCache(Const.CACHE_USUARIOS));
+		this.enderecos = new TransactionAwareCacheDecorator(cacheManager.getCache(Const.CACHE_ENDERECOS));
+		this.paginas = new TransactionAwareCacheDecorator(cacheManager.getCache(Const.CACHE_PAGINAS_ENDERECOS));
+		this.gravados = atrasoReplica == null ? null
+				: Caffeine.newBuilder().maximumSize(MAXIMO_GRAVADOS).expireAfterWrite(atrasoReplica).ticker(ticker).build();
+	}
+
+	// USUARIO POR ID (NULL SE NAO EXISTIR; AUSENCIA NAO E GUARDADA)
+	public UsuarioDTO usuario(Long id, Supplier<UsuarioDTO> carregar) {
+		// o item e pego antes da consulta: se for invalidado no meio, o usuario carregado fica no item descartado
+		ItemUsuario item = this.item(id);
+		if (item.usuario != null) {
+			registrar("usuario", true);
+			return item.usuario;
+		}
+		registrar("usuario", false);
+		UsuarioDTO usuario = carregar.get();
+		if (usuario != null && !this.podeEstarAtrasado(id)) {
+			item.usuario = usuario;
+		}
+		return usuario;
+	}
+
+	// VARIOS USUARIOS POR ID: OS QUE NAO ESTAO NO CACHE SAO CARREGADOS JUNTOS (UMA CONSULTA) E GUARDADOS
+	public Map<Long, UsuarioDTO> usuarios(Collection<Long> ids, Function<List<Long>, List<UsuarioDTO>> carregar) {
+		Map<Long, UsuarioDTO> encontrados = new HashMap<>();
+		Map<Long, ItemUsuario> faltantes = new HashMap<>();
+		for (Long id : ids) {
+			ItemUsuario item = this.item(id);
+			if (item.usuario != null) {
+				encontrados.put(id, item.usuario);
+			} else {
+				faltantes.put(id, item);
+			}
+			registrar("usuario", item.usuario != null);
+		}
+		if (!faltantes.isEmpty()) {
+			for (UsuarioDTO usuario : carregar.apply(new ArrayList<>(faltantes.keySet()))) {
+				if (!this.podeEstarAtrasado(usuario.getId())) {
+					faltantes.get(usuario.getId()).usuario = usuario;
+				}
+				encontrados.put(usuario.getId(), usuario);
+			}
+		}
+		return encontrados;
+	}
+
+	// ENDERECO POR ID (NULL SE NAO EXISTIR)
+	public EnderecoDTO endereco(Long id, Supplier<Endereco> carregar, Function<Endereco, EnderecoDTO> mapear) {
+		EnderecoDTO endereco = this.enderecoGuardado(id);
+		registrar("endereco", endereco != null);
+		if (endereco != null) {
+			return endereco;
+		}
+		long antes = this.invalidacoes.get();
+		Endereco entidade = carregar.get();
+		return entidade == null ? null : this.guardar(entidade, mapear, antes);
+	}
+
+	// VARIOS ENDERECOS POR ID: OS QUE NAO ESTAO NO CACHE SAO CARREGADOS JUNTOS (UMA CONSULTA) E GUARDADOS
+	public Map<Long, EnderecoDTO> enderecos(Collection<Long> ids, Function<List<Long>, List<Endereco>> carregar,
+			Function<Endereco, EnderecoDTO> mapear) {
+		Map<Long, EnderecoDTO> encontrados = new HashMap<>();
+		List<Long> faltantes = new ArrayList<>();
+		for (Long id : ids) {
+			EnderecoDTO endereco = this.enderecoGuardado(id);
+			if (endereco != null) {
+				encontrados.put(id, endereco);
+			} else {
+				faltantes.add(id);
+			}
+			registrar("endereco", endereco != null);
+		}
+		if (!faltantes.isEmpty()) {
+			long antes = this.invalidacoes.get();
+			for (Endereco entidade : carregar.apply(faltantes)) {
+				encontrados.put(entidade.getId(), this.guardar(entidade, mapear, antes));
+			}
+		}
+		return encontrados;
+	}
+
+	// PAGINA DE ENDERECOS DE UM USUARIO (PAGINAS VAZIAS NAO SAO GUARDADAS)
+	public Page<EnderecoDTO> enderecosDoUsuario(Long idUsuario, Integer pagina, Integer quantidade, Supplier<Page<EnderecoDTO>> carregar) {
+		// a versao e lida antes da consulta: se o usuario for invalidado no meio, a pagina fica na versao antiga
+		String chave = idUsuario + ":" + this.item(idUsuario).versao + ":" + pagina + ":" + quantidade;
+		@SuppressWarnings("unchecked")
+		Page<EnderecoDTO> page = this.paginas.get(chave, Page.class);
+		if (page != null) {
+			registrar("paginas", true);
+			return page;
+		}
+		registrar("paginas", false);
+		page = carregar.get();
+		if (page != null && !page.isEmpty() && !this.podeEstarAtrasado(idUsuario)) {
+			this.paginas.put(chave, page);
+		}
+		return page;
+	}
+
+	// DESCARTA TUDO QUE ESTA GUARDADO DO USUARIO (DADOS, ENDERECOS E PAGINAS)
+	public void invalidarUsuario(Long idUsuario) {
+		if (idUsuario != null) {
+			this.invalidacoes.incrementAndGet();
+			// registrado antes do evict: no commit o contador muda antes de o item sair do cache
+			aposCommit(() -> {
+				this.invalidacoes.incrementAndGet();
+				if (this.gravados != null) {
+					this.gravados.put(idUsuario, Boolean.TRUE);
+				}
+			});
+			this.usuarios.evict(idUsuario);
+		}
+	}
+
+	// DESCARTA O ENDERECO E O USUARIO DONO DELE. O DONO VEM DO BANCO, LIDO PELO CHAMADOR ANTES DA ESCRITA: O CACHE SO
+	// SABE O DONO DOS ENDERECOS QUE ESTAO GUARDADOS (ESSE TAMBEM E DESCARTADO, SE FOR OUTRO)
+	public void invalidarEndereco(Long idEndereco, Long idUsuario) {
+		this.invalidarUsuario(idUsuario);
+		if (idEndereco == null) {
+			return;
+		}
+		Long guardado = this.enderecos.get(idEndereco, Long.class);
+		if (guardado != null && !guardado.equals(idUsuario)) {
+			this.invalidarUsuario(guardado);
+		}
+		this.enderecos.evict(idEndereco);
+	}
+
+	private EnderecoDTO enderecoGuardado(Long id) {
+		Long idUsuario = this.enderecos.get(id, Long.class);
+		ItemUsuario item = idUsuario == null ? null : this.usuarios.get(idUsuario, ItemUsuario.class);
+		return item == null ? null : item.enderecos.get(id);
+	}
+
+	private EnderecoDTO guardar(Endereco entidade, Function<Endereco, EnderecoDTO> mapear, long antes) {
+		EnderecoDTO endereco = mapear.apply(entidade);
+		// o id do usuario vem do proxy, sem carregar o usuario
+		Long idUsuario = entidade.getUsuario() == null ? null : entidade.getUsuario().getId();
+		// com uma invalidacao durante a consulta o endereco pode ser anterior a ela: devolvido, mas nao guardado
+		if (idUsuario != null && this.invalidacoes.get() == antes && !this.podeEstarAtrasado(idUsuario)) {
+			this.enderecos.put(entidade.getId(), idUsuario);
+			this.item(idUsuario).enderecos.put(entidade.getId(), endereco);
+		}
+		return endereco;
+	}
+
+	// TRANSACAO SOMENTE LEITURA (PODE TER LIDO DA REPLICA) E USUARIO GRAVADO DENTRO DO ATRASO MAXIMO DA REPLICA
+	private boolean podeEstarAtrasado(Long idUsuario) {
+		return this.gravados != null && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+				&& this.gravados.getIfPresent(idUsuario) != null;
+	}
+
+	private ItemUsuario item(Long idUsuario) {
+		return this.usuarios.get(idUsuario, ItemUsuario::new);
+	}
+
+	private static void aposCommit(Runnable acao) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			acao.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				acao.run();
+			}
+		});
+	}
+
+	private static void registrar(String tipo, boolean encontrado) {
+		Metrics.counter("cache.cadastro.consultas", "tipo", tipo, "resultado", encontrado ? "hit" : "miss").increment();
+	}
+
+	static final class ItemUsuario {
+		final long versao = VERSOES.incrementAndGet();
+		volatile UsuarioDTO usuario;
+		final Map<Long, EnderecoDTO> enderecos = new ConcurrentHashMap<>();
+	}
+}
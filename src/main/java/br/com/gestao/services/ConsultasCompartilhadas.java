@@ -0,0 +1,55 @@
+package br.com.gestao.services;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Metrics;
+
+// Consultas simultaneas iguais (mesmo tipo e mesmos parametros) compartilham uma unica carga (single-flight):
+// a primeira requisicao executa a consulta e o mapeamento para DTO; as que chegam enquanto ela esta em andamento
+// esperam o mesmo CompletableFuture em vez de repetir o SQL. Terminada a carga a chave sai do mapa, entao nada
+// e guardado: funciona sozinho ou atras do CacheCadastro (que so chama a carga quando nao tem o item).
+// Quantas chamadas carregaram e quantas aproveitaram a carga de outra: /actuator/metrics/consultas.compartilhadas.
+// A carga nao deve chamar carregar() com a mesma chave (esperaria por ela mesma).
+@Component
+public class ConsultasCompartilhadas {
+
+	private final ConcurrentMap<List<Object>, CompletableFuture<Object>> emAndamento = new ConcurrentHashMap<>();
+
+	@SuppressWarnings("unchecked")
+	public <T> T carregar(String tipo, Supplier<T> carga, Object... parametros) {
+		List<Object> chave = Arrays.asList(tipo, Arrays.asList(parametros));
+		CompletableFuture<Object> nova = new CompletableFuture<>();
+		CompletableFuture<Object> existente = this.emAndamento.putIfAbsent(chave, nova);
+		registrar(tipo, existente != null);
+		if (existente != null) {
+			try {
+				return (T) existente.join();
+			} catch (CompletionException e) {
+				// a mesma excecao da requisicao que fez a carga
+				throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+			}
+		}
+		try {
+			T valor = carga.get();
+			nova.complete(valor);
+			return valor;
+		} catch (RuntimeException | Error e) {
+			nova.completeExceptionally(e);
+			throw e;
+		} finally {
+			this.emAndamento.remove(chave, nova);
+		}
+	}
+
+	private static void registrar(String tipo, boolean compartilhada) {
+		Metrics.counter("consultas.compartilhadas", "tipo", tipo, "resultado", compartilhada ? "compartilhada" : "carregada").increment();
+	}
+}
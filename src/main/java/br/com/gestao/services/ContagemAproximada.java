@@ -0,0 +1,124 @@
+package br.com.gestao.services;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import br.com.gestao.commons.Contagem;
+import io.micrometer.core.instrument.Metrics;
+
+// Total de elementos por filtro (tipo da consulta + valor filtrado) para as paginas com count=approx:
+// o primeiro pedido de um filtro faz o COUNT(*); depois o valor guardado e devolvido na hora e, passado o
+// intervalo de atualizacao, o proximo pedido dispara um novo COUNT em segundo plano (refreshAfterWrite)
+// enquanto ainda responde com o valor anterior. Filtros sem pedidos por 10 intervalos saem do mapa.
+// Nao ha invalidacao nas gravacoes: o total pode ficar defasado ate o proximo COUNT.
+// Os COUNTs em segundo plano rodam numa thread propria, um por vez, com fila limitada: com a fila cheia a
+// atualizacao e recusada, o valor anterior continua valendo e o proximo pedido do filtro tenta de novo.
+// COUNTs feitos: /actuator/metrics/contagem.aproximada.consultas.
+@Component
+public class ContagemAproximada {
+
+	private final LoadingCache<Filtro, Long> totais;
+	private final Executor atualizacoes;
+
+	@Autowired
+	public ContagemAproximada(@Value("${gestao.contagem-aproximada.atualizar-segundos:60}") long atualizarSegundos,
+			@Value("${gestao.contagem-aproximada.maximo-filtros:10000}") long maximoFiltros,
+			@Value("${gestao.contagem-aproximada.fila:100}") int fila) {
+		this(Duration.ofSeconds(atualizarSegundos), maximoFiltros, Ticker.systemTicker(),
+				new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(fila),
+						new CustomizableThreadFactory("contagem-aproximada-")));
+	}
+
+	ContagemAproximada(Duration atualizar, long maximoFiltros, Ticker ticker, Executor executor) {
+		this.atualizacoes = executor;
+		this.totais = Caffeine.newBuilder()
+				.maximumSize(maximoFiltros)
+				.refreshAfterWrite(atualizar)
+				.expireAfterAccess(atualizar.multipliedBy(10))
+				.ticker(ticker)
+				.executor(executor)
+				.build(ContagemAproximada::contar);
+	}
+
+	@PreDestroy
+	public void encerrar() {
+		if (this.atualizacoes instanceof ExecutorService) {
+			((ExecutorService) this.atualizacoes).shutdownNow();
+		}
+	}
+
+	// Devolve a pagina com o total do modo pedido: APROXIMADA troca o Slice por uma pagina com o total guardado;
+	// os outros modos devolvem o Slice como veio (NENHUMA so tem o "hasNext")
+	public <T> Slice<T> aplicar(Contagem contagem, Slice<T> slice, String tipo, Object filtro, LongSupplier contagemExata) {
+		if (contagem != Contagem.APROXIMADA || slice == null) {
+			return slice;
+		}
+		long total = this.total(tipo, filtro, contagemExata);
+		// o total guardado pode estar defasado: nunca menor que o que a propria consulta ja mostrou
+		long minimo = slice.getPageable().isPaged() ? slice.getPageable().getOffset() + slice.getNumberOfElements() : slice.getNumberOfElements();
+		if (slice.hasNext()) {
+			minimo++;
+		}
+		return new PageImpl<>(slice.getContent(), slice.getPageable(), Math.max(total, minimo));
+	}
+
+	public long total(String tipo, Object filtro, LongSupplier contagemExata) {
+		return this.totais.get(new Filtro(tipo, filtro, contagemExata));
+	}
+
+	private static Long contar(Filtro filtro) {
+		Metrics.counter("contagem.aproximada.consultas", "tipo", filtro.tipo).increment();
+		return filtro.contagemExata.getAsLong();
+	}
+
+	// Chave do mapa: tipo e valor do filtro. A contagem vai junto para ser refeita na atualizacao,
+	// mas nao faz parte da igualdade
+	private static final class Filtro {
+
+		private final String tipo;
+		private final Object valor;
+		private final LongSupplier contagemExata;
+
+		private Filtro(String tipo, Object valor, LongSupplier contagemExata) {
+			this.tipo = tipo;
+			this.valor = valor;
+			this.contagemExata = contagemExata;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Filtro)) {
+				return false;
+			}
+			Filtro outro = (Filtro) obj;
+			return this.tipo.equals(outro.tipo) && Objects.equals(this.valor, outro.valor);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.tipo, this.valor);
+		}
+	}
+}
@@ -1,37 +1,70 @@
 package br.com.gestao.services;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import br.com.gestao.commons.Cep;
+import br.com.gestao.commons.Const;
+import br.com.gestao.commons.Contagem;
+import br.com.gestao.commons.Cursor;
+import br.com.gestao.commons.CursorPage;
 import br.com.gestao.commons.ResponseWrapper;
+import br.com.gestao.dto.BuscaLoteDTO;
 import br.com.gestao.dto.EnderecoDTO;
+import br.com.gestao.dto.FiltroEnderecoDTO;
+import br.com.gestao.dto.SugestaoDTO;
 import br.com.gestao.entities.Endereco;
+import br.com.gestao.mappers.EnderecoMapper;
 import br.com.gestao.repositories.EnderecoRepository;
+import br.com.gestao.repositories.EnderecoSpecifications;
 
 @Service
 public class EnderecoService {
 
 	private final EnderecoRepository enderecoRepository;
-	private final ModelMapper modelMapper;
+	private final EnderecoMapper enderecoMapper;
+	private final CacheCadastro cacheCadastro;
+	private final AutocompleteEndereco autocompleteEndereco;
+	private final IndiceCep indiceCep;
+	private final ConsultasCompartilhadas consultasCompartilhadas;
+	private final ContagemAproximada contagemAproximada;
 
-	public EnderecoService(EnderecoRepository enderecoRepository, ModelMapper modelMapper) {
+	public EnderecoService(EnderecoRepository enderecoRepository, EnderecoMapper enderecoMapper, CacheCadastro cacheCadastro,
+			AutocompleteEndereco autocompleteEndereco, IndiceCep indiceCep, ConsultasCompartilhadas consultasCompartilhadas,
+			ContagemAproximada contagemAproximada) {
 		this.enderecoRepository = enderecoRepository;
-		this.modelMapper = modelMapper;
+		this.enderecoMapper = enderecoMapper;
+		this.cacheCadastro = cacheCadastro;
+		this.autocompleteEndereco = autocompleteEndereco;
+		this.indiceCep = indiceCep;
+		this.consultasCompartilhadas = consultasCompartilhadas;
+		this.contagemAproximada = contagemAproximada;
 	}
 
 	// LISTAR POR ID
+	@Transactional(readOnly = true)
 	public ResponseEntity<ResponseWrapper<EnderecoDTO>> findById(Long id) {
-		Endereco endereco = enderecoRepository.findById(id).orElse(null);
+		EnderecoDTO endereco = this.cacheCadastro.endereco(id, () -> enderecoRepository.findById(id).orElse(null), this.enderecoMapper::toDto);
 		if (endereco != null) {
-			return new ResponseEntity<>(new ResponseWrapper<>(this.modelMapper.map(endereco, EnderecoDTO.class), null),HttpStatus.OK);
+			return new ResponseEntity<>(new ResponseWrapper<>(endereco, null),HttpStatus.OK);
 		} else {
 			ResponseWrapper<EnderecoDTO> responseWrapper = new ResponseWrapper<>();
 			responseWrapper.setMessage("Cadastro ID: " + id + " Não encontrado!!");
@@ -39,9 +72,32 @@ public class EnderecoService {
 		}
 	}
 
+	// LISTAR VARIOS ENDERECOS PELOS IDS, NA ORDEM ENVIADA: OS QUE NAO ESTAO NO CACHE VEM EM UM UNICO SELECT (IN)
+	@Transactional(readOnly = true)
+	public ResponseEntity<ResponseWrapper<BuscaLoteDTO<EnderecoDTO>>> buscarLote(List<Long> ids) {
+		if (ids == null || ids.isEmpty() || ids.size() > Const.MAXIMO_IDS_BUSCA_LOTE || ids.stream().anyMatch(Objects::isNull)) {
+			ResponseWrapper<BuscaLoteDTO<EnderecoDTO>> responseWrapper = new ResponseWrapper<>();
+			responseWrapper.setMessage("Informe de 1 a " + Const.MAXIMO_IDS_BUSCA_LOTE + " ids de endereço");
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseWrapper);
+		}
+
+		Map<Long, EnderecoDTO> carregados = this.cacheCadastro.enderecos(new LinkedHashSet<>(ids), this.enderecoRepository::findAllById,
+				this.enderecoMapper::toDto);
+		BuscaLoteDTO<EnderecoDTO> resultado = BuscaLoteDTO.of(ids, carregados);
+
+		if (!resultado.getEncontrados().isEmpty()) {
+			return new ResponseEntity<>(new ResponseWrapper<>(resultado, null), HttpStatus.OK);
+		}else {
+			ResponseWrapper<BuscaLoteDTO<EnderecoDTO>> responseWrapper = new ResponseWrapper<>(resultado, null);
+	        responseWrapper.setMessage("Nenhum dos endereços informados foi encontrado");
+	        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(responseWrapper);
+		}
+	}
+
 	// LISTAR TODOS
+	@Transactional(readOnly = true)
 	public ResponseEntity<ResponseWrapper<List<EnderecoDTO>>> findAll() {
-		List<EnderecoDTO> enderecos = enderecoRepository.findAll().stream().map(valorCC -> modelMapper.map(valorCC, EnderecoDTO.class)).collect(Collectors.toList());
+		List<EnderecoDTO> enderecos = enderecoRepository.findAll().stream().map(enderecoMapper::toDto).collect(Collectors.toList());
 		if(enderecos != null && !enderecos.isEmpty())
 		{
 			return new ResponseEntity<>(new ResponseWrapper<>(enderecos, null), HttpStatus.OK);
@@ -52,15 +108,47 @@ public class EnderecoService {
 		}
 	}
 
-	// LISTAR TODOS OS ENDEREÇOS POR CEP
+	// SUGESTOES DE CIDADE PELO PREFIXO (EM MEMORIA, SEM CONSULTA AO BANCO), DAS MAIS CADASTRADAS PARA AS MENOS
+	public ResponseEntity<ResponseWrapper<List<SugestaoDTO>>> sugerirCidades(String prefixo, Integer quantidade) {
+		return this.sugestoes(this.autocompleteEndereco.sugerirCidades(prefixo, limitarSugestoes(quantidade)),
+				"Nenhuma cidade encontrada começando com: " + prefixo);
+	}
+
+	// SUGESTOES DE ESTADO PELO PREFIXO
+	public ResponseEntity<ResponseWrapper<List<SugestaoDTO>>> sugerirEstados(String prefixo, Integer quantidade) {
+		return this.sugestoes(this.autocompleteEndereco.sugerirEstados(prefixo, limitarSugestoes(quantidade)),
+				"Nenhum estado encontrado começando com: " + prefixo);
+	}
+
+	private ResponseEntity<ResponseWrapper<List<SugestaoDTO>>> sugestoes(List<SugestaoDTO> sugestoes, String mensagem) {
+		if (sugestoes != null && !sugestoes.isEmpty()) {
+			return new ResponseEntity<>(new ResponseWrapper<>(sugestoes, null), HttpStatus.OK);
+		}else {
+			ResponseWrapper<List<SugestaoDTO>> responseWrapper = new ResponseWrapper<>();
+	        responseWrapper.setMessage(mensagem);
+	        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(responseWrapper);
+		}
+	}
+
+	private static int limitarSugestoes(Integer quantidade) {
+		return quantidade == null ? Const.MAXIMO_SUGESTOES : Math.max(1, Math.min(quantidade, Const.MAXIMO_SUGESTOES));
+	}
+
+	// LISTAR TODOS OS ENDEREÇOS POR CEP (IDS DA PAGINA PELO INDICE DE CEP EM MEMORIA; SEM ELE, CONSULTA PAGINADA NO BANCO)
+	@Transactional(readOnly = true)
 	public ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> findByCep(Integer pagina, Integer quantidade, String cep) {
+		if (!Cep.valido(cep)) {
+			return cepInvalido(cep);
+		}
+		// o mesmo CEP que o Endereco.prePersist grava ("59248-970" -> "59248970")
+		String cepNormalizado = Cep.normalizar(cep);
 		Sort sort = Sort.by("cep").ascending();
 		PageRequest pageRequest = PageRequest.of(pagina - 1, quantidade, sort);
 
-		Page<Endereco> page = this.enderecoRepository.findByCep(cep, pageRequest);
+		Page<Long> ids = this.indiceCep.buscar(cepNormalizado, pageRequest);
+		Page<EnderecoDTO> dtoPage = ids != null ? this.buscarPorIds(ids) : this.enderecoRepository.findDtoByCep(cepNormalizado, pageRequest);
 
-		if (page != null && !page.isEmpty()) {
-			Page<EnderecoDTO> dtoPage = page.map(item -> this.modelMapper.map(item, EnderecoDTO.class));
+		if (dtoPage != null && !dtoPage.isEmpty()) {
 			return new ResponseEntity<>(new ResponseWrapper<>(dtoPage, null), HttpStatus.OK);
 		}else {
 			ResponseWrapper<Page<EnderecoDTO>> responseWrapper = new ResponseWrapper<>();
@@ -69,15 +157,80 @@ public class EnderecoService {
 		}
 	}
 
+	// LISTAR OS ENDEREÇOS COM CEP COMEÇANDO PELO PREFIXO (EX.: 01 = 01000000 A 01999999), EM ORDEM DE CEP
+	@Transactional(readOnly = true)
+	public ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> findByFaixaCep(Integer pagina, Integer quantidade, String prefixo) {
+		Sort sort = Sort.by("cep").ascending().and(Sort.by("id").ascending());
+		PageRequest pageRequest = PageRequest.of(pagina - 1, quantidade, sort);
+
+		if (!Cep.prefixoValido(prefixo)) {
+			ResponseWrapper<Page<EnderecoDTO>> responseWrapper = new ResponseWrapper<>();
+			responseWrapper.setMessage("Prefixo de cep inválido (de 1 a 8 dígitos): " + prefixo);
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseWrapper);
+		}
+
+		Page<Long> ids = this.indiceCep.buscarFaixa(prefixo, pageRequest);
+		Page<EnderecoDTO> dtoPage = ids != null ? this.buscarPorIds(ids) : this.enderecoRepository.findDtoByCepLike(prefixo + "%", pageRequest);
+
+		if (dtoPage != null && !dtoPage.isEmpty()) {
+			return new ResponseEntity<>(new ResponseWrapper<>(dtoPage, null), HttpStatus.OK);
+		}else {
+			ResponseWrapper<Page<EnderecoDTO>> responseWrapper = new ResponseWrapper<>();
+	        responseWrapper.setMessage("Não foram encontrados endereços com cep começando por: " + prefixo);
+	        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(responseWrapper);
+		}
+	}
+
+	// BUSCA COMBINADA (CEP, CIDADE, ESTADO, PRINCIPAL, USUARIO) EM UMA CONSULTA, EM ORDEM DE ID.
+	// COMBINACAO SEM INDICE (NENHUM FILTRO OU SO PRINCIPAL) PERCORRERIA A TABELA INTEIRA: E RECUSADA.
+	// SO O ESTADO USA O INDICE MAS TRAZ O ESTADO INTEIRO: RESPONDE COM AVISO NA MENSAGEM
+	@Transactional(readOnly = true)
+	public ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> buscar(Integer pagina, Integer quantidade, FiltroEnderecoDTO filtro) {
+		if (EnderecoSpecifications.indice(filtro) == null) {
+			ResponseWrapper<Page<EnderecoDTO>> responseWrapper = new ResponseWrapper<>();
+			responseWrapper.setMessage("Informe ao menos um filtro indexado (cep, cidade, estado ou usuário); para todos os endereços use /enderecos/listar-todos");
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseWrapper);
+		}
+
+		Sort sort = Sort.by("id").ascending();
+		PageRequest pageRequest = PageRequest.of(pagina - 1, quantidade, sort);
+
+		Page<Endereco> page = this.enderecoRepository.findAll(EnderecoSpecifications.filtro(filtro), pageRequest);
+
+		if (page != null && !page.isEmpty()) {
+			Page<EnderecoDTO> dtoPage = page.map(this.enderecoMapper::toDto);
+			String aviso = StringUtils.hasText(filtro.getEstado()) && !StringUtils.hasText(filtro.getCidade()) && !StringUtils.hasText(filtro.getCep())
+					&& filtro.getIdUsuario() == null ? "Filtro pouco seletivo: informe também a cidade para não percorrer todo o estado" : null;
+			return new ResponseEntity<>(new ResponseWrapper<>(dtoPage, aviso), HttpStatus.OK);
+		}else {
+			ResponseWrapper<Page<EnderecoDTO>> responseWrapper = new ResponseWrapper<>();
+	        responseWrapper.setMessage("Não foram encontrados endereços para esses filtros");
+	        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(responseWrapper);
+		}
+	}
+
+	// CARREGA OS ENDERECOS DA PAGINA DE IDS EM UMA CONSULTA (PROJECAO), MANTENDO A ORDEM DO INDICE
+	private Page<EnderecoDTO> buscarPorIds(Page<Long> ids) {
+		if (ids.isEmpty()) {
+			return Page.empty(ids.getPageable());
+		}
+		Map<Long, EnderecoDTO> enderecos = this.enderecoRepository.findDtoByIdIn(ids.getContent()).stream()
+				.collect(Collectors.toMap(EnderecoDTO::getId, Function.identity()));
+		List<EnderecoDTO> ordenados = ids.getContent().stream().map(enderecos::get).filter(Objects::nonNull).collect(Collectors.toList());
+		return new PageImpl<>(ordenados, ids.getPageable(), ids.getTotalElements());
+	}
+
 	// LISTAR TODOS OS ENDEREÇOS POR CIDADE
+	@Transactional(readOnly = true)
 	public ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> findByCidade(Integer pagina, Integer quantidade, String cidade) {
 		Sort sort = Sort.by("cidade").ascending();
 		PageRequest pageRequest = PageRequest.of(pagina - 1, quantidade, sort);
 
-		Page<Endereco> page = this.enderecoRepository.findByCidade(cidade, pageRequest);
+		// requisicoes simultaneas da mesma pagina fazem uma so consulta
+		Page<EnderecoDTO> dtoPage = this.consultasCompartilhadas.carregar("enderecos-cidade",
+				() -> this.enderecoRepository.findDtoByCidade(cidade, pageRequest), cidade, pagina, quantidade);
 
-		if (page != null && !page.isEmpty()) {
-			Page<EnderecoDTO> dtoPage = page.map(item -> this.modelMapper.map(item, EnderecoDTO.class));
+		if (dtoPage != null && !dtoPage.isEmpty()) {
 			return new ResponseEntity<>(new ResponseWrapper<>(dtoPage, null), HttpStatus.OK);
 		}else {
 			ResponseWrapper<Page<EnderecoDTO>> responseWrapper = new ResponseWrapper<>();
@@ -87,14 +240,16 @@ public class EnderecoService {
 	}
 
 	// LISTAR TODOS OS ENDEREÇOS POR ESTADO
+	@Transactional(readOnly = true)
 	public ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> findByEstado(Integer pagina, Integer quantidade, String estado) {
 		Sort sort = Sort.by("estado").ascending();
 		PageRequest pageRequest = PageRequest.of(pagina - 1, quantidade, sort);
 
-		Page<Endereco> page = this.enderecoRepository.findByEstado(estado, pageRequest);
+		// requisicoes simultaneas da mesma pagina fazem uma so consulta
+		Page<EnderecoDTO> dtoPage = this.consultasCompartilhadas.carregar("enderecos-estado",
+				() -> this.enderecoRepository.findDtoByEstado(estado, pageRequest), estado, pagina, quantidade);
 
-		if (page != null && !page.isEmpty()) {
-			Page<EnderecoDTO> dtoPage = page.map(item -> this.modelMapper.map(item, EnderecoDTO.class));
+		if (dtoPage != null && !dtoPage.isEmpty()) {
 			return new ResponseEntity<>(new ResponseWrapper<>(dtoPage, null), HttpStatus.OK);
 		}else {
 			ResponseWrapper<Page<EnderecoDTO>> responseWrapper = new ResponseWrapper<>();
@@ -104,14 +259,14 @@ public class EnderecoService {
 	}
 
 	// LISTAR TODOS E MOSTRAR O RESULTADO UTILIZANDO PAGINAÇÃO
+	@Transactional(readOnly = true)
 	public ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> findAll(Integer pagina, Integer quantidade) {
 		Sort sort = Sort.by("id").ascending();
 		PageRequest pageRequest = PageRequest.of(pagina - 1, quantidade, sort);
 
-		Page<Endereco> page = this.enderecoRepository.listAllByPages(pageRequest);
+		Page<EnderecoDTO> dtoPage = this.enderecoRepository.listAllDtoByPages(pageRequest);
 
-		if (page != null && !page.isEmpty()) {
-			Page<EnderecoDTO> dtoPage = page.map(item -> this.modelMapper.map(item, EnderecoDTO.class));
+		if (dtoPage != null && !dtoPage.isEmpty()) {
 			return new ResponseEntity<>(new ResponseWrapper<>(dtoPage, null), HttpStatus.OK);
 		}else {
 			ResponseWrapper<Page<EnderecoDTO>> responseWrapper = new ResponseWrapper<>();
@@ -119,4 +274,145 @@ public class EnderecoService {
 	        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(responseWrapper);
 		}
 	}
+
+	// LISTAR TODOS OS ENDEREÇOS POR CEP SEM A CONTAGEM EXATA (count=false: SO "HASNEXT"; count=approx: TOTAL GUARDADO).
+	// COM O INDICE DE CEP O TOTAL JA SAI DA MEMORIA, SEM COUNT: count=approx DEVOLVE O TOTAL EXATO
+	@Transactional(readOnly = true)
+	public ResponseEntity<ResponseWrapper<Slice<EnderecoDTO>>> findByCep(Integer pagina, Integer quantidade, String cep, Contagem contagem) {
+		if (!Cep.valido(cep)) {
+			return cepInvalido(cep);
+		}
+		String cepNormalizado = Cep.normalizar(cep);
+		Sort sort = Sort.by("cep").ascending();
+		PageRequest pageRequest = PageRequest.of(pagina - 1, quantidade, sort);
+
+		Page<Long> ids = this.indiceCep.buscar(cepNormalizado, pageRequest);
+		Slice<EnderecoDTO> slice;
+		if (ids != null) {
+			Page<EnderecoDTO> page = this.buscarPorIds(ids);
+			slice = contagem == Contagem.NENHUMA ? new SliceImpl<>(page.getContent(), page.getPageable(), page.hasNext()) : page;
+		} else {
+			slice = this.contagemAproximada.aplicar(contagem, this.enderecoRepository.findDtoSliceByCep(cepNormalizado, pageRequest),
+					"enderecos-cep", cepNormalizado, () -> this.enderecoRepository.countByCep(cepNormalizado));
+		}
+
+		return this.respostaSemContagem(slice, "Não foram encontrados endereços para esse cep");
+	}
+
+	// LISTAR TODOS OS ENDEREÇOS POR CIDADE SEM A CONTAGEM EXATA
+	@Transactional(readOnly = true)
+	public ResponseEntity<ResponseWrapper<Slice<EnderecoDTO>>> findByCidade(Integer pagina, Integer quantidade, String cidade, Contagem contagem) {
+		Sort sort = Sort.by("cidade").ascending();
+		PageRequest pageRequest = PageRequest.of(pagina - 1, quantidade, sort);
+
+		Slice<EnderecoDTO> slice = this.consultasCompartilhadas.carregar("enderecos-cidade",
+				() -> this.contagemAproximada.aplicar(contagem, this.enderecoRepository.findDtoSliceByCidade(cidade, pageRequest),
+						"enderecos-cidade", cidade, () -> this.enderecoRepository.countByCidade(cidade)),
+				cidade, pagina, quantidade, contagem);
+
+		return this.respostaSemContagem(slice, "Não foram encontrados endereços para essa cidade");
+	}
+
+	// LISTAR TODOS OS ENDEREÇOS POR ESTADO SEM A CONTAGEM EXATA
+	@Transactional(readOnly = true)
+	public ResponseEntity<ResponseWrapper<Slice<EnderecoDTO>>> findByEstado(Integer pagina, Integer quantidade, String estado, Contagem contagem) {
+		Sort sort = Sort.by("estado").ascending();
+		PageRequest pageRequest = PageRequest.of(pagina - 1, quantidade, sort);
+
+		Slice<EnderecoDTO> slice = this.consultasCompartilhadas.carregar("enderecos-estado",
+				() -> this.contagemAproximada.aplicar(contagem, this.enderecoRepository.findDtoSliceByEstado(estado, pageRequest),
+						"enderecos-estado", estado, () -> this.enderecoRepository.countByEstado(estado)),
+				estado, pagina, quantidade, contagem);
+
+		return this.respostaSemContagem(slice, "Não foram encontrados endereços para esse estado");
+	}
+
+	// LISTAR TODOS SEM A CONTAGEM EXATA
+	@Transactional(readOnly = true)
+	public ResponseEntity<ResponseWrapper<Slice<EnderecoDTO>>> findAll(Integer pagina, Integer quantidade, Contagem contagem) {
+		Sort sort = Sort.by("id").ascending();
+		PageRequest pageRequest = PageRequest.of(pagina - 1, quantidade, sort);
+
+		Slice<EnderecoDTO> slice = this.contagemAproximada.aplicar(contagem, this.enderecoRepository.listAllDtoBySlices(pageRequest),
+				"enderecos", null, this.enderecoRepository::count);
+
+		return this.respostaSemContagem(slice, "Não foram encontrados endereços na base de dados");
+	}
+
+	private static <T> ResponseEntity<ResponseWrapper<T>> cepInvalido(String cep) {
+		ResponseWrapper<T> responseWrapper = new ResponseWrapper<>();
+		responseWrapper.setMessage("Cep inválido (8 dígitos): " + cep);
+		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseWrapper);
+	}
+
+	private ResponseEntity<ResponseWrapper<Slice<EnderecoDTO>>> respostaSemContagem(Slice<EnderecoDTO> slice, String mensagemNaoEncontrado) {
+		if (slice != null && !slice.isEmpty()) {
+			return new ResponseEntity<>(new ResponseWrapper<>(slice, null), HttpStatus.OK);
+		}else {
+			ResponseWrapper<Slice<EnderecoDTO>> responseWrapper = new ResponseWrapper<>();
+	        responseWrapper.setMessage(mensagemNaoEncontrado);
+	        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(responseWrapper);
+		}
+	}
+
+	// LISTAR TODOS UTILIZANDO CURSOR (SEM OFFSET E SEM COUNT)
+	@Transactional(readOnly = true)
+	public ResponseEntity<ResponseWrapper<CursorPage<EnderecoDTO>>> findAllCursor(String after, Integer quantidade) {
+		return this.paginarPorCursor(after, quantidade, this.enderecoRepository::listAllAfter,
+				"Não foram encontrados endereços na base de dados");
+	}
+
+	// LISTAR TODOS OS ENDEREÇOS POR CEP UTILIZANDO CURSOR
+	@Transactional(readOnly = true)
+	public ResponseEntity<ResponseWrapper<CursorPage<EnderecoDTO>>> findByCepCursor(String after, Integer quantidade, String cep) {
+		if (!Cep.valido(cep)) {
+			return cepInvalido(cep);
+		}
+		String cepNormalizado = Cep.normalizar(cep);
+		return this.paginarPorCursor(after, quantidade, (id, limite) -> this.enderecoRepository.findByCepAfter(cepNormalizado, id, limite),
+				"Não foram encontrados endereços para esse cep");
+	}
+
+	// LISTAR TODOS OS ENDEREÇOS POR CIDADE UTILIZANDO CURSOR
+	@Transactional(readOnly = true)
+	public ResponseEntity<ResponseWrapper<CursorPage<EnderecoDTO>>> findByCidadeCursor(String after, Integer quantidade, String cidade) {
+		return this.paginarPorCursor(after, quantidade, (id, limite) -> this.enderecoRepository.findByCidadeAfter(cidade, id, limite),
+				"Não foram encontrados endereços para essa cidade");
+	}
+
+	// LISTAR TODOS OS ENDEREÇOS POR ESTADO UTILIZANDO CURSOR
+	@Transactional(readOnly = true)
+	public ResponseEntity<ResponseWrapper<CursorPage<EnderecoDTO>>> findByEstadoCursor(String after, Integer quantidade, String estado) {
+		return this.paginarPorCursor(after, quantidade, (id, limite) -> this.enderecoRepository.findByEstadoAfter(estado, id, limite),
+				"Não foram encontrados endereços para esse estado");
+	}
+
+	// BUSCA "QUANTIDADE + 1" LINHAS DEPOIS DO CURSOR: A LINHA EXTRA SO INDICA QUE EXISTE PROXIMA PAGINA
+	private ResponseEntity<ResponseWrapper<CursorPage<EnderecoDTO>>> paginarPorCursor(String after, Integer quantidade,
+			BiFunction<Long, Pageable, List<Endereco>> consulta, String mensagemNaoEncontrado) {
+		Cursor cursor = Cursor.decode(after);
+		if (cursor == null) {
+			ResponseWrapper<CursorPage<EnderecoDTO>> responseWrapper = new ResponseWrapper<>();
+			responseWrapper.setMessage("Cursor inválido: " + after);
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseWrapper);
+		}
+		Integer informada = quantidade;
+		quantidade = CursorPage.quantidade(informada);
+		if (quantidade == null) {
+			ResponseWrapper<CursorPage<EnderecoDTO>> responseWrapper = new ResponseWrapper<>();
+			responseWrapper.setMessage("Quantidade inválida (mínimo 1): " + informada);
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseWrapper);
+		}
+
+		List<Endereco> resultado = consulta.apply(cursor.getId(), PageRequest.of(0, quantidade + 1));
+
+		if (resultado != null && !resultado.isEmpty()) {
+			CursorPage<EnderecoDTO> page = CursorPage.of(resultado, quantidade, this.enderecoMapper::toDto, item -> Cursor.of(item.getId()));
+			return new ResponseEntity<>(new ResponseWrapper<>(page, null), HttpStatus.OK);
+		}else {
+			ResponseWrapper<CursorPage<EnderecoDTO>> responseWrapper = new ResponseWrapper<>();
+	        responseWrapper.setMessage(mensagemNaoEncontrado);
+	        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(responseWrapper);
+		}
+	}
 }
@@ -0,0 +1,88 @@
+package br.com.gestao.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.gestao.commons.Const;
+import br.com.gestao.commons.DataBr;
+import br.com.gestao.commons.exportacao.EscritorExportacao;
+import br.com.gestao.commons.exportacao.FormatoExportacao;
+import br.com.gestao.entities.Endereco;
+import br.com.gestao.entities.Usuario;
+import br.com.gestao.repositories.EnderecoRepository;
+import br.com.gestao.repositories.UsuarioRepository;
+
+@Service
+public class ExportacaoService {
+
+	private static final String[] COLUNAS_USUARIO = { "id", "nome", "dataNascimento" };
+	private static final String[] COLUNAS_ENDERECO = { "id", "idUsuario", "cep", "logradouro", "numero", "cidade", "estado", "principal" };
+
+	// A cada bloco lido o contexto de persistencia e limpo, para o heap nao crescer com o tamanho da tabela
+	private static final int LINHAS_POR_BLOCO = Integer.parseInt(Const.FETCH_SIZE_EXPORTACAO);
+
+	private final UsuarioRepository usuarioRepository;
+	private final EnderecoRepository enderecoRepository;
+	private final EntityManager entityManager;
+
+	public ExportacaoService(UsuarioRepository usuarioRepository, EnderecoRepository enderecoRepository, EntityManager entityManager) {
+		this.usuarioRepository = usuarioRepository;
+		this.enderecoRepository = enderecoRepository;
+		this.entityManager = entityManager;
+	}
+
+	// EXPORTAR TODOS OS USUARIOS (SEM OS ENDERECOS, QUE TEM A SUA PROPRIA EXPORTACAO)
+	@Transactional(readOnly = true)
+	public long exportarUsuarios(FormatoExportacao formato, OutputStream saida) throws IOException {
+		this.ignorarCacheDeSegundoNivel();
+		try (Stream<Usuario> usuarios = this.usuarioRepository.streamAll();
+				EscritorExportacao escritor = EscritorExportacao.of(formato, saida, COLUNAS_USUARIO)) {
+			return this.exportar(usuarios, escritor, usuario -> new Object[] { usuario.getId(), usuario.getNome(),
+					DataBr.formatar(usuario.getDataNascimento()) });
+		}
+	}
+
+	// EXPORTAR TODOS OS ENDERECOS
+	@Transactional(readOnly = true)
+	public long exportarEnderecos(FormatoExportacao formato, OutputStream saida) throws IOException {
+		this.ignorarCacheDeSegundoNivel();
+		try (Stream<Endereco> enderecos = this.enderecoRepository.streamAll();
+				EscritorExportacao escritor = EscritorExportacao.of(formato, saida, COLUNAS_ENDERECO)) {
+			// o id do usuario vem do proprio proxy LAZY, sem consultar TB_USUARIO
+			return this.exportar(enderecos, escritor, endereco -> new Object[] { endereco.getId(),
+					endereco.getUsuario() == null ? null : endereco.getUsuario().getId(), endereco.getCep(),
+					endereco.getLogradouro(), endereco.getNumero(), endereco.getCidade(), endereco.getEstado(),
+					endereco.getPrincipal() });
+		}
+	}
+
+	// A tabela inteira nao passa pelo cache de segundo nivel, que continua com as entidades mais consultadas.
+	// A sessao e a da transacao da exportacao: o modo vale so para ela
+	private void ignorarCacheDeSegundoNivel() {
+		this.entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+	}
+
+	// Uma falha de escrita (ex.: cliente desconectou) interrompe a leitura e o stream e fechado pelo chamador,
+	// encerrando a consulta no banco
+	private <T> long exportar(Stream<T> itens, EscritorExportacao escritor, Function<T, Object[]> valores) throws IOException {
+		long linhas = 0;
+		Iterator<T> iterator = itens.iterator();
+		while (iterator.hasNext()) {
+			escritor.escrever(valores.apply(iterator.next()));
+			if (++linhas % LINHAS_POR_BLOCO == 0) {
+				this.entityManager.clear();
+			}
+		}
+		return linhas;
+	}
+}
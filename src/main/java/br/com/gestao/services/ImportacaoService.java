@@ -0,0 +1,246 @@
+package br.com.gestao.services;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import br.com.gestao.commons.DataBr;
+import br.com.gestao.commons.ResponseWrapper;
+import br.com.gestao.commons.importacao.FormatoImportacao;
+import br.com.gestao.commons.importacao.LeitorImportacao;
+import br.com.gestao.commons.importacao.LinhaImportacao;
+import br.com.gestao.dto.EnderecoDTO;
+import br.com.gestao.dto.JobDTO;
+import br.com.gestao.dto.UsuarioDTO;
+import br.com.gestao.entities.Job;
+
+// Importacao de usuarios e enderecos de uma planilha (CSV ou XLSX) como job (JobService): o arquivo recebido vai
+// para o diretorio dos jobs e e lido linha a linha (LeitorImportacao); as linhas viram usuarios em blocos do tamanho
+// do cadastro em lote, entregues as particoes do job e gravados pelo LoteUsuarioService (uma transacao por bloco,
+// inserts em lotes JDBC, fora do cache de segundo nivel). So os blocos ainda nao gravados ficam em memoria: as linhas
+// recusadas vao, com o motivo, para TB_JOB_RECUSA. Uma linha sem nome e mais um endereco do usuario da linha anterior;
+// uma linha com id altera o usuario cadastrado.
+@Service
+public class ImportacaoService implements ProcessadorJob {
+
+	private final JobService jobService;
+	private final int tamanhoBloco;
+
+	public ImportacaoService(JobService jobService, LoteUsuarioService loteUsuarioService) {
+		this.jobService = jobService;
+		this.tamanhoBloco = loteUsuarioService.getTamanhoBloco();
+	}
+
+	// RECEBER A PLANILHA E INICIAR A IMPORTACAO EM SEGUNDO PLANO
+	public ResponseEntity<ResponseWrapper<JobDTO>> importar(final MultipartFile arquivo) {
+		if (arquivo == null || arquivo.isEmpty()) {
+			ResponseWrapper<JobDTO> responseWrapper = new ResponseWrapper<>();
+			responseWrapper.setMessage("Nenhum arquivo informado para a importação");
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseWrapper);
+		}
+		FormatoImportacao formato = FormatoImportacao.of(arquivo.getOriginalFilename());
+		if (formato == null) {
+			ResponseWrapper<JobDTO> responseWrapper = new ResponseWrapper<>();
+			responseWrapper.setMessage("Formato de arquivo não suportado (csv ou xlsx): " + arquivo.getOriginalFilename());
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseWrapper);
+		}
+
+		Path entrada = null;
+		try {
+			entrada = this.jobService.novaEntrada(formato.getExtensao());
+			arquivo.transferTo(entrada);
+		} catch (IOException e) {
+			apagar(entrada);
+			ResponseWrapper<JobDTO> responseWrapper = new ResponseWrapper<>();
+			responseWrapper.setMessage("Erro ao receber o arquivo da importação: " + e.getMessage());
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(responseWrapper);
+		}
+
+		JobDTO job = this.jobService.submeter(Job.Tipo.IMPORTACAO, arquivo.getOriginalFilename(), entrada);
+		if (job == null) {
+			ResponseWrapper<JobDTO> responseWrapper = new ResponseWrapper<>();
+			responseWrapper.setMessage("Jobs demais em andamento, tente novamente mais tarde");
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(responseWrapper);
+		}
+		return ResponseEntity.status(HttpStatus.ACCEPTED).body(new ResponseWrapper<>(job,
+				"Importação iniciada: acompanhe em /jobs/" + job.getId()));
+	}
+
+	@Override
+	public Job.Tipo getTipo() {
+		return Job.Tipo.IMPORTACAO;
+	}
+
+	@Override
+	public void processar(final Path entrada, final JobService.Execucao execucao) throws IOException {
+		Leitura leitura = new Leitura(execucao, this.tamanhoBloco);
+		LeitorImportacao.of(FormatoImportacao.of(entrada.getFileName().toString()), entrada).ler(leitura::adicionar);
+		leitura.entregarTodos();
+	}
+
+	private static void apagar(Path arquivo) {
+		if (arquivo == null) {
+			return;
+		}
+		try {
+			Files.deleteIfExists(arquivo);
+		} catch (IOException e) {
+			// fica no diretorio dos jobs
+		}
+	}
+
+	// Usuarios lidos e ainda nao entregues, um bloco por particao, com as linhas de cada um (para o relatorio das
+	// recusadas). Um usuario nunca fica dividido entre dois blocos: um bloco so e entregue quando comeca o proximo
+	// usuario. Numa retomada os usuarios ja confirmados na sua particao sao lidos (a distribuicao nas particoes
+	// tem de sair igual) mas nao sao entregues de novo
+	private static final class Leitura {
+
+		private final JobService.Execucao execucao;
+		private final int tamanho;
+		private final Bloco[] blocos;
+		// usuarios novos (sem id) ja lidos: distribuidos em rodizio entre as particoes
+		private long novos;
+		// usuario da ultima linha com nome e as linhas dele; se ele foi recusado, o motivo (as linhas seguintes sem nome tambem sao)
+		private UsuarioDTO atual;
+		private List<LinhaImportacao> linhasAtual;
+		private int linhaAtual;
+		private String motivoAtual;
+
+		private Leitura(JobService.Execucao execucao, int tamanho) {
+			this.execucao = execucao;
+			this.tamanho = tamanho;
+			this.blocos = new Bloco[execucao.getParticoes()];
+			for (int particao = 0; particao < this.blocos.length; particao++) {
+				this.blocos[particao] = new Bloco(tamanho);
+			}
+		}
+
+		private void adicionar(LinhaImportacao linha) {
+			if (linha.vazia()) {
+				return;
+			}
+
+			if (!LinhaImportacao.preenchido(linha.getNome())) {
+				if (this.motivoAtual != null) {
+					this.execucao.recusar(linha, "Usuário da linha " + this.linhaAtual + " recusado: " + this.motivoAtual);
+				} else if (this.atual == null || !linha.temEndereco()) {
+					this.execucao.recusar(linha, "Linha sem nome");
+				} else {
+					String erro = adicionarEndereco(this.atual, linha);
+					if (erro != null) {
+						this.execucao.recusar(linha, erro);
+					} else {
+						this.linhasAtual.add(linha);
+					}
+				}
+				return;
+			}
+
+			this.atual = null;
+			this.linhasAtual = null;
+			this.linhaAtual = linha.getLinha();
+			this.motivoAtual = null;
+
+			UsuarioDTO usuario = UsuarioDTO.builder().nome(linha.getNome().trim()).build();
+			String erro = null;
+			if (LinhaImportacao.preenchido(linha.getId())) {
+				try {
+					usuario.setId(Long.valueOf(linha.getId().trim()));
+				} catch (NumberFormatException e) {
+					erro = "Id inválido: " + linha.getId();
+				}
+			}
+			if (erro == null && LinhaImportacao.preenchido(linha.getDataNascimento())) {
+				try {
+					usuario.setDataNascimento(DataBr.ler(linha.getDataNascimento().trim()));
+				} catch (DateTimeException e) {
+					erro = "Data de nascimento inválida (dd/MM/yyyy): " + linha.getDataNascimento();
+				}
+			}
+			if (erro == null && linha.temEndereco()) {
+				erro = adicionarEndereco(usuario, linha);
+			}
+			if (erro != null) {
+				this.motivoAtual = erro;
+				this.execucao.recusar(linha, erro);
+				return;
+			}
+
+			// o usuario cadastrado fica sempre na mesma particao: as alteracoes dele sao gravadas na ordem da entrada
+			int particao = usuario.getId() != null ? (int) Math.floorMod(usuario.getId(), (long) this.blocos.length)
+					: (int) (this.novos++ % this.blocos.length);
+			this.atual = usuario;
+			this.linhasAtual = new ArrayList<>(1);
+			this.linhasAtual.add(linha);
+			if (this.execucao.confirmada(particao, linha.getLinha())) {
+				return;
+			}
+			// os usuarios ja lidos estao completos (comecou outro usuario): o bloco cheio pode ser entregue
+			if (this.blocos[particao].usuarios.size() >= this.tamanho) {
+				this.entregar(particao);
+			}
+			this.blocos[particao].usuarios.add(usuario);
+			this.blocos[particao].linhas.add(this.linhasAtual);
+		}
+
+		private void entregarTodos() {
+			for (int particao = 0; particao < this.blocos.length; particao++) {
+				if (!this.blocos[particao].usuarios.isEmpty()) {
+					this.entregar(particao);
+				}
+			}
+		}
+
+		private void entregar(int particao) {
+			Bloco bloco = this.blocos[particao];
+			this.execucao.gravar(particao, bloco.usuarios, bloco.linhas);
+			this.blocos[particao] = new Bloco(this.tamanho);
+		}
+	}
+
+	private static final class Bloco {
+
+		private final List<UsuarioDTO> usuarios;
+		private final List<List<LinhaImportacao>> linhas;
+
+		private Bloco(int tamanho) {
+			this.usuarios = new ArrayList<>(tamanho);
+			this.linhas = new ArrayList<>(tamanho);
+		}
+	}
+
+	private static String adicionarEndereco(UsuarioDTO usuario, LinhaImportacao linha) {
+		Boolean principal = null;
+		if (LinhaImportacao.preenchido(linha.getPrincipal())) {
+			switch (linha.getPrincipal().trim().toLowerCase(Locale.ROOT)) {
+			case "sim": case "s": case "true": case "1": case "x":
+				principal = Boolean.TRUE;
+				break;
+			case "não": case "nao": case "n": case "false": case "0":
+				principal = Boolean.FALSE;
+				break;
+			default:
+				return "Valor inválido para principal (sim ou não): " + linha.getPrincipal();
+			}
+		}
+		EnderecoDTO endereco = EnderecoDTO.builder()
+				.cep(linha.getCep())
+				.logradouro(linha.getLogradouro())
+				.numero(linha.getNumero())
+				.cidade(linha.getCidade())
+				.estado(linha.getEstado())
+				.principal(principal)
+				.build();
+		usuario.getEnderecos().add(endereco);
+		return null;
+	}
+}
@@ -0,0 +1,305 @@
+package br.com.gestao.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.gestao.commons.Cep;
+import br.com.gestao.commons.MapaIntIds;
+import br.com.gestao.entities.Endereco;
+import br.com.gestao.repositories.EnderecoRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+
+// Indice de leitura CEP -> ids dos enderecos, em memoria (MapaIntIds): o CEP de 8 digitos vira a chave int,
+// sem String/Integer por chave nem Long por id. Atende /listar-por-cep e a faixa de CEP (/listar-por-faixa-cep)
+// sem consulta paginada no banco; so os enderecos da pagina sao lidos pelo id.
+// Opcional (gestao.indice-cep.habilitado). Montado na subida e ajustado pelos inserts/updates/deletes de
+// Endereco feitos pelo Hibernate, depois do commit. Enquanto nao estiver pronto as buscas vao ao banco.
+// Gravacoes fora do Hibernate (outro no, comandos em massa) aparecem na recarga periodica
+// (gestao.indices.recarregar-minutos): um mapa novo e montado fora do lock e trocado de uma vez, com as
+// alteracoes confirmadas durante a montagem aplicadas de novo (incluir/remover o id sao idempotentes).
+// Memoria em /actuator/metrics/indice.cep.memoria e indice.cep.memoria.por.milhao (bytes por milhao de enderecos).
+@Slf4j
+@Component
+public class IndiceCep implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+
+	private final EnderecoRepository enderecoRepository;
+	private final EntityManagerFactory entityManagerFactory;
+	private final TransactionTemplate transactionTemplate;
+	private final boolean habilitado;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Lock recarga = new ReentrantLock();
+	private MapaIntIds ceps = new MapaIntIds();
+	// alteracoes confirmadas durante uma recarga, aplicadas de novo no mapa montado
+	private List<Alteracao> pendentes;
+	private volatile boolean pronto;
+
+	public IndiceCep(EnderecoRepository enderecoRepository, EntityManagerFactory entityManagerFactory,
+			PlatformTransactionManager transactionManager,
+			@Value("${gestao.indice-cep.habilitado:false}") boolean habilitado) {
+		this.enderecoRepository = enderecoRepository;
+		this.entityManagerFactory = entityManagerFactory;
+		// sem readOnly: a carga vai ao primario, a replica atrasada deixaria de fora o que acabou de ser gravado
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.habilitado = habilitado;
+	}
+
+	@PostConstruct
+	public void registrar() {
+		if (!this.habilitado) {
+			return;
+		}
+		EventListenerRegistry registry = this.entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+				.getServiceRegistry().getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+		registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+		registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+
+		this.medidor("indice.cep.enderecos", "enderecos indexados", null, mapa -> mapa.quantidadeIds());
+		this.medidor("indice.cep.ceps", "CEPs distintos indexados", null, mapa -> mapa.quantidadeChaves());
+		this.medidor("indice.cep.memoria", "memoria estimada do indice", "bytes", mapa -> mapa.bytesEstimados());
+		this.medidor("indice.cep.memoria.por.milhao", "memoria estimada por milhao de enderecos", "bytes",
+				mapa -> mapa.quantidadeIds() == 0 ? 0 : mapa.bytesEstimados() * 1_000_000d / mapa.quantidadeIds());
+	}
+
+	// MONTA (OU REMONTA) O INDICE COM OS CEPS GRAVADOS NO BANCO, FORA DO LOCK: AS BUSCAS CONTINUAM NO MAPA ATUAL
+	// (OU NO BANCO, NA PRIMEIRA CARGA) ATE A TROCA
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(initialDelayString = "${gestao.indices.recarregar-minutos:10}", fixedDelayString = "${gestao.indices.recarregar-minutos:10}",
+			timeUnit = TimeUnit.MINUTES)
+	public void recarregar() {
+		if (!this.habilitado || !this.recarga.tryLock()) {
+			return;
+		}
+		try {
+			this.alterarPendentes(new ArrayList<>());
+			MapaIntIds novo = new MapaIntIds();
+			this.transactionTemplate.executeWithoutResult(status -> {
+				try (Stream<Object[]> linhas = this.enderecoRepository.streamCeps()) {
+					linhas.forEach(linha -> incluir(novo, (Long) linha[0], (String) linha[1]));
+				}
+			});
+			this.lock.writeLock().lock();
+			try {
+				this.pendentes.forEach(alteracao -> alterar(novo, alteracao));
+				this.pendentes = null;
+				this.ceps = novo;
+				this.pronto = true;
+			} finally {
+				this.lock.writeLock().unlock();
+			}
+			log.info("Indice de CEP carregado: {} enderecos, {} CEPs, {} bytes", novo.quantidadeIds(),
+					novo.quantidadeChaves(), novo.bytesEstimados());
+		} catch (RuntimeException e) {
+			this.alterarPendentes(null);
+			log.error("Falha ao carregar o indice de CEP; as buscas por CEP continuam no indice anterior (ou no banco)", e);
+		} finally {
+			this.recarga.unlock();
+		}
+	}
+
+	// PAGINA DE IDS DOS ENDERECOS DO CEP (EM ORDEM DE ID); NULL SE O INDICE NAO RESOLVE (DESLIGADO, CARREGANDO OU CEP INVALIDO)
+	public Page<Long> buscar(String cep, Pageable pageable) {
+		int chave = Cep.comoInt(cep);
+		if (chave == Cep.INVALIDO || !this.pronto) {
+			return null;
+		}
+		this.lock.readLock().lock();
+		try {
+			long[] ids = this.ceps.ids(chave);
+			int inicio = (int) Math.min(pageable.getOffset(), ids.length);
+			int fim = Math.min(inicio + pageable.getPageSize(), ids.length);
+			List<Long> pagina = new ArrayList<>(fim - inicio);
+			for (int i = inicio; i < fim; i++) {
+				pagina.add(ids[i]);
+			}
+			return new PageImpl<>(pagina, pageable, ids.length);
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	// PAGINA DE IDS DOS ENDERECOS COM CEP COMECANDO PELO PREFIXO (1 A 8 DIGITOS), EM ORDEM DE CEP E ID; NULL COMO EM buscar
+	public Page<Long> buscarFaixa(String prefixo, Pageable pageable) {
+		if (!Cep.prefixoValido(prefixo) || !this.pronto) {
+			return null;
+		}
+		int fator = (int) Math.pow(10, Cep.DIGITOS - prefixo.length());
+		int inicio = Integer.parseInt(prefixo) * fator;
+		int fim = inicio + fator - 1;
+
+		this.lock.readLock().lock();
+		try {
+			long pular = pageable.getOffset();
+			long total = 0;
+			List<Long> pagina = new ArrayList<>(pageable.getPageSize());
+			for (int chave : this.ceps.chaves(inicio, fim)) {
+				int quantidade = this.ceps.quantidade(chave);
+				total += quantidade;
+				if (pular >= quantidade) {
+					pular -= quantidade;
+					continue;
+				}
+				if (pagina.size() < pageable.getPageSize()) {
+					long[] ids = this.ceps.ids(chave);
+					for (int i = (int) pular; i < ids.length && pagina.size() < pageable.getPageSize(); i++) {
+						pagina.add(ids[i]);
+					}
+					pular = 0;
+				}
+			}
+			return new PageImpl<>(pagina, pageable, total);
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	public boolean isPronto() {
+		return this.pronto;
+	}
+
+	@Override
+	public void onPostInsert(PostInsertEvent event) {
+		if (this.requiresPostCommitHanding(event.getPersister())) {
+			this.alterar((Long) event.getId(), null, cep(event.getPersister(), event.getState()));
+		}
+	}
+
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		if (this.requiresPostCommitHanding(event.getPersister()) && event.getOldState() != null) {
+			this.alterar((Long) event.getId(), cep(event.getPersister(), event.getOldState()), cep(event.getPersister(), event.getState()));
+		}
+	}
+
+	@Override
+	public void onPostDelete(PostDeleteEvent event) {
+		if (this.requiresPostCommitHanding(event.getPersister())) {
+			this.alterar((Long) event.getId(), cep(event.getPersister(), event.getDeletedState()), null);
+		}
+	}
+
+	// FALHA NO COMMIT: NADA FOI GRAVADO, O INDICE FICA COMO ESTA
+	@Override
+	public void onPostInsertCommitFailed(PostInsertEvent event) {
+	}
+
+	@Override
+	public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+	}
+
+	@Override
+	public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+	}
+
+	@Override
+	public boolean requiresPostCommitHanding(EntityPersister persister) {
+		return Endereco.class.equals(persister.getMappedClass());
+	}
+
+	private void alterar(Long id, String anterior, String atual) {
+		if (id == null || (anterior != null && anterior.equals(atual))) {
+			return;
+		}
+		Alteracao alteracao = new Alteracao(id, anterior, atual);
+		this.lock.writeLock().lock();
+		try {
+			alterar(this.ceps, alteracao);
+			if (this.pendentes != null) {
+				this.pendentes.add(alteracao);
+			}
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	private void alterarPendentes(List<Alteracao> pendentes) {
+		this.lock.writeLock().lock();
+		try {
+			this.pendentes = pendentes;
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	private static void alterar(MapaIntIds ceps, Alteracao alteracao) {
+		int chaveAnterior = Cep.comoInt(alteracao.anterior);
+		if (chaveAnterior != Cep.INVALIDO) {
+			ceps.remover(chaveAnterior, alteracao.id);
+		}
+		incluir(ceps, alteracao.id, alteracao.atual);
+	}
+
+	private static void incluir(MapaIntIds ceps, Long id, String cep) {
+		int chave = Cep.comoInt(cep);
+		if (id != null && chave != Cep.INVALIDO) {
+			ceps.incluir(chave, id);
+		}
+	}
+
+	// UM CONTEXTO NOVO (REINICIO, TESTES) SUBSTITUI O MEDIDOR ANTERIOR: O REGISTRO GLOBAL DEVOLVERIA O GAUGE DO INDICE ANTIGO
+	private void medidor(String nome, String descricao, String unidade, ToDoubleFunction<MapaIntIds> valor) {
+		Metrics.globalRegistry.find(nome).meters().forEach(Metrics.globalRegistry::remove);
+		Gauge.builder(nome, this, indice -> indice.ler(valor)).description(descricao).baseUnit(unidade)
+				.register(Metrics.globalRegistry);
+	}
+
+	private double ler(ToDoubleFunction<MapaIntIds> valor) {
+		this.lock.readLock().lock();
+		try {
+			return valor.applyAsDouble(this.ceps);
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	private static String cep(EntityPersister persister, Object[] estado) {
+		return (String) estado[persister.getEntityMetamodel().getPropertyIndex("cep")];
+	}
+
+	private static final class Alteracao {
+		final Long id;
+		final String anterior;
+		final String atual;
+
+		Alteracao(Long id, String anterior, String atual) {
+			this.id = id;
+			this.anterior = anterior;
+			this.atual = atual;
+		}
+	}
+}
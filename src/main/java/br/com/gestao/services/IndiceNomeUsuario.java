@@ -0,0 +1,378 @@
+package br.com.gestao.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.gestao.commons.Contagem;
+import br.com.gestao.commons.Texto;
+import br.com.gestao.entities.Usuario;
+import br.com.gestao.repositories.UsuarioRepository;
+import lombok.extern.slf4j.Slf4j;
+
+// Indice invertido de trigramas dos nomes dos usuarios, em memoria, para a busca por trecho do nome
+// sem o LIKE '%nome%' (que no MySQL nao usa indice e le a TB_USUARIO inteira).
+// Os nomes sao normalizados (Texto.normalizar), entao a busca ignora acentos e maiusculas.
+// Cada trigrama guarda os seus nomes ja na ordem das paginas (a lista geral e as listas dos trigramas sao
+// mantidas ordenadas nas alteracoes), entao a busca nao copia nem ordena nada: percorre a lista do trigrama
+// mais raro do termo (ou, sem trigrama - menos de 3 letras por palavra -, a lista geral) conferindo cada nome.
+// Com count=true o total e exato e a busca confere todos os candidatos; com count=false/approx ela para assim
+// que sabe que ha uma proxima pagina e o total e estimado pela proporcao de nomes que bateram entre os conferidos.
+// Montado na subida e ajustado pelos inserts/updates/deletes de Usuario feitos pelo Hibernate, depois do commit.
+// Gravacoes fora do Hibernate (outro no, comandos em massa) aparecem na recarga periodica
+// (gestao.indices.recarregar-minutos), montada fora do lock e trocada de uma vez.
+@Slf4j
+@Component
+public class IndiceNomeUsuario implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+	private static final int TAMANHO_TRIGRAMA = 3;
+
+	// MESMA ORDEM DAS PAGINAS: NOME NORMALIZADO, NOME E ID (DESEMPATE ESTAVEL PARA O CURSOR)
+	private static final Comparator<Entrada> ORDEM = Comparator.comparing((Entrada item) -> item.normalizado)
+			.thenComparing(item -> item.nome).thenComparing(item -> item.id);
+
+	private final UsuarioRepository usuarioRepository;
+	private final EntityManagerFactory entityManagerFactory;
+	private final TransactionTemplate transactionTemplate;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Lock recarga = new ReentrantLock();
+	private Nomes nomes = new Nomes();
+	// alteracoes confirmadas durante uma recarga (id -> nome, null se removido), aplicadas de novo no indice montado
+	private Map<Long, String> pendentes;
+	private volatile boolean pronto;
+
+	public IndiceNomeUsuario(UsuarioRepository usuarioRepository, EntityManagerFactory entityManagerFactory,
+			PlatformTransactionManager transactionManager) {
+		this.usuarioRepository = usuarioRepository;
+		this.entityManagerFactory = entityManagerFactory;
+		// sem readOnly: a carga vai ao primario, a replica atrasada deixaria de fora o que acabou de ser gravado
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	@PostConstruct
+	public void registrar() {
+		EventListenerRegistry registry = this.entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+				.getServiceRegistry().getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+		registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+		registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+	}
+
+	// MONTA (OU REMONTA) O INDICE COM OS NOMES GRAVADOS NO BANCO, FORA DO LOCK: AS BUSCAS CONTINUAM NO INDICE ATUAL
+	// (OU NO BANCO, NA PRIMEIRA CARGA) ATE A TROCA
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(initialDelayString = "${gestao.indices.recarregar-minutos:10}", fixedDelayString = "${gestao.indices.recarregar-minutos:10}",
+			timeUnit = TimeUnit.MINUTES)
+	public void recarregar() {
+		if (!this.recarga.tryLock()) {
+			return;
+		}
+		try {
+			this.alterarPendentes(new HashMap<>());
+			Nomes novos = new Nomes();
+			this.transactionTemplate.executeWithoutResult(status -> {
+				try (Stream<Object[]> linhas = this.usuarioRepository.streamNomes()) {
+					linhas.forEach(linha -> novos.incluir((Long) linha[0], (String) linha[1]));
+				}
+			});
+			novos.ordenar();
+			this.lock.writeLock().lock();
+			try {
+				this.pendentes.forEach(novos::alterar);
+				this.pendentes = null;
+				this.nomes = novos;
+				this.pronto = true;
+			} finally {
+				this.lock.writeLock().unlock();
+			}
+			log.info("Indice de nomes carregado: {} usuarios, {} trigramas", novos.entradas.size(), novos.trigramas.size());
+		} catch (RuntimeException e) {
+			this.alterarPendentes(null);
+			log.error("Falha ao carregar o indice de nomes; a busca por nome continua no indice anterior (ou no banco)", e);
+		} finally {
+			this.recarga.unlock();
+		}
+	}
+
+	// RETIRA UM USUARIO QUE NAO EXISTE MAIS NO BANCO (APAGADO FORA DA APLICACAO OU POR OUTRO NO)
+	public void remover(Long id) {
+		this.alterar(id, null);
+	}
+
+	// PAGINA DE IDS DOS USUARIOS CUJO NOME CONTEM O TERMO, NA ORDEM DO NOME, COM O TOTAL EXATO.
+	// NULL QUANDO O INDICE NAO RESOLVE A BUSCA (TERMO VAZIO OU INDICE AINDA CARREGANDO)
+	public Page<Long> buscar(String nome, Pageable pageable) {
+		return this.buscar(nome, pageable, Contagem.EXATA);
+	}
+
+	// IGUAL A buscar, MAS FORA DE Contagem.EXATA PARA DE CONFERIR OS CANDIDATOS LOGO DEPOIS DA PAGINA (UM A MAIS,
+	// PARA O "HASNEXT"). SE SOBRARAM CANDIDATOS O TOTAL E ESTIMADO: A PROPORCAO DE NOMES QUE BATERAM ENTRE OS
+	// CONFERIDOS APLICADA AOS CANDIDATOS, NUNCA MENOS QUE O JA ENCONTRADO
+	public Page<Long> buscar(String nome, Pageable pageable, Contagem contagem) {
+		String termo = Texto.normalizar(nome);
+		if (termo.isEmpty() || !this.pronto) {
+			return null;
+		}
+		this.lock.readLock().lock();
+		try {
+			List<Entrada> candidatos = this.nomes.candidatos(termo);
+			long pular = pageable.getOffset();
+			long fim = pular + pageable.getPageSize();
+			long encontrados = 0;
+			int conferidos = 0;
+			List<Long> pagina = new ArrayList<>(pageable.getPageSize());
+			while (conferidos < candidatos.size() && (contagem == Contagem.EXATA || encontrados <= fim)) {
+				Entrada entrada = candidatos.get(conferidos++);
+				if (entrada.normalizado.contains(termo)) {
+					if (encontrados >= pular && pagina.size() < pageable.getPageSize()) {
+						pagina.add(entrada.id);
+					}
+					encontrados++;
+				}
+			}
+			long total = conferidos == candidatos.size() ? encontrados
+					: Math.max(encontrados, Math.round((double) encontrados * candidatos.size() / conferidos));
+			return new PageImpl<>(pagina, pageable, total);
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	// IDS DOS PROXIMOS USUARIOS DEPOIS DA POSICAO (NOME, ID) DO CURSOR. NULL NOS MESMOS CASOS DE buscar
+	public List<Long> buscarApos(String nome, String ultimoNome, Long ultimoId, int quantidade) {
+		String termo = Texto.normalizar(nome);
+		if (termo.isEmpty() || !this.pronto) {
+			return null;
+		}
+		this.lock.readLock().lock();
+		try {
+			List<Entrada> ordenadas = this.nomes.candidatos(termo);
+			int posicao = Collections.binarySearch(ordenadas, new Entrada(ultimoId, ultimoNome), ORDEM);
+			List<Long> ids = new ArrayList<>(quantidade);
+			for (int i = posicao >= 0 ? posicao + 1 : -posicao - 1; i < ordenadas.size() && ids.size() < quantidade; i++) {
+				if (ordenadas.get(i).normalizado.contains(termo)) {
+					ids.add(ordenadas.get(i).id);
+				}
+			}
+			return ids;
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	public boolean isPronto() {
+		return this.pronto;
+	}
+
+	@Override
+	public void onPostInsert(PostInsertEvent event) {
+		if (this.requiresPostCommitHanding(event.getPersister())) {
+			this.alterar((Long) event.getId(), nome(event.getPersister(), event.getState()));
+		}
+	}
+
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		if (this.requiresPostCommitHanding(event.getPersister())) {
+			this.alterar((Long) event.getId(), nome(event.getPersister(), event.getState()));
+		}
+	}
+
+	@Override
+	public void onPostDelete(PostDeleteEvent event) {
+		if (this.requiresPostCommitHanding(event.getPersister())) {
+			this.alterar((Long) event.getId(), null);
+		}
+	}
+
+	// FALHA NO COMMIT: NADA FOI GRAVADO, O INDICE FICA COMO ESTA
+	@Override
+	public void onPostInsertCommitFailed(PostInsertEvent event) {
+	}
+
+	@Override
+	public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+	}
+
+	@Override
+	public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+	}
+
+	@Override
+	public boolean requiresPostCommitHanding(EntityPersister persister) {
+		return Usuario.class.equals(persister.getMappedClass());
+	}
+
+	// INCLUI/ATUALIZA (OU REMOVE, COM NOME NULL) O USUARIO; DURANTE UMA RECARGA TAMBEM FICA GUARDADO PARA O INDICE NOVO
+	void alterar(Long id, String nome) {
+		if (id == null) {
+			return;
+		}
+		this.lock.writeLock().lock();
+		try {
+			this.nomes.alterar(id, nome);
+			if (this.pendentes != null) {
+				this.pendentes.put(id, nome);
+			}
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	private void alterarPendentes(Map<Long, String> pendentes) {
+		this.lock.writeLock().lock();
+		try {
+			this.pendentes = pendentes;
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	private static String nome(EntityPersister persister, Object[] estado) {
+		return (String) estado[persister.getEntityMetamodel().getPropertyIndex("nome")];
+	}
+
+	// TRIGRAMAS DE CADA PALAVRA (SEM OS QUE ATRAVESSAM O ESPACO), CADA UM EMPACOTADO EM UM LONG (3 x 16 BITS)
+	private static Set<Long> trigramas(String normalizado) {
+		Set<Long> trigramas = new LinkedHashSet<>();
+		for (int i = 0; i + TAMANHO_TRIGRAMA <= normalizado.length(); i++) {
+			char a = normalizado.charAt(i);
+			char b = normalizado.charAt(i + 1);
+			char c = normalizado.charAt(i + 2);
+			if (a != ' ' && b != ' ' && c != ' ') {
+				trigramas.add(((long) a << 32) | ((long) b << 16) | c);
+			}
+		}
+		return trigramas;
+	}
+
+	// O INDICE EM SI: TROCADO INTEIRO NA RECARGA. "ordenadas" E A LISTA DE NOMES NA ORDEM DAS PAGINAS E CADA TRIGRAMA
+	// TEM A SUA LISTA NA MESMA ORDEM; AS ALTERACOES INCLUEM E RETIRAM POR BUSCA BINARIA, ENTAO A BUSCA NAO ORDENA NADA
+	private static final class Nomes {
+		final Map<Long, Entrada> entradas = new HashMap<>();
+		final Map<Long, List<Entrada>> trigramas = new HashMap<>();
+		final List<Entrada> ordenadas = new ArrayList<>();
+
+		// NOMES QUE PODEM CONTER O TERMO, NA ORDEM DAS PAGINAS: A LISTA DO TRIGRAMA DO TERMO COM MENOS NOMES
+		// OU, SEM TRIGRAMA, TODOS. E A PROPRIA LISTA DO INDICE (SO LEITURA, SOB O LOCK DE LEITURA)
+		List<Entrada> candidatos(String termo) {
+			Set<Long> trigramasTermo = trigramas(termo);
+			if (trigramasTermo.isEmpty()) {
+				return this.ordenadas;
+			}
+			List<Entrada> menor = null;
+			for (Long trigrama : trigramasTermo) {
+				List<Entrada> lista = this.trigramas.get(trigrama);
+				if (lista == null) {
+					return Collections.emptyList();
+				}
+				if (menor == null || lista.size() < menor.size()) {
+					menor = lista;
+				}
+			}
+			return menor;
+		}
+
+		void alterar(Long id, String nome) {
+			Entrada anterior = this.entradas.remove(id);
+			if (anterior != null) {
+				remover(this.ordenadas, anterior);
+				for (Long trigrama : trigramas(anterior.normalizado)) {
+					List<Entrada> lista = this.trigramas.get(trigrama);
+					if (lista != null && remover(lista, anterior)) {
+						this.trigramas.remove(trigrama);
+					}
+				}
+			}
+			if (id == null || nome == null) {
+				return;
+			}
+			Entrada entrada = new Entrada(id, nome);
+			this.entradas.put(id, entrada);
+			incluir(this.ordenadas, entrada);
+			for (Long trigrama : trigramas(entrada.normalizado)) {
+				incluir(this.trigramas.computeIfAbsent(trigrama, chave -> new ArrayList<>()), entrada);
+			}
+		}
+
+		// NA MONTAGEM "ordenadas" RECEBE OS NOMES NA ORDEM DO BANCO; ordenar() ORDENA UMA VEZ SO, NO FIM
+		void incluir(Long id, String nome) {
+			if (id == null || nome == null) {
+				return;
+			}
+			Entrada entrada = new Entrada(id, nome);
+			this.entradas.put(id, entrada);
+			this.ordenadas.add(entrada);
+		}
+
+		// ORDENA A LISTA GERAL E MONTA AS LISTAS DOS TRIGRAMAS PERCORRENDO-A: CADA UMA JA SAI NA ORDEM DAS PAGINAS
+		void ordenar() {
+			this.ordenadas.sort(ORDEM);
+			for (Entrada entrada : this.ordenadas) {
+				for (Long trigrama : trigramas(entrada.normalizado)) {
+					this.trigramas.computeIfAbsent(trigrama, chave -> new ArrayList<>()).add(entrada);
+				}
+			}
+		}
+
+		private static void incluir(List<Entrada> lista, Entrada entrada) {
+			lista.add(-Collections.binarySearch(lista, entrada, ORDEM) - 1, entrada);
+		}
+
+		// RETORNA TRUE QUANDO A LISTA FICOU VAZIA
+		private static boolean remover(List<Entrada> lista, Entrada entrada) {
+			int posicao = Collections.binarySearch(lista, entrada, ORDEM);
+			if (posicao >= 0) {
+				lista.remove(posicao);
+			}
+			return lista.isEmpty();
+		}
+	}
+
+	private static final class Entrada {
+		final Long id;
+		final String nome;
+		final String normalizado;
+
+		Entrada(Long id, String nome) {
+			this.id = id;
+			this.nome = nome == null ? "" : nome;
+			this.normalizado = Texto.normalizar(nome);
+		}
+	}
+}
@@ -0,0 +1,546 @@
+package br.com.gestao.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+
+import org.hibernate.CacheMode;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.gestao.commons.Const;
+import br.com.gestao.commons.ResponseWrapper;
+import br.com.gestao.commons.exportacao.EscritorExportacao;
+import br.com.gestao.commons.exportacao.FormatoExportacao;
+import br.com.gestao.commons.importacao.LinhaImportacao;
+import br.com.gestao.dto.ItemLoteDTO;
+import br.com.gestao.dto.JobDTO;
+import br.com.gestao.dto.UsuarioDTO;
+import br.com.gestao.entities.Job;
+import br.com.gestao.entities.JobParticao;
+import br.com.gestao.entities.JobRecusa;
+import br.com.gestao.repositories.JobParticaoRepository;
+import br.com.gestao.repositories.JobRecusaRepository;
+import br.com.gestao.repositories.JobRepository;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+
+// Jobs em segundo plano para as operacoes em massa (importacoes): o pedido so registra o job (TB_JOB) com a sua
+// entrada e devolve o id, e o andamento e consultado em /jobs/{id}. Cada job e conduzido por uma thread de um pool
+// limitado (le a entrada e monta os blocos) e os blocos sao gravados pelas particoes: uma thread por particao, com
+// fila limitada (quem entrega o bloco espera a vez, entao a leitura acompanha a gravacao). Um usuario sempre cai na
+// mesma particao (pelo id, ou pela ordem na entrada quando e novo): as linhas e os enderecos dele sao gravados na ordem.
+// Cada bloco confirma, na mesma transacao dos usuarios, a ultima linha gravada da particao e os contadores
+// (TB_JOB_PARTICAO): um job interrompido (ex.: a aplicacao parou) e retomado no proximo inicio a partir dali,
+// sem gravar de novo o que ja foi.
+@Slf4j
+@Service
+public class JobService {
+
+	private static final Set<Job.Status> EM_ANDAMENTO = EnumSet.of(Job.Status.AGUARDANDO, Job.Status.PROCESSANDO);
+	private static final String[] COLUNAS_RECUSADAS = colunasRecusadas();
+	private static final String SEPARADOR_VALORES = "\u001F";
+	// recusadas na leitura gravadas numa transacao (e sempre antes do proximo bloco ser entregue)
+	private static final int RECUSADAS_POR_TRANSACAO = 500;
+	private static final int LINHAS_POR_BLOCO = Integer.parseInt(Const.FETCH_SIZE_EXPORTACAO);
+
+	// fila da particao cheia: quem entrega o bloco espera
+	private static final RejectedExecutionHandler ESPERAR = (tarefa, executor) -> {
+		if (executor.isShutdown()) {
+			throw new RejectedExecutionException("Gravação dos jobs encerrada");
+		}
+		try {
+			executor.getQueue().put(tarefa);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RejectedExecutionException("Entrega do bloco interrompida", e);
+		}
+	};
+
+	private final JobRepository jobRepository;
+	private final JobParticaoRepository jobParticaoRepository;
+	private final JobRecusaRepository jobRecusaRepository;
+	private final LoteUsuarioService loteUsuarioService;
+	private final ObjectProvider<ProcessadorJob> processadores;
+	private final EntityManager entityManager;
+	private final TransactionTemplate transactionTemplate;
+	private final ThreadPoolExecutor conducao;
+	private final ThreadPoolExecutor[] particoes;
+	private final Path diretorio;
+	private final Duration manter;
+	private final boolean retomarNoInicio;
+	private final Set<Long> emExecucao = ConcurrentHashMap.newKeySet();
+	private volatile boolean encerrando;
+
+	public JobService(JobRepository jobRepository, JobParticaoRepository jobParticaoRepository,
+			JobRecusaRepository jobRecusaRepository, LoteUsuarioService loteUsuarioService,
+			ObjectProvider<ProcessadorJob> processadores, EntityManager entityManager,
+			PlatformTransactionManager transactionManager,
+			@Value("${gestao.jobs.simultaneos:2}") int simultaneos,
+			@Value("${gestao.jobs.fila:10}") int fila,
+			@Value("${gestao.jobs.paralelismo:4}") int paralelismo,
+			@Value("${gestao.jobs.blocos-por-particao:2}") int blocosPorParticao,
+			@Value("${gestao.jobs.diretorio:${java.io.tmpdir}/gestao-jobs}") String diretorio,
+			@Value("${gestao.jobs.manter-dias:7}") long manterDias,
+			@Value("${gestao.jobs.retomar:true}") boolean retomarNoInicio) {
+		this.jobRepository = jobRepository;
+		this.jobParticaoRepository = jobParticaoRepository;
+		this.jobRecusaRepository = jobRecusaRepository;
+		this.loteUsuarioService = loteUsuarioService;
+		this.processadores = processadores;
+		this.entityManager = entityManager;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		// outros jobs esperam na fila; alem dela o pedido e recusado
+		this.conducao = new ThreadPoolExecutor(simultaneos, simultaneos, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(fila), new CustomizableThreadFactory("job-"));
+		this.particoes = new ThreadPoolExecutor[paralelismo];
+		for (int i = 0; i < paralelismo; i++) {
+			this.particoes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+					new ArrayBlockingQueue<>(blocosPorParticao), new CustomizableThreadFactory("job-particao-" + i + "-"), ESPERAR);
+		}
+		this.diretorio = Paths.get(diretorio);
+		this.manter = Duration.ofDays(manterDias);
+		this.retomarNoInicio = retomarNoInicio;
+	}
+
+	@PreDestroy
+	public void encerrar() {
+		// os jobs em andamento ficam como estao (PROCESSANDO) e sao retomados no proximo inicio; o bloco que
+		// esta sendo gravado termina, os que estao na fila sao descartados
+		this.encerrando = true;
+		this.conducao.shutdownNow();
+		for (ThreadPoolExecutor particao : this.particoes) {
+			particao.shutdown();
+		}
+	}
+
+	// NOVO ARQUIVO DE ENTRADA NO DIRETORIO DOS JOBS: O CHAMADOR GRAVA O CONTEUDO E DEPOIS SUBMETE O JOB
+	public Path novaEntrada(final String extensao) throws IOException {
+		Files.createDirectories(this.diretorio);
+		return Files.createTempFile(this.diretorio, "job-", "." + extensao);
+	}
+
+	// REGISTRAR O JOB E COLOCAR NA FILA; NULL (COM A ENTRADA APAGADA) SE A FILA ESTIVER CHEIA
+	public JobDTO submeter(final Job.Tipo tipo, final String arquivo, final Path entrada) {
+		this.removerEncerrados();
+		int quantidadeParticoes = this.particoes.length;
+		Job job = this.transactionTemplate.execute(status -> {
+			Job novo = this.jobRepository.save(Job.builder()
+					.tipo(tipo)
+					.status(Job.Status.AGUARDANDO)
+					.arquivo(arquivo)
+					.entrada(entrada.toAbsolutePath().toString())
+					.particoes(quantidadeParticoes)
+					.criadoEm(Instant.now())
+					.build());
+			this.jobParticaoRepository.saveAll(IntStream.range(0, quantidadeParticoes)
+					.mapToObj(particao -> JobParticao.builder().jobId(novo.getId()).particao(particao).build())
+					.collect(Collectors.toList()));
+			return novo;
+		});
+		try {
+			this.conducao.execute(() -> this.executar(job.getId()));
+		} catch (RejectedExecutionException e) {
+			this.remover(List.of(job.getId()));
+			apagar(entrada);
+			return null;
+		}
+		return toDTO(job, List.of());
+	}
+
+	// ANDAMENTO DO JOB: SITUACAO, LINHAS PROCESSADAS E LINHAS POR SEGUNDO
+	public ResponseEntity<ResponseWrapper<JobDTO>> consultar(final Long id) {
+		Optional<Job> job = this.jobRepository.findById(id);
+		if (job.isEmpty()) {
+			ResponseWrapper<JobDTO> responseWrapper = new ResponseWrapper<>();
+			responseWrapper.setMessage("Job <" + id + "> não encontrado");
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(responseWrapper);
+		}
+		JobDTO jobDTO = toDTO(job.get(), this.jobParticaoRepository.findByJobIdOrderByParticao(id));
+		return new ResponseEntity<>(new ResponseWrapper<>(jobDTO, jobDTO.getMensagem()), HttpStatus.OK);
+	}
+
+	// O RELATORIO DAS RECUSADAS SO SAI DEPOIS DE ENCERRADO O JOB: NULL QUANDO ENCERRADO, SENAO A RESPOSTA DE ERRO
+	public ResponseEntity<ResponseWrapper<Void>> verificarEncerrado(final Long id) {
+		Optional<Job> job = this.jobRepository.findById(id);
+		if (job.isEmpty()) {
+			ResponseWrapper<Void> responseWrapper = new ResponseWrapper<>();
+			responseWrapper.setMessage("Job <" + id + "> não encontrado");
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(responseWrapper);
+		}
+		if (EM_ANDAMENTO.contains(job.get().getStatus())) {
+			ResponseWrapper<Void> responseWrapper = new ResponseWrapper<>();
+			responseWrapper.setMessage("Job <" + id + "> ainda em andamento");
+			return ResponseEntity.status(HttpStatus.CONFLICT).body(responseWrapper);
+		}
+		return null;
+	}
+
+	// CSV COM AS LINHAS RECUSADAS (LINHA DA ENTRADA, MOTIVO E OS VALORES LIDOS), NA ORDEM DA ENTRADA
+	@Transactional(readOnly = true)
+	public long exportarRecusadas(final Long id, final OutputStream saida) throws IOException {
+		try (Stream<JobRecusa> recusadas = this.jobRecusaRepository.streamByJobId(id);
+				EscritorExportacao escritor = EscritorExportacao.of(FormatoExportacao.CSV, saida, COLUNAS_RECUSADAS)) {
+			long linhas = 0;
+			Iterator<JobRecusa> iterator = recusadas.iterator();
+			while (iterator.hasNext()) {
+				escritor.escrever(registro(iterator.next()));
+				if (++linhas % LINHAS_POR_BLOCO == 0) {
+					this.entityManager.clear();
+				}
+			}
+			return linhas;
+		}
+	}
+
+	// JOBS QUE NAO TERMINARAM ANTES DA APLICACAO PARAR: RETOMADOS DA ULTIMA LINHA CONFIRMADA DE CADA PARTICAO.
+	// COM MAIS DE UMA INSTANCIA NO MESMO BANCO, SO UMA DELAS DEVE RETOMAR (gestao.jobs.retomar)
+	@EventListener(ApplicationReadyEvent.class)
+	public void retomar() {
+		if (!this.retomarNoInicio) {
+			return;
+		}
+		for (Job job : this.jobRepository.findByStatusInOrderById(EM_ANDAMENTO)) {
+			if (this.emExecucao.contains(job.getId())) {
+				continue;
+			}
+			if (!Files.isRegularFile(Paths.get(job.getEntrada()))) {
+				this.jobRepository.encerrar(job.getId(), Job.Status.FALHOU, Instant.now(),
+						"Entrada do job não encontrada para a retomada: " + job.getEntrada());
+				continue;
+			}
+			try {
+				this.conducao.execute(() -> this.executar(job.getId()));
+				log.info("Job {} ({}) retomado", job.getId(), job.getArquivo());
+			} catch (RejectedExecutionException e) {
+				log.warn("Fila de jobs cheia: os demais jobs em andamento ficam para o próximo início");
+				return;
+			}
+		}
+	}
+
+	private void executar(Long id) {
+		if (!this.emExecucao.add(id)) {
+			return;
+		}
+		try {
+			Job job = this.jobRepository.findById(id).orElse(null);
+			if (job == null || !EM_ANDAMENTO.contains(job.getStatus())) {
+				return;
+			}
+			Execucao execucao = new Execucao(job, this.jobParticaoRepository.findByJobIdOrderByParticao(id));
+			Path entrada = Paths.get(job.getEntrada());
+			Job.Status status = Job.Status.CONCLUIDO;
+			String erro = null;
+			try {
+				this.iniciar(execucao);
+				this.processador(job.getTipo()).processar(entrada, execucao);
+				execucao.aguardar();
+			} catch (Exception e) {
+				execucao.cancelar();
+				if (this.encerrando) {
+					log.info("Job {} interrompido pelo encerramento da aplicação; será retomado no próximo início", id);
+					return;
+				}
+				status = Job.Status.FALHOU;
+				erro = causa(e);
+				log.warn("Job {} ({}) falhou: {}", id, job.getArquivo(), erro);
+			}
+
+			JobDTO jobDTO = toDTO(this.jobRepository.findById(id).orElse(job), this.jobParticaoRepository.findByJobIdOrderByParticao(id));
+			String mensagem = status == Job.Status.CONCLUIDO
+					? jobDTO.getUsuariosGravados() + " usuários e " + jobDTO.getEnderecosGravados() + " endereços gravados, "
+							+ jobDTO.getLinhasRecusadas() + " linhas recusadas"
+					: "Job interrompido depois de " + jobDTO.getLinhasProcessadas() + " linhas processadas: " + erro;
+			this.jobRepository.encerrar(id, status, Instant.now(), mensagem);
+			apagar(entrada);
+		} finally {
+			this.emExecucao.remove(id);
+		}
+	}
+
+	// NUMA RETOMADA A ENTRADA E LIDA DE NOVO DO INICIO: AS RECUSADAS NA LEITURA DEPOIS DA MENOR LINHA CONFIRMADA
+	// SAO REFEITAS, AS ANTERIORES (E AS RECUSADAS NA GRAVACAO, CONFIRMADAS COM O BLOCO) FICAM
+	private void iniciar(Execucao execucao) {
+		this.transactionTemplate.executeWithoutResult(status -> {
+			this.jobRecusaRepository.removerDaLeituraDepoisDe(execucao.jobId, execucao.minima);
+			long recusadas = this.jobRecusaRepository.countByJobIdAndParticaoIsNull(execucao.jobId);
+			long gravacao = this.jobParticaoRepository.findByJobIdOrderByParticao(execucao.jobId).stream()
+					.mapToLong(particao -> particao.getLinhasGravadas() + particao.getLinhasRecusadas()).sum();
+			this.jobRepository.iniciar(execucao.jobId, Job.Status.PROCESSANDO, Instant.now(), recusadas, recusadas + gravacao);
+		});
+	}
+
+	private ProcessadorJob processador(Job.Tipo tipo) {
+		return this.processadores.orderedStream().filter(processador -> processador.getTipo() == tipo).findFirst()
+				.orElseThrow(() -> new IllegalStateException("Nenhum processador para jobs do tipo " + tipo));
+	}
+
+	// NA THREAD DA PARTICAO: OS USUARIOS SAO GRAVADOS PELO LoteUsuarioService FORA DO CACHE DE SEGUNDO NIVEL
+	private void gravarBloco(Execucao execucao, int particao, List<UsuarioDTO> usuarios, List<List<LinhaImportacao>> linhas) {
+		if (execucao.cancelada || this.encerrando) {
+			return;
+		}
+		List<ItemLoteDTO> itens = this.loteUsuarioService.gravar(usuarios, CacheMode.IGNORE,
+				bloco -> this.confirmar(execucao.jobId, particao, usuarios, linhas, bloco));
+		long recusadas = itens.stream().filter(item -> item.getStatus() == ItemLoteDTO.Status.ERRO)
+				.mapToLong(item -> linhas.get(item.getIndice()).size()).sum();
+		long total = linhas.stream().mapToLong(List::size).sum();
+		Metrics.counter("jobs.linhas", "tipo", execucao.tipo.name(), "resultado", "gravada").increment(total - recusadas);
+		Metrics.counter("jobs.linhas", "tipo", execucao.tipo.name(), "resultado", "recusada").increment(recusadas);
+	}
+
+	// NA TRANSACAO DO BLOCO: AS LINHAS RECUSADAS PELA GRAVACAO, OS CONTADORES E A ULTIMA LINHA CONFIRMADA DA PARTICAO
+	private void confirmar(Long jobId, int particao, List<UsuarioDTO> usuarios, List<List<LinhaImportacao>> linhas,
+			List<ItemLoteDTO> itens) {
+		long usuariosGravados = 0;
+		long enderecosGravados = 0;
+		long linhasGravadas = 0;
+		int ultima = 0;
+		List<JobRecusa> recusadas = new ArrayList<>();
+		for (ItemLoteDTO item : itens) {
+			List<LinhaImportacao> linhasUsuario = linhas.get(item.getIndice());
+			if (item.getStatus() == ItemLoteDTO.Status.ERRO) {
+				linhasUsuario.forEach(linha -> recusadas.add(recusa(jobId, particao, linha, item.getMensagem())));
+			} else {
+				usuariosGravados++;
+				enderecosGravados += usuarios.get(item.getIndice()).getEnderecos().size();
+				linhasGravadas += linhasUsuario.size();
+			}
+			ultima = Math.max(ultima, linhasUsuario.get(linhasUsuario.size() - 1).getLinha());
+		}
+		this.jobRecusaRepository.saveAll(recusadas);
+		this.jobParticaoRepository.confirmar(jobId, particao, ultima, linhasGravadas, recusadas.size(),
+				usuariosGravados, enderecosGravados);
+	}
+
+	// Jobs encerrados ha mais tempo que o configurado sao apagados, com as particoes e as recusadas
+	private void removerEncerrados() {
+		List<Long> ids = this.jobRepository.findIdsEncerradosAntes(Instant.now().minus(this.manter));
+		if (!ids.isEmpty()) {
+			this.remover(ids);
+		}
+	}
+
+	private void remover(List<Long> ids) {
+		this.transactionTemplate.executeWithoutResult(status -> {
+			this.jobRecusaRepository.removerDosJobs(ids);
+			this.jobParticaoRepository.removerDosJobs(ids);
+			this.jobRepository.deleteAllByIdInBatch(ids);
+		});
+	}
+
+	private static JobDTO toDTO(Job job, List<JobParticao> particoes) {
+		long linhasGravadas = 0;
+		long linhasRecusadas = job.getLinhasRecusadas();
+		long usuariosGravados = 0;
+		long enderecosGravados = 0;
+		for (JobParticao particao : particoes) {
+			linhasGravadas += particao.getLinhasGravadas();
+			linhasRecusadas += particao.getLinhasRecusadas();
+			usuariosGravados += particao.getUsuariosGravados();
+			enderecosGravados += particao.getEnderecosGravados();
+		}
+		long processadas = linhasGravadas + linhasRecusadas;
+		long duracaoMs = job.getIniciadoEm() == null ? 0
+				: Duration.between(job.getIniciadoEm(), job.getEncerradoEm() == null ? Instant.now() : job.getEncerradoEm()).toMillis();
+		return JobDTO.builder()
+				.id(job.getId())
+				.tipo(job.getTipo())
+				.arquivo(job.getArquivo())
+				.status(job.getStatus())
+				.particoes(job.getParticoes())
+				.linhasProcessadas(processadas)
+				.linhasGravadas(linhasGravadas)
+				.linhasRecusadas(linhasRecusadas)
+				.usuariosGravados(usuariosGravados)
+				.enderecosGravados(enderecosGravados)
+				.duracaoMs(duracaoMs)
+				.linhasPorSegundo(duracaoMs <= 0 ? 0 : Math.max(0, processadas - job.getLinhasAoIniciar()) * 1000d / duracaoMs)
+				.mensagem(job.getMensagem())
+				.build();
+	}
+
+	private static JobRecusa recusa(Long jobId, Integer particao, LinhaImportacao linha, String motivo) {
+		String valores = Arrays.stream(linha.valores()).map(valor -> valor == null ? "" : valor.toString())
+				.collect(Collectors.joining(SEPARADOR_VALORES));
+		return JobRecusa.builder()
+				.jobId(jobId)
+				.particao(particao)
+				.linha(linha.getLinha())
+				.motivo(limitar(motivo, JobRecusa.TAMANHO_MOTIVO))
+				.valores(limitar(valores, JobRecusa.TAMANHO_VALORES))
+				.build();
+	}
+
+	private static Object[] registro(JobRecusa recusa) {
+		Object[] registro = new Object[COLUNAS_RECUSADAS.length];
+		registro[0] = recusa.getLinha();
+		registro[1] = recusa.getMotivo();
+		String[] valores = recusa.getValores() == null ? new String[0] : recusa.getValores().split(SEPARADOR_VALORES, -1);
+		for (int i = 0; i < valores.length && i + 2 < registro.length; i++) {
+			registro[i + 2] = valores[i].isEmpty() ? null : valores[i];
+		}
+		return registro;
+	}
+
+	private static String[] colunasRecusadas() {
+		String[] colunas = new String[LinhaImportacao.COLUNAS.length + 2];
+		colunas[0] = "linha";
+		colunas[1] = "motivo";
+		System.arraycopy(LinhaImportacao.COLUNAS, 0, colunas, 2, LinhaImportacao.COLUNAS.length);
+		return colunas;
+	}
+
+	private static String limitar(String texto, int tamanho) {
+		return texto == null || texto.length() <= tamanho ? texto : texto.substring(0, tamanho);
+	}
+
+	private static String causa(Throwable e) {
+		Throwable causa = e;
+		while ((causa instanceof CompletionException || causa instanceof ExecutionException
+				|| causa instanceof UncheckedIOException) && causa.getCause() != null) {
+			causa = causa.getCause();
+		}
+		return causa.getMessage();
+	}
+
+	private static void apagar(Path arquivo) {
+		try {
+			Files.deleteIfExists(arquivo);
+		} catch (IOException e) {
+			log.warn("Não foi possível apagar a entrada do job {}: {}", arquivo, e.getMessage());
+		}
+	}
+
+	// Execucao de um job: o ponto de retomada de cada particao, as recusadas da leitura ainda nao gravadas e os
+	// blocos entregues as particoes. Os metodos publicos sao chamados so pela thread que conduz o job
+	public final class Execucao {
+
+		private final Long jobId;
+		private final Job.Tipo tipo;
+		private final int[] confirmadas;
+		private final int minima;
+		private final List<JobRecusa> recusadas = new ArrayList<>();
+		private final List<CompletableFuture<Void>> blocos = new ArrayList<>();
+		private volatile boolean cancelada;
+		private volatile Throwable falha;
+
+		private Execucao(Job job, List<JobParticao> particoes) {
+			this.jobId = job.getId();
+			this.tipo = job.getTipo();
+			this.confirmadas = new int[job.getParticoes()];
+			particoes.forEach(particao -> this.confirmadas[particao.getParticao()] = particao.getLinha());
+			this.minima = Arrays.stream(this.confirmadas).min().orElse(0);
+		}
+
+		public int getParticoes() {
+			return this.confirmadas.length;
+		}
+
+		// LINHA JA CONFIRMADA NA PARTICAO ANTES DA RETOMADA: O USUARIO DELA NAO E ENTREGUE DE NOVO
+		public boolean confirmada(final int particao, final int linha) {
+			return linha <= this.confirmadas[particao];
+		}
+
+		// LINHA RECUSADA NA LEITURA (AS ANTERIORES A MENOR LINHA CONFIRMADA JA FORAM GRAVADAS ANTES DA RETOMADA)
+		public void recusar(final LinhaImportacao linha, final String motivo) {
+			if (linha.getLinha() <= this.minima) {
+				return;
+			}
+			this.recusadas.add(recusa(this.jobId, null, linha, motivo));
+			if (this.recusadas.size() >= RECUSADAS_POR_TRANSACAO) {
+				this.gravarRecusadas();
+			}
+		}
+
+		// ENTREGA UM BLOCO A PARTICAO, ESPERANDO SE A FILA DELA ESTIVER CHEIA; AS LISTAS PASSAM A SER DA PARTICAO.
+		// linhas: AS LINHAS DE CADA USUARIO, NA ORDEM DA ENTRADA
+		public void gravar(final int particao, final List<UsuarioDTO> usuarios, final List<List<LinhaImportacao>> linhas) {
+			this.verificar();
+			// as recusadas lidas antes do bloco sao gravadas antes dele: a linha confirmada de uma particao
+			// nunca passa de uma recusada que ainda nao esta no banco
+			this.gravarRecusadas();
+			this.blocos.removeIf(CompletableFuture::isDone);
+			ThreadPoolExecutor executor = JobService.this.particoes[particao % JobService.this.particoes.length];
+			this.blocos.add(CompletableFuture.runAsync(() -> gravarBloco(this, particao, usuarios, linhas), executor)
+					.whenComplete((resultado, e) -> {
+						if (e != null) {
+							this.falha = e;
+						}
+					}));
+		}
+
+		private void gravarRecusadas() {
+			if (this.recusadas.isEmpty()) {
+				return;
+			}
+			JobService.this.transactionTemplate.executeWithoutResult(status -> {
+				JobService.this.jobRecusaRepository.saveAll(this.recusadas);
+				JobService.this.jobRepository.somarRecusadas(this.jobId, this.recusadas.size());
+			});
+			Metrics.counter("jobs.linhas", "tipo", this.tipo.name(), "resultado", "recusada").increment(this.recusadas.size());
+			this.recusadas.clear();
+		}
+
+		private void aguardar() throws InterruptedException, ExecutionException {
+			this.gravarRecusadas();
+			CompletableFuture.allOf(this.blocos.toArray(new CompletableFuture<?>[0])).get();
+			this.verificar();
+		}
+
+		// Os blocos que ainda estao na fila sao descartados; o que esta sendo gravado termina
+		private void cancelar() {
+			this.cancelada = true;
+			try {
+				CompletableFuture.allOf(this.blocos.toArray(new CompletableFuture<?>[0])).get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				// a falha do bloco ja encerrou o job
+			}
+		}
+
+		private void verificar() {
+			if (this.falha != null) {
+				throw new CompletionException(this.falha);
+			}
+		}
+	}
+}
@@ -0,0 +1,311 @@
+package br.com.gestao.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.gestao.commons.Cep;
+import br.com.gestao.commons.ResponseWrapper;
+import br.com.gestao.dto.EnderecoDTO;
+import br.com.gestao.dto.ItemLoteDTO;
+import br.com.gestao.dto.ResultadoLoteDTO;
+import br.com.gestao.dto.UsuarioDTO;
+import br.com.gestao.entities.Endereco;
+import br.com.gestao.entities.Usuario;
+import br.com.gestao.mappers.EnderecoMapper;
+import br.com.gestao.mappers.UsuarioMapper;
+import br.com.gestao.repositories.EnderecoRepository;
+import br.com.gestao.repositories.UsuarioRepository;
+
+// Cadastro em lote: cada bloco de usuarios e gravado numa transacao propria, com os inserts agrupados
+// em lotes JDBC (hibernate.jdbc.batch_size + order_inserts). Usuario sem id e inserido; com id e alterado.
+@Service
+public class LoteUsuarioService {
+
+	private final UsuarioRepository usuarioRepository;
+	private final EnderecoRepository enderecoRepository;
+	private final UsuarioMapper usuarioMapper;
+	private final EnderecoMapper enderecoMapper;
+	private final EntityManager entityManager;
+	private final CacheCadastro cacheCadastro;
+	private final TransactionTemplate transactionTemplate;
+	private final int tamanhoBloco;
+	private final int maximoItens;
+
+	public LoteUsuarioService(UsuarioRepository usuarioRepository, EnderecoRepository enderecoRepository,
+			UsuarioMapper usuarioMapper, EnderecoMapper enderecoMapper, EntityManager entityManager,
+			CacheCadastro cacheCadastro, PlatformTransactionManager transactionManager,
+			@Value("${gestao.lote.tamanho-bloco:500}") int tamanhoBloco,
+			@Value("${gestao.lote.maximo-itens:10000}") int maximoItens) {
+		this.usuarioRepository = usuarioRepository;
+		this.enderecoRepository = enderecoRepository;
+		this.usuarioMapper = usuarioMapper;
+		this.enderecoMapper = enderecoMapper;
+		this.entityManager = entityManager;
+		this.cacheCadastro = cacheCadastro;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.tamanhoBloco = tamanhoBloco;
+		this.maximoItens = maximoItens;
+	}
+
+	// SALVAR (INSERIR/ALTERAR) UM LOTE DE USUARIOS, INCLUINDO OS ENDERECOS
+	public ResponseEntity<ResponseWrapper<ResultadoLoteDTO>> salvarLote(final List<UsuarioDTO> usuarios) {
+		if (usuarios == null || usuarios.isEmpty()) {
+			ResponseWrapper<ResultadoLoteDTO> responseWrapper = new ResponseWrapper<>();
+	        responseWrapper.setMessage("Nenhum usuário informado no lote");
+	        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseWrapper);
+		}
+		if (usuarios.size() > this.maximoItens) {
+			ResponseWrapper<ResultadoLoteDTO> responseWrapper = new ResponseWrapper<>();
+	        responseWrapper.setMessage("O lote aceita no máximo " + this.maximoItens + " usuários por requisição");
+	        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseWrapper);
+		}
+
+		long inicio = System.nanoTime();
+		List<ItemLoteDTO> itens = this.gravar(usuarios);
+		long duracaoNs = System.nanoTime() - inicio;
+
+		long linhas = 0;
+		int erros = 0;
+		for (ItemLoteDTO item : itens) {
+			if (item.getStatus() == ItemLoteDTO.Status.ERRO) {
+				erros++;
+			} else {
+				linhas += 1 + enderecos(usuarios.get(item.getIndice())).size();
+			}
+		}
+
+		ResultadoLoteDTO resultado = ResultadoLoteDTO.builder()
+				.total(usuarios.size())
+				.gravados(usuarios.size() - erros)
+				.erros(erros)
+				.linhas(linhas)
+				.duracaoMs(duracaoNs / 1_000_000)
+				.linhasPorSegundo(duracaoNs == 0 ? 0 : linhas * 1_000_000_000d / duracaoNs)
+				.itens(itens)
+				.build();
+		String mensagem = resultado.getGravados() + " de " + resultado.getTotal() + " usuários gravados em "
+				+ resultado.getDuracaoMs() + " ms (" + Math.round(resultado.getLinhasPorSegundo()) + " linhas/s)";
+		return new ResponseEntity<>(new ResponseWrapper<>(resultado, mensagem), HttpStatus.OK);
+	}
+
+	// GRAVA OS USUARIOS EM BLOCOS, UMA TRANSACAO POR BLOCO, SEM LIMITE DE ITENS (O CHAMADOR CONTROLA O TAMANHO);
+	// O INDICE DE CADA ITEM E A POSICAO DO USUARIO NA LISTA
+	public List<ItemLoteDTO> gravar(final List<UsuarioDTO> usuarios) {
+		return this.gravar(usuarios, CacheMode.NORMAL);
+	}
+
+	// CacheMode.IGNORE: CARGA EM MASSA, AS LINHAS GRAVADAS NAO ENTRAM NO CACHE DE SEGUNDO NIVEL
+	// (QUE CONTINUA COM AS ENTIDADES MAIS CONSULTADAS)
+	public List<ItemLoteDTO> gravar(final List<UsuarioDTO> usuarios, final CacheMode cacheMode) {
+		return this.gravar(usuarios, cacheMode, null);
+	}
+
+	// aoGravar: CHAMADO NA TRANSACAO DE CADA BLOCO COM OS ITENS DELE (O ITEM RECUSADO PELO BANCO VEM NUMA TRANSACAO
+	// PROPRIA): O QUE ELE GRAVAR SO FICA SE O BLOCO FICAR, E VOLTA JUNTO COM ELE
+	public List<ItemLoteDTO> gravar(final List<UsuarioDTO> usuarios, final CacheMode cacheMode,
+			final Consumer<List<ItemLoteDTO>> aoGravar) {
+		List<ItemLoteDTO> itens = new ArrayList<>(usuarios.size());
+		for (int i = 0; i < usuarios.size(); i += this.tamanhoBloco) {
+			List<ItemLoteDTO> bloco = this.gravarBloco(usuarios, i, Math.min(i + this.tamanhoBloco, usuarios.size()),
+					cacheMode, aoGravar);
+			// bloco gravado: descarta do cache os usuarios alterados e os enderecos que eles trouxeram (a validacao
+			// conferiu no banco que os enderecos com id ja eram do proprio usuario)
+			bloco.stream().filter(item -> item.getStatus() == ItemLoteDTO.Status.ALTERADO).forEach(item -> {
+				this.cacheCadastro.invalidarUsuario(item.getId());
+				enderecos(usuarios.get(item.getIndice()))
+						.forEach(endereco -> this.cacheCadastro.invalidarEndereco(endereco.getId(), item.getId()));
+			});
+			itens.addAll(bloco);
+		}
+		return itens;
+	}
+
+	public int getTamanhoBloco() {
+		return this.tamanhoBloco;
+	}
+
+	// GRAVA UM BLOCO NUMA TRANSACAO; SE O BANCO RECUSAR ALGUMA LINHA O BLOCO VOLTA E OS ITENS
+	// SAO GRAVADOS UM A UM, PARA QUE SO O ITEM COM PROBLEMA FIQUE DE FORA
+	private List<ItemLoteDTO> gravarBloco(List<UsuarioDTO> usuarios, int inicio, int fim, CacheMode cacheMode,
+			Consumer<List<ItemLoteDTO>> aoGravar) {
+		try {
+			return this.transactionTemplate.execute(status -> {
+				// a sessao e a da transacao do bloco: o modo vale so para ela
+				this.entityManager.unwrap(Session.class).setCacheMode(cacheMode);
+				List<ItemLoteDTO> itens = this.gravar(usuarios, inicio, fim);
+				if (aoGravar != null) {
+					aoGravar.accept(itens);
+				}
+				return itens;
+			});
+		} catch (DataAccessException | PersistenceException e) {
+			if (fim - inicio == 1) {
+				List<ItemLoteDTO> erro = Collections.singletonList(ItemLoteDTO.erro(inicio, usuarios.get(inicio).getId(),
+						"Erro ao gravar o usuário na base de dados: " + causa(e)));
+				if (aoGravar != null) {
+					this.transactionTemplate.executeWithoutResult(status -> aoGravar.accept(erro));
+				}
+				return erro;
+			}
+			List<ItemLoteDTO> itens = new ArrayList<>(fim - inicio);
+			for (int i = inicio; i < fim; i++) {
+				itens.addAll(this.gravarBloco(usuarios, i, i + 1, cacheMode, aoGravar));
+			}
+			return itens;
+		}
+	}
+
+	private List<ItemLoteDTO> gravar(List<UsuarioDTO> usuarios, int inicio, int fim) {
+		List<UsuarioDTO> bloco = usuarios.subList(inicio, fim).stream().filter(Objects::nonNull).collect(Collectors.toList());
+
+		// busca de uma vez os usuarios e enderecos do bloco que ja estao cadastrados
+		Map<Long, Usuario> usuariosCadastrados = buscar(bloco.stream().map(UsuarioDTO::getId),
+				ids -> this.usuarioRepository.findAllById(ids), Usuario::getId);
+		Map<Long, Endereco> enderecosCadastrados = buscar(bloco.stream().flatMap(item -> enderecos(item).stream())
+				.filter(Objects::nonNull).map(EnderecoDTO::getId),
+				ids -> this.enderecoRepository.findAllById(ids), Endereco::getId);
+
+		List<ItemLoteDTO> itens = new ArrayList<>(bloco.size());
+		List<Usuario> usuariosNovos = new ArrayList<>();
+		List<Endereco> enderecosNovos = new ArrayList<>();
+		List<UsuarioDTO> alterados = new ArrayList<>();
+		// usuarios alterados que trazem um endereco principal e os enderecos ja cadastrados que passam (ou continuam) a ser
+		Set<Long> trocamPrincipal = new HashSet<>();
+		Set<Long> novosPrincipais = new HashSet<>();
+		for (int i = inicio; i < fim; i++) {
+			UsuarioDTO usuarioDTO = usuarios.get(i);
+			String erro = validar(usuarioDTO, usuariosCadastrados, enderecosCadastrados);
+			if (erro != null) {
+				itens.add(ItemLoteDTO.erro(i, usuarioDTO == null ? null : usuarioDTO.getId(), erro));
+				continue;
+			}
+
+			if (usuarioDTO.getId() == null) {
+				Usuario usuario = this.usuarioMapper.toEntity(usuarioDTO);
+				usuariosNovos.add(usuario);
+				enderecosNovos.addAll(usuario.getEnderecos());
+				itens.add(new ItemLoteDTO(i, null, ItemLoteDTO.Status.CRIADO, null));
+			} else {
+				alterados.add(usuarioDTO);
+				enderecos(usuarioDTO).stream().filter(endereco -> Boolean.TRUE.equals(endereco.getPrincipal())).findFirst()
+						.ifPresent(principal -> {
+							trocamPrincipal.add(usuarioDTO.getId());
+							if (principal.getId() != null) {
+								novosPrincipais.add(principal.getId());
+							}
+						});
+				itens.add(new ItemLoteDTO(i, usuarioDTO.getId(), ItemLoteDTO.Status.ALTERADO, null));
+			}
+		}
+
+		// o novo principal substitui o atual: um unico desmarcar para o bloco inteiro, antes das alteracoes
+		this.enderecoRepository.desmarcarPrincipais(trocamPrincipal, novosPrincipais);
+		for (UsuarioDTO usuarioDTO : alterados) {
+			// usuario cadastrado: as alteracoes saem no flush, agrupadas pelo order_updates
+			Usuario usuario = usuariosCadastrados.get(usuarioDTO.getId());
+			usuario.setNome(usuarioDTO.getNome());
+			usuario.setDataNascimento(usuarioDTO.getDataNascimento());
+			for (EnderecoDTO enderecoDTO : enderecos(usuarioDTO)) {
+				if (enderecoDTO.getId() == null) {
+					Endereco endereco = this.enderecoMapper.toEntity(enderecoDTO);
+					endereco.setUsuario(usuario);
+					enderecosNovos.add(endereco);
+				} else {
+					this.enderecoMapper.atualizar(enderecoDTO, enderecosCadastrados.get(enderecoDTO.getId()));
+				}
+			}
+		}
+
+		this.usuarioRepository.saveAll(usuariosNovos);
+		this.enderecoRepository.saveAll(enderecosNovos);
+		this.entityManager.flush();
+
+		// os ids dos novos usuarios ja foram gerados no persist
+		int novo = 0;
+		for (ItemLoteDTO item : itens) {
+			if (item.getStatus() == ItemLoteDTO.Status.CRIADO) {
+				item.setId(usuariosNovos.get(novo++).getId());
+			}
+		}
+
+		// libera o contexto de persistencia para o proximo bloco
+		this.entityManager.clear();
+		return itens;
+	}
+
+	private static String validar(UsuarioDTO usuarioDTO, Map<Long, Usuario> usuariosCadastrados,
+			Map<Long, Endereco> enderecosCadastrados) {
+		if (usuarioDTO == null) {
+			return "Usuário não informado";
+		}
+		if (usuarioDTO.getId() != null && !usuariosCadastrados.containsKey(usuarioDTO.getId())) {
+			return "Usuário com id <" + usuarioDTO.getId() + "> não encontrado na base de dados";
+		}
+		List<EnderecoDTO> enderecos = enderecos(usuarioDTO);
+		if (enderecos.stream().filter(endereco -> endereco != null && Boolean.TRUE.equals(endereco.getPrincipal())).count() > 1) {
+			return "Usuário com mais de um endereço principal";
+		}
+		for (EnderecoDTO endereco : enderecos) {
+			if (endereco == null) {
+				return "Endereço não informado";
+			}
+			if (endereco.getCep() == null || endereco.getCep().isBlank()) {
+				return "Endereço sem CEP";
+			}
+			if (!Cep.valido(endereco.getCep())) {
+				return "CEP inválido (8 dígitos): " + endereco.getCep();
+			}
+			if (endereco.getId() != null) {
+				Endereco cadastrado = enderecosCadastrados.get(endereco.getId());
+				if (cadastrado == null || usuarioDTO.getId() == null || cadastrado.getUsuario() == null
+						|| !usuarioDTO.getId().equals(cadastrado.getUsuario().getId())) {
+					return "Endereço com id <" + endereco.getId() + "> não encontrado para esse usuário";
+				}
+			}
+		}
+		return null;
+	}
+
+	private static List<EnderecoDTO> enderecos(UsuarioDTO usuarioDTO) {
+		return usuarioDTO.getEnderecos() == null ? Collections.emptyList() : usuarioDTO.getEnderecos();
+	}
+
+	private static <T> Map<Long, T> buscar(Stream<Long> ids, Function<Set<Long>, List<T>> consulta,
+			Function<T, Long> id) {
+		Set<Long> filtrados = ids.filter(Objects::nonNull).collect(Collectors.toSet());
+		if (filtrados.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		return consulta.apply(filtrados).stream().collect(Collectors.toMap(id, Function.identity()));
+	}
+
+	private static String causa(Throwable e) {
+		Throwable causa = e;
+		while (causa.getCause() != null && causa.getCause() != causa) {
+			causa = causa.getCause();
+		}
+		return causa.getMessage();
+	}
+}
@@ -0,0 +1,16 @@
+package br.com.gestao.services;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import br.com.gestao.entities.Job;
+
+// Trabalho de um tipo de job: le a entrada e entrega os usuarios, em blocos, as particoes da execucao
+// (JobService.Execucao), que gravam os blocos e confirmam as linhas. Numa retomada a entrada e lida de novo
+// desde o inicio: a execucao informa o que ja foi confirmado em cada particao
+public interface ProcessadorJob {
+
+	Job.Tipo getTipo();
+
+	void processar(Path entrada, JobService.Execucao execucao) throws IOException;
+}
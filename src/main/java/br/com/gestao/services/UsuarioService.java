@@ -1,45 +1,83 @@
 package br.com.gestao.services;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import org.modelmapper.ModelMapper;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import br.com.gestao.commons.Const;
+import br.com.gestao.commons.Contagem;
+import br.com.gestao.commons.Cursor;
+import br.com.gestao.commons.CursorPage;
 import br.com.gestao.commons.ResponseWrapper;
+import br.com.gestao.config.RoteamentoLeitura;
+import br.com.gestao.dto.BuscaLoteDTO;
 import br.com.gestao.dto.EnderecoDTO;
 import br.com.gestao.dto.UsuarioDTO;
 import br.com.gestao.entities.Endereco;
 import br.com.gestao.entities.Usuario;
 import br.com.gestao.exceptions.NotFoundException;
+import br.com.gestao.mappers.EnderecoMapper;
+import br.com.gestao.mappers.UsuarioMapper;
 import br.com.gestao.repositories.EnderecoRepository;
 import br.com.gestao.repositories.UsuarioRepository;
+import br.com.gestao.repositories.UsuarioRepository.LinhaUsuario;
 
 @Service
 public class UsuarioService {
 
 	private final UsuarioRepository usuarioRepository;
 	private final EnderecoRepository enderecoRepository;
-	private final ModelMapper modelMapper;
+	private final UsuarioMapper usuarioMapper;
+	private final EnderecoMapper enderecoMapper;
+	private final CacheCadastro cacheCadastro;
+	private final IndiceNomeUsuario indiceNomeUsuario;
+	private final ConsultasCompartilhadas consultasCompartilhadas;
+	private final ContagemAproximada contagemAproximada;
+	// salvarUsuario/salvarEndereco terminam a transacao dentro do servico: a violacao do indice unico no commit vira resposta (409)
+	private final TransactionTemplate transactionTemplate;
 
-	public UsuarioService(UsuarioRepository usuarioRepository, ModelMapper modelMapper, EnderecoRepository enderecoRepository) {
+	public UsuarioService(UsuarioRepository usuarioRepository, UsuarioMapper usuarioMapper, EnderecoRepository enderecoRepository, EnderecoMapper enderecoMapper, CacheCadastro cacheCadastro,
+			IndiceNomeUsuario indiceNomeUsuario, ConsultasCompartilhadas consultasCompartilhadas, ContagemAproximada contagemAproximada,
+			PlatformTransactionManager transactionManager) {
 		this.usuarioRepository = usuarioRepository;
 		this.enderecoRepository = enderecoRepository;
-		this.modelMapper = modelMapper;
+		this.usuarioMapper = usuarioMapper;
+		this.enderecoMapper = enderecoMapper;
+		this.cacheCadastro = cacheCadastro;
+		this.indiceNomeUsuario = indiceNomeUsuario;
+		this.consultasCompartilhadas = consultasCompartilhadas;
+		this.contagemAproximada = contagemAproximada;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
 	}
 
-	// LISTAR USUARIO POR ID
+	// LISTAR USUARIO POR ID (FORA DO CACHE, REQUISICOES SIMULTANEAS DO MESMO ID FAZEM UMA SO CONSULTA)
+	@Transactional(readOnly = true)
 	public ResponseEntity<ResponseWrapper<UsuarioDTO>> findById(Long id) {
-		Usuario usuario = usuarioRepository.findById(id).orElse(null);
+		UsuarioDTO usuario = this.cacheCadastro.usuario(id, () -> this.consultasCompartilhadas.carregar("usuario",
+				() -> usuarioRepository.findComEnderecosById(id).map(this.usuarioMapper::toDto).orElse(null), id));
 		if(usuario != null)
 		{
-			return new ResponseEntity<>(new ResponseWrapper<>(this.modelMapper.map(usuario, UsuarioDTO.class), null), HttpStatus.OK);
+			return new ResponseEntity<>(new ResponseWrapper<>(usuario, null), HttpStatus.OK);
 		}else {
 			ResponseWrapper<UsuarioDTO> responseWrapper = new ResponseWrapper<>();
 	        responseWrapper.setMessage("Usuário não encontrado com o ID: " + id);
@@ -47,9 +85,33 @@ public class UsuarioService {
 		}
 	}
 
+	// LISTAR VARIOS USUARIOS PELOS IDS, NA ORDEM ENVIADA: OS QUE NAO ESTAO NO CACHE VEM EM UM UNICO SELECT (IN + ENDERECOS)
+	@Transactional(readOnly = true)
+	public ResponseEntity<ResponseWrapper<BuscaLoteDTO<UsuarioDTO>>> buscarLote(List<Long> ids) {
+		if (ids == null || ids.isEmpty() || ids.size() > Const.MAXIMO_IDS_BUSCA_LOTE || ids.stream().anyMatch(Objects::isNull)) {
+			ResponseWrapper<BuscaLoteDTO<UsuarioDTO>> responseWrapper = new ResponseWrapper<>();
+			responseWrapper.setMessage("Informe de 1 a " + Const.MAXIMO_IDS_BUSCA_LOTE + " ids de usuário");
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseWrapper);
+		}
+
+		Map<Long, UsuarioDTO> carregados = this.cacheCadastro.usuarios(new LinkedHashSet<>(ids),
+				faltantes -> this.usuarioRepository.findComEnderecosByIdIn(faltantes).stream().map(this.usuarioMapper::toDto)
+						.collect(Collectors.toList()));
+		BuscaLoteDTO<UsuarioDTO> resultado = BuscaLoteDTO.of(ids, carregados);
+
+		if (!resultado.getEncontrados().isEmpty()) {
+			return new ResponseEntity<>(new ResponseWrapper<>(resultado, null), HttpStatus.OK);
+		}else {
+			ResponseWrapper<BuscaLoteDTO<UsuarioDTO>> responseWrapper = new ResponseWrapper<>(resultado, null);
+	        responseWrapper.setMessage("Nenhum dos usuários informados foi encontrado");
+	        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(responseWrapper);
+		}
+	}
+
 	// LISTAR TODOS
+	@Transactional(readOnly = true)
 	public ResponseEntity<ResponseWrapper<List<UsuarioDTO>>> findAll() {
-		List<UsuarioDTO> usuarios = usuarioRepository.findAll().stream().map(usuario -> modelMapper.map(usuario, UsuarioDTO.class)).collect(Collectors.toList());
+		List<UsuarioDTO> usuarios = usuarioRepository.listAllComEnderecos().stream().map(usuarioMapper::toDto).collect(Collectors.toList());
 		if(usuarios != null && !usuarios.isEmpty())
 		{
 			return new ResponseEntity<>(new ResponseWrapper<>(usuarios, null), HttpStatus.OK);
@@ -61,15 +123,16 @@ public class UsuarioService {
 	}
 	
 	// LISTAR TODOS OS ENDEREÇOS DE UM USUARIO
+	@Transactional(readOnly = true)
 	public ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> findEnderecoByIdUsuario(Long id,Integer pagina, Integer quantidade) {
 		Sort sort = Sort.by("id").ascending();
 		PageRequest pageRequest = PageRequest.of(pagina - 1, quantidade, sort);
 		
-		Page<Endereco> page = this.enderecoRepository.findByUsuarioId(id, pageRequest);
+		Page<EnderecoDTO> page = this.cacheCadastro.enderecosDoUsuario(id, pagina, quantidade,
+				() -> this.enderecoRepository.findDtoByUsuarioId(id, pageRequest));
 
 		if (page != null && !page.isEmpty()) {
-			Page<EnderecoDTO> dtoPage = page.map(item -> this.modelMapper.map(item, EnderecoDTO.class));
-			return new ResponseEntity<>(new ResponseWrapper<>(dtoPage, null), HttpStatus.OK);
+			return new ResponseEntity<>(new ResponseWrapper<>(page, null), HttpStatus.OK);
 		}else {
 			ResponseWrapper<Page<EnderecoDTO>> responseWrapper = new ResponseWrapper<>();
 	        responseWrapper.setMessage("Não foram encontrados endereços para esse usuário");
@@ -77,15 +140,20 @@ public class UsuarioService {
 		}
 	}
 	
-	// LISTAR TODOS OS USUARIO QUE TEM UM NOME PARECIDO COM O VALOR DO NOME CONSULTADO
+	// LISTAR TODOS OS USUARIO QUE TEM UM NOME PARECIDO COM O VALOR DO NOME CONSULTADO (SEM ACENTO E SEM MAIUSCULAS)
+	@Transactional(readOnly = true)
 	public ResponseEntity<ResponseWrapper<Page<UsuarioDTO>>> findByNomeLike(Integer pagina, Integer quantidade, String nome) {
 		Sort sort = Sort.by("nome").ascending();
 		PageRequest pageRequest = PageRequest.of(pagina - 1, quantidade, sort);
 
-		Page<Usuario> page = this.usuarioRepository.findByNomeLike("%" + nome + "%", pageRequest);
+		// os ids da pagina vem do indice em memoria; o banco so e consultado pelo LIKE com o termo vazio ou na subida
+		Page<Long> ids = this.indiceNomeUsuario.buscar(nome, pageRequest);
+		if (ids == null) {
+			ids = this.usuarioRepository.findIdsByNomeLike("%" + nome + "%", pageRequest);
+		}
+		Page<UsuarioDTO> dtoPage = this.buscarPorIds(ids);
 
-		if (page != null && !page.isEmpty()) {
-			Page<UsuarioDTO> dtoPage = page.map(item -> this.modelMapper.map(item, UsuarioDTO.class));
+		if (dtoPage != null && !dtoPage.isEmpty()) {
 			return new ResponseEntity<>(new ResponseWrapper<>(dtoPage, null), HttpStatus.OK);
 		}else {
 			ResponseWrapper<Page<UsuarioDTO>> responseWrapper = new ResponseWrapper<>();
@@ -95,14 +163,14 @@ public class UsuarioService {
 	}
 
 	// LISTAR TODOS E MOSTRAR O RESULTADO UTILIZANDO PAGINAÇÃO
+	@Transactional(readOnly = true)
 	public ResponseEntity<ResponseWrapper<Page<UsuarioDTO>>> findAll(Integer pagina, Integer quantidade) {
 		Sort sort = Sort.by("id").ascending();
 		PageRequest pageRequest = PageRequest.of(pagina - 1, quantidade, sort);
 		
-		Page<Usuario> page = this.usuarioRepository.listAllByPages(pageRequest);
+		Page<UsuarioDTO> dtoPage = this.buscarPorIds(this.usuarioRepository.listAllIdsByPages(pageRequest));
 
-		if (page != null && !page.isEmpty()) {
-			Page<UsuarioDTO> dtoPage = page.map(item -> this.modelMapper.map(item, UsuarioDTO.class));
+		if (dtoPage != null && !dtoPage.isEmpty()) {
 			return new ResponseEntity<>(new ResponseWrapper<>(dtoPage, null), HttpStatus.OK);
 		}else {
 			ResponseWrapper<Page<UsuarioDTO>> responseWrapper = new ResponseWrapper<>();
@@ -111,14 +179,259 @@ public class UsuarioService {
 		}
 	}
 
+	// LISTAR OS ENDEREÇOS DE UM USUARIO SEM A CONTAGEM EXATA (count=false: SO "HASNEXT"; count=approx: TOTAL GUARDADO)
+	@Transactional(readOnly = true)
+	public ResponseEntity<ResponseWrapper<Slice<EnderecoDTO>>> findEnderecoByIdUsuario(Long id, Integer pagina, Integer quantidade, Contagem contagem) {
+		Sort sort = Sort.by("id").ascending();
+		PageRequest pageRequest = PageRequest.of(pagina - 1, quantidade, sort);
+
+		Slice<EnderecoDTO> slice = this.contagemAproximada.aplicar(contagem, this.enderecoRepository.findDtoSliceByUsuarioId(id, pageRequest),
+				"enderecos-usuario", id, () -> this.enderecoRepository.countByUsuarioId(id));
+
+		return this.respostaSemContagem(slice, "Não foram encontrados endereços para esse usuário");
+	}
+
+	// LISTAR OS USUARIOS COM NOME PARECIDO SEM A CONTAGEM EXATA. COM O INDICE DE NOMES O TOTAL SAI DA MEMORIA,
+	// SEM COUNT: O INDICE PARA LOGO DEPOIS DA PAGINA E count=approx DEVOLVE O TOTAL ESTIMADO POR ELE
+	@Transactional(readOnly = true)
+	public ResponseEntity<ResponseWrapper<Slice<UsuarioDTO>>> findByNomeLike(Integer pagina, Integer quantidade, String nome, Contagem contagem) {
+		Sort sort = Sort.by("nome").ascending();
+		PageRequest pageRequest = PageRequest.of(pagina - 1, quantidade, sort);
+
+		Page<Long> ids = this.indiceNomeUsuario.buscar(nome, pageRequest, contagem);
+		Slice<UsuarioDTO> slice;
+		if (ids != null) {
+			Page<UsuarioDTO> page = this.buscarPorIds(ids);
+			slice = contagem == Contagem.NENHUMA ? new SliceImpl<>(page.getContent(), page.getPageable(), page.hasNext()) : page;
+		} else {
+			slice = this.contagemAproximada.aplicar(contagem,
+					this.buscarPorIds(this.usuarioRepository.findIdsSliceByNomeLike("%" + nome + "%", pageRequest)), "usuarios-nome", nome,
+					() -> this.usuarioRepository.countByNomeLike("%" + nome + "%"));
+		}
+
+		return this.respostaSemContagem(slice, "Não foram encontrados usuários com esse nome");
+	}
+
+	// LISTAR TODOS SEM A CONTAGEM EXATA
+	@Transactional(readOnly = true)
+	public ResponseEntity<ResponseWrapper<Slice<UsuarioDTO>>> findAll(Integer pagina, Integer quantidade, Contagem contagem) {
+		Sort sort = Sort.by("id").ascending();
+		PageRequest pageRequest = PageRequest.of(pagina - 1, quantidade, sort);
+
+		Slice<UsuarioDTO> slice = this.contagemAproximada.aplicar(contagem, this.buscarPorIds(this.usuarioRepository.listAllIdsBySlices(pageRequest)),
+				"usuarios", null, this.usuarioRepository::count);
+
+		return this.respostaSemContagem(slice, "Não foram encontrados usuários na base de dados");
+	}
+
+	private <T> ResponseEntity<ResponseWrapper<Slice<T>>> respostaSemContagem(Slice<T> slice, String mensagemNaoEncontrado) {
+		if (slice != null && !slice.isEmpty()) {
+			return new ResponseEntity<>(new ResponseWrapper<>(slice, null), HttpStatus.OK);
+		}else {
+			ResponseWrapper<Slice<T>> responseWrapper = new ResponseWrapper<>();
+	        responseWrapper.setMessage(mensagemNaoEncontrado);
+	        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(responseWrapper);
+		}
+	}
+
+	// LISTAR TODOS UTILIZANDO CURSOR (SEM OFFSET E SEM COUNT)
+	@Transactional(readOnly = true)
+	public ResponseEntity<ResponseWrapper<CursorPage<UsuarioDTO>>> findAllCursor(String after, Integer quantidade) {
+		Cursor cursor = Cursor.decode(after);
+		if (cursor == null) {
+			return this.cursorInvalido(after);
+		}
+		Integer informada = quantidade;
+		quantidade = CursorPage.quantidade(informada);
+		if (quantidade == null) {
+			return this.quantidadeInvalida(informada);
+		}
+
+		List<Usuario> resultado = this.carregarEnderecos(this.usuarioRepository.listAllAfter(cursor.getId(), PageRequest.of(0, quantidade + 1)));
+
+		if (resultado != null && !resultado.isEmpty()) {
+			CursorPage<UsuarioDTO> page = CursorPage.of(resultado, quantidade, this.usuarioMapper::toDto, item -> Cursor.of(item.getId()));
+			return new ResponseEntity<>(new ResponseWrapper<>(page, null), HttpStatus.OK);
+		}else {
+			ResponseWrapper<CursorPage<UsuarioDTO>> responseWrapper = new ResponseWrapper<>();
+	        responseWrapper.setMessage("Não foram encontrados usuários na base de dados");
+	        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(responseWrapper);
+		}
+	}
+
+	// LISTAR OS USUARIOS COM NOME PARECIDO UTILIZANDO CURSOR (ORDENADO POR NOME E ID)
+	@Transactional(readOnly = true)
+	public ResponseEntity<ResponseWrapper<CursorPage<UsuarioDTO>>> findByNomeLikeCursor(String after, Integer quantidade, String nome) {
+		Cursor cursor = Cursor.decode(after);
+		if (cursor == null) {
+			return this.cursorInvalido(after);
+		}
+		Integer informada = quantidade;
+		quantidade = CursorPage.quantidade(informada);
+		if (quantidade == null) {
+			return this.quantidadeInvalida(informada);
+		}
+
+		List<Long> ids = this.indiceNomeUsuario.buscarApos(nome, cursor.getChave(), cursor.getId(), quantidade + 1);
+		List<Usuario> resultado = ids != null ? this.buscarPorIds(ids)
+				: this.carregarEnderecos(this.usuarioRepository.findByNomeLikeAfter("%" + nome + "%",
+						cursor.getChave(), cursor.getId(), PageRequest.of(0, quantidade + 1)));
+
+		if (resultado != null && !resultado.isEmpty()) {
+			CursorPage<UsuarioDTO> page = CursorPage.of(resultado, quantidade, this.usuarioMapper::toDto, item -> Cursor.of(item.getId(), item.getNome()));
+			return new ResponseEntity<>(new ResponseWrapper<>(page, null), HttpStatus.OK);
+		}else {
+			ResponseWrapper<CursorPage<UsuarioDTO>> responseWrapper = new ResponseWrapper<>();
+	        responseWrapper.setMessage("Não foram encontrados usuários com esse nome");
+	        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(responseWrapper);
+		}
+	}
+
+	// LISTAR OS ENDEREÇOS DE UM USUARIO UTILIZANDO CURSOR
+	@Transactional(readOnly = true)
+	public ResponseEntity<ResponseWrapper<CursorPage<EnderecoDTO>>> findEnderecoByIdUsuarioCursor(Long id, String after, Integer quantidade) {
+		Cursor cursor = Cursor.decode(after);
+		if (cursor == null) {
+			return this.cursorInvalido(after);
+		}
+		Integer informada = quantidade;
+		quantidade = CursorPage.quantidade(informada);
+		if (quantidade == null) {
+			return this.quantidadeInvalida(informada);
+		}
+
+		List<Endereco> resultado = this.enderecoRepository.findByUsuarioIdAfter(id, cursor.getId(), PageRequest.of(0, quantidade + 1));
+
+		if (resultado != null && !resultado.isEmpty()) {
+			CursorPage<EnderecoDTO> page = CursorPage.of(resultado, quantidade, this.enderecoMapper::toDto, item -> Cursor.of(item.getId()));
+			return new ResponseEntity<>(new ResponseWrapper<>(page, null), HttpStatus.OK);
+		}else {
+			ResponseWrapper<CursorPage<EnderecoDTO>> responseWrapper = new ResponseWrapper<>();
+	        responseWrapper.setMessage("Não foram encontrados endereços para esse usuário");
+	        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(responseWrapper);
+		}
+	}
+
+	private <T> ResponseEntity<ResponseWrapper<CursorPage<T>>> cursorInvalido(String after) {
+		ResponseWrapper<CursorPage<T>> responseWrapper = new ResponseWrapper<>();
+		responseWrapper.setMessage("Cursor inválido: " + after);
+		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseWrapper);
+	}
+
+	private <T> ResponseEntity<ResponseWrapper<CursorPage<T>>> quantidadeInvalida(Integer quantidade) {
+		ResponseWrapper<CursorPage<T>> responseWrapper = new ResponseWrapper<>();
+		responseWrapper.setMessage("Quantidade inválida (mínimo 1): " + quantidade);
+		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseWrapper);
+	}
+
+	// CARREGA OS ENDERECOS DOS USUARIOS DA PAGINA COM UM UNICO SELECT (EVITA UM SELECT POR USUARIO)
+	private List<Usuario> carregarEnderecos(List<Usuario> usuarios) {
+		if (usuarios == null || usuarios.isEmpty()) {
+			return usuarios;
+		}
+		Map<Long, Usuario> carregados = this.buscarComEnderecos(usuarios);
+		return usuarios.stream().map(item -> carregados.getOrDefault(item.getId(), item)).collect(Collectors.toList());
+	}
+
+	private Map<Long, Usuario> buscarComEnderecos(List<Usuario> usuarios) {
+		List<Long> ids = usuarios.stream().map(Usuario::getId).collect(Collectors.toList());
+		return this.usuarioRepository.findComEnderecosByIdIn(ids).stream()
+				.collect(Collectors.toMap(Usuario::getId, Function.identity()));
+	}
+
+	// USUARIOS + ENDERECOS DA PAGINA DE IDS (INDICE DE NOMES OU CONSULTA), NA ORDEM DA PAGINA, EM UM UNICO SELECT DE PROJECAO
+	private Page<UsuarioDTO> buscarPorIds(Page<Long> ids) {
+		if (ids == null) {
+			return null;
+		}
+		List<UsuarioDTO> usuarios = this.montarUsuarios(ids.getContent());
+		return new PageImpl<>(usuarios, ids.getPageable(), ids.getTotalElements() - (ids.getNumberOfElements() - usuarios.size()));
+	}
+
+	private Slice<UsuarioDTO> buscarPorIds(Slice<Long> ids) {
+		return ids == null ? null : new SliceImpl<>(this.montarUsuarios(ids.getContent()), ids.getPageable(), ids.hasNext());
+	}
+
+	// AGRUPA AS LINHAS (USUARIO X ENDERECO) DA PROJECAO EM DTOS, SEM PASSAR POR ENTIDADES
+	private List<UsuarioDTO> montarUsuarios(List<Long> ids) {
+		if (ids.isEmpty()) {
+			return new ArrayList<>();
+		}
+		Map<Long, UsuarioDTO> carregados = new HashMap<>();
+		for (LinhaUsuario linha : this.usuarioRepository.findLinhasByIdIn(ids)) {
+			UsuarioDTO usuario = carregados.computeIfAbsent(linha.getId(),
+					id -> UsuarioDTO.builder().id(id).nome(linha.getNome()).dataNascimento(linha.getDataNascimento()).build());
+			if (linha.getIdEndereco() != null) {
+				EnderecoDTO endereco = new EnderecoDTO(linha.getIdEndereco(), linha.getCep(), linha.getLogradouro(), linha.getCidade(),
+						linha.getEstado(), linha.getNumero(), linha.getPrincipal());
+				endereco.setUsuario(usuario);
+				usuario.getEnderecos().add(endereco);
+			}
+		}
+		List<UsuarioDTO> usuarios = new ArrayList<>(ids.size());
+		for (Long id : ids) {
+			UsuarioDTO usuario = carregados.get(id);
+			if (usuario != null) {
+				usuarios.add(usuario);
+			} else if (!RoteamentoLeitura.leituraNaReplica()) {
+				// apagado fora da aplicacao (ou por outro no): sai do indice. Na replica pode ser so atraso da replicacao
+				this.indiceNomeUsuario.remover(id);
+			}
+		}
+		return usuarios;
+	}
+
+	private List<Usuario> buscarPorIds(List<Long> ids) {
+		if (ids.isEmpty()) {
+			return new ArrayList<>();
+		}
+		Map<Long, Usuario> carregados = this.usuarioRepository.findComEnderecosByIdIn(ids).stream()
+				.collect(Collectors.toMap(Usuario::getId, Function.identity()));
+		List<Usuario> usuarios = new ArrayList<>(ids.size());
+		for (Long id : ids) {
+			Usuario usuario = carregados.get(id);
+			if (usuario != null) {
+				usuarios.add(usuario);
+			} else if (!RoteamentoLeitura.leituraNaReplica()) {
+				// apagado fora da aplicacao (ou por outro no): sai do indice. Na replica pode ser so atraso da replicacao
+				this.indiceNomeUsuario.remover(id);
+			}
+		}
+		return usuarios;
+	}
+
 	// SALVAR (INSERIR/ALTERAR) O CADASTRO DO USUARIO, INCLUINDO O ENDERECO
-	@Transactional
 	public ResponseEntity<ResponseWrapper<UsuarioDTO>> salvarUsuario(final UsuarioDTO usuarioDTO) {
-		Usuario itemSalvar = this.modelMapper.map(usuarioDTO, Usuario.class);
+		// a mesma regra do cadastro em lote: o UK_ENDERECO_PRINCIPAL recusaria o segundo principal no flush
+		if (usuarioDTO.getEnderecos() != null && usuarioDTO.getEnderecos().stream()
+				.filter(endereco -> endereco != null && Boolean.TRUE.equals(endereco.getPrincipal())).count() > 1) {
+			ResponseWrapper<UsuarioDTO> responseWrapper = new ResponseWrapper<>();
+	        responseWrapper.setMessage("Usuário com mais de um endereço principal");
+	        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseWrapper);
+		}
+		try {
+			return this.transactionTemplate.execute(status -> this.gravarUsuario(usuarioDTO));
+		} catch (DataIntegrityViolationException e) {
+			return conflitoPrincipal(e, usuarioDTO.getId());
+		}
+	}
+
+	private ResponseEntity<ResponseWrapper<UsuarioDTO>> gravarUsuario(final UsuarioDTO usuarioDTO) {
+		Usuario itemSalvar = this.usuarioMapper.toEntity(usuarioDTO);
 		List<Endereco> enderecos = itemSalvar.getEnderecos();
 		
+		// enderecos ja cadastrados passam para este usuario: os donos atuais (no banco) tambem saem do cache
+		List<Long> idsEnderecos = enderecos == null ? List.of() : enderecos.stream().map(Endereco::getId)
+				.filter(Objects::nonNull).collect(Collectors.toList());
+		if (!idsEnderecos.isEmpty()) {
+			this.enderecoRepository.findIdsUsuarioByIdIn(idsEnderecos).forEach(this.cacheCadastro::invalidarUsuario);
+			idsEnderecos.forEach(idEndereco -> this.cacheCadastro.invalidarEndereco(idEndereco, usuarioDTO.getId()));
+		}
+		
 		//salva o usuario:
 		itemSalvar = usuarioRepository.save(itemSalvar);
+		// o cache do usuario (dados, enderecos e paginas) e descartado depois do commit
+		this.cacheCadastro.invalidarUsuario(itemSalvar.getId());
 		
 		//atribui o usuario com id criado aos mesmos endereços
 		for (Endereco endereco : enderecos) {
@@ -127,13 +440,18 @@ public class UsuarioService {
 		
 		//salva os enderecos
 		if (enderecos != null) {
+			// um endereco principal no cadastro substitui o principal atual do usuario
+			Endereco principal = enderecos.stream().filter(c -> Boolean.TRUE.equals(c.getPrincipal())).findFirst().orElse(null);
+			if (principal != null && usuarioDTO.getId() != null) {
+				this.enderecoRepository.desmarcarPrincipal(itemSalvar.getId(), principal.getId());
+			}
 			enderecos.forEach(c -> c = this.enderecoRepository.save(c));
 			itemSalvar.setEnderecos(enderecos);
 		}
 		
 		if(itemSalvar != null && itemSalvar.getId() != null)
 		{
-			return new ResponseEntity<>(new ResponseWrapper<>(this.modelMapper.map(itemSalvar, UsuarioDTO.class), null), HttpStatus.CREATED);
+			return new ResponseEntity<>(new ResponseWrapper<>(this.usuarioMapper.toDto(itemSalvar), null), HttpStatus.CREATED);
 		}else {
 			ResponseWrapper<UsuarioDTO> responseWrapper = new ResponseWrapper<>();
 	        responseWrapper.setMessage("Erro ao cadastrar o usuário na base de dados");
@@ -142,9 +460,16 @@ public class UsuarioService {
 	}
 	
 	// SALVAR (INSERIR/ALTERAR) O CADASTRO DE UM ENDERECO PARA UM USUARIO JA CADASTRADO
-	@Transactional
 	public ResponseEntity<ResponseWrapper<EnderecoDTO>> salvarEndereco(final EnderecoDTO enderecoDTO, final Long idUsuario) {
-		Endereco itemSalvar = this.modelMapper.map(enderecoDTO, Endereco.class);
+		try {
+			return this.transactionTemplate.execute(status -> this.gravarEndereco(enderecoDTO, idUsuario));
+		} catch (DataIntegrityViolationException e) {
+			return conflitoPrincipal(e, idUsuario);
+		}
+	}
+
+	private ResponseEntity<ResponseWrapper<EnderecoDTO>> gravarEndereco(final EnderecoDTO enderecoDTO, final Long idUsuario) {
+		Endereco itemSalvar = this.enderecoMapper.toEntity(enderecoDTO);
 		
 		// encontra o usuario:
 		Usuario usuario = usuarioRepository.findById(idUsuario).orElse(null);
@@ -158,20 +483,15 @@ public class UsuarioService {
 
 		if(itemSalvar.getPrincipal() != null && Boolean.TRUE.equals(itemSalvar.getPrincipal()))
 		{
-			// Lista todos os enderecos de um usuario;
-			List<Endereco> enderecos = this.enderecoRepository.findByUsuarioId(idUsuario);
-			// Mapeie cada endereço para o usuário específico e sete todos os endereços como não principais
-			List<Endereco> enderecosMapeados = enderecos.stream().map(endereco -> {
-				endereco.setUsuario(usuario);
-				endereco.setPrincipal(Boolean.FALSE);
-				return endereco;
-			}).collect(Collectors.toList());
-			
-			// salva os enderecos
-			if (enderecosMapeados != null) {
-				enderecosMapeados.forEach(c -> c = this.enderecoRepository.save(c));
-			}
+			// desmarca o principal atual do usuario (so essa linha, pelo indice), sem carregar os outros enderecos
+			this.enderecoRepository.desmarcarPrincipal(idUsuario, itemSalvar.getId());
 		}	
+		// descarta o usuario no cache (o principal pode ter mudado) e, se o endereco ja existia, o dono anterior dele no banco
+		this.cacheCadastro.invalidarUsuario(idUsuario);
+		if (itemSalvar.getId() != null) {
+			this.cacheCadastro.invalidarEndereco(itemSalvar.getId(),
+					this.enderecoRepository.findIdUsuarioById(itemSalvar.getId()).orElse(null));
+		}
 		//atribui o usuário ao endereço para manter o relacionamento
 		itemSalvar.setUsuario(usuario);
 		// salva o endereco:
@@ -179,7 +499,7 @@ public class UsuarioService {
 		
 		if(itemSalvar != null && itemSalvar.getId() != null)
 		{
-			return new ResponseEntity<>(new ResponseWrapper<>(this.modelMapper.map(itemSalvar, EnderecoDTO.class), null), HttpStatus.CREATED);
+			return new ResponseEntity<>(new ResponseWrapper<>(this.enderecoMapper.toDto(itemSalvar), null), HttpStatus.CREATED);
 		}else {
 			ResponseWrapper<EnderecoDTO> responseWrapper = new ResponseWrapper<>();
 	        responseWrapper.setMessage("Erro ao cadastrar o endereço para o usuário com id <" + idUsuario +"> na base de dados");
@@ -187,10 +507,23 @@ public class UsuarioService {
 		}
 	}
 
+	// O UK_ENDERECO_PRINCIPAL RECUSOU O ENDERECO (NO FLUSH OU NO COMMIT, A TRANSACAO JA FOI DESFEITA): OUTRA REQUISICAO
+	// GRAVOU UM PRINCIPAL PARA O USUARIO AO MESMO TEMPO. O CLIENTE RECEBE 409 E PODE REPETIR; AS DEMAIS VIOLACOES CONTINUAM COMO ERRO
+	private static <T> ResponseEntity<ResponseWrapper<T>> conflitoPrincipal(DataIntegrityViolationException e, Long idUsuario) {
+		String mensagem = e.getMostSpecificCause().getMessage();
+		if (mensagem == null || !mensagem.toUpperCase(Locale.ROOT).contains(Const.UK_ENDERECO_PRINCIPAL)) {
+			throw e;
+		}
+		ResponseWrapper<T> responseWrapper = new ResponseWrapper<>();
+		responseWrapper.setMessage("Outro endereço principal foi gravado ao mesmo tempo para o usuário com id <" + idUsuario + ">, tente novamente");
+		return ResponseEntity.status(HttpStatus.CONFLICT).body(responseWrapper);
+	}
+
 	// DELETAR USUARIO
 	public ResponseEntity<ResponseWrapper<String>> deleteUsuario(Long id) {
 		if (usuarioRepository.existsById(id)) {
 			usuarioRepository.deleteById(id);
+			this.cacheCadastro.invalidarUsuario(id);
 			return new ResponseEntity<>(new ResponseWrapper<>("Sucesso!!", null), HttpStatus.OK);
 		}else {
 			return new ResponseEntity<>(new ResponseWrapper<>("usuario com id <"+id+"> não encontrado !!!", null), HttpStatus.NOT_FOUND);
@@ -200,12 +533,14 @@ public class UsuarioService {
 	// DELETAR ENDERECO DE UM USUARIO
 	public ResponseEntity<ResponseWrapper<String>> deleteEndereco(Long idUsuario, Long idEndereco) {
 		if (usuarioRepository.existsById(idUsuario)) {
-			if(enderecoRepository.existsById(idEndereco))
+			// o endereco so e removido se for do usuario informado (o dono vem do banco, nao do cache)
+			if(idUsuario.equals(enderecoRepository.findIdUsuarioById(idEndereco).orElse(null)))
 			{
 				enderecoRepository.deleteById(idEndereco);
+				this.cacheCadastro.invalidarEndereco(idEndereco, idUsuario);
 				return new ResponseEntity<>(new ResponseWrapper<>("Sucesso!!", null), HttpStatus.OK);
 			}else {
-				return new ResponseEntity<>(new ResponseWrapper<>("endereço com id <"+idEndereco+"> não encontrado !!!", null), HttpStatus.NOT_FOUND);
+				return new ResponseEntity<>(new ResponseWrapper<>("endereço com id <"+idEndereco+"> não encontrado para o usuario com id <"+idUsuario+"> !!!", null), HttpStatus.NOT_FOUND);
 			}			
 		}else {
 			return new ResponseEntity<>(new ResponseWrapper<>("usuario com id <"+idUsuario+"> não encontrado !!!", null), HttpStatus.NOT_FOUND);
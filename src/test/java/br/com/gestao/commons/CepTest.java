@@ -0,0 +1,50 @@
+package br.com.gestao.commons;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CepTest {
+
+	@Test
+	void testeNormalizacao() {
+		String limpo = "59248970";
+		assertSame(limpo, Cep.normalizar(limpo));
+		assertEquals("59248970", Cep.normalizar("59248-970"));
+		assertEquals("59248970", Cep.normalizar(" 59.248-970 "));
+		assertEquals("01001000", Cep.normalizar("-01001 000"));
+		assertEquals("", Cep.normalizar("-"));
+		assertNull(Cep.normalizar(null));
+	}
+
+	@Test
+	void testeCepComoInt() {
+		assertEquals(59248970, Cep.comoInt("59248-970"));
+		assertEquals(1001000, Cep.comoInt("01001-000"));
+		assertEquals("01001000", Cep.formatar(Cep.comoInt("01001 000")));
+		assertTrue(Cep.valido("59.248-970"));
+
+		for (String cep : List.of("5924897", "592489701", "59248-97a", "", "--------")) {
+			assertEquals(Cep.INVALIDO, Cep.comoInt(cep), cep);
+			assertFalse(Cep.valido(cep), cep);
+		}
+		assertFalse(Cep.valido(null));
+	}
+
+	@Test
+	void testePrefixoDeFaixa() {
+		assertTrue(Cep.prefixoValido("0"));
+		assertTrue(Cep.prefixoValido("59248970"));
+
+		for (String prefixo : List.of("", "592489701", "59-2", "5a", "\u0661")) {
+			assertFalse(Cep.prefixoValido(prefixo), prefixo);
+		}
+		assertFalse(Cep.prefixoValido(null));
+	}
+}
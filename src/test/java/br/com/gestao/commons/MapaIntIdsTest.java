@@ -0,0 +1,74 @@
+package br.com.gestao.commons;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+class MapaIntIdsTest {
+
+	@Test
+	void testeIncluirRemoverEConsultar() {
+		MapaIntIds mapa = new MapaIntIds();
+
+		assertTrue(mapa.incluir(59248970, 7L));
+		assertTrue(mapa.incluir(59248970, 3L));
+		assertFalse(mapa.incluir(59248970, 7L));
+		assertTrue(mapa.incluir(1001000, 5L));
+
+		assertArrayEquals(new long[] { 3L, 7L }, mapa.ids(59248970));
+		assertEquals(2, mapa.quantidadeChaves());
+		assertEquals(3, mapa.quantidadeIds());
+		assertArrayEquals(new int[] { 1001000 }, mapa.chaves(1000000, 1999999));
+
+		assertTrue(mapa.remover(1001000, 5L));
+		assertFalse(mapa.remover(1001000, 5L));
+		assertEquals(0, mapa.quantidade(1001000));
+		assertArrayEquals(new int[0], mapa.chaves(1000000, 1999999));
+
+		MapaIntIds vazio = new MapaIntIds();
+		assertEquals(0, vazio.quantidadeChaves());
+		assertEquals(0, vazio.quantidadeIds());
+		assertArrayEquals(new long[0], vazio.ids(59248970));
+		assertArrayEquals(new int[0], vazio.chaves(0, Integer.MAX_VALUE));
+	}
+
+	@Test
+	void testeConfereComMapaDeReferencia() {
+		// chaves em um intervalo pequeno: muitas colisoes, crescimento da tabela e remocoes no meio das sequencias
+		MapaIntIds mapa = new MapaIntIds();
+		Map<Integer, TreeSet<Long>> referencia = new TreeMap<>();
+		Random random = new Random(42);
+		for (int i = 0; i < 50_000; i++) {
+			int chave = random.nextInt(2_000) * 1_000;
+			long id = random.nextInt(20);
+			if (random.nextInt(3) == 0) {
+				TreeSet<Long> ids = referencia.get(chave);
+				boolean removido = ids != null && ids.remove(id);
+				if (ids != null && ids.isEmpty()) {
+					referencia.remove(chave);
+				}
+				assertEquals(removido, mapa.remover(chave, id));
+			} else {
+				assertEquals(referencia.computeIfAbsent(chave, c -> new TreeSet<>()).add(id), mapa.incluir(chave, id));
+			}
+		}
+
+		assertEquals(referencia.size(), mapa.quantidadeChaves());
+		assertEquals(referencia.values().stream().mapToLong(TreeSet::size).sum(), mapa.quantidadeIds());
+		for (int chave = 0; chave < 2_000_000; chave += 1_000) {
+			TreeSet<Long> ids = referencia.get(chave);
+			assertArrayEquals(ids == null ? new long[0] : ids.stream().mapToLong(Long::longValue).toArray(), mapa.ids(chave));
+		}
+		assertArrayEquals(referencia.keySet().stream().filter(c -> c >= 500_000 && c <= 900_000).mapToInt(Integer::intValue).toArray(),
+				mapa.chaves(500_000, 900_000));
+		assertArrayEquals(referencia.keySet().stream().mapToInt(Integer::intValue).toArray(), mapa.chaves(0, Integer.MAX_VALUE));
+	}
+}
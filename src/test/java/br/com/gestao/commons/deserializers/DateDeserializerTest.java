@@ -0,0 +1,78 @@
+package br.com.gestao.commons.deserializers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.gestao.dto.UsuarioDTO;
+
+class DateDeserializerTest {
+
+	private static final int THREADS = 16;
+	private static final int DATAS_POR_THREAD = 2000;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+	@AfterEach
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void testeLeituraEEscritaDaData() throws Exception {
+		UsuarioDTO usuario = objectMapper.readValue("{\"nome\":\"Ana\",\"dataNascimento\":\"7/3/1990\"}", UsuarioDTO.class);
+		assertEquals(LocalDate.of(1990, 3, 7), usuario.getDataNascimento());
+		assertEquals("{\"id\":null,\"nome\":\"Ana\",\"dataNascimento\":\"07/03/1990\",\"enderecos\":[]}", objectMapper.writeValueAsString(usuario));
+	}
+
+	@Test
+	void testeDataInvalidaRecusada() {
+		// o SimpleDateFormat (leniente) aceitava 31/02 como 03/03
+		for (String data : List.of("31/02/1990", "17-10-1990", "17/10/90", "17/10/1990x", "", "a7/10/1990", "117/10/1990")) {
+			assertThrows(JsonMappingException.class, () -> objectMapper.readValue("{\"dataNascimento\":\"" + data + "\"}", UsuarioDTO.class), data);
+		}
+	}
+
+	// Cada thread le datas diferentes com o mesmo ObjectMapper (a mesma instancia do DateDeserializer):
+	// com o SimpleDateFormat compartilhado as leituras simultaneas misturavam dia, mes e ano
+	@Test
+	void testeLeiturasSimultaneas() throws Exception {
+		CountDownLatch largada = new CountDownLatch(1);
+		List<Future<Integer>> resultados = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			LocalDate primeira = LocalDate.of(1950, 1, 1).plusDays(t * DATAS_POR_THREAD);
+			resultados.add(executor.submit(() -> {
+				largada.await();
+				int corretas = 0;
+				for (int i = 0; i < DATAS_POR_THREAD; i++) {
+					LocalDate esperada = primeira.plusDays(i);
+					String json = String.format("{\"dataNascimento\":\"%02d/%02d/%04d\"}", esperada.getDayOfMonth(), esperada.getMonthValue(), esperada.getYear());
+					if (esperada.equals(objectMapper.readValue(json, UsuarioDTO.class).getDataNascimento())) {
+						corretas++;
+					}
+				}
+				return corretas;
+			}));
+		}
+		largada.countDown();
+		for (Future<Integer> resultado : resultados) {
+			assertEquals(DATAS_POR_THREAD, resultado.get(30, TimeUnit.SECONDS));
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package br.com.gestao.config;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.gestao.commons.Const;
+import br.com.gestao.entities.Endereco;
+import br.com.gestao.entities.Usuario;
+import br.com.gestao.repositories.EnderecoRepository;
+import br.com.gestao.repositories.UsuarioRepository;
+
+@DataJpaTest
+@Import(AjusteSequencias.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AjusteSequenciasTest {
+
+	@Autowired
+	private AjusteSequencias ajusteSequencias;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private EnderecoRepository enderecoRepository;
+
+	@AfterEach
+	public void tearDown() {
+		enderecoRepository.deleteAllInBatch();
+		usuarioRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void testeSequencesPosicionadasDepoisDosIdsGravados() {
+		// ids gravados pelo gerador antigo (hibernate_sequence compartilhada)
+		jdbcTemplate.update("insert into " + Const.TB_USUARIO + " (id, nome_completo) values (1000, 'Manoel Assis')");
+		jdbcTemplate.update("insert into " + Const.TB_ENDERECO + " (id, cep, principal, id_usuario) values (1001, '59248970', false, 1000)");
+
+		ajusteSequencias.ajustar();
+
+		Usuario usuario = usuarioRepository.save(Usuario.builder().nome("Ana Clara Assis").build());
+		Endereco endereco = enderecoRepository.save(Endereco.builder().cep("59248970").usuario(usuario).build());
+		assertTrue(usuario.getId() > 1000, "id do usuario: " + usuario.getId());
+		assertTrue(endereco.getId() > 1001, "id do endereco: " + endereco.getId());
+	}
+
+	@Test
+	void testeAjusteDesligadoNaoMexeNasSequences() {
+		jdbcTemplate.update("insert into " + Const.TB_USUARIO + " (id, nome_completo) values (5000, 'Manoel Assis')");
+
+		new AjusteSequencias(jdbcTemplate, entityManagerFactory, false).ajustarNaSubida();
+
+		Usuario usuario = usuarioRepository.save(Usuario.builder().nome("Ana Clara Assis").build());
+		assertTrue(usuario.getId() < 5000, "id do usuario: " + usuario.getId());
+	}
+}
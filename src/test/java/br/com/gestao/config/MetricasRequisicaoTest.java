@@ -0,0 +1,82 @@
+package br.com.gestao.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+
+import br.com.gestao.commons.MedicaoRequisicao;
+import br.com.gestao.commons.ResponseWrapper;
+import br.com.gestao.controllers.EnderecoController;
+import br.com.gestao.dto.EnderecoDTO;
+import br.com.gestao.services.EnderecoService;
+import br.com.gestao.services.ExportacaoService;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@WebMvcTest(EnderecoController.class)
+class MetricasRequisicaoTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private EnderecoService enderecoService;
+
+	@MockBean
+	private ExportacaoService exportacaoService;
+
+	private final SimpleMeterRegistry registroMetricas = new SimpleMeterRegistry();
+
+	@BeforeEach
+	public void setUp() {
+		Metrics.addRegistry(registroMetricas);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		Metrics.removeRegistry(registroMetricas);
+	}
+
+	@Test
+	void testeEtapasRegistradasPorEndpoint() throws Exception {
+		EnderecoDTO endereco = EnderecoDTO.builder().id(1L).cep("59248970").cidade("Lagoa Salgada").estado("RN").build();
+		when(enderecoService.findById(1L)).thenAnswer(invocacao -> {
+			// o que o servico faria: uma ida ao repositorio com dois comandos SQL
+			MedicaoRequisicao medicao = MedicaoRequisicao.atual();
+			medicao.entrar(MedicaoRequisicao.Etapa.REPOSITORIO);
+			medicao.sair(MedicaoRequisicao.Etapa.REPOSITORIO, TimeUnit.MILLISECONDS.toNanos(3));
+			medicao.contarSql();
+			medicao.contarSql();
+			return new ResponseEntity<>(new ResponseWrapper<>(endereco, null), HttpStatus.OK);
+		});
+
+		mockMvc.perform(get("/enderecos/1")).andExpect(status().isOk());
+
+		Timer repositorio = registroMetricas.get("requisicao.etapa")
+				.tags("uri", "/enderecos/{id}", "method", "GET", "etapa", "repositorio").timer();
+		assertEquals(1, repositorio.count());
+		assertEquals(3, repositorio.totalTime(TimeUnit.MILLISECONDS), 0.001);
+		Timer serializacao = registroMetricas.get("requisicao.etapa")
+				.tags("uri", "/enderecos/{id}", "etapa", "serializacao").timer();
+		assertTrue(serializacao.totalTime(TimeUnit.NANOSECONDS) > 0);
+		assertEquals(2, registroMetricas.get("requisicao.sql").tags("uri", "/enderecos/{id}").summary().totalAmount(), 0.001);
+		// a medicao nao fica presa na thread depois da requisicao
+		assertNull(MedicaoRequisicao.atual());
+	}
+}
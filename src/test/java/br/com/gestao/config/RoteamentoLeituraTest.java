@@ -0,0 +1,166 @@
+package br.com.gestao.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheType;
+import org.springframework.boot.test.autoconfigure.core.AutoConfigureCache;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import br.com.gestao.commons.Const;
+import br.com.gestao.dto.EnderecoDTO;
+import br.com.gestao.dto.UsuarioDTO;
+import br.com.gestao.services.AutocompleteEndereco;
+import br.com.gestao.services.CacheCadastro;
+import br.com.gestao.services.ConsultasCompartilhadas;
+import br.com.gestao.services.ContagemAproximada;
+import br.com.gestao.services.EnderecoService;
+import br.com.gestao.services.IndiceCep;
+import br.com.gestao.services.IndiceNomeUsuario;
+import br.com.gestao.services.UsuarioService;
+
+// Dois H2 em memoria fazem o papel do primario e da replica. O esquema e copiado do primario para a replica
+// e cada banco recebe um nome diferente para o mesmo usuario: o nome devolvido mostra de onde veio a leitura.
+// cache de segundo nivel desligado: as leituras precisam ir ao banco. O CacheCadastro fica ligado (o @DataJpaTest
+// desligaria o cache do Spring) para ver o que ele guarda das leituras na replica
+@DataJpaTest(properties = { "spring.datasource.url=jdbc:h2:mem:roteamento_primario;DB_CLOSE_DELAY=-1",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"gestao.replica.url=jdbc:h2:mem:roteamento_replica;DB_CLOSE_DELAY=-1",
+		"gestao.replica.username=root",
+		"gestao.replica.password=root",
+		"spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+		"spring.jpa.properties.hibernate.cache.use_query_cache=false" })
+@AutoConfigureCache(cacheProvider = CacheType.CAFFEINE)
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({ DataSourceConfig.class, AppConfiguration.class, UsuarioService.class, EnderecoService.class, CacheCadastro.class,
+		IndiceNomeUsuario.class, AutocompleteEndereco.class, IndiceCep.class, ConsultasCompartilhadas.class, ContagemAproximada.class })
+// sem transacao do teste: cada chamada do servico abre a sua, como em uma requisicao real
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RoteamentoLeituraTest {
+
+	private static final long ID_USUARIO = 1000L;
+
+	@Autowired
+	private UsuarioService usuarioService;
+
+	@Autowired
+	private EnderecoService enderecoService;
+
+	@Autowired
+	@Qualifier("replica")
+	private HikariDataSource replica;
+
+	@Autowired
+	private CacheCadastro cacheCadastro;
+
+	@Autowired
+	private IndiceNomeUsuario indiceNomeUsuario;
+
+	private JdbcTemplate jdbcPrimario;
+
+	private JdbcTemplate jdbcReplica;
+
+	// a replica e acessada por fora do pool, que um dos testes fecha
+	@Autowired
+	public void setDataSources(@Qualifier("primario") DataSource primario, @Value("${gestao.replica.url}") String urlReplica) {
+		this.jdbcPrimario = new JdbcTemplate(primario);
+		this.jdbcReplica = new JdbcTemplate(new DriverManagerDataSource(urlReplica, "root", "root"));
+	}
+
+	@BeforeEach
+	public void setUp() {
+		// o ddl-auto so roda no primario: a "replicacao" do esquema e feita aqui
+		Integer tabelas = jdbcReplica.queryForObject("select count(*) from information_schema.tables where table_name = ?",
+				Integer.class, Const.TB_USUARIO);
+		if (tabelas == 0) {
+			List<String> esquema = jdbcPrimario.queryForList("script nodata", String.class);
+			esquema.stream().filter(comando -> !comando.startsWith("--")).forEach(jdbcReplica::execute);
+		}
+		jdbcPrimario.update("insert into " + Const.TB_USUARIO + " (id, nome_completo) values (?, 'Manoel Primario')", ID_USUARIO);
+		jdbcPrimario.update("insert into " + Const.TB_ENDERECO + " (id, cep, cidade, estado, principal, id_usuario) values (1001, '59248970', 'Natal', 'RN', false, ?)", ID_USUARIO);
+		jdbcReplica.update("insert into " + Const.TB_USUARIO + " (id, nome_completo) values (?, 'Manoel Replica')", ID_USUARIO);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		for (JdbcTemplate jdbc : List.of(jdbcPrimario, jdbcReplica)) {
+			jdbc.update("delete from " + Const.TB_ENDERECO);
+			jdbc.update("delete from " + Const.TB_USUARIO);
+		}
+		cacheCadastro.invalidarUsuario(ID_USUARIO);
+	}
+
+	@Test
+	void testeLeiturasVaoParaAReplica() {
+		assertEquals("Manoel Replica", usuarioService.findById(ID_USUARIO).getBody().getData().getNome());
+		// o endereco so existe no primario
+		assertEquals(HttpStatus.NOT_FOUND, enderecoService.findByCidade(1, 10, "Natal").getStatusCode());
+	}
+
+	@Test
+	void testeGravacoesVaoParaOPrimario() {
+		UsuarioDTO novo = UsuarioDTO.builder().nome("Ana Clara Assis").dataNascimento(LocalDate.of(1990, 10, 17)).build();
+		assertEquals(HttpStatus.CREATED, usuarioService.salvarUsuario(novo).getStatusCode());
+
+		assertEquals(2, jdbcPrimario.queryForObject("select count(*) from " + Const.TB_USUARIO, Integer.class));
+		assertEquals(1, jdbcReplica.queryForObject("select count(*) from " + Const.TB_USUARIO, Integer.class));
+	}
+
+	@Test
+	void testeUsuarioAindaNaoReplicadoContinuaNoIndiceDeNomes() {
+		jdbcPrimario.update("insert into " + Const.TB_USUARIO + " (id, nome_completo) values (1002, 'Joana Assis')");
+		// a recarga le do primario
+		indiceNomeUsuario.recarregar();
+
+		// a replica ainda nao tem a Joana: a pagina vem sem ela, mas o indice nao a descarta
+		assertEquals(HttpStatus.NOT_FOUND, usuarioService.findByNomeLike(1, 10, "Joana").getStatusCode());
+
+		jdbcReplica.update("insert into " + Const.TB_USUARIO + " (id, nome_completo) values (1002, 'Joana Assis')");
+		assertEquals(1002L, usuarioService.findByNomeLike(1, 10, "Joana").getBody().getData().getContent().get(0).getId());
+	}
+
+	@Test
+	void testeLeituraNaReplicaLogoDepoisDaGravacaoNaoFicaNoCache() {
+		assertEquals("Manoel Replica", usuarioService.findById(ID_USUARIO).getBody().getData().getNome());
+		EnderecoDTO novo = EnderecoDTO.builder().cep("01001000").logradouro("Praca da Se").numero("1").cidade("Sao Paulo")
+				.estado("SP").principal(false).build();
+		assertEquals(HttpStatus.CREATED, usuarioService.salvarEndereco(novo, ID_USUARIO).getStatusCode());
+
+		// a replica ainda nao recebeu a gravacao: a leitura vem sem o endereco novo e nao e guardada no cache
+		assertTrue(usuarioService.findById(ID_USUARIO).getBody().getData().getEnderecos().isEmpty());
+
+		jdbcReplica.update("update " + Const.TB_USUARIO + " set nome_completo = 'Manoel Replicado' where id = ?", ID_USUARIO);
+		assertEquals("Manoel Replicado", usuarioService.findById(ID_USUARIO).getBody().getData().getNome());
+	}
+
+	@Test
+	@DirtiesContext
+	void testeReplicaIndisponivelLeituraVaiParaOPrimario() {
+		replica.close();
+
+		assertEquals("Manoel Primario", usuarioService.findById(ID_USUARIO).getBody().getData().getNome());
+		assertEquals(HttpStatus.OK, enderecoService.findByCidade(1, 10, "Natal").getStatusCode());
+	}
+}
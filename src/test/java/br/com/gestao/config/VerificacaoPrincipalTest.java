@@ -0,0 +1,65 @@
+package br.com.gestao.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.gestao.commons.Const;
+import br.com.gestao.repositories.EnderecoRepository;
+import br.com.gestao.repositories.UsuarioRepository;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class VerificacaoPrincipalTest {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private EnderecoRepository enderecoRepository;
+
+	// simula um banco antigo: sem o indice e com um usuario com dois principais
+	@BeforeEach
+	public void setUp() {
+		jdbcTemplate.execute("alter table " + Const.TB_ENDERECO + " drop constraint " + Const.UK_ENDERECO_PRINCIPAL);
+		jdbcTemplate.update("insert into " + Const.TB_USUARIO + " (id, nome_completo) values (2000, 'Manoel Assis')");
+		jdbcTemplate.update("insert into " + Const.TB_ENDERECO + " (id, cep, principal, id_usuario) values (2001, '59248970', true, 2000)");
+		jdbcTemplate.update("insert into " + Const.TB_ENDERECO + " (id, cep, principal, id_usuario) values (2002, '01001000', true, 2000)");
+	}
+
+	@AfterEach
+	public void tearDown() {
+		enderecoRepository.deleteAllInBatch();
+		usuarioRepository.deleteAllInBatch();
+		// cada teste termina com o indice de volta (o segundo teste o recria; no primeiro a subida falhou sem criar)
+		new VerificacaoPrincipal(jdbcTemplate, true).verificar();
+	}
+
+	@Test
+	void testeSemIndiceComDuplicadosNaoSobe() {
+		assertThrows(IllegalStateException.class, () -> new VerificacaoPrincipal(jdbcTemplate, false).verificar());
+	}
+
+	@Test
+	void testeCorrigirDuplicadosMantemOMaisRecenteECriaOIndice() {
+		new VerificacaoPrincipal(jdbcTemplate, true).verificar();
+
+		assertEquals(2002L, jdbcTemplate.queryForObject("select id from " + Const.TB_ENDERECO
+				+ " where id_usuario = 2000 and principal = true", Long.class));
+		// o indice voltou: um segundo principal e recusado pelo banco
+		assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update("update " + Const.TB_ENDERECO
+				+ " set principal = true where id = 2001"));
+	}
+}
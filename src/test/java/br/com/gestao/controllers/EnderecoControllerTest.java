@@ -3,6 +3,7 @@ package br.com.gestao.controllers;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.util.ArrayList;
@@ -19,6 +20,8 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -26,9 +29,14 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import br.com.gestao.commons.Contagem;
+import br.com.gestao.commons.CursorPage;
 import br.com.gestao.commons.ResponseWrapper;
+import br.com.gestao.commons.exportacao.FormatoExportacao;
 import br.com.gestao.dto.EnderecoDTO;
+import br.com.gestao.dto.SugestaoDTO;
 import br.com.gestao.services.EnderecoService;
+import br.com.gestao.services.ExportacaoService;
 
 // Para carregar apenas o contexto necessário para testar o UsuarioController
 @WebMvcTest(EnderecoController.class)
@@ -42,6 +50,9 @@ class EnderecoControllerTest {
 	@MockBean
 	private EnderecoService enderecoService; 
 	
+	@MockBean
+	private ExportacaoService exportacaoService;
+	
 	// Para criar a instância do controller e deixar disponível o endpoint do teste
 	@InjectMocks
 	private UsuarioController usuarioController;
@@ -115,6 +126,50 @@ class EnderecoControllerTest {
 
 	}
 	
+	@Test
+	void testeBuscaCombinada() throws Exception {
+
+		// Configurar comportamento simulado do serviço
+		ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> response = new ResponseEntity<>(new ResponseWrapper<>(pageEndereco, null), HttpStatus.OK);
+		when(enderecoService.buscar(Mockito.eq(1), Mockito.eq(50), Mockito.argThat(filtro -> "SP".equals(filtro.getEstado())
+				&& "Campinas".equals(filtro.getCidade()) && Boolean.TRUE.equals(filtro.getPrincipal())))).thenReturn(response);
+
+		// Executar a solicitação HTTP GET
+		mockMvc.perform(get("/enderecos/buscar?state=SP&city=Campinas&main=true"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON));
+
+	}
+
+	@Test
+	void testeBuscaEnderecosPorFaixaDeCep() throws Exception {
+
+		// Configurar comportamento simulado do serviço
+		ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> response = new ResponseEntity<>(new ResponseWrapper<>(pageEndereco, null), HttpStatus.OK);
+		when(enderecoService.findByFaixaCep(1, 50, "01")).thenReturn(response);
+
+		// Executar a solicitação HTTP GET
+		mockMvc.perform(get("/enderecos/listar-por-faixa-cep?prefix=01"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON));
+
+	}
+
+	@Test
+	void testeSugerirCidades() throws Exception {
+
+		// Configurar comportamento simulado do serviço
+		ResponseEntity<ResponseWrapper<List<SugestaoDTO>>> response = new ResponseEntity<>(
+				new ResponseWrapper<>(List.of(new SugestaoDTO("Lagoa Salgada", "RN", 1)), null), HttpStatus.OK);
+		when(enderecoService.sugerirCidades("lag", 10)).thenReturn(response);
+		
+		// Executar a solicitação HTTP GET
+		mockMvc.perform(get("/enderecos/sugerir-cidade?prefix=lag"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON));
+
+	}
+	
 	@Test
 	void testeBuscaTodosEnderecosPorCidade() throws Exception {
 
@@ -130,6 +185,31 @@ class EnderecoControllerTest {
 
 	}
 	
+	@Test
+	void testeBuscaTodosEnderecosPorCidadeSemContagem() throws Exception {
+
+		// Configurar comportamento simulado do serviço
+		ResponseEntity<ResponseWrapper<Slice<EnderecoDTO>>> response = new ResponseEntity<>(
+				new ResponseWrapper<>(new SliceImpl<>(enderecosResponse, PageRequest.of(0, 50), false), null), HttpStatus.OK);
+		when(enderecoService.findByCidade(1, 50, "Santana", Contagem.NENHUMA)).thenReturn(response);
+		
+		// Executar a solicitação HTTP GET
+		mockMvc.perform(get("/enderecos/listar-por-cidade?city=Santana&count=false"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$.data.last").value(true))
+				.andExpect(jsonPath("$.data.totalElements").doesNotExist());
+
+	}
+
+	@Test
+	void testeBuscaTodosEnderecosComContagemInvalida() throws Exception {
+
+		// Executar a solicitação HTTP GET
+		mockMvc.perform(get("/enderecos/listar-todos?count=talvez"))
+				.andExpect(status().isBadRequest());
+	}
+	
 	@Test
 	void testeBuscaTodosEnderecosPorEstado() throws Exception {
 
@@ -160,4 +240,38 @@ class EnderecoControllerTest {
 
 	}
 
+	@Test
+	void testeBuscaTodosEnderecosComCursor() throws Exception {
+
+		// Configurar comportamento simulado do serviço
+		ResponseEntity<ResponseWrapper<CursorPage<EnderecoDTO>>> response = new ResponseEntity<>(
+				new ResponseWrapper<>(new CursorPage<>(enderecosResponse, 50, false, null), null), HttpStatus.OK);
+		when(enderecoService.findAllCursor(Mockito.any(), Mockito.any())).thenReturn(response);
+		
+		// Executar a solicitação HTTP GET
+		mockMvc.perform(get("/enderecos/listar-todos/cursor?after=MTo"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON));
+
+	}
+	
+	@Test
+	void testeExportarEnderecosEmCsv() throws Exception {
+
+		// Executar a solicitação HTTP GET
+		mockMvc.perform(get("/enderecos/exportar?format=csv"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType("text/csv;charset=UTF-8"));
+
+		Mockito.verify(exportacaoService).exportarEnderecos(Mockito.eq(FormatoExportacao.CSV), Mockito.any());
+	}
+
+	@Test
+	void testeExportarEnderecosComFormatoInvalido() throws Exception {
+
+		// Executar a solicitação HTTP GET
+		mockMvc.perform(get("/enderecos/exportar?format=xlsx"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.message").value("Formato de exportação não suportado: xlsx"));
+	}
 }
@@ -0,0 +1,61 @@
+package br.com.gestao.controllers;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+
+import br.com.gestao.commons.ResponseWrapper;
+import br.com.gestao.dto.JobDTO;
+import br.com.gestao.entities.Job;
+import br.com.gestao.services.JobService;
+
+// Para carregar apenas o contexto necessário para testar o JobController
+@WebMvcTest(JobController.class)
+@AutoConfigureMockMvc
+class JobControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	//mockando o serviço
+	@MockBean
+	private JobService jobService;
+
+	@Test
+	void testeConsultarJob() throws Exception {
+
+		// Configurar comportamento simulado do serviço
+		JobDTO job = JobDTO.builder().id(7L).tipo(Job.Tipo.IMPORTACAO).status(Job.Status.PROCESSANDO).particoes(4)
+				.linhasProcessadas(1000).linhasPorSegundo(250).build();
+		when(jobService.consultar(7L)).thenReturn(new ResponseEntity<>(new ResponseWrapper<>(job, null), HttpStatus.OK));
+
+		mockMvc.perform(get("/jobs/7"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.status").value("PROCESSANDO"))
+				.andExpect(jsonPath("$.data.linhasProcessadas").value(1000));
+	}
+
+	@Test
+	void testeRecusadasDeJobEmAndamento() throws Exception {
+
+		// Configurar comportamento simulado do serviço
+		when(jobService.verificarEncerrado(7L)).thenReturn(ResponseEntity.status(HttpStatus.CONFLICT)
+				.body(new ResponseWrapper<>(null, "Job <7> ainda em andamento")));
+
+		mockMvc.perform(get("/jobs/7/recusadas"))
+				.andExpect(status().isConflict())
+				.andExpect(jsonPath("$.message").value("Job <7> ainda em andamento"));
+		Mockito.verify(jobService, Mockito.never()).exportarRecusadas(Mockito.anyLong(), Mockito.any());
+	}
+}
@@ -5,9 +5,11 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.util.ArrayList;
@@ -27,16 +29,27 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.core.type.TypeReference;
 
+import br.com.gestao.commons.CursorPage;
 import br.com.gestao.commons.ResponseWrapper;
+import br.com.gestao.commons.exportacao.FormatoExportacao;
+import br.com.gestao.dto.BuscaLoteDTO;
 import br.com.gestao.dto.EnderecoDTO;
+import br.com.gestao.dto.ItemLoteDTO;
+import br.com.gestao.dto.JobDTO;
+import br.com.gestao.dto.ResultadoLoteDTO;
 import br.com.gestao.dto.UsuarioDTO;
+import br.com.gestao.entities.Job;
 import br.com.gestao.services.UsuarioService;
+import br.com.gestao.services.ExportacaoService;
+import br.com.gestao.services.ImportacaoService;
+import br.com.gestao.services.LoteUsuarioService;
 
 // Para carregar apenas o contexto necessário para testar o UsuarioController
 @WebMvcTest(UsuarioController.class)
@@ -50,6 +63,15 @@ class UsuarioControllerTest {
 	@MockBean
 	private UsuarioService usuarioService; 
 	
+	@MockBean
+	private ExportacaoService exportacaoService;
+	
+	@MockBean
+	private LoteUsuarioService loteUsuarioService;
+	
+	@MockBean
+	private ImportacaoService importacaoService;
+	
 	// Para criar a instância do controller e deixar disponível o endpoint do teste
 	@InjectMocks
 	private UsuarioController usuarioController;
@@ -187,6 +209,71 @@ class UsuarioControllerTest {
         assertThat(resultado.getData().getId()).isNotNull();
 	}
 	
+	@Test
+	void testeSalvarLoteDeUsuarios() throws Exception {
+		
+		//motando o body request
+		List<UsuarioDTO> bodyRequest = List.of(UsuarioDTO.builder().nome("Manoel Rafael Osvaldo Assis").enderecos(enderecosResponse).build(),
+				UsuarioDTO.builder().id(1L).nome("Ana Clara Assis").build());
+		
+		// Configurar comportamento simulado do serviço
+		ResultadoLoteDTO lote = ResultadoLoteDTO.builder().total(2).gravados(2).linhas(4)
+				.itens(List.of(new ItemLoteDTO(0, 2L, ItemLoteDTO.Status.CRIADO, null), new ItemLoteDTO(1, 1L, ItemLoteDTO.Status.ALTERADO, null))).build();
+		ResponseEntity<ResponseWrapper<ResultadoLoteDTO>> response = new ResponseEntity<>(new ResponseWrapper<>(lote, null), HttpStatus.OK);
+		when(loteUsuarioService.salvarLote(Mockito.anyList())).thenReturn(response);
+		
+		MvcResult mvcResult = mockMvc.perform(post("/usuarios/lote")
+				.contentType(MediaType.APPLICATION_JSON)
+                .accept("application/json;charset=UTF-8")
+				.content(objectMapper.writeValueAsString(bodyRequest)))
+				.andExpect(status().isOk())
+                .andReturn(); 
+        
+        String responseBody = mvcResult.getResponse().getContentAsString();
+		ResponseWrapper<ResultadoLoteDTO> resultado = objectMapper.readValue(responseBody, new TypeReference<ResponseWrapper<ResultadoLoteDTO>>() {});
+        assertEquals(2, resultado.getData().getItens().size());
+        assertEquals(ItemLoteDTO.Status.ALTERADO, resultado.getData().getItens().get(1).getStatus());
+	}
+	
+	@Test
+	void testeImportarPlanilhaDeUsuarios() throws Exception {
+
+		// Configurar comportamento simulado do serviço
+		JobDTO importacao = JobDTO.builder().id(1L).tipo(Job.Tipo.IMPORTACAO).arquivo("usuarios.csv").status(Job.Status.AGUARDANDO).build();
+		ResponseEntity<ResponseWrapper<JobDTO>> response = ResponseEntity.status(HttpStatus.ACCEPTED).body(new ResponseWrapper<>(importacao, null));
+		when(importacaoService.importar(Mockito.any())).thenReturn(response);
+
+		MockMultipartFile arquivo = new MockMultipartFile("arquivo", "usuarios.csv", "text/csv", "nome\nAna Clara Assis\n".getBytes());
+		MvcResult mvcResult = mockMvc.perform(multipart("/usuarios/importar").file(arquivo))
+				.andExpect(status().isAccepted())
+				.andReturn();
+
+		ResponseWrapper<JobDTO> resultado = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), new TypeReference<ResponseWrapper<JobDTO>>() {});
+		assertEquals(1L, resultado.getData().getId());
+		Mockito.verify(importacaoService).importar(Mockito.argThat(item -> "usuarios.csv".equals(item.getOriginalFilename())));
+	}
+	
+	@Test
+	void testeBuscarLoteDeUsuarios() throws Exception {
+
+		// Configurar comportamento simulado do serviço
+		BuscaLoteDTO<UsuarioDTO> lote = BuscaLoteDTO.<UsuarioDTO>builder().encontrados(List.of(usuarioResponse)).naoEncontrados(List.of(99L)).build();
+		ResponseEntity<ResponseWrapper<BuscaLoteDTO<UsuarioDTO>>> response = new ResponseEntity<>(new ResponseWrapper<>(lote, null), HttpStatus.OK);
+		when(usuarioService.buscarLote(List.of(1L, 99L))).thenReturn(response);
+
+		MvcResult mvcResult = mockMvc.perform(post("/usuarios/buscar-lote")
+				.contentType(MediaType.APPLICATION_JSON)
+                .accept("application/json;charset=UTF-8")
+				.content("[1, 99]"))
+				.andExpect(status().isOk())
+                .andReturn();
+
+        String responseBody = mvcResult.getResponse().getContentAsString();
+		ResponseWrapper<BuscaLoteDTO<UsuarioDTO>> resultado = objectMapper.readValue(responseBody, new TypeReference<ResponseWrapper<BuscaLoteDTO<UsuarioDTO>>>() {});
+        assertEquals(usuarioResponse.getId(), resultado.getData().getEncontrados().get(0).getId());
+        assertEquals(List.of(99L), resultado.getData().getNaoEncontrados());
+	}
+	
 	@Test
 	void testeAlterarUsuarioExistente() throws Exception {
 		
@@ -328,4 +415,40 @@ class UsuarioControllerTest {
 				  .andExpect(status().isNotFound())
 				  .andExpect(content().contentType(MediaType.APPLICATION_JSON));
 	}
+	
+	@Test
+	void testeBuscaTodosUsuariosComCursor() throws Exception {
+
+		// Configurar comportamento simulado do serviço
+		ResponseEntity<ResponseWrapper<CursorPage<UsuarioDTO>>> response = new ResponseEntity<>(
+				new ResponseWrapper<>(new CursorPage<>(usuariosResponse, 50, false, null), null), HttpStatus.OK);
+		when(usuarioService.findAllCursor(Mockito.any(), Mockito.any())).thenReturn(response);
+		
+		// Executar a solicitação HTTP GET
+		mockMvc.perform(get("/usuarios/listar-todos/cursor"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON));
+
+	}
+	
+	@Test
+	void testeExportarUsuariosEmCsv() throws Exception {
+
+		// Executar a solicitação HTTP GET
+		mockMvc.perform(get("/usuarios/exportar?format=csv"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType("text/csv;charset=UTF-8"));
+
+		Mockito.verify(exportacaoService).exportarUsuarios(Mockito.eq(FormatoExportacao.CSV), Mockito.any());
+	}
+
+	@Test
+	void testeExportarUsuariosComFormatoInvalido() throws Exception {
+
+		// Executar a solicitação HTTP GET
+		mockMvc.perform(get("/usuarios/exportar?format=xlsx"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.message").value("Formato de exportação não suportado: xlsx"));
+		Mockito.verifyNoInteractions(exportacaoService);
+	}
 }
@@ -0,0 +1,81 @@
+package br.com.gestao.mappers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+
+import br.com.gestao.dto.EnderecoDTO;
+import br.com.gestao.dto.UsuarioDTO;
+import br.com.gestao.entities.Endereco;
+import br.com.gestao.entities.Usuario;
+
+class UsuarioMapperTest {
+
+	private UsuarioMapper usuarioMapper = Mappers.getMapper(UsuarioMapper.class);
+
+	private EnderecoMapper enderecoMapper = Mappers.getMapper(EnderecoMapper.class);
+
+	Usuario usuario;
+	Endereco endereco;
+
+	@BeforeEach
+	public void setUp() {
+		List<Endereco> enderecos = new ArrayList<>();
+		usuario = Usuario.builder().id(1L).nome("Manoel Rafael Osvaldo Assis").dataNascimento(LocalDate.of(1990, 10, 17)).enderecos(enderecos).build();
+		endereco = Endereco.builder().id(2L).cep("59248970").logradouro("Estrada do Cajueiro, s/n").numero("168")
+				.estado("RN").cidade("Lagoa Salgada").principal(Boolean.TRUE).usuario(usuario).build();
+		enderecos.add(endereco);
+	}
+
+	@Test
+	void testeMapearUsuarioParaDtoComEnderecos() {
+		UsuarioDTO usuarioDTO = usuarioMapper.toDto(usuario);
+
+		assertEquals(usuario.getId(), usuarioDTO.getId());
+		assertEquals(usuario.getNome(), usuarioDTO.getNome());
+		assertEquals(usuario.getDataNascimento(), usuarioDTO.getDataNascimento());
+		assertEquals(1, usuarioDTO.getEnderecos().size());
+		EnderecoDTO enderecoDTO = usuarioDTO.getEnderecos().get(0);
+		assertEquals(endereco.getCep(), enderecoDTO.getCep());
+		assertEquals(Boolean.TRUE, enderecoDTO.getPrincipal());
+		// referencia de volta aponta para o proprio DTO mapeado
+		assertSame(usuarioDTO, enderecoDTO.getUsuario());
+	}
+
+	@Test
+	void testeMapearDtoParaUsuarioComEnderecos() {
+		Usuario mapeado = usuarioMapper.toEntity(usuarioMapper.toDto(usuario));
+
+		assertEquals(usuario.getId(), mapeado.getId());
+		assertEquals(1, mapeado.getEnderecos().size());
+		assertSame(mapeado, mapeado.getEnderecos().get(0).getUsuario());
+	}
+
+	@Test
+	void testeMapearUsuarioSemEnderecosRetornaListaVazia() {
+		usuario.setEnderecos(null);
+
+		UsuarioDTO usuarioDTO = usuarioMapper.toDto(usuario);
+
+		assertNotNull(usuarioDTO.getEnderecos());
+		assertEquals(0, usuarioDTO.getEnderecos().size());
+	}
+
+	@Test
+	void testeMapearEnderecoNaoPercorreUsuario() {
+		EnderecoDTO enderecoDTO = enderecoMapper.toDto(endereco);
+
+		assertEquals(endereco.getId(), enderecoDTO.getId());
+		assertNull(enderecoDTO.getUsuario());
+		assertNull(enderecoMapper.toEntity(enderecoDTO).getUsuario());
+	}
+}
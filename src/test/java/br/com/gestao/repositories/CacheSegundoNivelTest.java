@@ -0,0 +1,162 @@
+package br.com.gestao.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.gestao.commons.Const;
+import br.com.gestao.config.CacheJpaEndpoint;
+import br.com.gestao.entities.Endereco;
+import br.com.gestao.entities.Usuario;
+
+// Cache de segundo nivel (JCache/Caffeine): a segunda leitura nao vai ao banco e as escritas invalidam o que mudou
+@DataJpaTest
+@Import(CacheJpaEndpoint.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CacheSegundoNivelTest {
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private EnderecoRepository enderecoRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private CacheJpaEndpoint cacheJpaEndpoint;
+
+	private Statistics statistics;
+
+	private Usuario usuario;
+
+	@BeforeEach
+	public void setUp() {
+		usuario = usuarioRepository.save(Usuario.builder().nome("Manoel Rafael Osvaldo Assis").build());
+		enderecoRepository.save(novoEndereco(usuario, "Lagoa Salgada", true));
+		enderecoRepository.save(novoEndereco(usuario, "Natal", false));
+
+		SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+		sessionFactory.getCache().evictAllRegions();
+		statistics = sessionFactory.getStatistics();
+		statistics.clear();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		enderecoRepository.deleteAllInBatch();
+		usuarioRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void testeSegundaBuscaPorIdVemDoCache() {
+		usuarioRepository.findById(usuario.getId());
+		long comandos = statistics.getPrepareStatementCount();
+
+		assertTrue(usuarioRepository.findById(usuario.getId()).isPresent());
+
+		assertEquals(comandos, statistics.getPrepareStatementCount());
+		assertEquals(1, statistics.getCacheRegionStatistics(Const.REGIAO_USUARIO).getHitCount());
+	}
+
+	@Test
+	void testeColecaoDeEnderecosVemDoCacheEAcompanhaNovoEndereco() {
+		assertEquals(2, quantidadeEnderecos());
+		long comandos = statistics.getPrepareStatementCount();
+
+		assertEquals(2, quantidadeEnderecos());
+		assertEquals(comandos, statistics.getPrepareStatementCount());
+
+		// gravado pelo lado dono (Endereco.usuario): a colecao em cache e descartada
+		enderecoRepository.save(novoEndereco(usuario, "Natal", false));
+		assertEquals(3, quantidadeEnderecos());
+	}
+
+	@Test
+	void testeConsultaPorCidadeVemDoCacheAteAProximaEscrita() {
+		assertEquals(1, enderecoRepository.findDtoByCidade("Natal", PageRequest.of(0, 10)).getNumberOfElements());
+		long comandos = statistics.getPrepareStatementCount();
+
+		assertEquals(1, enderecoRepository.findDtoByCidade("Natal", PageRequest.of(0, 10)).getNumberOfElements());
+		assertEquals(1, statistics.getQueryCacheHitCount());
+		// pagina incompleta: o Spring Data nem executa a contagem, entao nada vai ao banco
+		assertEquals(comandos, statistics.getPrepareStatementCount());
+
+		enderecoRepository.save(novoEndereco(usuario, "Natal", false));
+		assertEquals(2, enderecoRepository.findDtoByCidade("Natal", PageRequest.of(0, 10)).getNumberOfElements());
+		assertEquals(1, statistics.getQueryCacheHitCount());
+	}
+
+	@Test
+	void testeDesmarcarPrincipalInvalidaOsEnderecosEmCache() {
+		Long idPrincipal = enderecoRepository.findByUsuarioId(usuario.getId()).stream()
+				.filter(Endereco::getPrincipal).findFirst().map(Endereco::getId).orElseThrow();
+		enderecoRepository.findById(idPrincipal);
+
+		enderecoRepository.desmarcarPrincipal(usuario.getId(), null);
+
+		assertEquals(Boolean.FALSE, enderecoRepository.findById(idPrincipal).map(Endereco::getPrincipal).orElseThrow());
+	}
+
+	@Test
+	void testeDesmarcarPrincipalMantemEmCacheOsEnderecosDeOutrosUsuarios() {
+		Usuario outro = usuarioRepository.save(Usuario.builder().nome("Ana Clara Assis").build());
+		Long idOutro = enderecoRepository.save(novoEndereco(outro, "Natal", true)).getId();
+		enderecoRepository.findById(idOutro);
+		statistics.clear();
+
+		enderecoRepository.desmarcarPrincipal(usuario.getId(), null);
+
+		// so o endereco desmarcado e atualizado na regiao: o do outro usuario continua vindo do cache
+		assertTrue(enderecoRepository.findById(idOutro).isPresent());
+		assertEquals(1, statistics.getCacheRegionStatistics(Const.REGIAO_ENDERECO).getHitCount());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void testeEndpointListaAsRegioes() {
+		usuarioRepository.findById(usuario.getId());
+		usuarioRepository.findById(usuario.getId());
+		// a regiao de uma consulta so existe depois da primeira execucao
+		enderecoRepository.findDtoByEstado("RN", PageRequest.of(0, 10));
+
+		Map<String, Object> regioes = (Map<String, Object>) cacheJpaEndpoint.regioes().get("regioes");
+
+		assertTrue(regioes.keySet().containsAll(List.of(Const.REGIAO_USUARIO, Const.REGIAO_ENDERECO,
+				Const.REGIAO_USUARIO_ENDERECOS, Const.REGIAO_CONSULTA_ENDERECOS)));
+		Map<String, Object> regiaoUsuario = cacheJpaEndpoint.regiao(Const.REGIAO_USUARIO);
+		assertNotNull(regiaoUsuario);
+		assertEquals(1L, regiaoUsuario.get("acertos"));
+	}
+
+	private int quantidadeEnderecos() {
+		return transactionTemplate.execute(status -> usuarioRepository.findById(usuario.getId()).orElseThrow().getEnderecos().size());
+	}
+
+	private static Endereco novoEndereco(Usuario usuario, String cidade, boolean principal) {
+		return Endereco.builder().cep("59248970").logradouro("Estrada do Cajueiro, s/n").numero("168").estado("RN")
+				.cidade(cidade).principal(principal).usuario(usuario).build();
+	}
+}
@@ -0,0 +1,120 @@
+package br.com.gestao.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.gestao.commons.Const;
+import br.com.gestao.dto.FiltroEnderecoDTO;
+import br.com.gestao.entities.Endereco;
+import br.com.gestao.entities.Usuario;
+
+// Regra "um endereco principal por usuario" garantida pelo banco (coluna calculada + indice unico)
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EnderecoRepositoryTest {
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private EnderecoRepository enderecoRepository;
+
+	private Usuario usuario;
+
+	private Endereco principal;
+
+	@BeforeEach
+	public void setUp() {
+		usuario = usuarioRepository.save(Usuario.builder().nome("Manoel Rafael Osvaldo Assis").build());
+		principal = enderecoRepository.save(novoEndereco(usuario, true));
+		enderecoRepository.save(novoEndereco(usuario, false));
+		enderecoRepository.save(novoEndereco(usuario, false));
+	}
+
+	@AfterEach
+	public void tearDown() {
+		enderecoRepository.deleteAllInBatch();
+		usuarioRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void testeSegundoEnderecoPrincipalERecusadoPeloBanco() {
+		Endereco outroPrincipal = novoEndereco(usuario, true);
+
+		assertThrows(DataIntegrityViolationException.class, () -> enderecoRepository.save(outroPrincipal));
+	}
+
+	@Test
+	void testeEnderecosPrincipaisDeUsuariosDiferentes() {
+		Usuario outroUsuario = usuarioRepository.save(Usuario.builder().nome("Ana Clara Assis").build());
+
+		enderecoRepository.save(novoEndereco(outroUsuario, true));
+
+		assertEquals(2, enderecoRepository.findAll().stream().filter(item -> Boolean.TRUE.equals(item.getPrincipal())).count());
+	}
+
+	@Test
+	void testeDesmarcarPrincipalMantemOEnderecoInformado() {
+		assertEquals(0, enderecoRepository.desmarcarPrincipal(usuario.getId(), principal.getId()));
+		assertEquals(1, principais().size());
+
+		assertEquals(1, enderecoRepository.desmarcarPrincipal(usuario.getId(), null));
+		assertEquals(0, principais().size());
+
+		enderecoRepository.save(novoEndereco(usuario, true));
+		assertEquals(1, principais().size());
+	}
+
+	@Test
+	void testeBuscaCombinadaAplicaTodosOsFiltros() {
+		Usuario outroUsuario = usuarioRepository.save(Usuario.builder().nome("Ana Clara Assis").build());
+		Endereco campinas = enderecoRepository.save(Endereco.builder().cep("13010-000").logradouro("Rua Barão de Jaguara")
+				.numero("1").estado("SP").cidade("Campinas").principal(true).usuario(outroUsuario).build());
+		enderecoRepository.save(Endereco.builder().cep("13010000").logradouro("Rua Barão de Jaguara").numero("2")
+				.estado("SP").cidade("Campinas").principal(false).usuario(outroUsuario).build());
+
+		FiltroEnderecoDTO filtro = FiltroEnderecoDTO.builder().estado("SP").cidade("Campinas").principal(true).build();
+		assertEquals(List.of(campinas.getId()), ids(filtro));
+		assertEquals(Const.IDX_ENDERECO_ESTADO_CIDADE_PRINCIPAL, EnderecoSpecifications.indice(filtro));
+
+		filtro = FiltroEnderecoDTO.builder().cep("13010-000").idUsuario(outroUsuario.getId()).build();
+		assertEquals(2, ids(filtro).size());
+		assertEquals(Const.IDX_ENDERECO_CEP, EnderecoSpecifications.indice(filtro));
+
+		filtro = FiltroEnderecoDTO.builder().idUsuario(usuario.getId()).principal(true).build();
+		assertEquals(List.of(principal.getId()), ids(filtro));
+		assertEquals(Const.IDX_ENDERECO_USUARIO_PRINCIPAL, EnderecoSpecifications.indice(filtro));
+
+		// so principal: nenhum indice comeca por ele
+		assertNull(EnderecoSpecifications.indice(FiltroEnderecoDTO.builder().principal(true).cidade(" ").build()));
+	}
+
+	private List<Long> ids(FiltroEnderecoDTO filtro) {
+		return enderecoRepository.findAll(EnderecoSpecifications.filtro(filtro), Sort.by("id")).stream().map(Endereco::getId)
+				.collect(Collectors.toList());
+	}
+
+	private List<Endereco> principais() {
+		return enderecoRepository.findByUsuarioId(usuario.getId()).stream()
+				.filter(item -> Boolean.TRUE.equals(item.getPrincipal())).collect(Collectors.toList());
+	}
+
+	private static Endereco novoEndereco(Usuario usuario, boolean principal) {
+		return Endereco.builder().cep("59248970").logradouro("Estrada do Cajueiro, s/n").numero("168").estado("RN")
+				.cidade("Lagoa Salgada").principal(principal).usuario(usuario).build();
+	}
+}
@@ -0,0 +1,112 @@
+package br.com.gestao.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.gestao.commons.Const;
+import br.com.gestao.dto.SugestaoDTO;
+import br.com.gestao.entities.Endereco;
+import br.com.gestao.entities.Usuario;
+import br.com.gestao.repositories.EnderecoRepository;
+import br.com.gestao.repositories.UsuarioRepository;
+
+// Autocompletar montado a partir da TB_ENDERECO e ajustado pelos inserts/updates/deletes do Hibernate
+@DataJpaTest
+@Import(AutocompleteEndereco.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AutocompleteEnderecoTest {
+
+	@Autowired
+	private AutocompleteEndereco autocompleteEndereco;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private EnderecoRepository enderecoRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Usuario usuario;
+
+	@BeforeEach
+	public void setUp() {
+		usuario = usuarioRepository.save(Usuario.builder().nome("Manoel Rafael Osvaldo Assis").build());
+		enderecoRepository.save(novoEndereco("São Paulo", "SP"));
+		enderecoRepository.save(novoEndereco("São Paulo", "SP"));
+		enderecoRepository.save(novoEndereco("Santos", "SP"));
+		enderecoRepository.save(novoEndereco("Lagoa Salgada", "RN"));
+		autocompleteEndereco.recarregar();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		enderecoRepository.deleteAllInBatch();
+		usuarioRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void testeSugestoesPeloPrefixoSemAcentoOrdenadasPelaQuantidade() {
+		List<SugestaoDTO> sugestoes = autocompleteEndereco.sugerirCidades("sa", 10);
+
+		assertEquals(List.of("São Paulo", "Santos"), nomes(sugestoes));
+		assertEquals(2, sugestoes.get(0).getQuantidade());
+		assertEquals("SP", sugestoes.get(0).getEstado());
+		assertEquals(List.of("São Paulo"), nomes(autocompleteEndereco.sugerirCidades("SAO P", 10)));
+		assertEquals(List.of("São Paulo"), nomes(autocompleteEndereco.sugerirCidades("", 1)));
+		assertEquals(List.of("SP", "RN"), nomes(autocompleteEndereco.sugerirEstados("", 10)));
+		assertTrue(autocompleteEndereco.sugerirCidades("natal", 10).isEmpty());
+	}
+
+	@Test
+	void testeContagensAcompanhamAsGravacoes() {
+		Endereco natal = enderecoRepository.save(novoEndereco("Natal", "RN"));
+		assertEquals(List.of("Natal"), nomes(autocompleteEndereco.sugerirCidades("na", 10)));
+		assertEquals(2, autocompleteEndereco.sugerirEstados("r", 10).get(0).getQuantidade());
+
+		// alterar a cidade tira o endereco da cidade antiga
+		natal.setCidade("Lagoa Salgada");
+		enderecoRepository.save(natal);
+		assertTrue(autocompleteEndereco.sugerirCidades("na", 10).isEmpty());
+		assertEquals(2, autocompleteEndereco.sugerirCidades("lagoa", 10).get(0).getQuantidade());
+
+		enderecoRepository.delete(natal);
+		assertEquals(1, autocompleteEndereco.sugerirCidades("lagoa", 10).get(0).getQuantidade());
+		assertEquals(1, autocompleteEndereco.sugerirEstados("rn", 10).get(0).getQuantidade());
+	}
+
+	@Test
+	void testeComandoForaDoHibernateApareceNaRecarga() {
+		jdbcTemplate.update("update " + Const.TB_ENDERECO + " set cidade = 'Natal', estado = 'RN' where cidade = 'Santos'");
+		assertTrue(autocompleteEndereco.sugerirCidades("na", 10).isEmpty());
+
+		autocompleteEndereco.recarregar();
+
+		assertEquals(List.of("Natal"), nomes(autocompleteEndereco.sugerirCidades("na", 10)));
+		assertTrue(autocompleteEndereco.sugerirCidades("santos", 10).isEmpty());
+		assertEquals(2, autocompleteEndereco.sugerirEstados("rn", 10).get(0).getQuantidade());
+	}
+
+	private static List<String> nomes(List<SugestaoDTO> sugestoes) {
+		return sugestoes.stream().map(SugestaoDTO::getNome).collect(Collectors.toList());
+	}
+
+	private Endereco novoEndereco(String cidade, String estado) {
+		return Endereco.builder().cep("59248970").logradouro("Estrada do Cajueiro, s/n").numero("168").estado(estado)
+				.cidade(cidade).principal(false).usuario(usuario).build();
+	}
+}
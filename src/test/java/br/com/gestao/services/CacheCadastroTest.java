@@ -0,0 +1,228 @@
+package br.com.gestao.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import br.com.gestao.commons.Const;
+import br.com.gestao.dto.EnderecoDTO;
+import br.com.gestao.dto.UsuarioDTO;
+import br.com.gestao.entities.Endereco;
+import br.com.gestao.entities.Usuario;
+
+class CacheCadastroTest {
+
+	private CacheCadastro cacheCadastro;
+
+	private final AtomicInteger consultas = new AtomicInteger();
+
+	private Usuario usuario;
+
+	private Endereco endereco;
+
+	@BeforeEach
+	public void setUp() {
+		cacheCadastro = new CacheCadastro(new CaffeineCacheManager(Const.CACHE_USUARIOS, Const.CACHE_ENDERECOS,
+				Const.CACHE_PAGINAS_ENDERECOS));
+		usuario = Usuario.builder().id(1L).nome("Manoel Rafael Osvaldo Assis").build();
+		endereco = Endereco.builder().id(10L).cep("59248970").usuario(usuario).build();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void testeUsuarioBuscadoUmaVez() {
+		UsuarioDTO primeiro = cacheCadastro.usuario(1L, this::carregarUsuario);
+		UsuarioDTO segundo = cacheCadastro.usuario(1L, this::carregarUsuario);
+
+		assertSame(primeiro, segundo);
+		assertEquals(1, consultas.get());
+	}
+
+	@Test
+	void testeUsuarioInexistenteNaoEGuardado() {
+		cacheCadastro.usuario(2L, () -> { consultas.incrementAndGet(); return null; });
+		cacheCadastro.usuario(2L, () -> { consultas.incrementAndGet(); return null; });
+
+		assertEquals(2, consultas.get());
+	}
+
+	@Test
+	void testeInvalidarUsuarioDescartaDadosEnderecosEPaginas() {
+		cacheCadastro.usuario(1L, this::carregarUsuario);
+		cacheCadastro.endereco(10L, this::carregarEndereco, this::mapear);
+		cacheCadastro.enderecosDoUsuario(1L, 1, 50, this::carregarPagina);
+		cacheCadastro.enderecosDoUsuario(1L, 2, 50, this::carregarPagina);
+		assertEquals(4, consultas.get());
+
+		cacheCadastro.invalidarUsuario(1L);
+
+		cacheCadastro.usuario(1L, this::carregarUsuario);
+		cacheCadastro.endereco(10L, this::carregarEndereco, this::mapear);
+		cacheCadastro.enderecosDoUsuario(1L, 1, 50, this::carregarPagina);
+		cacheCadastro.enderecosDoUsuario(1L, 2, 50, this::carregarPagina);
+		assertEquals(8, consultas.get());
+	}
+
+	@Test
+	void testeInvalidarOutroUsuarioMantemOCache() {
+		cacheCadastro.usuario(1L, this::carregarUsuario);
+		cacheCadastro.enderecosDoUsuario(1L, 1, 50, this::carregarPagina);
+
+		cacheCadastro.invalidarUsuario(2L);
+
+		cacheCadastro.usuario(1L, this::carregarUsuario);
+		cacheCadastro.enderecosDoUsuario(1L, 1, 50, this::carregarPagina);
+		assertEquals(2, consultas.get());
+	}
+
+	@Test
+	void testeInvalidarEnderecoDescartaOUsuarioDoEndereco() {
+		cacheCadastro.usuario(1L, this::carregarUsuario);
+		cacheCadastro.endereco(10L, this::carregarEndereco, this::mapear);
+
+		cacheCadastro.invalidarEndereco(10L, 1L);
+
+		cacheCadastro.usuario(1L, this::carregarUsuario);
+		cacheCadastro.endereco(10L, this::carregarEndereco, this::mapear);
+		assertEquals(4, consultas.get());
+	}
+
+	@Test
+	void testeInvalidarEnderecoForaDoCacheDescartaODonoInformado() {
+		// o endereco nunca foi buscado por id: so a pagina do dono esta no cache
+		cacheCadastro.enderecosDoUsuario(1L, 1, 50, this::carregarPagina);
+
+		cacheCadastro.invalidarEndereco(10L, 1L);
+
+		cacheCadastro.enderecosDoUsuario(1L, 1, 50, this::carregarPagina);
+		assertEquals(2, consultas.get());
+	}
+
+	@Test
+	void testePaginasFicamForaDoItemDoUsuario() {
+		cacheCadastro.enderecosDoUsuario(1L, 1, 50, this::carregarPagina);
+		cacheCadastro.enderecosDoUsuario(1L, 1, 50, this::carregarPagina);
+		cacheCadastro.enderecosDoUsuario(1L, 2, 50, this::carregarPagina);
+		assertEquals(2, consultas.get());
+
+		// o item do usuario guarda so a versao das paginas: descartado, as paginas antigas nao sao mais encontradas
+		cacheCadastro.invalidarUsuario(1L);
+		cacheCadastro.enderecosDoUsuario(1L, 1, 50, this::carregarPagina);
+		assertEquals(3, consultas.get());
+	}
+
+	@Test
+	void testeInvalidacaoDentroDaTransacaoSoDepoisDoCommit() {
+		cacheCadastro.usuario(1L, this::carregarUsuario);
+		TransactionSynchronizationManager.initSynchronization();
+
+		cacheCadastro.invalidarUsuario(1L);
+		cacheCadastro.usuario(1L, this::carregarUsuario);
+		assertEquals(1, consultas.get());
+
+		List<TransactionSynchronization> sincronizacoes = TransactionSynchronizationManager.getSynchronizations();
+		TransactionSynchronizationManager.clearSynchronization();
+		sincronizacoes.forEach(TransactionSynchronization::afterCommit);
+		cacheCadastro.usuario(1L, this::carregarUsuario);
+		assertEquals(2, consultas.get());
+	}
+
+	@Test
+	void testeUsuarioLidoAntesDeUmaInvalidacaoNaoVoltaParaOCache() {
+		// a gravacao confirma e invalida enquanto a leitura ainda esta com o dado antigo
+		UsuarioDTO antigo = cacheCadastro.usuario(1L, () -> {
+			UsuarioDTO lido = carregarUsuario();
+			cacheCadastro.invalidarUsuario(1L);
+			return lido;
+		});
+
+		assertNotSame(antigo, cacheCadastro.usuario(1L, this::carregarUsuario));
+		assertEquals(2, consultas.get());
+	}
+
+	@Test
+	void testeEnderecoLidoAntesDeUmaInvalidacaoNaoVoltaParaOCache() {
+		cacheCadastro.endereco(10L, () -> {
+			Endereco lido = carregarEndereco();
+			cacheCadastro.invalidarEndereco(10L, 1L);
+			return lido;
+		}, this::mapear);
+
+		cacheCadastro.endereco(10L, this::carregarEndereco, this::mapear);
+		cacheCadastro.endereco(10L, this::carregarEndereco, this::mapear);
+		assertEquals(2, consultas.get());
+	}
+
+	@Test
+	void testeVariosUsuariosCarregaSoOsQueFaltamNoCache() {
+		cacheCadastro.usuario(1L, this::carregarUsuario);
+		List<List<Long>> pedidos = new ArrayList<>();
+
+		Map<Long, UsuarioDTO> usuarios = cacheCadastro.usuarios(List.of(1L, 2L, 3L), faltantes -> {
+			pedidos.add(faltantes);
+			return List.of(UsuarioDTO.builder().id(2L).nome("Ana Clara Assis").build());
+		});
+
+		assertEquals(List.of(List.of(2L, 3L)), pedidos);
+		assertEquals(Set.of(1L, 2L), usuarios.keySet());
+		// o usuario 2 ficou no cache
+		cacheCadastro.usuarios(List.of(2L), faltantes -> { pedidos.add(faltantes); return List.of(); });
+		assertEquals(1, pedidos.size());
+	}
+
+	@Test
+	void testeVariosEnderecosFicamNoCacheDoUsuario() {
+		Map<Long, EnderecoDTO> enderecos = cacheCadastro.enderecos(List.of(10L, 11L), faltantes -> {
+			consultas.incrementAndGet();
+			return List.of(endereco);
+		}, this::mapear);
+		assertEquals(Set.of(10L), enderecos.keySet());
+
+		cacheCadastro.endereco(10L, this::carregarEndereco, this::mapear);
+		assertEquals(1, consultas.get());
+
+		cacheCadastro.invalidarUsuario(1L);
+		cacheCadastro.endereco(10L, this::carregarEndereco, this::mapear);
+		assertEquals(2, consultas.get());
+	}
+
+	private UsuarioDTO carregarUsuario() {
+		consultas.incrementAndGet();
+		return UsuarioDTO.builder().id(usuario.getId()).nome(usuario.getNome()).build();
+	}
+
+	private Endereco carregarEndereco() {
+		consultas.incrementAndGet();
+		return endereco;
+	}
+
+	private EnderecoDTO mapear(Endereco endereco) {
+		return EnderecoDTO.builder().id(endereco.getId()).cep(endereco.getCep()).build();
+	}
+
+	private Page<EnderecoDTO> carregarPagina() {
+		consultas.incrementAndGet();
+		return new PageImpl<>(List.of(mapear(endereco)));
+	}
+}
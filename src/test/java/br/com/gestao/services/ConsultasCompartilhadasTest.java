@@ -0,0 +1,119 @@
+package br.com.gestao.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import br.com.gestao.dto.UsuarioDTO;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ConsultasCompartilhadasTest {
+
+	private static final int REQUISICOES = 20;
+
+	private final ConsultasCompartilhadas consultasCompartilhadas = new ConsultasCompartilhadas();
+
+	private final SimpleMeterRegistry registroMetricas = new SimpleMeterRegistry();
+
+	private final AtomicInteger consultas = new AtomicInteger();
+
+	private final CountDownLatch liberarConsulta = new CountDownLatch(1);
+
+	private ExecutorService executor;
+
+	@BeforeEach
+	public void setUp() {
+		Metrics.addRegistry(registroMetricas);
+		executor = Executors.newFixedThreadPool(REQUISICOES);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		executor.shutdownNow();
+		Metrics.removeRegistry(registroMetricas);
+	}
+
+	@Test
+	void testeRequisicoesSimultaneasFazemUmaConsulta() throws Exception {
+		List<Future<UsuarioDTO>> respostas = new ArrayList<>();
+		for (int i = 0; i < REQUISICOES; i++) {
+			respostas.add(executor.submit(() -> consultasCompartilhadas.carregar("usuario", this::consultaLenta, 1L)));
+		}
+		// a consulta so termina depois que todas as outras requisicoes estao esperando por ela
+		aguardarCompartilhadas(REQUISICOES - 1);
+		liberarConsulta.countDown();
+
+		UsuarioDTO primeira = respostas.get(0).get(5, TimeUnit.SECONDS);
+		for (Future<UsuarioDTO> resposta : respostas) {
+			assertSame(primeira, resposta.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, consultas.get());
+		assertEquals(1, registroMetricas.get("consultas.compartilhadas").tags("tipo", "usuario", "resultado", "carregada").counter().count());
+	}
+
+	@Test
+	void testeChavesDiferentesNaoCompartilham() {
+		liberarConsulta.countDown();
+
+		consultasCompartilhadas.carregar("usuario", this::consultaLenta, 1L);
+		consultasCompartilhadas.carregar("usuario", this::consultaLenta, 2L);
+		consultasCompartilhadas.carregar("enderecos-estado", this::consultaLenta, 1L);
+		// terminada a carga nada fica guardado
+		consultasCompartilhadas.carregar("usuario", this::consultaLenta, 1L);
+
+		assertEquals(4, consultas.get());
+	}
+
+	@Test
+	void testeErroDaConsultaChegaATodasAsRequisicoes() throws Exception {
+		List<Future<Object>> respostas = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			respostas.add(executor.submit(() -> consultasCompartilhadas.carregar("usuario", () -> {
+				consultaLenta();
+				throw new IllegalStateException("banco indisponivel");
+			}, 1L)));
+		}
+		aguardarCompartilhadas(2);
+		liberarConsulta.countDown();
+
+		for (Future<Object> resposta : respostas) {
+			ExecutionException erro = assertThrows(ExecutionException.class, () -> resposta.get(5, TimeUnit.SECONDS));
+			assertTrue(erro.getCause() instanceof IllegalStateException);
+		}
+		assertEquals(1, consultas.get());
+	}
+
+	private UsuarioDTO consultaLenta() {
+		consultas.incrementAndGet();
+		try {
+			liberarConsulta.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return UsuarioDTO.builder().id(1L).nome("Manoel Rafael Osvaldo Assis").build();
+	}
+
+	private void aguardarCompartilhadas(int quantidade) throws InterruptedException {
+		long limite = System.currentTimeMillis() + 5000;
+		while (registroMetricas.find("consultas.compartilhadas").tag("resultado", "compartilhada").counters().stream()
+				.mapToDouble(c -> c.count()).sum() < quantidade && System.currentTimeMillis() < limite) {
+			Thread.sleep(5);
+		}
+	}
+}
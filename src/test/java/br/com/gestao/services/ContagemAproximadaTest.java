@@ -0,0 +1,103 @@
+package br.com.gestao.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import br.com.gestao.commons.Contagem;
+
+class ContagemAproximadaTest {
+
+	private final AtomicLong agora = new AtomicLong();
+
+	// relogio controlado pelo teste e atualizacao na propria thread
+	private final ContagemAproximada contagemAproximada = new ContagemAproximada(Duration.ofSeconds(60), 100, agora::get, Runnable::run);
+
+	private final AtomicLong consultas = new AtomicLong();
+
+	private long total = 1000;
+
+	@Test
+	void testeTotalGuardadoEAtualizadoDepoisDoIntervalo() {
+		assertEquals(1000, contagemAproximada.total("enderecos-estado", "RN", this::contar));
+		total = 1200;
+		assertEquals(1000, contagemAproximada.total("enderecos-estado", "RN", this::contar));
+		assertEquals(1, consultas.get());
+
+		// outro filtro tem o proprio total
+		assertEquals(1200, contagemAproximada.total("enderecos-estado", "SP", this::contar));
+		assertEquals(2, consultas.get());
+
+		// passado o intervalo o pedido ainda recebe o valor anterior e dispara a atualizacao
+		agora.addAndGet(TimeUnit.SECONDS.toNanos(61));
+		assertEquals(1000, contagemAproximada.total("enderecos-estado", "RN", this::contar));
+		assertEquals(1200, contagemAproximada.total("enderecos-estado", "RN", this::contar));
+		assertEquals(3, consultas.get());
+	}
+
+	@Test
+	void testeAplicarSoNaContagemAproximada() {
+		Slice<String> slice = new SliceImpl<>(List.of("a", "b"), PageRequest.of(0, 2), true);
+
+		assertSame(slice, contagemAproximada.aplicar(Contagem.NENHUMA, slice, "usuarios", null, this::contar));
+		assertEquals(0, consultas.get());
+
+		Page<String> page = (Page<String>) contagemAproximada.aplicar(Contagem.APROXIMADA, slice, "usuarios", null, this::contar);
+		assertEquals(1000, page.getTotalElements());
+		assertEquals(500, page.getTotalPages());
+	}
+
+	@Test
+	void testeTotalDefasadoNaoEscondeAProximaPagina() {
+		total = 3;
+		Slice<String> slice = new SliceImpl<>(List.of("c", "d"), PageRequest.of(2, 2), true);
+
+		Page<String> page = (Page<String>) contagemAproximada.aplicar(Contagem.APROXIMADA, slice, "usuarios", null, this::contar);
+		assertTrue(page.hasNext());
+		assertEquals(7, page.getTotalElements());
+
+		Slice<String> ultima = new SliceImpl<>(List.of("e"), PageRequest.of(3, 2), false);
+		assertFalse(contagemAproximada.aplicar(Contagem.APROXIMADA, ultima, "usuarios", null, this::contar).hasNext());
+	}
+
+	@Test
+	void testeAtualizacaoRecusadaPelaFilaCheiaFicaParaOProximoPedido() {
+		boolean[] filaCheia = { true };
+		ContagemAproximada comFila = new ContagemAproximada(Duration.ofSeconds(60), 100, agora::get, tarefa -> {
+			if (filaCheia[0]) {
+				throw new RejectedExecutionException("fila cheia");
+			}
+			tarefa.run();
+		});
+		assertEquals(1000, comFila.total("usuarios", null, this::contar));
+		total = 1200;
+		agora.addAndGet(TimeUnit.SECONDS.toNanos(61));
+
+		// recusada: continua com o valor anterior, sem COUNT
+		assertEquals(1000, comFila.total("usuarios", null, this::contar));
+		assertEquals(1, consultas.get());
+
+		filaCheia[0] = false;
+		assertEquals(1000, comFila.total("usuarios", null, this::contar));
+		assertEquals(1200, comFila.total("usuarios", null, this::contar));
+		assertEquals(2, consultas.get());
+	}
+
+	private long contar() {
+		consultas.incrementAndGet();
+		return total;
+	}
+}
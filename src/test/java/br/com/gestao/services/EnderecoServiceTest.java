@@ -1,30 +1,48 @@
 package br.com.gestao.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
-import org.modelmapper.ModelMapper;
+import org.mockito.Spy;
+import org.springframework.cache.support.NoOpCacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import br.com.gestao.commons.Const;
+import br.com.gestao.commons.Contagem;
+import br.com.gestao.commons.Cursor;
+import br.com.gestao.commons.CursorPage;
 import br.com.gestao.commons.ResponseWrapper;
 import br.com.gestao.dto.EnderecoDTO;
+import br.com.gestao.dto.FiltroEnderecoDTO;
+import br.com.gestao.dto.SugestaoDTO;
 import br.com.gestao.entities.Endereco;
+import br.com.gestao.mappers.EnderecoMapper;
 import br.com.gestao.repositories.EnderecoRepository;
 
 class EnderecoServiceTest {
@@ -35,8 +53,23 @@ class EnderecoServiceTest {
 	@Mock
 	private EnderecoRepository enderecoRepository;
 
+	@Spy
+	private EnderecoMapper enderecoMapper = Mappers.getMapper(EnderecoMapper.class);
+
+	@Spy
+	private CacheCadastro cacheCadastro = new CacheCadastro(new NoOpCacheManager());
+
+	@Spy
+	private ConsultasCompartilhadas consultasCompartilhadas = new ConsultasCompartilhadas();
+
+	@Spy
+	private ContagemAproximada contagemAproximada = new ContagemAproximada(Duration.ofSeconds(60), 100, Ticker.systemTicker(), Runnable::run);
+
 	@Mock
-	private ModelMapper modelMapper;
+	private AutocompleteEndereco autocompleteEndereco;
+
+	@Mock
+	private IndiceCep indiceCep;
 
 	Endereco endereco;
 	List<Endereco> enderecos = new ArrayList<>();
@@ -45,6 +78,11 @@ class EnderecoServiceTest {
 	private Page<Endereco> pageEndereco;
 	private Page<Endereco> pageEnderecoEmpty;
 
+	// paginas das consultas de projecao (os DTOs ja vem do banco)
+	List<EnderecoDTO> enderecosDTO = new ArrayList<>();
+	private Page<EnderecoDTO> pageEnderecoDTO;
+	private Page<EnderecoDTO> pageEnderecoDTOEmpty;
+
 	@BeforeEach
 	public void setUp() {
 
@@ -54,6 +92,9 @@ class EnderecoServiceTest {
 		enderecos.add(endereco);
 		pageEndereco = new PageImpl<>(enderecos);
 		pageEnderecoEmpty = new PageImpl<>(enderecosEmpty);
+		enderecosDTO.add(enderecoMapper.toDto(endereco));
+		pageEnderecoDTO = new PageImpl<>(enderecosDTO);
+		pageEnderecoDTOEmpty = new PageImpl<>(new ArrayList<>());
 		
 		MockitoAnnotations.initMocks(this);
 	}
@@ -64,15 +105,6 @@ class EnderecoServiceTest {
 		// Configurar comportamento simulado do repository
 		when(enderecoRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(endereco));
 
-		// Configuração do comportamento simulado do ModelMapper
-		when(modelMapper.map(any(), eq(EnderecoDTO.class))).thenAnswer(invocation -> {
-			Endereco endereco1 = invocation.getArgument(0);
-			EnderecoDTO enderecoDTO = EnderecoDTO.builder().id(endereco1.getId()).cep(endereco1.getCep())
-					.logradouro(endereco1.getLogradouro()).numero(endereco1.getNumero()).estado(endereco1.getEstado())
-					.cidade(endereco1.getCidade()).principal(endereco1.getPrincipal()).build();
-			return enderecoDTO;
-		});
-
 		// Execução do método a ser testado
 		ResponseEntity<ResponseWrapper<EnderecoDTO>> responseEntity = enderecoService.findById(endereco.getId());
 
@@ -101,15 +133,6 @@ class EnderecoServiceTest {
 		// Configurar comportamento simulado do repository
 		when(enderecoRepository.findAll()).thenReturn(enderecos);
 
-		// Configuração do comportamento simulado do ModelMapper
-		when(modelMapper.map(any(), eq(EnderecoDTO.class))).thenAnswer(invocation -> {
-			Endereco endereco1 = invocation.getArgument(0);
-			EnderecoDTO enderecoDTO = EnderecoDTO.builder().id(endereco1.getId()).cep(endereco1.getCep())
-					.logradouro(endereco1.getLogradouro()).numero(endereco1.getNumero()).estado(endereco1.getEstado())
-					.cidade(endereco1.getCidade()).principal(endereco1.getPrincipal()).build();
-			return enderecoDTO;
-		});
-
 		// Execução do método a ser testado
 		ResponseEntity<ResponseWrapper<List<EnderecoDTO>>> responseEntity = enderecoService.findAll();
 
@@ -136,16 +159,7 @@ class EnderecoServiceTest {
 	void testeBuscaTodosEnderecosPeloCepComSucesso() throws Exception {
 
 		// Configurar comportamento simulado do repository
-		when(enderecoRepository.findByCep(Mockito.any(), Mockito.any())).thenReturn(pageEndereco);
-
-		// Configuração do comportamento simulado do ModelMapper
-		when(modelMapper.map(any(), eq(EnderecoDTO.class))).thenAnswer(invocation -> {
-			Endereco endereco1 = invocation.getArgument(0);
-			EnderecoDTO enderecoDTO = EnderecoDTO.builder().id(endereco1.getId()).cep(endereco1.getCep())
-					.logradouro(endereco1.getLogradouro()).numero(endereco1.getNumero()).estado(endereco1.getEstado())
-					.cidade(endereco1.getCidade()).principal(endereco1.getPrincipal()).build();
-			return enderecoDTO;
-		});
+		when(enderecoRepository.findDtoByCep(Mockito.any(), Mockito.any())).thenReturn(pageEnderecoDTO);
 
 		// Execução do método a ser testado
 		ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> responseEntity = enderecoService.findByCep(1, 50, endereco.getCep());
@@ -160,7 +174,7 @@ class EnderecoServiceTest {
 	void testeBuscaTodosEnderecosPeloCepComErro() throws Exception {
 
 		// Configurar comportamento simulado do repository
-		when(enderecoRepository.findByCep(Mockito.any(), Mockito.any())).thenReturn(pageEnderecoEmpty);
+		when(enderecoRepository.findDtoByCep(Mockito.any(), Mockito.any())).thenReturn(pageEnderecoDTOEmpty);
 
 		// Execução do método a ser testado
 		ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> responseEntity = enderecoService.findByCep(1, 50, endereco.getCep());
@@ -170,19 +184,94 @@ class EnderecoServiceTest {
 	}
 	
 	@Test
-	void testeBuscaTodosEnderecosPelaCidadeComSucesso() throws Exception {
+	void testeBuscaCombinadaSemFiltroIndexadoRetornaErro() throws Exception {
+
+		// Execução do método a ser testado
+		ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> responseEntity = enderecoService.buscar(1, 50,
+				FiltroEnderecoDTO.builder().principal(true).build());
+
+		// Verificação do resultado
+		assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+		Mockito.verifyNoInteractions(enderecoRepository);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void testeBuscaCombinadaSoPorEstadoAvisaNaMensagem() throws Exception {
 
 		// Configurar comportamento simulado do repository
-		when(enderecoRepository.findByCidade(Mockito.any(), Mockito.any())).thenReturn(pageEndereco);
+		when(enderecoRepository.findAll(Mockito.any(Specification.class), Mockito.any(Pageable.class))).thenReturn(pageEndereco);
+
+		// Execução do método a ser testado
+		ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> soEstado = enderecoService.buscar(1, 50,
+				FiltroEnderecoDTO.builder().estado("RN").principal(true).build());
+		ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> estadoECidade = enderecoService.buscar(1, 50,
+				FiltroEnderecoDTO.builder().estado("RN").cidade("Lagoa Salgada").build());
+
+		// Verificação do resultado
+		assertEquals(HttpStatus.OK, soEstado.getStatusCode());
+		assertNotNull(soEstado.getBody().getMessage());
+		assertEquals(HttpStatus.OK, estadoECidade.getStatusCode());
+		assertNull(estadoECidade.getBody().getMessage());
+	}
+
+	@Test
+	void testeBuscaEnderecosPeloCepUsaOIndice() throws Exception {
+
+		// Configurar comportamento simulado do indice (ids da pagina e total) e do repository
+		when(indiceCep.buscar(Mockito.eq(endereco.getCep()), Mockito.any())).thenReturn(new PageImpl<>(List.of(1L), PageRequest.of(0, 50), 1));
+		when(enderecoRepository.findDtoByIdIn(List.of(1L))).thenReturn(enderecosDTO);
+
+		// Execução do método a ser testado
+		ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> responseEntity = enderecoService.findByCep(1, 50, endereco.getCep());
+
+		// Verificação do resultado
+		assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+		assertEquals(endereco.getId(), responseEntity.getBody().getData().getContent().get(0).getId());
+		Mockito.verify(enderecoRepository, Mockito.never()).findDtoByCep(Mockito.any(), Mockito.any());
+	}
+
+	@Test
+	void testeBuscaEnderecosPeloCepComPontuacaoUsaOCepNormalizado() throws Exception {
+
+		// Configurar comportamento simulado do indice (ids da pagina e total) e do repository
+		when(indiceCep.buscar(Mockito.eq("59248970"), Mockito.any())).thenReturn(new PageImpl<>(List.of(1L), PageRequest.of(0, 50), 1));
+		when(enderecoRepository.findDtoByIdIn(List.of(1L))).thenReturn(enderecosDTO);
+
+		// Execução do método a ser testado
+		ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> responseEntity = enderecoService.findByCep(1, 50, "59248-970");
+
+		// Verificação do resultado
+		assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+	}
+
+	@Test
+	void testeBuscaEnderecosPeloCepInvalido() throws Exception {
+
+		// Execução do método a ser testado
+		ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> responseEntity = enderecoService.findByCep(1, 50, "5924-897");
+
+		// Verificação do resultado
+		assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+		Mockito.verifyNoInteractions(enderecoRepository, indiceCep);
+	}
+
+	@Test
+	void testeBuscaEnderecosPelaFaixaDeCepComPrefixoInvalido() throws Exception {
+
+		// Execução do método a ser testado
+		ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> responseEntity = enderecoService.findByFaixaCep(1, 50, "59-2");
+
+		// Verificação do resultado
+		assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+		Mockito.verifyNoInteractions(enderecoRepository, indiceCep);
+	}
+
+	@Test
+	void testeBuscaTodosEnderecosPelaCidadeComSucesso() throws Exception {
 
-		// Configuração do comportamento simulado do ModelMapper
-		when(modelMapper.map(any(), eq(EnderecoDTO.class))).thenAnswer(invocation -> {
-			Endereco endereco1 = invocation.getArgument(0);
-			EnderecoDTO enderecoDTO = EnderecoDTO.builder().id(endereco1.getId()).cep(endereco1.getCep())
-					.logradouro(endereco1.getLogradouro()).numero(endereco1.getNumero()).estado(endereco1.getEstado())
-					.cidade(endereco1.getCidade()).principal(endereco1.getPrincipal()).build();
-			return enderecoDTO;
-		});
+		// Configurar comportamento simulado do repository
+		when(enderecoRepository.findDtoByCidade(Mockito.any(), Mockito.any())).thenReturn(pageEnderecoDTO);
 
 		// Execução do método a ser testado
 		ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> responseEntity = enderecoService.findByCidade(1, 50, endereco.getCidade());
@@ -197,7 +286,7 @@ class EnderecoServiceTest {
 	void testeBuscaTodosEnderecosPelaCidadeComErro() throws Exception {
 
 		// Configurar comportamento simulado do repository
-		when(enderecoRepository.findByCidade(Mockito.any(), Mockito.any())).thenReturn(pageEnderecoEmpty);
+		when(enderecoRepository.findDtoByCidade(Mockito.any(), Mockito.any())).thenReturn(pageEnderecoDTOEmpty);
 
 		// Execução do método a ser testado
 		ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> responseEntity = enderecoService.findByCidade(1, 50, endereco.getCidade());
@@ -207,19 +296,56 @@ class EnderecoServiceTest {
 	}
 	
 	@Test
-	void testeBuscaTodosEnderecosPeloEstadoComSucesso() throws Exception {
+	void testeBuscaEnderecosPelaCidadeSemContagem() throws Exception {
+
+		// Configurar comportamento simulado do repository
+		when(enderecoRepository.findDtoSliceByCidade(Mockito.any(), Mockito.any())).thenReturn(new SliceImpl<>(enderecosDTO, PageRequest.of(0, 1), true));
+
+		// Execução do método a ser testado
+		ResponseEntity<ResponseWrapper<Slice<EnderecoDTO>>> responseEntity = enderecoService.findByCidade(1, 1, endereco.getCidade(), Contagem.NENHUMA);
+
+		// Verificação do resultado: so o hasNext, sem o count
+		assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+		assertTrue(responseEntity.getBody().getData().hasNext());
+		assertFalse(responseEntity.getBody().getData() instanceof Page);
+		Mockito.verify(enderecoRepository, Mockito.never()).countByCidade(Mockito.any());
+	}
+
+	@Test
+	void testeBuscaEnderecosPelaCidadeComContagemAproximada() throws Exception {
+
+		// Configurar comportamento simulado do repository
+		when(enderecoRepository.findDtoSliceByCidade(Mockito.any(), Mockito.any())).thenReturn(new SliceImpl<>(enderecosDTO, PageRequest.of(0, 1), true));
+		when(enderecoRepository.countByCidade(endereco.getCidade())).thenReturn(42L);
+
+		// Execução do método a ser testado (duas paginas do mesmo filtro)
+		enderecoService.findByCidade(1, 1, endereco.getCidade(), Contagem.APROXIMADA);
+		ResponseEntity<ResponseWrapper<Slice<EnderecoDTO>>> responseEntity = enderecoService.findByCidade(2, 1, endereco.getCidade(), Contagem.APROXIMADA);
+
+		// Verificação do resultado: o total vem do count feito uma unica vez
+		assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+		assertEquals(42L, ((Page<EnderecoDTO>) responseEntity.getBody().getData()).getTotalElements());
+		Mockito.verify(enderecoRepository, Mockito.times(1)).countByCidade(endereco.getCidade());
+	}
+
+	@Test
+	void testeBuscaEnderecosPelaCidadeSemContagemComErro() throws Exception {
 
 		// Configurar comportamento simulado do repository
-		when(enderecoRepository.findByEstado(Mockito.any(), Mockito.any())).thenReturn(pageEndereco);
+		when(enderecoRepository.findDtoSliceByCidade(Mockito.any(), Mockito.any())).thenReturn(new SliceImpl<>(new ArrayList<>()));
+
+		// Execução do método a ser testado
+		ResponseEntity<ResponseWrapper<Slice<EnderecoDTO>>> responseEntity = enderecoService.findByCidade(1, 50, endereco.getCidade(), Contagem.NENHUMA);
+
+		// Verificação do resultado
+		assertEquals(HttpStatus.NOT_FOUND, responseEntity.getStatusCode());
+	}
 
-		// Configuração do comportamento simulado do ModelMapper
-		when(modelMapper.map(any(), eq(EnderecoDTO.class))).thenAnswer(invocation -> {
-			Endereco endereco1 = invocation.getArgument(0);
-			EnderecoDTO enderecoDTO = EnderecoDTO.builder().id(endereco1.getId()).cep(endereco1.getCep())
-					.logradouro(endereco1.getLogradouro()).numero(endereco1.getNumero()).estado(endereco1.getEstado())
-					.cidade(endereco1.getCidade()).principal(endereco1.getPrincipal()).build();
-			return enderecoDTO;
-		});
+	@Test
+	void testeBuscaTodosEnderecosPeloEstadoComSucesso() throws Exception {
+
+		// Configurar comportamento simulado do repository
+		when(enderecoRepository.findDtoByEstado(Mockito.any(), Mockito.any())).thenReturn(pageEnderecoDTO);
 
 		// Execução do método a ser testado
 		ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> responseEntity = enderecoService.findByEstado(1, 50, endereco.getCidade());
@@ -234,7 +360,7 @@ class EnderecoServiceTest {
 	void testeBuscaTodosEnderecosPeloEstadoComErro() throws Exception {
 
 		// Configurar comportamento simulado do repository
-		when(enderecoRepository.findByEstado(Mockito.any(), Mockito.any())).thenReturn(pageEnderecoEmpty);
+		when(enderecoRepository.findDtoByEstado(Mockito.any(), Mockito.any())).thenReturn(pageEnderecoDTOEmpty);
 
 		// Execução do método a ser testado
 		ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> responseEntity = enderecoService.findByEstado(1, 50, endereco.getEstado());
@@ -247,16 +373,7 @@ class EnderecoServiceTest {
 	void testeBuscaTodosEnderecosComPaginacaoRetornaSucesso() throws Exception {
 
 		// Configurar comportamento simulado do repository
-		when(enderecoRepository.listAllByPages(Mockito.any())).thenReturn(pageEndereco);
-
-		// Configuração do comportamento simulado do ModelMapper
-		when(modelMapper.map(any(), eq(EnderecoDTO.class))).thenAnswer(invocation -> {
-			Endereco endereco1 = invocation.getArgument(0);
-			EnderecoDTO enderecoDTO = EnderecoDTO.builder().id(endereco1.getId()).cep(endereco1.getCep())
-					.logradouro(endereco1.getLogradouro()).numero(endereco1.getNumero()).estado(endereco1.getEstado())
-					.cidade(endereco1.getCidade()).principal(endereco1.getPrincipal()).build();
-			return enderecoDTO;
-		});
+		when(enderecoRepository.listAllDtoByPages(Mockito.any())).thenReturn(pageEnderecoDTO);
 
 		// Execução do método a ser testado
 		ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> responseEntity = enderecoService.findAll(1, 50);
@@ -271,7 +388,7 @@ class EnderecoServiceTest {
 	void testeBuscaTodosEnderecosComPaginacaoRetornaErro() throws Exception {
 
 		// Configurar comportamento simulado do repository
-		when(enderecoRepository.listAllByPages(Mockito.any())).thenReturn(pageEnderecoEmpty);
+		when(enderecoRepository.listAllDtoByPages(Mockito.any())).thenReturn(pageEnderecoDTOEmpty);
 
 		// Execução do método a ser testado
 		ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>> responseEntity = enderecoService.findAll(1, 50);
@@ -279,4 +396,113 @@ class EnderecoServiceTest {
 		// Verificação do resultado
 		assertEquals(HttpStatus.NOT_FOUND, responseEntity.getStatusCode());
 	}
+	
+	@Test
+	void testeBuscaTodosEnderecosComCursorRetornaSucesso() throws Exception {
+
+		// a consulta busca uma linha a mais que a quantidade para saber se existe proxima pagina
+		Endereco endereco2 = Endereco.builder().id(2L).cep("59248970").build();
+		enderecos.add(endereco2);
+		when(enderecoRepository.listAllAfter(Mockito.any(), Mockito.any())).thenReturn(enderecos);
+
+		// Execução do método a ser testado
+		ResponseEntity<ResponseWrapper<CursorPage<EnderecoDTO>>> responseEntity = enderecoService.findAllCursor(null, 1);
+
+		// Verificação do resultado
+		assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+		assertEquals(1, responseEntity.getBody().getData().getContent().size());
+		assertTrue(responseEntity.getBody().getData().isHasNext());
+		assertEquals(endereco.getId(), Cursor.decode(responseEntity.getBody().getData().getNext()).getId());
+	}
+
+	@Test
+	void testeBuscaEnderecosPorCepComCursorUltimaPagina() throws Exception {
+
+		// Configurar comportamento simulado do repository
+		when(enderecoRepository.findByCepAfter(Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(enderecos);
+
+		// Execução do método a ser testado
+		ResponseEntity<ResponseWrapper<CursorPage<EnderecoDTO>>> responseEntity = enderecoService.findByCepCursor(Cursor.of(0L).encode(), 50, endereco.getCep());
+
+		// Verificação do resultado
+		assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+		assertFalse(responseEntity.getBody().getData().isHasNext());
+		assertNull(responseEntity.getBody().getData().getNext());
+	}
+
+	@Test
+	void testeBuscaTodosEnderecosComCursorInvalidoRetornaErro() throws Exception {
+
+		// Execução do método a ser testado
+		ResponseEntity<ResponseWrapper<CursorPage<EnderecoDTO>>> responseEntity = enderecoService.findAllCursor("cursor-invalido", 50);
+
+		// Verificação do resultado
+		assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+	}
+
+	@Test
+	void testeBuscaTodosEnderecosComCursorQuantidadeInvalidaRetornaErro() throws Exception {
+
+		// Execução do método a ser testado
+		ResponseEntity<ResponseWrapper<CursorPage<EnderecoDTO>>> zero = enderecoService.findAllCursor(null, 0);
+		ResponseEntity<ResponseWrapper<CursorPage<EnderecoDTO>>> negativa = enderecoService.findAllCursor(null, -5);
+
+		// Verificação do resultado
+		assertEquals(HttpStatus.BAD_REQUEST, zero.getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, negativa.getStatusCode());
+		Mockito.verifyNoInteractions(enderecoRepository);
+	}
+
+	@Test
+	void testeBuscaTodosEnderecosComCursorLimitaAQuantidade() throws Exception {
+
+		// Configurar comportamento simulado do repository
+		when(enderecoRepository.listAllAfter(Mockito.any(), Mockito.any())).thenReturn(enderecos);
+
+		// Execução do método a ser testado
+		ResponseEntity<ResponseWrapper<CursorPage<EnderecoDTO>>> responseEntity = enderecoService.findAllCursor(null, Integer.MAX_VALUE);
+
+		// Verificação do resultado
+		assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+		assertEquals(Const.MAXIMO_ITENS_CURSOR, responseEntity.getBody().getData().getSize());
+		Mockito.verify(enderecoRepository).listAllAfter(0L, PageRequest.of(0, Const.MAXIMO_ITENS_CURSOR + 1));
+	}
+
+	@Test
+	void testeBuscaTodosEnderecosComCursorRetornaErro() throws Exception {
+
+		// Configurar comportamento simulado do repository
+		when(enderecoRepository.listAllAfter(Mockito.any(), Mockito.any())).thenReturn(enderecosEmpty);
+
+		// Execução do método a ser testado
+		ResponseEntity<ResponseWrapper<CursorPage<EnderecoDTO>>> responseEntity = enderecoService.findAllCursor(null, 50);
+
+		// Verificação do resultado
+		assertEquals(HttpStatus.NOT_FOUND, responseEntity.getStatusCode());
+	}
+
+	@Test
+	void testeSugerirCidadesLimitaAQuantidade() throws Exception {
+
+		// Configurar comportamento simulado do autocompletar
+		when(autocompleteEndereco.sugerirCidades("lag", 50)).thenReturn(List.of(new SugestaoDTO("Lagoa Salgada", "RN", 3)));
+
+		// Execução do método a ser testado
+		ResponseEntity<ResponseWrapper<List<SugestaoDTO>>> responseEntity = enderecoService.sugerirCidades("lag", 500);
+
+		// Verificação do resultado
+		assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+		assertEquals("Lagoa Salgada", responseEntity.getBody().getData().get(0).getNome());
+		Mockito.verifyNoInteractions(enderecoRepository);
+	}
+
+	@Test
+	void testeSugerirEstadosSemSugestaoRetornaErro() throws Exception {
+
+		// Execução do método a ser testado
+		ResponseEntity<ResponseWrapper<List<SugestaoDTO>>> responseEntity = enderecoService.sugerirEstados("xx", 10);
+
+		// Verificação do resultado
+		assertEquals(HttpStatus.NOT_FOUND, responseEntity.getStatusCode());
+	}
 }
@@ -0,0 +1,119 @@
+package br.com.gestao.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.gestao.commons.exportacao.FormatoExportacao;
+import br.com.gestao.entities.Endereco;
+import br.com.gestao.entities.Usuario;
+import br.com.gestao.repositories.EnderecoRepository;
+import br.com.gestao.repositories.UsuarioRepository;
+
+@DataJpaTest
+@Import(ExportacaoService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ExportacaoServiceTest {
+
+	// mais linhas que o fetch size, para passar pela limpeza do contexto de persistencia
+	private static final int QUANTIDADE_ENDERECOS = 1500;
+
+	@Autowired
+	private ExportacaoService exportacaoService;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private EnderecoRepository enderecoRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	Usuario usuario;
+
+	@BeforeEach
+	public void setUp() {
+		usuario = usuarioRepository.save(Usuario.builder().nome("Manoel Rafael Osvaldo Assis")
+				.dataNascimento(LocalDate.of(1990, 10, 17)).build());
+		for (int i = 0; i < QUANTIDADE_ENDERECOS; i++) {
+			enderecoRepository.save(Endereco.builder().cep("59248970").logradouro("Estrada do Cajueiro, s/n")
+					.numero(String.valueOf(i % 1000)).estado("RN").cidade("Lagoa Salgada").usuario(usuario).build());
+		}
+	}
+
+	@AfterEach
+	public void tearDown() {
+		enderecoRepository.deleteAllInBatch();
+		usuarioRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void testeExportarEnderecosEmNdJson() throws Exception {
+		ByteArrayOutputStream saida = new ByteArrayOutputStream();
+
+		long linhas = exportacaoService.exportarEnderecos(FormatoExportacao.NDJSON, saida);
+
+		String[] resultado = saida.toString(StandardCharsets.UTF_8).split("\n");
+		assertEquals(QUANTIDADE_ENDERECOS, linhas);
+		assertEquals(QUANTIDADE_ENDERECOS, resultado.length);
+		JsonNode primeiro = new ObjectMapper().readTree(resultado[0]);
+		assertEquals(usuario.getId().longValue(), primeiro.get("idUsuario").asLong());
+		assertEquals("Estrada do Cajueiro, s/n", primeiro.get("logradouro").asText());
+		assertEquals(false, primeiro.get("principal").asBoolean());
+	}
+
+	@Test
+	void testeExportarNaoPassaPeloCacheDeSegundoNivel() throws Exception {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		exportacaoService.exportarEnderecos(FormatoExportacao.NDJSON, new ByteArrayOutputStream());
+		exportacaoService.exportarUsuarios(FormatoExportacao.NDJSON, new ByteArrayOutputStream());
+
+		assertEquals(0, statistics.getSecondLevelCachePutCount());
+	}
+
+	@Test
+	void testeExportarEnderecosEmCsv() throws Exception {
+		ByteArrayOutputStream saida = new ByteArrayOutputStream();
+
+		exportacaoService.exportarEnderecos(FormatoExportacao.CSV, saida);
+
+		List<String> resultado = List.of(saida.toString(StandardCharsets.UTF_8).split("\r\n"));
+		assertEquals(QUANTIDADE_ENDERECOS + 1, resultado.size());
+		assertEquals("id,idUsuario,cep,logradouro,numero,cidade,estado,principal", resultado.get(0));
+		// valor com virgula vai entre aspas
+		assertEquals(usuario.getId() + ",59248970,\"Estrada do Cajueiro, s/n\",0,Lagoa Salgada,RN,false",
+				resultado.get(1).substring(resultado.get(1).indexOf(',') + 1));
+	}
+
+	@Test
+	void testeExportarUsuariosEmCsv() throws Exception {
+		ByteArrayOutputStream saida = new ByteArrayOutputStream();
+
+		exportacaoService.exportarUsuarios(FormatoExportacao.CSV, saida);
+
+		assertEquals("id,nome,dataNascimento\r\n" + usuario.getId() + ",Manoel Rafael Osvaldo Assis,17/10/1990\r\n",
+				saida.toString(StandardCharsets.UTF_8));
+	}
+}
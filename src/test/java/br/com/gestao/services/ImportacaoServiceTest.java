@@ -0,0 +1,307 @@
+package br.com.gestao.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.gestao.commons.ResponseWrapper;
+import br.com.gestao.config.AppConfiguration;
+import br.com.gestao.dto.JobDTO;
+import br.com.gestao.entities.Endereco;
+import br.com.gestao.entities.Job;
+import br.com.gestao.entities.JobParticao;
+import br.com.gestao.entities.JobRecusa;
+import br.com.gestao.entities.Usuario;
+import br.com.gestao.repositories.EnderecoRepository;
+import br.com.gestao.repositories.JobParticaoRepository;
+import br.com.gestao.repositories.JobRecusaRepository;
+import br.com.gestao.repositories.JobRepository;
+import br.com.gestao.repositories.UsuarioRepository;
+
+@DataJpaTest(properties = { "spring.jpa.properties.hibernate.generate_statistics=true", "gestao.lote.tamanho-bloco=2",
+		"gestao.jobs.paralelismo=2" })
+@Import({ AppConfiguration.class, ImportacaoService.class, JobService.class, LoteUsuarioService.class, CacheCadastro.class,
+		IndiceNomeUsuario.class })
+// sem transacao do teste: o job roda em outras threads, com uma transacao por bloco
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ImportacaoServiceTest {
+
+	@Autowired
+	private ImportacaoService importacaoService;
+
+	@Autowired
+	private JobService jobService;
+
+	@Autowired
+	private JobRepository jobRepository;
+
+	@Autowired
+	private JobParticaoRepository jobParticaoRepository;
+
+	@Autowired
+	private JobRecusaRepository jobRecusaRepository;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private EnderecoRepository enderecoRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@AfterEach
+	public void tearDown() {
+		enderecoRepository.deleteAllInBatch();
+		usuarioRepository.deleteAllInBatch();
+		jobRecusaRepository.deleteAllInBatch();
+		jobParticaoRepository.deleteAllInBatch();
+		jobRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void testeImportarCsvComLinhasRecusadas() throws Exception {
+		// CSV do Excel em portugues: BOM, ponto e virgula e aspas; a linha 3 (sem nome) e outro endereco da Ana
+		String csv = "\uFEFFnome;dataNascimento;cep;logradouro;numero;cidade;estado;principal\r\n"
+				+ "Ana Clara;17/10/1990;59248-970;\"Estrada do Cajueiro; s/n\";1;Lagoa Salgada;RN;sim\r\n"
+				+ ";;01001-000;\"Praça da Sé, \"\"lado ímpar\"\"\";2;São Paulo;SP;não\r\n"
+				+ "Pedro;31/02/1990;59248970;Rua A;3;Natal;RN;\r\n"
+				+ ";;59248970;Rua B;4;Natal;RN;\r\n"
+				+ "\r\n"
+				+ "Joana;;1234;Rua C;5;Natal;RN;\r\n"
+				+ "Maria;01/01/2000;;;;;;\r\n"
+				+ "Jose;02/02/1980;59248970;\"Rua\nD\";6;Natal;RN;x\r\n";
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		JobDTO importacao = this.importarEAguardar("usuarios.csv", csv.getBytes(StandardCharsets.UTF_8));
+
+		assertEquals(Job.Status.CONCLUIDO, importacao.getStatus(), importacao.getMensagem());
+		// carga em massa: as linhas gravadas nao entram no cache de segundo nivel
+		assertEquals(0, statistics.getSecondLevelCachePutCount());
+		assertEquals(7, importacao.getLinhasProcessadas());
+		assertEquals(4, importacao.getLinhasGravadas());
+		assertEquals(3, importacao.getLinhasRecusadas());
+		assertEquals(3, importacao.getUsuariosGravados());
+		assertEquals(3, importacao.getEnderecosGravados());
+		assertTrue(importacao.getLinhasPorSegundo() > 0);
+
+		Usuario ana = usuarioRepository.findAll().stream().filter(usuario -> "Ana Clara".equals(usuario.getNome())).findFirst().get();
+		assertEquals(LocalDate.of(1990, 10, 17), ana.getDataNascimento());
+		List<Endereco> enderecos = enderecoRepository.findByUsuarioId(ana.getId());
+		assertEquals(List.of("Estrada do Cajueiro; s/n", "Praça da Sé, \"lado ímpar\""),
+				enderecos.stream().map(Endereco::getLogradouro).sorted().collect(Collectors.toList()));
+		assertTrue(enderecos.stream().anyMatch(endereco -> "01001000".equals(endereco.getCep()) && Boolean.FALSE.equals(endereco.getPrincipal())));
+		assertEquals(3, usuarioRepository.count());
+		assertEquals(3, enderecoRepository.count());
+
+		// as recusadas: a data invalida (e o endereco que vinha depois dela) na leitura e o CEP invalido na gravacao do bloco
+		List<String> recusadas = this.recusadas(importacao.getId());
+		assertEquals("linha,motivo,id,nome,dataNascimento,cep,logradouro,numero,cidade,estado,principal", recusadas.get(0));
+		assertEquals(List.of("4", "5", "7"), recusadas.subList(1, recusadas.size()).stream()
+				.map(linha -> linha.substring(0, linha.indexOf(','))).collect(Collectors.toList()));
+		assertTrue(recusadas.get(1).startsWith("4,Data de nascimento inválida (dd/MM/yyyy): 31/02/1990,,Pedro"), recusadas.get(1));
+		assertTrue(recusadas.get(3).contains("CEP inválido"), recusadas.get(3));
+	}
+
+	@Test
+	void testeImportarXlsx() throws Exception {
+		ByteArrayOutputStream planilha = new ByteArrayOutputStream();
+		try (SXSSFWorkbook workbook = new SXSSFWorkbook()) {
+			Sheet sheet = workbook.createSheet("Usuarios");
+			CellStyle data = workbook.createCellStyle();
+			data.setDataFormat(workbook.createDataFormat().getFormat("dd/mm/yyyy"));
+			linha(sheet, 0, "Nome", "DataNascimento", "CEP", "Logradouro", "Numero", "Cidade", "Estado", "Principal");
+			for (int i = 1; i <= 5; i++) {
+				Row row = linha(sheet, i, "Usuario " + i, null, null, "Rua " + i, String.valueOf(i), "Natal", "RN", "sim");
+				Cell nascimento = row.createCell(1);
+				nascimento.setCellValue(LocalDate.of(1990, 10, i));
+				nascimento.setCellStyle(data);
+				// CEP digitado como numero
+				row.createCell(2).setCellValue(59248970);
+			}
+			linha(sheet, 6, "Principal invalido", "17/10/1990", "59248970", "Rua 6", "6", "Natal", "RN", "talvez");
+			workbook.write(planilha);
+			workbook.dispose();
+		}
+
+		JobDTO importacao = this.importarEAguardar("usuarios.xlsx", planilha.toByteArray());
+
+		assertEquals(Job.Status.CONCLUIDO, importacao.getStatus(), importacao.getMensagem());
+		assertEquals(6, importacao.getLinhasProcessadas());
+		assertEquals(5, importacao.getUsuariosGravados());
+		assertEquals(5, enderecoRepository.count());
+		assertTrue(usuarioRepository.findAll().stream().allMatch(usuario -> usuario.getDataNascimento().getMonthValue() == 10));
+		assertTrue(enderecoRepository.findAll().stream().allMatch(endereco -> "59248970".equals(endereco.getCep())));
+		// o numero da linha na planilha (o cabecalho e a linha 1)
+		List<String> recusadas = this.recusadas(importacao.getId());
+		assertEquals(2, recusadas.size());
+		assertTrue(recusadas.get(1).startsWith("7,Valor inválido para principal"), recusadas.get(1));
+	}
+
+	@Test
+	void testeImportarArquivoInvalido() throws Exception {
+		ResponseEntity<ResponseWrapper<JobDTO>> semFormato = importacaoService.importar(
+				new MockMultipartFile("arquivo", "usuarios.txt", "text/plain", "nome\nAna".getBytes(StandardCharsets.UTF_8)));
+		assertEquals(HttpStatus.BAD_REQUEST, semFormato.getStatusCode());
+
+		JobDTO semNome = this.importarEAguardar("usuarios.csv", "cep,numero\n59248970,1\n".getBytes(StandardCharsets.UTF_8));
+		assertEquals(Job.Status.FALHOU, semNome.getStatus());
+		assertTrue(semNome.getMensagem().contains("<nome>"), semNome.getMensagem());
+
+		JobDTO xlsxInvalido = this.importarEAguardar("usuarios.xlsx", "nome\nAna".getBytes(StandardCharsets.UTF_8));
+		assertEquals(Job.Status.FALHOU, xlsxInvalido.getStatus());
+		assertNotNull(xlsxInvalido.getMensagem());
+		assertEquals(0, usuarioRepository.count());
+
+		// recusadas de um job que nao existe
+		assertEquals(HttpStatus.NOT_FOUND, jobService.verificarEncerrado(-1L).getStatusCode());
+	}
+
+	@Test
+	void testeImportarAlteracoesPorIdNasParticoes() throws Exception {
+		Usuario ana = usuarioRepository.save(Usuario.builder().nome("Ana").build());
+		Usuario pedro = usuarioRepository.save(Usuario.builder().nome("Pedro").build());
+
+		// cada usuario cadastrado fica na particao do id: as duas linhas da Ana sao gravadas na ordem, a ultima vale
+		String csv = "id,nome,dataNascimento,cep,logradouro,numero,cidade,estado,principal\n"
+				+ ana.getId() + ",Ana Clara,17/10/1990,59248970,Rua A,1,Natal,RN,sim\n"
+				+ ",,,01001000,Rua B,2,São Paulo,SP,\n"
+				+ pedro.getId() + ",Pedro Alves,,,,,,,\n"
+				+ ",Novo 1,,,,,,,\n"
+				+ ",Novo 2,,,,,,,\n"
+				+ ",Novo 3,,,,,,,\n"
+				+ ana.getId() + ",Ana Clara Assis,17/10/1990,,,,,,\n"
+				+ "999999,Sem cadastro,,,,,,,\n"
+				+ "abc,Id ruim,,,,,,,\n";
+
+		JobDTO importacao = this.importarEAguardar("alteracoes.csv", csv.getBytes(StandardCharsets.UTF_8));
+
+		assertEquals(Job.Status.CONCLUIDO, importacao.getStatus(), importacao.getMensagem());
+		assertEquals(2, importacao.getParticoes());
+		assertEquals(9, importacao.getLinhasProcessadas());
+		assertEquals(2, importacao.getLinhasRecusadas());
+		assertEquals(6, importacao.getUsuariosGravados());
+		assertEquals(2, importacao.getEnderecosGravados());
+		assertEquals(5, usuarioRepository.count());
+		assertEquals("Ana Clara Assis", usuarioRepository.findById(ana.getId()).get().getNome());
+		assertEquals("Pedro Alves", usuarioRepository.findById(pedro.getId()).get().getNome());
+		assertEquals(2, enderecoRepository.findByUsuarioId(ana.getId()).size());
+		// os contadores e a ultima linha confirmada ficam nas particoes
+		List<JobParticao> particoes = jobParticaoRepository.findByJobIdOrderByParticao(importacao.getId());
+		assertEquals(2, particoes.size());
+		assertEquals(6, particoes.stream().mapToLong(JobParticao::getUsuariosGravados).sum());
+		assertTrue(particoes.stream().allMatch(particao -> particao.getLinha() > 0));
+
+		List<String> recusadas = this.recusadas(importacao.getId());
+		assertTrue(recusadas.get(1).startsWith("9,Usuário com id <999999> não encontrado"), recusadas.get(1));
+		assertTrue(recusadas.get(2).startsWith("10,Id inválido: abc"), recusadas.get(2));
+	}
+
+	@Test
+	void testeRetomarJobInterrompido() throws Exception {
+		// os usuarios novos vao em rodizio para as duas particoes (a linha 5 e recusada na leitura):
+		// particao 0 = linhas 2, 4 e 7; particao 1 = linhas 3, 6 e 8
+		Path entrada = jobService.novaEntrada("csv");
+		Files.write(entrada, ("nome,dataNascimento\n"
+				+ "U0,\nU1,\nU2,\nRuim,31/02/1990\nU3,\nU4,\nU5,\n").getBytes(StandardCharsets.UTF_8));
+
+		// a execucao anterior parou com a particao 0 confirmada ate a linha 4 e a 1 ate a linha 3
+		usuarioRepository.saveAll(List.of(Usuario.builder().nome("U0").build(), Usuario.builder().nome("U1").build(),
+				Usuario.builder().nome("U2").build()));
+		Job job = jobRepository.save(Job.builder().tipo(Job.Tipo.IMPORTACAO).status(Job.Status.PROCESSANDO)
+				.arquivo("usuarios.csv").entrada(entrada.toString()).particoes(2).linhasRecusadas(1)
+				.criadoEm(Instant.now()).iniciadoEm(Instant.now()).build());
+		jobParticaoRepository.saveAll(List.of(
+				JobParticao.builder().jobId(job.getId()).particao(0).linha(4).linhasGravadas(2).usuariosGravados(2).build(),
+				JobParticao.builder().jobId(job.getId()).particao(1).linha(3).linhasGravadas(1).usuariosGravados(1).build()));
+		// a recusada da linha 5 ja tinha sido gravada: depois da menor linha confirmada, ela e refeita e nao duplicada
+		jobRecusaRepository.save(JobRecusa.builder().jobId(job.getId()).linha(5).motivo("Data inválida").build());
+		// e um job cuja entrada sumiu nao tem como ser retomado
+		Job semEntrada = jobRepository.save(Job.builder().tipo(Job.Tipo.IMPORTACAO).status(Job.Status.AGUARDANDO)
+				.arquivo("perdido.csv").entrada(entrada.resolveSibling("nao-existe.csv").toString()).particoes(2)
+				.criadoEm(Instant.now()).build());
+
+		jobService.retomar();
+		JobDTO retomado = this.aguardar(job.getId());
+
+		assertEquals(Job.Status.CONCLUIDO, retomado.getStatus(), retomado.getMensagem());
+		assertEquals(6, retomado.getUsuariosGravados());
+		assertEquals(1, retomado.getLinhasRecusadas());
+		assertEquals(7, retomado.getLinhasProcessadas());
+		assertEquals(List.of("U0", "U1", "U2", "U3", "U4", "U5"),
+				usuarioRepository.findAll().stream().map(Usuario::getNome).sorted().collect(Collectors.toList()));
+		assertEquals(2, this.recusadas(job.getId()).size());
+		assertFalse(Files.exists(entrada));
+		assertEquals(Job.Status.FALHOU, jobRepository.findById(semEntrada.getId()).get().getStatus());
+	}
+
+	private JobDTO importarEAguardar(String nomeArquivo, byte[] conteudo) throws InterruptedException {
+		ResponseEntity<ResponseWrapper<JobDTO>> response = importacaoService.importar(
+				new MockMultipartFile("arquivo", nomeArquivo, null, conteudo));
+		assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+		return this.aguardar(response.getBody().getData().getId());
+	}
+
+	private JobDTO aguardar(Long id) throws InterruptedException {
+		long limite = System.currentTimeMillis() + 30_000;
+		JobDTO job;
+		do {
+			Thread.sleep(20);
+			job = jobService.consultar(id).getBody().getData();
+		} while ((job.getStatus() == Job.Status.AGUARDANDO || job.getStatus() == Job.Status.PROCESSANDO)
+				&& System.currentTimeMillis() < limite);
+		assertFalse(job.getStatus() == Job.Status.PROCESSANDO, "job não terminou");
+		return job;
+	}
+
+	private List<String> recusadas(Long id) throws IOException {
+		assertNull(jobService.verificarEncerrado(id));
+		ByteArrayOutputStream csv = new ByteArrayOutputStream();
+		jobService.exportarRecusadas(id, csv);
+		return List.of(csv.toString(StandardCharsets.UTF_8).split("\r?\n"));
+	}
+
+	private static Row linha(Sheet sheet, int indice, String... valores) {
+		Row row = sheet.createRow(indice);
+		for (int i = 0; i < valores.length; i++) {
+			if (valores[i] != null) {
+				row.createCell(i).setCellValue(valores[i]);
+			}
+		}
+		return row;
+	}
+}
@@ -0,0 +1,204 @@
+package br.com.gestao.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.gestao.commons.Const;
+import br.com.gestao.entities.Endereco;
+import br.com.gestao.entities.Usuario;
+import br.com.gestao.repositories.EnderecoRepository;
+import br.com.gestao.repositories.UsuarioRepository;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Indice de CEP montado a partir da TB_ENDERECO e ajustado pelos inserts/updates/deletes do Hibernate
+@DataJpaTest(properties = "gestao.indice-cep.habilitado=true")
+@Import(IndiceCep.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IndiceCepTest {
+
+	// sem o actuator no teste o registro global nao tem onde guardar os valores
+	private static final SimpleMeterRegistry registroMetricas = new SimpleMeterRegistry();
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private IndiceCep indiceCep;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private EnderecoRepository enderecoRepository;
+
+	private Usuario usuario;
+
+	private Endereco lagoa1;
+	private Endereco lagoa2;
+	private Endereco se;
+	private Endereco paulista;
+
+	@BeforeAll
+	public static void registrarMetricas() {
+		Metrics.addRegistry(registroMetricas);
+	}
+
+	@AfterAll
+	public static void removerMetricas() {
+		Metrics.removeRegistry(registroMetricas);
+	}
+
+	@BeforeEach
+	public void setUp() {
+		usuario = usuarioRepository.save(Usuario.builder().nome("Manoel Rafael Osvaldo Assis").build());
+		lagoa1 = enderecoRepository.save(novoEndereco("59248970"));
+		lagoa2 = enderecoRepository.save(novoEndereco("59248-970"));
+		se = enderecoRepository.save(novoEndereco("01001000"));
+		paulista = enderecoRepository.save(novoEndereco("01310100"));
+		indiceCep.recarregar();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		enderecoRepository.deleteAllInBatch();
+		usuarioRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void testeBuscaPeloCepComOuSemPontuacao() {
+		assertTrue(indiceCep.isPronto());
+		assertEquals(List.of(lagoa1.getId(), lagoa2.getId()), indiceCep.buscar("59248970", PageRequest.of(0, 10)).getContent());
+		assertEquals(List.of(se.getId()), indiceCep.buscar("01001-000", PageRequest.of(0, 10)).getContent());
+		assertTrue(indiceCep.buscar("99999999", PageRequest.of(0, 10)).isEmpty());
+		// cep invalido: o indice nao resolve e a busca fica com o banco
+		assertNull(indiceCep.buscar("0100100", PageRequest.of(0, 10)));
+		assertNull(indiceCep.buscar("", PageRequest.of(0, 10)));
+	}
+
+	@Test
+	void testeBuscaPaginadaPelaFaixaEmOrdemDeCep() {
+		Page<Long> todos = indiceCep.buscarFaixa("0", PageRequest.of(0, 10));
+		assertEquals(List.of(se.getId(), paulista.getId()), todos.getContent());
+
+		Page<Long> primeira = indiceCep.buscarFaixa("5", PageRequest.of(0, 1));
+		Page<Long> segunda = indiceCep.buscarFaixa("59248", PageRequest.of(1, 1));
+		assertEquals(List.of(lagoa1.getId()), primeira.getContent());
+		assertEquals(List.of(lagoa2.getId()), segunda.getContent());
+		assertEquals(2, segunda.getTotalElements());
+
+		assertEquals(List.of(paulista.getId()), indiceCep.buscarFaixa("0131", PageRequest.of(0, 10)).getContent());
+		assertTrue(indiceCep.buscarFaixa("02", PageRequest.of(0, 10)).isEmpty());
+		assertNull(indiceCep.buscarFaixa("01-3", PageRequest.of(0, 10)));
+	}
+
+	@Test
+	void testeIndiceAcompanhaAsGravacoes() {
+		Endereco novo = enderecoRepository.save(novoEndereco("01001000"));
+		assertEquals(List.of(se.getId(), novo.getId()), indiceCep.buscar("01001000", PageRequest.of(0, 10)).getContent());
+
+		// alterar o cep tira o endereco do cep antigo
+		novo.setCep("01310-100");
+		enderecoRepository.save(novo);
+		assertEquals(List.of(se.getId()), indiceCep.buscar("01001000", PageRequest.of(0, 10)).getContent());
+		assertEquals(List.of(paulista.getId(), novo.getId()), indiceCep.buscar("01310100", PageRequest.of(0, 10)).getContent());
+
+		enderecoRepository.delete(novo);
+		enderecoRepository.delete(se);
+		assertTrue(indiceCep.buscar("01001000", PageRequest.of(0, 10)).isEmpty());
+		assertEquals(List.of(paulista.getId()), indiceCep.buscarFaixa("01", PageRequest.of(0, 10)).getContent());
+	}
+
+	@Test
+	void testeComandoForaDoHibernateApareceNaRecarga() {
+		jdbcTemplate.update("update " + Const.TB_ENDERECO + " set cep = '01001000' where id = ?", paulista.getId());
+		assertEquals(List.of(paulista.getId()), indiceCep.buscar("01310100", PageRequest.of(0, 10)).getContent());
+
+		indiceCep.recarregar();
+
+		assertTrue(indiceCep.buscar("01310100", PageRequest.of(0, 10)).isEmpty());
+		assertEquals(List.of(se.getId(), paulista.getId()), indiceCep.buscar("01001000", PageRequest.of(0, 10)).getContent());
+	}
+
+	@Test
+	void testeBuscaPorFaixaAoMesmoTempoQueAsGravacoes() throws Exception {
+		// ceps novos em ordem decrescente: cada um entra no comeco das chaves ordenadas
+		Map<Long, String> ceps = new ConcurrentHashMap<>();
+		ceps.put(se.getId(), "01001000");
+		ceps.put(paulista.getId(), "01310100");
+		AtomicBoolean gravando = new AtomicBoolean(true);
+		ExecutorService leitores = Executors.newFixedThreadPool(2);
+		try {
+			List<Future<Integer>> buscas = new ArrayList<>();
+			for (int i = 0; i < 2; i++) {
+				buscas.add(leitores.submit(() -> {
+					int feitas = 0;
+					do {
+						Page<Long> pagina = indiceCep.buscarFaixa("0", PageRequest.of(0, 1000));
+						assertEquals(pagina.getTotalElements(), pagina.getContent().size());
+						String anterior = "";
+						for (Long id : pagina.getContent()) {
+							// o indice e ajustado no commit, antes do save devolver o id para o mapa do teste
+							String cep = ceps.getOrDefault(id, anterior);
+							assertTrue(cep.compareTo(anterior) >= 0, "fora de ordem: " + pagina.getContent());
+							anterior = cep;
+						}
+						feitas++;
+						Thread.sleep(1);
+					} while (gravando.get());
+					return feitas;
+				}));
+			}
+			for (int i = 0; i < 100; i++) {
+				String cep = String.format("00%06d", 999_999 - i);
+				ceps.put(enderecoRepository.save(novoEndereco(cep)).getId(), cep);
+			}
+			gravando.set(false);
+			for (Future<Integer> busca : buscas) {
+				assertTrue(busca.get(30, TimeUnit.SECONDS) > 0);
+			}
+		} finally {
+			gravando.set(false);
+			leitores.shutdownNow();
+		}
+		assertEquals(102, indiceCep.buscarFaixa("0", PageRequest.of(0, 1000)).getTotalElements());
+	}
+
+	@Test
+	void testeMemoriaPublicadaNasMetricas() {
+		assertEquals(4, Metrics.globalRegistry.get("indice.cep.enderecos").gauge().value());
+		assertEquals(3, Metrics.globalRegistry.get("indice.cep.ceps").gauge().value());
+		assertTrue(Metrics.globalRegistry.get("indice.cep.memoria").gauge().value() > 0);
+		assertTrue(Metrics.globalRegistry.get("indice.cep.memoria.por.milhao").gauge().value() > 0);
+	}
+
+	private Endereco novoEndereco(String cep) {
+		return Endereco.builder().cep(cep).logradouro("Estrada do Cajueiro, s/n").numero("168").estado("RN")
+				.cidade("Lagoa Salgada").principal(false).usuario(usuario).build();
+	}
+}
@@ -0,0 +1,163 @@
+package br.com.gestao.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import br.com.gestao.commons.Contagem;
+import br.com.gestao.entities.Usuario;
+import br.com.gestao.repositories.UsuarioRepository;
+
+class IndiceNomeUsuarioTest {
+
+	private IndiceNomeUsuario indice;
+
+	private UsuarioRepository usuarioRepository;
+
+	@BeforeEach
+	public void setUp() {
+		usuarioRepository = mock(UsuarioRepository.class);
+		when(usuarioRepository.streamNomes()).thenReturn(Stream.of(
+				new Object[] { 1L, "Manoel Rafael Osvaldo Assis" },
+				new Object[] { 2L, "João Conceição" },
+				new Object[] { 3L, "Ana Clara Assis" },
+				new Object[] { 4L, "ANTÔNIO ASSIS" },
+				new Object[] { 5L, null }));
+		indice = new IndiceNomeUsuario(usuarioRepository, mock(EntityManagerFactory.class), mock(PlatformTransactionManager.class));
+	}
+
+	@Test
+	void testeAntesDeCarregarABuscaFicaComOBanco() {
+		assertFalse(indice.isPronto());
+		assertNull(indice.buscar("assis", PageRequest.of(0, 10)));
+
+		indice.recarregar();
+
+		assertTrue(indice.isPronto());
+		// termo vazio: todos os usuarios, o banco resolve pelo indice da coluna
+		assertNull(indice.buscar(" ", PageRequest.of(0, 10)));
+	}
+
+	@Test
+	void testeBuscaSemAcentoESemMaiusculas() {
+		indice.recarregar();
+
+		assertEquals(List.of(2L), indice.buscar("CONCEICAO", PageRequest.of(0, 10)).getContent());
+		assertEquals(List.of(2L), indice.buscar("joão conceição", PageRequest.of(0, 10)).getContent());
+		assertEquals(List.of(4L), indice.buscar("antonio", PageRequest.of(0, 10)).getContent());
+		assertEquals(List.of(), indice.buscar("silva", PageRequest.of(0, 10)).getContent());
+		// menos de 3 letras: confere todos os nomes
+		assertEquals(List.of(3L, 4L, 1L), indice.buscar("an", PageRequest.of(0, 10)).getContent());
+	}
+
+	@Test
+	void testeBuscaPaginadaNaOrdemDoNome() {
+		indice.recarregar();
+
+		Page<Long> primeira = indice.buscar("assis", PageRequest.of(0, 2));
+		Page<Long> segunda = indice.buscar("assis", PageRequest.of(1, 2));
+
+		assertEquals(List.of(3L, 4L), primeira.getContent());
+		assertEquals(List.of(1L), segunda.getContent());
+		assertEquals(3, primeira.getTotalElements());
+	}
+
+	@Test
+	void testeBuscaAposOCursor() {
+		indice.recarregar();
+
+		assertEquals(List.of(3L, 4L), indice.buscarApos("assis", "", 0L, 2));
+		assertEquals(List.of(1L), indice.buscarApos("assis", "ANTÔNIO ASSIS", 4L, 2));
+		assertEquals(List.of(), indice.buscarApos("assis", "Manoel Rafael Osvaldo Assis", 1L, 2));
+	}
+
+	@Test
+	void testeBuscaAposOCursorComTermoCurto() {
+		indice.recarregar();
+
+		// sem trigrama: percorre a lista ja ordenada a partir do cursor
+		assertEquals(List.of(3L, 4L), indice.buscarApos("an", "", 0L, 2));
+		assertEquals(List.of(1L), indice.buscarApos("an", "ANTÔNIO ASSIS", 4L, 2));
+		assertEquals(List.of(1L), indice.buscar("an", PageRequest.of(1, 2)).getContent());
+		assertEquals(3, indice.buscar("an", PageRequest.of(1, 2)).getTotalElements());
+	}
+
+	@Test
+	void testeBuscaSemContagemExataParaDepoisDaPaginaEEstimaOTotal() {
+		// 100 nomes, metade com "as": na ordem das paginas eles se alternam
+		when(usuarioRepository.streamNomes()).thenReturn(IntStream.range(0, 100)
+				.mapToObj(i -> new Object[] { (long) i, String.format("Usuario %03d %s", i, i % 2 == 0 ? "Assis" : "Lima") }));
+		indice.recarregar();
+
+		// para no 11o nome encontrado (21 conferidos): 11 de 21 aplicado aos 100 nomes
+		Page<Long> primeira = indice.buscar("as", PageRequest.of(0, 10), Contagem.APROXIMADA);
+		assertEquals(List.of(0L, 2L, 4L, 6L, 8L, 10L, 12L, 14L, 16L, 18L), primeira.getContent());
+		assertTrue(primeira.hasNext());
+		assertEquals(52, primeira.getTotalElements());
+		assertEquals(50, indice.buscar("as", PageRequest.of(0, 10), Contagem.EXATA).getTotalElements());
+
+		// a ultima pagina confere ate o fim: total exato
+		Page<Long> ultima = indice.buscar("as", PageRequest.of(4, 10), Contagem.NENHUMA);
+		assertEquals(10, ultima.getNumberOfElements());
+		assertFalse(ultima.hasNext());
+		assertEquals(50, ultima.getTotalElements());
+	}
+
+	@Test
+	void testeAlterarERemover() {
+		indice.recarregar();
+
+		indice.alterar(1L, "Manoel Rafael");
+		indice.alterar(6L, "Pedro Assis");
+		indice.remover(3L);
+
+		assertEquals(List.of(4L, 6L), indice.buscar("assis", PageRequest.of(0, 10)).getContent());
+		assertEquals(List.of(1L), indice.buscar("rafael", PageRequest.of(0, 10)).getContent());
+		assertEquals(List.of(4L, 1L), indice.buscar("an", PageRequest.of(0, 10)).getContent());
+	}
+
+	@Test
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	void testeInsertDeUsuarioConfirmadoEntraNoIndice() {
+		indice.recarregar();
+		EntityPersister persister = mock(EntityPersister.class, Mockito.RETURNS_DEEP_STUBS);
+		when(persister.getMappedClass()).thenReturn((Class) Usuario.class);
+		when(persister.getEntityMetamodel().getPropertyIndex("nome")).thenReturn(0);
+
+		indice.onPostInsert(new PostInsertEvent(null, 6L, new Object[] { "Pedro Assis" }, persister, null));
+
+		assertEquals(4, indice.buscar("assis", PageRequest.of(0, 10)).getTotalElements());
+	}
+
+	@Test
+	void testeAlteracaoDuranteARecargaEntraNoIndiceNovo() {
+		// gravacoes confirmadas enquanto os nomes sao lidos do banco (a leitura nao as ve)
+		when(usuarioRepository.streamNomes()).thenAnswer(invocacao -> {
+			indice.alterar(6L, "Pedro Assis");
+			indice.remover(1L);
+			return Stream.<Object[]>of(new Object[] { 1L, "Manoel Rafael Osvaldo Assis" }, new Object[] { 3L, "Ana Clara Assis" });
+		});
+
+		indice.recarregar();
+
+		assertEquals(List.of(3L, 6L), indice.buscar("assis", PageRequest.of(0, 10)).getContent());
+	}
+}
@@ -0,0 +1,150 @@
+package br.com.gestao.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.gestao.commons.ResponseWrapper;
+import br.com.gestao.config.AppConfiguration;
+import br.com.gestao.dto.EnderecoDTO;
+import br.com.gestao.dto.ItemLoteDTO;
+import br.com.gestao.dto.ResultadoLoteDTO;
+import br.com.gestao.dto.UsuarioDTO;
+import br.com.gestao.entities.Endereco;
+import br.com.gestao.entities.Usuario;
+import br.com.gestao.repositories.EnderecoRepository;
+import br.com.gestao.repositories.UsuarioRepository;
+
+@DataJpaTest(properties = { "spring.jpa.properties.hibernate.generate_statistics=true",
+		"gestao.lote.tamanho-bloco=40", "gestao.lote.maximo-itens=150" })
+@Import({ AppConfiguration.class, LoteUsuarioService.class, CacheCadastro.class, IndiceNomeUsuario.class })
+// sem transacao do teste: o servico abre uma transacao por bloco
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LoteUsuarioServiceTest {
+
+	@Autowired
+	private LoteUsuarioService loteUsuarioService;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private EnderecoRepository enderecoRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private IndiceNomeUsuario indiceNomeUsuario;
+
+	@AfterEach
+	public void tearDown() {
+		enderecoRepository.deleteAllInBatch();
+		usuarioRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void testeSalvarLoteComInsertsAgrupados() {
+		List<UsuarioDTO> lote = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			lote.add(novoUsuario("Usuario " + i, "1"));
+		}
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		ResponseEntity<ResponseWrapper<ResultadoLoteDTO>> response = loteUsuarioService.salvarLote(lote);
+
+		ResultadoLoteDTO resultado = response.getBody().getData();
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(100, resultado.getGravados());
+		assertEquals(0, resultado.getErros());
+		assertEquals(300, resultado.getLinhas());
+		assertEquals(100, resultado.getItens().stream().map(ItemLoteDTO::getId).distinct().count());
+		assertTrue(resultado.getItens().stream().allMatch(item -> item.getStatus() == ItemLoteDTO.Status.CRIADO));
+		assertEquals(100, usuarioRepository.count());
+		assertEquals(200, enderecoRepository.count());
+		// 3 blocos: inserts em lotes de 50 e um bloco de ids por ida a sequence, em vez de 2 comandos por linha
+		assertTrue(statistics.getPrepareStatementCount() < 30, "comandos SQL: " + statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void testeSalvarLoteComAlteracoesEErros() {
+		Usuario cadastrado = usuarioRepository.save(Usuario.builder().nome("Manoel Assis").build());
+		Endereco enderecoCadastrado = enderecoRepository.save(Endereco.builder().cep("59248970")
+				.logradouro("Estrada do Cajueiro, s/n").numero("1").principal(true).usuario(cadastrado).build());
+
+		UsuarioDTO alterado = UsuarioDTO.builder().id(cadastrado.getId()).nome("Manoel Rafael Osvaldo Assis").build();
+		alterado.getEnderecos().add(EnderecoDTO.builder().id(enderecoCadastrado.getId()).cep("59248-970")
+				.logradouro("Rua do Cajueiro").numero("2").build());
+		// o novo endereco passa a ser o principal no lugar do cadastrado
+		alterado.getEnderecos().add(EnderecoDTO.builder().cep("01001000").numero("3").principal(true).build());
+
+		List<UsuarioDTO> lote = List.of(novoUsuario("Ana Clara", "1"), alterado,
+				UsuarioDTO.builder().id(-1L).nome("Inexistente").build(),
+				novoUsuario("Sem CEP", "1"),
+				// numero maior que a coluna: so o banco recusa, e so esse item fica de fora
+				novoUsuario("Numero invalido", "12345"), novoUsuario("Pedro", "2"));
+		lote.get(3).getEnderecos().get(0).setCep(null);
+		indiceNomeUsuario.recarregar();
+
+		ResultadoLoteDTO resultado = loteUsuarioService.salvarLote(lote).getBody().getData();
+
+		List<ItemLoteDTO.Status> status = resultado.getItens().stream().map(ItemLoteDTO::getStatus).collect(Collectors.toList());
+		assertEquals(List.of(ItemLoteDTO.Status.CRIADO, ItemLoteDTO.Status.ALTERADO, ItemLoteDTO.Status.ERRO,
+				ItemLoteDTO.Status.ERRO, ItemLoteDTO.Status.ERRO, ItemLoteDTO.Status.CRIADO), status);
+		assertEquals(3, resultado.getGravados());
+		assertNotNull(resultado.getItens().get(4).getMensagem());
+		assertEquals(3, usuarioRepository.count());
+		assertEquals("Manoel Rafael Osvaldo Assis", usuarioRepository.findById(cadastrado.getId()).get().getNome());
+		List<Endereco> enderecos = enderecoRepository.findByUsuarioId(cadastrado.getId());
+		assertEquals(2, enderecos.size());
+		assertTrue(enderecos.stream().anyMatch(item -> "Rua do Cajueiro".equals(item.getLogradouro()) && "59248970".equals(item.getCep())));
+		assertEquals(List.of("01001000"), enderecos.stream().filter(item -> Boolean.TRUE.equals(item.getPrincipal()))
+				.map(Endereco::getCep).collect(Collectors.toList()));
+		// o indice de nomes recebe so os itens gravados, com o nome novo dos alterados
+		assertEquals(List.of(cadastrado.getId()), indiceNomeUsuario.buscar("osvaldo", PageRequest.of(0, 10)).getContent());
+		assertEquals(1, indiceNomeUsuario.buscar("pedro", PageRequest.of(0, 10)).getTotalElements());
+		assertEquals(0, indiceNomeUsuario.buscar("invalido", PageRequest.of(0, 10)).getTotalElements());
+	}
+
+	@Test
+	void testeSalvarLoteAcimaDoLimite() {
+		List<UsuarioDTO> lote = new ArrayList<>();
+		for (int i = 0; i < 151; i++) {
+			lote.add(novoUsuario("Usuario " + i, "1"));
+		}
+
+		ResponseEntity<ResponseWrapper<ResultadoLoteDTO>> response = loteUsuarioService.salvarLote(lote);
+
+		assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+		assertEquals(0, usuarioRepository.count());
+	}
+
+	private static UsuarioDTO novoUsuario(String nome, String numero) {
+		UsuarioDTO usuario = UsuarioDTO.builder().nome(nome).build();
+		usuario.getEnderecos().add(EnderecoDTO.builder().cep("59248970").logradouro("Estrada do Cajueiro, s/n")
+				.numero(numero).estado("RN").cidade("Lagoa Salgada").principal(true).build());
+		usuario.getEnderecos().add(EnderecoDTO.builder().cep("59248970").logradouro("Rua Principal")
+				.numero(numero).estado("RN").cidade("Lagoa Salgada").build());
+		return usuario;
+	}
+}
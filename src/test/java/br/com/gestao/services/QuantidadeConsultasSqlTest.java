@@ -0,0 +1,278 @@
+package br.com.gestao.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.gestao.commons.Contagem;
+import br.com.gestao.commons.CursorPage;
+import br.com.gestao.config.AppConfiguration;
+import br.com.gestao.dto.BuscaLoteDTO;
+import br.com.gestao.dto.EnderecoDTO;
+import br.com.gestao.dto.UsuarioDTO;
+import br.com.gestao.entities.Endereco;
+import br.com.gestao.entities.Usuario;
+import br.com.gestao.repositories.EnderecoRepository;
+import br.com.gestao.repositories.UsuarioRepository;
+
+// Garante que cada consulta dos servicos executa um numero fixo de comandos SQL,
+// independente da quantidade de usuarios e enderecos retornados (sem N+1)
+// cache de segundo nivel desligado: aqui interessa o SQL que cada consulta gera quando vai ao banco
+@DataJpaTest(properties = { "spring.jpa.properties.hibernate.generate_statistics=true",
+		"spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+		"spring.jpa.properties.hibernate.cache.use_query_cache=false" })
+@Import({ AppConfiguration.class, UsuarioService.class, EnderecoService.class, CacheCadastro.class, IndiceNomeUsuario.class,
+		AutocompleteEndereco.class, IndiceCep.class,
+		ConsultasCompartilhadas.class, ContagemAproximada.class })
+// sem transacao do teste: cada chamada do servico roda como em uma requisicao real
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class QuantidadeConsultasSqlTest {
+
+	private static final int QUANTIDADE_USUARIOS = 5;
+	private static final int ENDERECOS_POR_USUARIO = 4;
+	private static final int TAMANHO_PAGINA = 3;
+
+	@Autowired
+	private UsuarioService usuarioService;
+
+	@Autowired
+	private EnderecoService enderecoService;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private EnderecoRepository enderecoRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private IndiceNomeUsuario indiceNomeUsuario;
+
+	@Autowired
+	private IndiceCep indiceCep;
+
+	private Statistics statistics;
+
+	private List<Usuario> usuarios = new ArrayList<>();
+
+	@BeforeEach
+	public void setUp() {
+		for (int i = 0; i < QUANTIDADE_USUARIOS; i++) {
+			Usuario usuario = usuarioRepository.save(Usuario.builder().nome("Usuario " + i).build());
+			for (int j = 0; j < ENDERECOS_POR_USUARIO; j++) {
+				enderecoRepository.save(Endereco.builder().cep("59248970").logradouro("Estrada do Cajueiro, s/n")
+						.numero(String.valueOf(j)).estado("RN").cidade("Lagoa Salgada").usuario(usuario).build());
+			}
+			usuarios.add(usuario);
+		}
+		// os usuarios foram gravados direto pelo repository: o indice de nomes e montado a partir do banco
+		indiceNomeUsuario.recarregar();
+		indiceCep.recarregar();
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		enderecoRepository.deleteAllInBatch();
+		usuarioRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void testeBuscaUsuarioPorIdExecutaUmComando() {
+		assertEquals(HttpStatus.OK, usuarioService.findById(usuarios.get(0).getId()).getStatusCode());
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void testeBuscaTodosUsuariosExecutaUmComando() {
+		assertEquals(QUANTIDADE_USUARIOS, usuarioService.findAll().getBody().getData().size());
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void testeBuscaUsuariosPorPaginaExecutaTresComandos() {
+		// pagina + count + enderecos dos usuarios da pagina
+		assertEquals(HttpStatus.OK, usuarioService.findAll(1, TAMANHO_PAGINA).getStatusCode());
+		assertEquals(3, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void testeBuscaUsuariosPorNomeExecutaUmComando() {
+		// ids e total da pagina vem do indice de nomes: so os usuarios + enderecos da pagina vao ao banco
+		assertEquals(HttpStatus.OK, usuarioService.findByNomeLike(1, TAMANHO_PAGINA, "usuário").getStatusCode());
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void testeBuscaEnderecosDeUmUsuarioExecutaDoisComandos() {
+		assertEquals(HttpStatus.OK, usuarioService.findEnderecoByIdUsuario(usuarios.get(0).getId(), 1, TAMANHO_PAGINA).getStatusCode());
+		assertEquals(2, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void testeSalvarEnderecoPrincipalNaoListaOsEnderecos() {
+		// usuario + busca do principal atual (pelo indice) + insert, independente da quantidade de enderecos
+		EnderecoDTO principal = EnderecoDTO.builder().cep("01001000").numero("9").principal(true).build();
+		assertEquals(HttpStatus.CREATED, usuarioService.salvarEndereco(principal, usuarios.get(0).getId()).getStatusCode());
+		assertEquals(3, statistics.getPrepareStatementCount());
+
+		// com um principal cadastrado, mais o update que o desmarca
+		statistics.clear();
+		EnderecoDTO novoPrincipal = EnderecoDTO.builder().cep("59248970").numero("10").principal(true).build();
+		assertEquals(HttpStatus.CREATED, usuarioService.salvarEndereco(novoPrincipal, usuarios.get(0).getId()).getStatusCode());
+		assertEquals(4, statistics.getPrepareStatementCount());
+		assertEquals(1, enderecoRepository.findByUsuarioId(usuarios.get(0).getId()).stream()
+				.filter(item -> Boolean.TRUE.equals(item.getPrincipal())).count());
+	}
+
+	@Test
+	void testeBuscaEnderecoPorIdExecutaUmComando() {
+		Long id = enderecoRepository.findByUsuarioId(usuarios.get(0).getId()).get(0).getId();
+		statistics.clear();
+		assertEquals(HttpStatus.OK, enderecoService.findById(id).getStatusCode());
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void testeBuscaTodosEnderecosExecutaUmComando() {
+		assertEquals(QUANTIDADE_USUARIOS * ENDERECOS_POR_USUARIO, enderecoService.findAll().getBody().getData().size());
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void testeBuscaEnderecosPorPaginaExecutaDoisComandos() {
+		assertEquals(HttpStatus.OK, enderecoService.findAll(1, TAMANHO_PAGINA).getStatusCode());
+		assertEquals(2, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void testeBuscaEnderecosPorCepExecutaUmComando() {
+		// os ids e o total vem do indice de CEP: so os enderecos da pagina sao lidos, sem count
+		assertEquals(HttpStatus.OK, enderecoService.findByCep(1, TAMANHO_PAGINA, "59248970").getStatusCode());
+		assertEquals(1, statistics.getPrepareStatementCount());
+		statistics.clear();
+		assertEquals(HttpStatus.OK, enderecoService.findByFaixaCep(2, TAMANHO_PAGINA, "59").getStatusCode());
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void testeBuscaEnderecosPorCidadeEstadoExecutaDoisComandos() {
+		assertEquals(HttpStatus.OK, enderecoService.findByCidade(1, TAMANHO_PAGINA, "Lagoa Salgada").getStatusCode());
+		assertEquals(2, statistics.getPrepareStatementCount());
+		statistics.clear();
+		assertEquals(HttpStatus.OK, enderecoService.findByEstado(1, TAMANHO_PAGINA, "RN").getStatusCode());
+		assertEquals(2, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void testeBuscaPaginadaSemContagemNaoFazCount() {
+		// count=false: so o select da pagina (com uma linha a mais para o hasNext)
+		Slice<EnderecoDTO> enderecos = enderecoService.findAll(1, TAMANHO_PAGINA, Contagem.NENHUMA).getBody().getData();
+		assertEquals(1, statistics.getPrepareStatementCount());
+		assertEquals(TAMANHO_PAGINA, enderecos.getNumberOfElements());
+		assertTrue(enderecos.hasNext());
+		assertFalse(enderecos instanceof Page);
+
+		statistics.clear();
+		assertEquals(HttpStatus.OK, enderecoService.findByCidade(1, TAMANHO_PAGINA, "Lagoa Salgada", Contagem.NENHUMA).getStatusCode());
+		assertEquals(1, statistics.getPrepareStatementCount());
+
+		statistics.clear();
+		assertEquals(HttpStatus.OK, usuarioService.findEnderecoByIdUsuario(usuarios.get(0).getId(), 1, TAMANHO_PAGINA, Contagem.NENHUMA).getStatusCode());
+		assertEquals(1, statistics.getPrepareStatementCount());
+
+		// pagina + enderecos dos usuarios da pagina
+		statistics.clear();
+		assertFalse(usuarioService.findAll(2, TAMANHO_PAGINA, Contagem.NENHUMA).getBody().getData().hasNext());
+		assertEquals(2, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void testeContagemAproximadaFazOCountSoNaPrimeiraPagina() {
+		Page<EnderecoDTO> primeira = (Page<EnderecoDTO>) enderecoService.findByEstado(1, TAMANHO_PAGINA, "RN", Contagem.APROXIMADA).getBody().getData();
+		assertEquals(2, statistics.getPrepareStatementCount());
+		assertEquals(QUANTIDADE_USUARIOS * ENDERECOS_POR_USUARIO, primeira.getTotalElements());
+
+		// as paginas seguintes do mesmo filtro usam o total guardado
+		statistics.clear();
+		Page<EnderecoDTO> segunda = (Page<EnderecoDTO>) enderecoService.findByEstado(2, TAMANHO_PAGINA, "RN", Contagem.APROXIMADA).getBody().getData();
+		assertEquals(1, statistics.getPrepareStatementCount());
+		assertEquals(QUANTIDADE_USUARIOS * ENDERECOS_POR_USUARIO, segunda.getTotalElements());
+	}
+
+	@Test
+	void testeBuscaLoteExecutaUmComandoNaOrdemEnviada() {
+		List<Long> ids = List.of(usuarios.get(3).getId(), -1L, usuarios.get(0).getId(), usuarios.get(3).getId());
+
+		BuscaLoteDTO<UsuarioDTO> lote = usuarioService.buscarLote(ids).getBody().getData();
+		assertEquals(1, statistics.getPrepareStatementCount());
+		assertEquals(List.of(usuarios.get(3).getId(), usuarios.get(0).getId()),
+				lote.getEncontrados().stream().map(UsuarioDTO::getId).collect(Collectors.toList()));
+		assertEquals(ENDERECOS_POR_USUARIO, lote.getEncontrados().get(0).getEnderecos().size());
+		assertEquals(List.of(-1L), lote.getNaoEncontrados());
+
+		statistics.clear();
+		List<Long> idsEnderecos = enderecoRepository.findAll(Sort.by("id").descending()).stream().map(Endereco::getId)
+				.collect(Collectors.toList());
+		statistics.clear();
+		BuscaLoteDTO<EnderecoDTO> enderecos = enderecoService.buscarLote(idsEnderecos).getBody().getData();
+		assertEquals(1, statistics.getPrepareStatementCount());
+		assertEquals(idsEnderecos, enderecos.getEncontrados().stream().map(EnderecoDTO::getId).collect(Collectors.toList()));
+	}
+
+	@Test
+	void testeBuscaEnderecosPorCursorExecutaUmComandoSemCount() {
+		// percorre todas as paginas: cada pagina executa apenas o select com limite, em qualquer profundidade
+		Set<Long> ids = new HashSet<>();
+		String after = null;
+		do {
+			statistics.clear();
+			CursorPage<EnderecoDTO> page = enderecoService.findByEstadoCursor(after, TAMANHO_PAGINA, "RN").getBody().getData();
+			assertEquals(1, statistics.getPrepareStatementCount());
+			page.getContent().forEach(item -> ids.add(item.getId()));
+			after = page.getNext();
+		} while (after != null);
+		assertEquals(QUANTIDADE_USUARIOS * ENDERECOS_POR_USUARIO, ids.size());
+	}
+
+	@Test
+	void testeBuscaUsuariosPorNomeComCursorExecutaUmComando() {
+		// ids da pagina vem do indice de nomes: so os usuarios + enderecos da pagina vao ao banco
+		Set<Long> ids = new HashSet<>();
+		String after = null;
+		do {
+			statistics.clear();
+			CursorPage<UsuarioDTO> page = usuarioService.findByNomeLikeCursor(after, 2, "Usuario").getBody().getData();
+			assertEquals(1, statistics.getPrepareStatementCount());
+			page.getContent().forEach(item -> ids.add(item.getId()));
+			after = page.getNext();
+		} while (after != null);
+		assertEquals(QUANTIDADE_USUARIOS, ids.size());
+	}
+}
@@ -2,34 +2,50 @@ package br.com.gestao.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
-import org.modelmapper.ModelMapper;
+import org.mockito.Spy;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import br.com.gestao.commons.Cursor;
+import br.com.gestao.commons.CursorPage;
 import br.com.gestao.commons.ResponseWrapper;
+import br.com.gestao.dto.BuscaLoteDTO;
 import br.com.gestao.dto.EnderecoDTO;
 import br.com.gestao.dto.UsuarioDTO;
 import br.com.gestao.entities.Endereco;
 import br.com.gestao.entities.Usuario;
+import br.com.gestao.mappers.EnderecoMapper;
+import br.com.gestao.mappers.UsuarioMapper;
 import br.com.gestao.repositories.EnderecoRepository;
 import br.com.gestao.repositories.UsuarioRepository;
+import br.com.gestao.repositories.UsuarioRepository.LinhaUsuario;
 
 class UsuarioServiceTest {
 
@@ -42,8 +58,28 @@ class UsuarioServiceTest {
 	@Mock
 	private UsuarioRepository usuarioRepository;
 
+	@Spy
+	private UsuarioMapper usuarioMapper = Mappers.getMapper(UsuarioMapper.class);
+
+	@Spy
+	private EnderecoMapper enderecoMapper = Mappers.getMapper(EnderecoMapper.class);
+
+	@Spy
+	private CacheCadastro cacheCadastro = new CacheCadastro(new NoOpCacheManager());
+
+	@Spy
+	private ConsultasCompartilhadas consultasCompartilhadas = new ConsultasCompartilhadas();
+
+	@Spy
+	private ContagemAproximada contagemAproximada = new ContagemAproximada(Duration.ofSeconds(60), 100, Ticker.systemTicker(), Runnable::run);
+
+	// indice de nomes respondendo null (carregando): a busca por nome vai ao repository
 	@Mock
-	private ModelMapper modelMapper;
+	private IndiceNomeUsuario indiceNomeUsuario;
+
+	// o TransactionTemplate do servico roda a gravacao direto com o gerenciador simulado
+	@Mock
+	private PlatformTransactionManager transactionManager;
 
 	Endereco endereco;
 	EnderecoDTO enderecoDTO;
@@ -51,16 +87,17 @@ class UsuarioServiceTest {
 	List<EnderecoDTO> enderecosDTO = new ArrayList<>();
 	List<Endereco> enderecosEmpty = new ArrayList<>();
 	
-	private Page<Endereco> pageEndereco;
-	private Page<Endereco> pageEnderecoEmpty;
+	private Page<EnderecoDTO> pageEndereco;
+	private Page<EnderecoDTO> pageEnderecoEmpty;
 	
 	Usuario usuario;
 	UsuarioDTO usuarioDTO;
 	List<Usuario> usuarios = new ArrayList<>();
 	List<Usuario> usuariosEmpty = new ArrayList<>();
 	
-	private Page<Usuario> pageUsuario;
-	private Page<Usuario> pageUsuarioEmpty;
+	// paginas de ids das listagens: os dados vem da projecao (findLinhasByIdIn)
+	private Page<Long> pageUsuario;
+	private Page<Long> pageUsuarioEmpty;
 	
 	@BeforeEach
 	public void setUp() {
@@ -72,15 +109,15 @@ class UsuarioServiceTest {
 				.estado("RN").cidade("Lagoa Salgada").build();
 		enderecos.add(endereco);
 		enderecosDTO.add(enderecoDTO);
-		pageEndereco = new PageImpl<>(enderecos);
-		pageEnderecoEmpty = new PageImpl<>(enderecosEmpty);
+		pageEndereco = new PageImpl<>(enderecosDTO);
+		pageEnderecoEmpty = new PageImpl<>(new ArrayList<>());
 		
 		usuario = Usuario.builder().id(1L).nome("Manoel Rafael Osvaldo Assis").enderecos(enderecos).build();
 		usuarioDTO = UsuarioDTO.builder().id(1L).nome("Manoel Rafael Osvaldo Assis").enderecos(enderecosDTO).build();
 		usuarios.add(usuario);
 		
-		pageUsuario = new PageImpl<>(usuarios);
-		pageUsuarioEmpty = new PageImpl<>(usuariosEmpty);
+		pageUsuario = new PageImpl<>(List.of(usuario.getId()));
+		pageUsuarioEmpty = new PageImpl<>(new ArrayList<>());
 		
 		MockitoAnnotations.initMocks(this);
 	}
@@ -89,21 +126,7 @@ class UsuarioServiceTest {
 	void testeBuscaUsuarioPorIdComSucesso() throws Exception {
 
 		// Configurar comportamento simulado do repository
-		when(usuarioRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(usuario));
-
-		// Configuração do comportamento simulado do ModelMapper
-		when(modelMapper.map(any(Usuario.class), eq(UsuarioDTO.class))).thenAnswer(invocation -> {
-			Usuario usuario1 = invocation.getArgument(0);
-			Endereco endereco1 = usuario1.getEnderecos().get(0);
-			EnderecoDTO enderecoDTO = EnderecoDTO.builder().id(endereco1.getId()).cep(endereco1.getCep())
-					.logradouro(endereco1.getLogradouro()).numero(endereco1.getNumero()).estado(endereco1.getEstado())
-					.cidade(endereco1.getCidade()).principal(endereco1.getPrincipal()).build();
-			List<EnderecoDTO> enderecos = new ArrayList<>();
-			enderecos.add(enderecoDTO);
-			UsuarioDTO usuarioDTO = UsuarioDTO.builder().id(usuario1.getId()).nome(usuario1.getNome())
-					.enderecos(enderecos).build();
-			return usuarioDTO;
-		});
+		when(usuarioRepository.findComEnderecosById(Mockito.anyLong())).thenReturn(Optional.of(usuario));
 
 		// Execução do método a ser testado
 		ResponseEntity<ResponseWrapper<UsuarioDTO>> responseEntity = usuarioService.findById(usuario.getId());
@@ -118,7 +141,7 @@ class UsuarioServiceTest {
 	void testeBuscaUsuarioPorIdComErro() throws Exception {
 
 		// Configurar comportamento simulado do repository
-		when(usuarioRepository.findById(Mockito.anyLong())).thenReturn(Optional.empty());
+		when(usuarioRepository.findComEnderecosById(Mockito.anyLong())).thenReturn(Optional.empty());
 
 		// Execução do método a ser testado
 		ResponseEntity<ResponseWrapper<UsuarioDTO>> responseEntity = usuarioService.findById(usuario.getId());
@@ -127,25 +150,39 @@ class UsuarioServiceTest {
 		assertEquals(HttpStatus.NOT_FOUND, responseEntity.getStatusCode());
 	}
 	
+	@Test
+	void testeBuscaLoteNaOrdemEnviadaInformaOsNaoEncontrados() throws Exception {
+
+		// Configurar comportamento simulado do repository
+		Usuario outro = Usuario.builder().id(7L).nome("Ana Clara Assis").build();
+		when(usuarioRepository.findComEnderecosByIdIn(Mockito.anyCollection())).thenReturn(List.of(usuario, outro));
+
+		// Execução do método a ser testado
+		ResponseEntity<ResponseWrapper<BuscaLoteDTO<UsuarioDTO>>> responseEntity = usuarioService.buscarLote(List.of(7L, 99L, usuario.getId()));
+
+		// Verificação do resultado
+		assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+		assertEquals(List.of(7L, usuario.getId()),
+				responseEntity.getBody().getData().getEncontrados().stream().map(UsuarioDTO::getId).collect(Collectors.toList()));
+		assertEquals(List.of(99L), responseEntity.getBody().getData().getNaoEncontrados());
+	}
+
+	@Test
+	void testeBuscaLoteSemIdsRetornaErro() throws Exception {
+
+		// Execução do método a ser testado
+		ResponseEntity<ResponseWrapper<BuscaLoteDTO<UsuarioDTO>>> responseEntity = usuarioService.buscarLote(List.of());
+
+		// Verificação do resultado
+		assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+		Mockito.verifyNoInteractions(usuarioRepository);
+	}
+
 	@Test
 	void testeBuscaTodosUsuariosRetornaSucesso() throws Exception {
 
 		// Configurar comportamento simulado do repository
-		when(usuarioRepository.findAll()).thenReturn(usuarios);
-
-		// Configuração do comportamento simulado do ModelMapper
-		when(modelMapper.map(any(), eq(UsuarioDTO.class))).thenAnswer(invocation -> {
-			Usuario usuario1 = invocation.getArgument(0);
-			Endereco endereco1 = usuario1.getEnderecos().get(0);
-			EnderecoDTO enderecoDTO = EnderecoDTO.builder().id(endereco1.getId()).cep(endereco1.getCep())
-					.logradouro(endereco1.getLogradouro()).numero(endereco1.getNumero()).estado(endereco1.getEstado())
-					.cidade(endereco1.getCidade()).principal(endereco1.getPrincipal()).build();
-			List<EnderecoDTO> enderecos = new ArrayList<>();
-			enderecos.add(enderecoDTO);
-			UsuarioDTO usuarioDTO = UsuarioDTO.builder().id(usuario1.getId()).nome(usuario1.getNome())
-					.enderecos(enderecos).build();
-			return usuarioDTO;
-		});
+		when(usuarioRepository.listAllComEnderecos()).thenReturn(usuarios);
 
 		// Execução do método a ser testado
 		ResponseEntity<ResponseWrapper<List<UsuarioDTO>>> responseEntity = usuarioService.findAll();
@@ -160,7 +197,7 @@ class UsuarioServiceTest {
 	void testeBuscaTodosUsuariosRetornaErro() throws Exception {
 
 		// Configurar comportamento simulado do repository
-		when(usuarioRepository.findAll()).thenReturn(usuariosEmpty);
+		when(usuarioRepository.listAllComEnderecos()).thenReturn(usuariosEmpty);
 
 		// Execução do método a ser testado
 		ResponseEntity<ResponseWrapper<List<UsuarioDTO>>> responseEntity = usuarioService.findAll();
@@ -173,21 +210,8 @@ class UsuarioServiceTest {
 	void testeBuscaTodosUsuariosComMesmoNomeRetornaSucesso() throws Exception {
 
 		// Configurar comportamento simulado do repository
-		when(usuarioRepository.findByNomeLike(Mockito.any(), Mockito.any())).thenReturn(pageUsuario);
-
-		// Configuração do comportamento simulado do ModelMapper
-		when(modelMapper.map(any(), eq(UsuarioDTO.class))).thenAnswer(invocation -> {
-			Usuario usuario1 = invocation.getArgument(0);
-			Endereco endereco1 = usuario1.getEnderecos().get(0);
-			EnderecoDTO enderecoDTO = EnderecoDTO.builder().id(endereco1.getId()).cep(endereco1.getCep())
-					.logradouro(endereco1.getLogradouro()).numero(endereco1.getNumero()).estado(endereco1.getEstado())
-					.cidade(endereco1.getCidade()).principal(endereco1.getPrincipal()).build();
-			List<EnderecoDTO> enderecos = new ArrayList<>();
-			enderecos.add(enderecoDTO);
-			UsuarioDTO usuarioDTO = UsuarioDTO.builder().id(usuario1.getId()).nome(usuario1.getNome())
-					.enderecos(enderecos).build();
-			return usuarioDTO;
-		});
+		when(usuarioRepository.findIdsByNomeLike(Mockito.any(), Mockito.any())).thenReturn(pageUsuario);
+		when(usuarioRepository.findLinhasByIdIn(Mockito.any())).thenReturn(List.of(linha(usuario, endereco)));
 
 		// Execução do método a ser testado
 		ResponseEntity<ResponseWrapper<Page<UsuarioDTO>>> responseEntity = usuarioService.findByNomeLike(1, 50, usuario.getNome());
@@ -198,11 +222,30 @@ class UsuarioServiceTest {
 		assertEquals(null, responseEntity.getBody().getMessage());
 	}
 	
+	@Test
+	void testeBuscaUsuariosPorNomePeloIndiceMantemAOrdemDoIndice() throws Exception {
+
+		// Configurar comportamento simulado do indice e do repository
+		Usuario usuario2 = Usuario.builder().id(2L).nome("Ana Clara Assis").build();
+		when(indiceNomeUsuario.buscar(Mockito.any(), Mockito.any())).thenReturn(new PageImpl<>(List.of(2L, 1L, 3L), PageRequest.of(0, 3), 7));
+		when(usuarioRepository.findLinhasByIdIn(Mockito.any())).thenReturn(List.of(linha(usuario, endereco), linha(usuario2, null)));
+
+		// Execução do método a ser testado
+		ResponseEntity<ResponseWrapper<Page<UsuarioDTO>>> responseEntity = usuarioService.findByNomeLike(1, 3, "assis");
+
+		// Verificação do resultado: o id 3 nao existe mais no banco e sai da pagina e do indice
+		assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+		assertEquals(List.of(2L, usuario.getId()), responseEntity.getBody().getData().getContent().stream().map(UsuarioDTO::getId).collect(Collectors.toList()));
+		assertEquals(6, responseEntity.getBody().getData().getTotalElements());
+		Mockito.verify(usuarioRepository, Mockito.never()).findIdsByNomeLike(Mockito.any(), Mockito.any());
+		Mockito.verify(indiceNomeUsuario).remover(3L);
+	}
+
 	@Test
 	void testeBuscaTodosUsuariosComMesmoNomeRetornaErro() throws Exception {
 
 		// Configurar comportamento simulado do repository
-		when(usuarioRepository.findByNomeLike(Mockito.any(), Mockito.any())).thenReturn(pageUsuarioEmpty);
+		when(usuarioRepository.findIdsByNomeLike(Mockito.any(), Mockito.any())).thenReturn(pageUsuarioEmpty);
 
 		// Execução do método a ser testado
 		ResponseEntity<ResponseWrapper<Page<UsuarioDTO>>> responseEntity = usuarioService.findByNomeLike(1, 50, usuario.getNome());
@@ -215,16 +258,7 @@ class UsuarioServiceTest {
 	void testeBuscaTodosEnderecosDeUmUsuarioRetornaSucesso() throws Exception {
 
 		// Configurar comportamento simulado do repository
-		when(enderecoRepository.findByUsuarioId(Mockito.any(), Mockito.any())).thenReturn(pageEndereco);
-
-		// Configuração do comportamento simulado do ModelMapper
-		when(modelMapper.map(any(), eq(EnderecoDTO.class))).thenAnswer(invocation -> {
-			Endereco endereco1 = invocation.getArgument(0);
-			EnderecoDTO enderecoDTO = EnderecoDTO.builder().id(endereco1.getId()).cep(endereco1.getCep())
-					.logradouro(endereco1.getLogradouro()).numero(endereco1.getNumero()).estado(endereco1.getEstado())
-					.cidade(endereco1.getCidade()).principal(endereco1.getPrincipal()).build();
-			return enderecoDTO;
-		});
+		when(enderecoRepository.findDtoByUsuarioId(Mockito.any(), Mockito.any())).thenReturn(pageEndereco);
 
 		// Execução do método a ser testado
 		ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>>  responseEntity = usuarioService.findEnderecoByIdUsuario(usuario.getId(), 1, 50);
@@ -239,7 +273,7 @@ class UsuarioServiceTest {
 	void testeBuscaTodosEnderecosDeUmUsuarioRetornaErro() throws Exception {
 
 		// Configurar comportamento simulado do repository
-		when(enderecoRepository.findByUsuarioId(Mockito.any(), Mockito.any())).thenReturn(pageEnderecoEmpty);
+		when(enderecoRepository.findDtoByUsuarioId(Mockito.any(), Mockito.any())).thenReturn(pageEnderecoEmpty);
 
 		// Execução do método a ser testado
 		ResponseEntity<ResponseWrapper<Page<EnderecoDTO>>>  responseEntity = usuarioService.findEnderecoByIdUsuario(usuario.getId(), 1, 50);
@@ -252,21 +286,8 @@ class UsuarioServiceTest {
 	void testeBuscaTodosUsuariosComPaginacaoRetornaSucesso() throws Exception {
 
 		// Configurar comportamento simulado do repository
-		when(usuarioRepository.listAllByPages(Mockito.any())).thenReturn(pageUsuario);
-
-		// Configuração do comportamento simulado do ModelMapper
-		when(modelMapper.map(any(), eq(UsuarioDTO.class))).thenAnswer(invocation -> {
-			Usuario usuario1 = invocation.getArgument(0);
-			Endereco endereco1 = usuario1.getEnderecos().get(0);
-			EnderecoDTO enderecoDTO = EnderecoDTO.builder().id(endereco1.getId()).cep(endereco1.getCep())
-					.logradouro(endereco1.getLogradouro()).numero(endereco1.getNumero()).estado(endereco1.getEstado())
-					.cidade(endereco1.getCidade()).principal(endereco1.getPrincipal()).build();
-			List<EnderecoDTO> enderecos = new ArrayList<>();
-			enderecos.add(enderecoDTO);
-			UsuarioDTO usuarioDTO = UsuarioDTO.builder().id(usuario1.getId()).nome(usuario1.getNome())
-					.enderecos(enderecos).build();
-			return usuarioDTO;
-		});
+		when(usuarioRepository.listAllIdsByPages(Mockito.any())).thenReturn(pageUsuario);
+		when(usuarioRepository.findLinhasByIdIn(Mockito.any())).thenReturn(List.of(linha(usuario, endereco)));
 
 		// Execução do método a ser testado
 		ResponseEntity<ResponseWrapper<Page<UsuarioDTO>>> responseEntity = usuarioService.findAll(1, 50);
@@ -281,7 +302,7 @@ class UsuarioServiceTest {
 	void testeBuscaTodosUsuariosComPaginacaoRetornaErro() throws Exception {
 
 		// Configurar comportamento simulado do repository
-		when(usuarioRepository.listAllByPages(Mockito.any())).thenReturn(pageUsuarioEmpty);
+		when(usuarioRepository.listAllIdsByPages(Mockito.any())).thenReturn(pageUsuarioEmpty);
 
 		// Execução do método a ser testado
 		ResponseEntity<ResponseWrapper<Page<UsuarioDTO>>> responseEntity = usuarioService.findAll(1, 50);
@@ -297,34 +318,6 @@ class UsuarioServiceTest {
 		when(usuarioRepository.save(Mockito.any())).thenReturn(usuario);
 		when(enderecoRepository.save(Mockito.any())).thenReturn(endereco);
 
-		// Configuração do comportamento simulado do ModelMapper
-		when(modelMapper.map(any(), eq(Usuario.class))).thenAnswer(invocation -> {
-			UsuarioDTO usuario1 = invocation.getArgument(0);
-			EnderecoDTO endereco1 = usuario1.getEnderecos().get(0);
-			Endereco endereco2 = Endereco.builder().id(endereco1.getId()).cep(endereco1.getCep())
-					.logradouro(endereco1.getLogradouro()).numero(endereco1.getNumero()).estado(endereco1.getEstado())
-					.cidade(endereco1.getCidade()).principal(endereco1.getPrincipal()).build();
-			List<Endereco> enderecos2 = new ArrayList<>();
-			enderecos2.add(endereco2);
-			Usuario usuario2 = Usuario.builder().id(usuario1.getId()).nome(usuario1.getNome())
-					.enderecos(enderecos2).build();
-			return usuario2;
-		});
-				
-		// Configuração do comportamento simulado do ModelMapper
-		when(modelMapper.map(any(), eq(UsuarioDTO.class))).thenAnswer(invocation -> {
-			Usuario usuario1 = invocation.getArgument(0);
-			Endereco endereco1 = usuario1.getEnderecos().get(0);
-			EnderecoDTO enderecoDTO = EnderecoDTO.builder().id(endereco1.getId()).cep(endereco1.getCep())
-					.logradouro(endereco1.getLogradouro()).numero(endereco1.getNumero()).estado(endereco1.getEstado())
-					.cidade(endereco1.getCidade()).principal(endereco1.getPrincipal()).build();
-			List<EnderecoDTO> enderecos = new ArrayList<>();
-			enderecos.add(enderecoDTO);
-			UsuarioDTO usuarioDTO = UsuarioDTO.builder().id(usuario1.getId()).nome(usuario1.getNome())
-					.enderecos(enderecos).build();
-			return usuarioDTO;
-		});
-
 		// Execução do método a ser testado
 		ResponseEntity<ResponseWrapper<UsuarioDTO>> responseEntity = usuarioService.salvarUsuario(usuarioDTO);
 
@@ -343,20 +336,6 @@ class UsuarioServiceTest {
 		Endereco endereco3 = Endereco.builder().build();
 		when(enderecoRepository.save(Mockito.any())).thenReturn(endereco3);
 		
-		// Configuração do comportamento simulado do ModelMapper
-		when(modelMapper.map(any(), eq(Usuario.class))).thenAnswer(invocation -> {
-			UsuarioDTO usuario1 = invocation.getArgument(0);
-			EnderecoDTO endereco1 = usuario1.getEnderecos().get(0);
-			Endereco endereco2 = Endereco.builder().id(endereco1.getId()).cep(endereco1.getCep())
-					.logradouro(endereco1.getLogradouro()).numero(endereco1.getNumero()).estado(endereco1.getEstado())
-					.cidade(endereco1.getCidade()).principal(endereco1.getPrincipal()).build();
-			List<Endereco> enderecos2 = new ArrayList<>();
-			enderecos2.add(endereco2);
-			Usuario usuario2 = Usuario.builder().id(usuario1.getId()).nome(usuario1.getNome())
-					.enderecos(enderecos2).build();
-			return usuario2;
-		});
-
 		// Execução do método a ser testado
 		ResponseEntity<ResponseWrapper<UsuarioDTO>> responseEntity = usuarioService.salvarUsuario(usuarioDTO);
 
@@ -364,6 +343,37 @@ class UsuarioServiceTest {
 		assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
 	}
 	
+	@Test
+	void testeSalvarUsuarioComDoisEnderecosPrincipaisRetornaErro() throws Exception {
+
+		// Execução do método a ser testado
+		usuarioDTO.setEnderecos(List.of(EnderecoDTO.builder().cep("59248970").principal(true).build(),
+				EnderecoDTO.builder().cep("01001000").principal(true).build()));
+		ResponseEntity<ResponseWrapper<UsuarioDTO>> responseEntity = usuarioService.salvarUsuario(usuarioDTO);
+
+		// Verificação do resultado
+		assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+		assertNotNull(responseEntity.getBody().getMessage());
+		Mockito.verifyNoInteractions(usuarioRepository, enderecoRepository);
+	}
+
+	@Test
+	void testeSalvarUsuarioComPrincipalGravadoAoMesmoTempoRetornaConflito() throws Exception {
+
+		// Configurar comportamento simulado do repository: outra requisicao gravou o principal antes
+		when(usuarioRepository.save(Mockito.any())).thenReturn(usuario);
+		when(enderecoRepository.save(Mockito.any())).thenThrow(new DataIntegrityViolationException("could not execute statement",
+				new RuntimeException("Unique index or primary key violation: \"PUBLIC.UK_ENDERECO_PRINCIPAL\"")));
+
+		// Execução do método a ser testado
+		enderecoDTO.setPrincipal(true);
+		ResponseEntity<ResponseWrapper<UsuarioDTO>> responseEntity = usuarioService.salvarUsuario(usuarioDTO);
+
+		// Verificação do resultado
+		assertEquals(HttpStatus.CONFLICT, responseEntity.getStatusCode());
+		assertNotNull(responseEntity.getBody().getMessage());
+	}
+
 	@Test
 	void testeSalvarEnderecoDeUsuarioComSucesso() throws Exception {
 
@@ -372,24 +382,6 @@ class UsuarioServiceTest {
 		when(enderecoRepository.findByUsuarioId(Mockito.any())).thenReturn(enderecos);
 		when(enderecoRepository.save(Mockito.any())).thenReturn(endereco);
 
-		// Configuração do comportamento simulado do ModelMapper
-		when(modelMapper.map(any(), eq(Endereco.class))).thenAnswer(invocation -> {
-			EnderecoDTO endereco1 = invocation.getArgument(0);
-			Endereco endereco3 = Endereco.builder().id(endereco1.getId()).cep(endereco1.getCep())
-					.logradouro(endereco1.getLogradouro()).numero(endereco1.getNumero()).estado(endereco1.getEstado())
-					.cidade(endereco1.getCidade()).principal(endereco1.getPrincipal()).build();
-			return endereco3;
-		});
-		
-		// Configuração do comportamento simulado do ModelMapper
-		when(modelMapper.map(any(), eq(EnderecoDTO.class))).thenAnswer(invocation -> {
-			Endereco endereco1 = invocation.getArgument(0);
-			EnderecoDTO enderecoDTO = EnderecoDTO.builder().id(endereco1.getId()).cep(endereco1.getCep())
-					.logradouro(endereco1.getLogradouro()).numero(endereco1.getNumero()).estado(endereco1.getEstado())
-					.cidade(endereco1.getCidade()).principal(endereco1.getPrincipal()).build();
-			return enderecoDTO;
-		});
-				
 		// Execução do método a ser testado
 		ResponseEntity<ResponseWrapper<EnderecoDTO>> responseEntity = usuarioService.salvarEndereco(enderecoDTO, usuario.getId());
 
@@ -407,15 +399,6 @@ class UsuarioServiceTest {
 		when(enderecoRepository.findByUsuarioId(Mockito.any())).thenReturn(enderecos);
 		when(enderecoRepository.save(Mockito.any())).thenReturn(endereco);
 
-		// Configuração do comportamento simulado do ModelMapper
-		when(modelMapper.map(any(), eq(Endereco.class))).thenAnswer(invocation -> {
-			EnderecoDTO endereco1 = invocation.getArgument(0);
-			Endereco endereco3 = Endereco.builder().id(endereco1.getId()).cep(endereco1.getCep())
-					.logradouro(endereco1.getLogradouro()).numero(endereco1.getNumero()).estado(endereco1.getEstado())
-					.cidade(endereco1.getCidade()).principal(endereco1.getPrincipal()).build();
-			return endereco3;
-		});
-				
 		// Execução do método a ser testado
 		ResponseEntity<ResponseWrapper<EnderecoDTO>> responseEntity = usuarioService.salvarEndereco(enderecoDTO, usuario.getId());
 
@@ -432,15 +415,6 @@ class UsuarioServiceTest {
 		Endereco endereco4 = Endereco.builder().build();
 		when(enderecoRepository.save(Mockito.any())).thenReturn(endereco4);
 
-		// Configuração do comportamento simulado do ModelMapper
-		when(modelMapper.map(any(), eq(Endereco.class))).thenAnswer(invocation -> {
-			EnderecoDTO endereco1 = invocation.getArgument(0);
-			Endereco endereco3 = Endereco.builder().id(endereco1.getId()).cep(endereco1.getCep())
-					.logradouro(endereco1.getLogradouro()).numero(endereco1.getNumero()).estado(endereco1.getEstado())
-					.cidade(endereco1.getCidade()).principal(endereco1.getPrincipal()).build();
-			return endereco3;
-		});
-				
 		// Execução do método a ser testado
 		ResponseEntity<ResponseWrapper<EnderecoDTO>> responseEntity = usuarioService.salvarEndereco(enderecoDTO, usuario.getId());
 
@@ -453,27 +427,8 @@ class UsuarioServiceTest {
 
 		// Configurar comportamento simulado do repository
 		when(usuarioRepository.findById(Mockito.any())).thenReturn(Optional.of(usuario));
-		when(enderecoRepository.findByUsuarioId(Mockito.any())).thenReturn(enderecos);
 		when(enderecoRepository.save(Mockito.any())).thenReturn(endereco);
 
-		// Configuração do comportamento simulado do ModelMapper
-		when(modelMapper.map(any(), eq(Endereco.class))).thenAnswer(invocation -> {
-			EnderecoDTO endereco1 = invocation.getArgument(0);
-			Endereco endereco3 = Endereco.builder().id(endereco1.getId()).cep(endereco1.getCep())
-					.logradouro(endereco1.getLogradouro()).numero(endereco1.getNumero()).estado(endereco1.getEstado())
-					.cidade(endereco1.getCidade()).principal(endereco1.getPrincipal()).build();
-			return endereco3;
-		});
-		
-		// Configuração do comportamento simulado do ModelMapper
-		when(modelMapper.map(any(), eq(EnderecoDTO.class))).thenAnswer(invocation -> {
-			Endereco endereco1 = invocation.getArgument(0);
-			EnderecoDTO enderecoDTO = EnderecoDTO.builder().id(endereco1.getId()).cep(endereco1.getCep())
-					.logradouro(endereco1.getLogradouro()).numero(endereco1.getNumero()).estado(endereco1.getEstado())
-					.cidade(endereco1.getCidade()).principal(endereco1.getPrincipal()).build();
-			return enderecoDTO;
-		});
-				
 		// Execução do método a ser testado
 		enderecoDTO.setPrincipal(true);
 		ResponseEntity<ResponseWrapper<EnderecoDTO>> responseEntity = usuarioService.salvarEndereco(enderecoDTO, usuario.getId());
@@ -482,6 +437,9 @@ class UsuarioServiceTest {
 		assertEquals(HttpStatus.CREATED, responseEntity.getStatusCode());
 		assertEquals(enderecoDTO.getId(), responseEntity.getBody().getData().getId());
 		assertEquals(null, responseEntity.getBody().getMessage());
+		// o principal anterior e desmarcado sem listar os enderecos do usuario
+		Mockito.verify(enderecoRepository).desmarcarPrincipal(usuario.getId(), enderecoDTO.getId());
+		Mockito.verify(enderecoRepository, Mockito.never()).findByUsuarioId(Mockito.any());
 	}
 	
 	@Test
@@ -515,7 +473,7 @@ class UsuarioServiceTest {
 
 		// Configurar comportamento simulado do repository
 		when(usuarioRepository.existsById(Mockito.any())).thenReturn(true);
-		when(enderecoRepository.existsById(Mockito.any())).thenReturn(true);
+		when(enderecoRepository.findIdUsuarioById(Mockito.any())).thenReturn(Optional.of(usuario.getId()));
 		doNothing().when(enderecoRepository).deleteById(Mockito.any());
 
 		ResponseEntity<ResponseWrapper<String>> responseEntity = usuarioService.deleteEndereco(usuario.getId(), endereco.getId());
@@ -524,6 +482,19 @@ class UsuarioServiceTest {
 
 	}
 	
+	@Test
+	void testeDeletarEnderecoDeOutroUsuarioRetornaErro() throws Exception {
+
+		// Configurar comportamento simulado do repository: o endereco existe, mas e de outro usuario
+		when(usuarioRepository.existsById(Mockito.any())).thenReturn(true);
+		when(enderecoRepository.findIdUsuarioById(Mockito.any())).thenReturn(Optional.of(2L));
+
+		ResponseEntity<ResponseWrapper<String>> responseEntity = usuarioService.deleteEndereco(usuario.getId(), endereco.getId());
+		// Verificação do resultado
+		assertEquals(HttpStatus.NOT_FOUND, responseEntity.getStatusCode());
+		Mockito.verify(enderecoRepository, Mockito.never()).deleteById(Mockito.any());
+	}
+	
 	@Test
 	void testeDeletarEnderecoDeUsuarioComErroDeUsuarioNaoEncontrado() throws Exception {
 
@@ -542,7 +513,7 @@ class UsuarioServiceTest {
 
 		// Configurar comportamento simulado do repository
 		when(usuarioRepository.existsById(Mockito.any())).thenReturn(true);
-		when(enderecoRepository.existsById(Mockito.any())).thenReturn(false);
+		when(enderecoRepository.findIdUsuarioById(Mockito.any())).thenReturn(Optional.empty());
 		doNothing().when(enderecoRepository).deleteById(Mockito.any());
 
 		ResponseEntity<ResponseWrapper<String>> responseEntity = usuarioService.deleteEndereco(usuario.getId(), endereco.getId());
@@ -550,4 +521,66 @@ class UsuarioServiceTest {
 		assertEquals(HttpStatus.NOT_FOUND, responseEntity.getStatusCode());
 
 	}
+	
+	@Test
+	void testeBuscaTodosUsuariosComMesmoNomeComCursorRetornaSucesso() throws Exception {
+
+		// Configurar comportamento simulado do repository
+		Usuario usuario2 = Usuario.builder().id(2L).nome("Manoel Rafael Osvaldo Assis").build();
+		usuarios.add(usuario2);
+		when(indiceNomeUsuario.buscarApos(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyInt())).thenReturn(null);
+		when(usuarioRepository.findByNomeLikeAfter(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(usuarios);
+		when(usuarioRepository.findComEnderecosByIdIn(Mockito.any())).thenReturn(usuarios);
+
+		// Execução do método a ser testado
+		ResponseEntity<ResponseWrapper<CursorPage<UsuarioDTO>>> responseEntity = usuarioService.findByNomeLikeCursor(null, 1, "Manoel");
+
+		// Verificação do resultado: o cursor guarda o nome e o id da ultima linha retornada
+		assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+		assertEquals(1, responseEntity.getBody().getData().getContent().size());
+		Cursor cursor = Cursor.decode(responseEntity.getBody().getData().getNext());
+		assertEquals(usuario.getId(), cursor.getId());
+		assertEquals(usuario.getNome(), cursor.getChave());
+	}
+
+	@Test
+	void testeBuscaTodosUsuariosComCursorInvalidoRetornaErro() throws Exception {
+
+		// Execução do método a ser testado
+		ResponseEntity<ResponseWrapper<CursorPage<UsuarioDTO>>> responseEntity = usuarioService.findAllCursor("%%%", 50);
+
+		// Verificação do resultado
+		assertEquals(HttpStatus.BAD_REQUEST, responseEntity.getStatusCode());
+	}
+
+	@Test
+	void testeBuscaTodosEnderecosDeUmUsuarioComCursorRetornaErro() throws Exception {
+
+		// Configurar comportamento simulado do repository
+		when(enderecoRepository.findByUsuarioIdAfter(Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(enderecosEmpty);
+
+		// Execução do método a ser testado
+		ResponseEntity<ResponseWrapper<CursorPage<EnderecoDTO>>> responseEntity = usuarioService.findEnderecoByIdUsuarioCursor(usuario.getId(), null, 50);
+
+		// Verificação do resultado
+		assertEquals(HttpStatus.NOT_FOUND, responseEntity.getStatusCode());
+	}
+
+	// linha da projecao de usuarios (usuario x endereco) como o Spring Data devolve
+	private static LinhaUsuario linha(Usuario usuario, Endereco endereco) {
+		Map<String, Object> valores = new HashMap<>();
+		valores.put("id", usuario.getId());
+		valores.put("nome", usuario.getNome());
+		valores.put("dataNascimento", usuario.getDataNascimento());
+		if (endereco != null) {
+			valores.put("idEndereco", endereco.getId());
+			valores.put("cep", endereco.getCep());
+			valores.put("logradouro", endereco.getLogradouro());
+			valores.put("cidade", endereco.getCidade());
+			valores.put("estado", endereco.getEstado());
+			valores.put("numero", endereco.getNumero());
+			valores.put("principal", endereco.getPrincipal());
+		}
+		return new SpelAwareProxyProjectionFactory().createProjection(LinhaUsuario.class, valores);
+	}
 }